@@ -0,0 +1,127 @@
+package com.zufang.cache;
+
+import com.zufang.common.util.LruCache;
+import com.zufang.entity.House;
+import com.zufang.entity.User;
+import com.zufang.event.HouseChangedEvent;
+import com.zufang.mapper.HouseMapper;
+import com.zufang.mapper.UserMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 聊天参与者缓存
+ * 发送聊天消息时校验接收者、房源是否存在并获取发送者昵称头像，结果在进程内短时间缓存（有界LRU），
+ * 只缓存存在的用户和房源；房源变更事务提交后失效
+ */
+@Component
+public class ChatParticipantCache {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private HouseMapper houseMapper;
+
+    @Value("${zufang.chat.participant-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${zufang.chat.participant-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final LruCache<Long, Participant> users = new LruCache<>(() -> maxSize);
+
+    private final LruCache<Long, Boolean> houses = new LruCache<>(() -> maxSize);
+
+    /**
+     * 获取用户的昵称和头像
+     * @param userId 用户ID
+     * @return 用户不存在返回null
+     */
+    public Participant getUser(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        Participant cached = users.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        User user = userMapper.selectById(userId);
+        if (user == null) {
+            return null;
+        }
+        Participant participant = new Participant(user.getId(), user.getNickname(), user.getAvatar());
+        users.put(userId, participant, expireAt());
+        return participant;
+    }
+
+    /**
+     * 房源是否存在（未删除）
+     * @param houseId 房源ID
+     */
+    public boolean houseExists(Long houseId) {
+        if (houseId == null) {
+            return false;
+        }
+        if (houses.get(houseId) != null) {
+            return true;
+        }
+        House house = houseMapper.selectById(houseId);
+        if (house == null) {
+            return false;
+        }
+        houses.put(houseId, Boolean.TRUE, expireAt());
+        return true;
+    }
+
+    /**
+     * 用户信息变更后失效缓存
+     * @param userId 用户ID
+     */
+    public void evictUser(Long userId) {
+        users.remove(userId);
+    }
+
+    /**
+     * 房源变更事务提交后失效缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHouseChanged(HouseChangedEvent event) {
+        houses.remove(event.getHouseId());
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("userSize", users.size());
+        stats.put("houseSize", houses.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", users.getHits() + houses.getHits());
+        stats.put("misses", users.getMisses() + houses.getMisses());
+        return stats;
+    }
+
+    private long expireAt() {
+        return System.currentTimeMillis() + ttlSeconds * 1000;
+    }
+
+    /**
+     * 聊天参与者信息
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Participant {
+        private final Long id;
+        private final String nickname;
+        private final String avatar;
+    }
+}
@@ -0,0 +1,123 @@
+package com.zufang.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zufang.common.constants.RedisConstants;
+import com.zufang.dto.HouseInfoDTO;
+import com.zufang.entity.House;
+import com.zufang.event.HouseChangedEvent;
+import com.zufang.event.UserProfileChangedEvent;
+import com.zufang.mapper.HouseMapper;
+import com.zufang.service.RedisCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 房源详情缓存
+ * 存储由RedisCacheService负责（近端缓存 + Redis，HOUSE_DETAIL_PREFIX，10分钟过期），
+ * 并发未命中合并为一次数据库加载；房源变更事务提交后失效缓存。
+ * 详情中包含房东昵称、头像和电话，房东资料变更事务提交后失效该房东全部房源的缓存
+ */
+@Slf4j
+@Component
+public class HouseDetailCache {
+
+    @Autowired
+    private RedisCacheService redisCacheService;
+
+    @Autowired
+    private HouseMapper houseMapper;
+
+    @Value("${zufang.cache.house-detail.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 获取房源详情，未命中时调用加载函数并写入缓存
+     * @param houseId 房源ID
+     * @param loader 从数据库加载房源详情
+     * @return 房源详情，房源不存在返回null
+     */
+    public HouseInfoDTO getOrLoad(Long houseId, Supplier<HouseInfoDTO> loader) {
+        if (!enabled || houseId == null) {
+            return loader.get();
+        }
+        requests.incrementAndGet();
+        return redisCacheService.getOrLoad(key(houseId), HouseInfoDTO.class,
+                RedisConstants.HOUSE_DETAIL_EXPIRE_TIME, TimeUnit.SECONDS, () -> {
+                    loads.incrementAndGet();
+                    return loader.get();
+                });
+    }
+
+    /**
+     * 使房源详情缓存失效
+     * @param houseId 房源ID
+     */
+    public void evict(Long houseId) {
+        if (houseId == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        redisCacheService.delete(key(houseId));
+    }
+
+    /**
+     * 房源变更事务提交后失效缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHouseChanged(HouseChangedEvent event) {
+        evict(event.getHouseId());
+    }
+
+    /**
+     * 房东资料变更事务提交后失效其房源的缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserProfileChanged(UserProfileChangedEvent event) {
+        if (!enabled || event.getUserId() == null) {
+            return;
+        }
+        try {
+            LambdaQueryWrapper<House> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(House::getId);
+            wrapper.eq(House::getOwnerId, event.getUserId());
+            List<House> houses = houseMapper.selectList(wrapper);
+            for (House house : houses) {
+                evict(house.getId());
+            }
+        } catch (Exception e) {
+            log.error("房东资料变更后失效房源详情缓存失败, 用户ID: {}", event.getUserId(), e);
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        long total = requests.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("requests", total);
+        stats.put("loads", loads.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (total - loads.get()) / total);
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private String key(Long houseId) {
+        return RedisConstants.HOUSE_DETAIL_PREFIX + houseId;
+    }
+}
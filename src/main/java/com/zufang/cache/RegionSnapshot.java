@@ -0,0 +1,328 @@
+package com.zufang.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zufang.common.Result;
+import com.zufang.dto.RegionDTO;
+import com.zufang.entity.RegionCity;
+import com.zufang.entity.RegionDistrict;
+import com.zufang.entity.RegionProvince;
+import com.zufang.event.RegionChangedEvent;
+import com.zufang.mapper.RegionCityMapper;
+import com.zufang.mapper.RegionDistrictMapper;
+import com.zufang.mapper.RegionProvinceMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 省市区内存快照
+ * 启动时用三次查询加载全部省份、城市、区域，构建按ID、代码、名称索引的不可变快照，
+ * 同时预先序列化地区树接口的响应体并计算ETag；地区变更事务提交后整体重建并原子替换。
+ * 快照不可用时get()返回null，由调用方直接查询数据库
+ */
+@Slf4j
+@Component
+public class RegionSnapshot {
+
+    @Autowired
+    private RegionProvinceMapper regionProvinceMapper;
+
+    @Autowired
+    private RegionCityMapper regionCityMapper;
+
+    @Autowired
+    private RegionDistrictMapper regionDistrictMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${zufang.cache.region.enabled:true}")
+    private boolean enabled;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 变更代数，每个已提交的地区变更加1
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 当前快照开始加载时的变更代数，不大于该值的变更都已包含在快照中
+     */
+    private volatile long loadedGeneration = -1;
+
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * 应用启动完成后加载快照
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * 地区变更事务提交后重建快照
+     * 提交后才递增变更代数，在此之后开始的加载一定能读到本次变更；
+     * 等待期间已有其他线程开始了新的加载时跳过，并发的多个变更只重建一次
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRegionChanged(RegionChangedEvent event) {
+        long committed = generation.incrementAndGet();
+        synchronized (this) {
+            if (loadedGeneration >= committed) {
+                return;
+            }
+            reload();
+        }
+    }
+
+    /**
+     * 从数据库重建快照并替换当前快照，失败时清空快照，查询回退到数据库
+     */
+    public synchronized void reload() {
+        if (!enabled) {
+            return;
+        }
+        long startAt = System.currentTimeMillis();
+        long startGeneration = generation.get();
+        try {
+            Snapshot loaded = load();
+            snapshot = loaded;
+            loadedGeneration = startGeneration;
+            reloads.incrementAndGet();
+            log.info("省市区快照加载完成, 省份: {}, 城市: {}, 区域: {}, 耗时: {}ms",
+                    loaded.provinces.size(), loaded.cityById.size(), loaded.districtById.size(),
+                    System.currentTimeMillis() - startAt);
+        } catch (Exception e) {
+            snapshot = null;
+            loadedGeneration = -1;
+            failures.incrementAndGet();
+            log.error("省市区快照加载失败, 地区查询将直接访问数据库: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取当前快照
+     * @return 快照未启用或加载失败时返回null
+     */
+    public Snapshot get() {
+        return snapshot;
+    }
+
+    /**
+     * 从数据库加载一份新的快照（不替换当前快照）
+     */
+    public Snapshot load() {
+        LambdaQueryWrapper<RegionProvince> provinceWrapper = new LambdaQueryWrapper<>();
+        provinceWrapper.orderByAsc(RegionProvince::getId);
+        LambdaQueryWrapper<RegionCity> cityWrapper = new LambdaQueryWrapper<>();
+        cityWrapper.orderByAsc(RegionCity::getId);
+        LambdaQueryWrapper<RegionDistrict> districtWrapper = new LambdaQueryWrapper<>();
+        districtWrapper.orderByAsc(RegionDistrict::getId);
+        return new Snapshot(regionProvinceMapper.selectList(provinceWrapper),
+                regionCityMapper.selectList(cityWrapper),
+                regionDistrictMapper.selectList(districtWrapper),
+                objectMapper);
+    }
+
+    /**
+     * 获取快照统计信息
+     */
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", current != null);
+        stats.put("provinces", current == null ? 0 : current.provinces.size());
+        stats.put("cities", current == null ? 0 : current.cityById.size());
+        stats.put("districts", current == null ? 0 : current.districtById.size());
+        stats.put("etag", current == null ? null : current.etag);
+        stats.put("reloads", reloads.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    /**
+     * 不可变的省市区快照
+     * 返回的实体对象在所有请求间共享，调用方不得修改
+     */
+    public static class Snapshot {
+        private final List<RegionProvince> provinces;
+        private final Map<Long, RegionProvince> provinceById = new HashMap<>();
+        private final Map<String, RegionProvince> provinceByCode = new HashMap<>();
+        private final Map<String, RegionProvince> provinceByName = new HashMap<>();
+
+        private final Map<Long, RegionCity> cityById = new HashMap<>();
+        private final Map<String, RegionCity> cityByCode = new HashMap<>();
+        private final Map<String, RegionCity> cityByName = new HashMap<>();
+        private final Map<Long, List<RegionCity>> citiesByProvince = new HashMap<>();
+
+        private final Map<Long, RegionDistrict> districtById = new HashMap<>();
+        private final Map<String, RegionDistrict> districtByCode = new HashMap<>();
+        private final Map<String, RegionDistrict> districtByName = new HashMap<>();
+        private final Map<Long, List<RegionDistrict>> districtsByCity = new HashMap<>();
+
+        private final byte[] treeJson;
+        private final String etag;
+
+        Snapshot(List<RegionProvince> provinces, List<RegionCity> cities, List<RegionDistrict> districts,
+                 ObjectMapper objectMapper) {
+            this.provinces = Collections.unmodifiableList(new ArrayList<>(provinces));
+            for (RegionProvince province : provinces) {
+                provinceById.put(province.getId(), province);
+                putIfPresent(provinceByCode, province.getCode(), province);
+                putIfPresent(provinceByName, province.getName(), province);
+            }
+
+            Map<Long, List<RegionCity>> cityGroups = new HashMap<>();
+            for (RegionCity city : cities) {
+                cityById.put(city.getId(), city);
+                putIfPresent(cityByCode, city.getCode(), city);
+                putIfPresent(cityByName, nameKey(city.getProvinceId(), city.getName()), city);
+                cityGroups.computeIfAbsent(city.getProvinceId(), key -> new ArrayList<>()).add(city);
+            }
+            cityGroups.forEach((provinceId, list) -> citiesByProvince.put(provinceId, Collections.unmodifiableList(list)));
+
+            Map<Long, List<RegionDistrict>> districtGroups = new HashMap<>();
+            for (RegionDistrict district : districts) {
+                districtById.put(district.getId(), district);
+                putIfPresent(districtByCode, district.getCode(), district);
+                putIfPresent(districtByName, nameKey(district.getCityId(), district.getName()), district);
+                districtGroups.computeIfAbsent(district.getCityId(), key -> new ArrayList<>()).add(district);
+            }
+            districtGroups.forEach((cityId, list) -> districtsByCity.put(cityId, Collections.unmodifiableList(list)));
+
+            try {
+                this.treeJson = objectMapper.writeValueAsBytes(Result.success(buildTree()));
+            } catch (Exception e) {
+                throw new IllegalStateException("序列化地区树失败", e);
+            }
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(treeJson) + "\"";
+        }
+
+        public List<RegionProvince> getProvinces() {
+            return provinces;
+        }
+
+        public RegionProvince getProvince(Long id) {
+            return id == null ? null : provinceById.get(id);
+        }
+
+        public RegionProvince getProvinceByCode(String code) {
+            return code == null ? null : provinceByCode.get(code);
+        }
+
+        public RegionProvince getProvinceByName(String name) {
+            return name == null ? null : provinceByName.get(name);
+        }
+
+        public List<RegionCity> getCities(Long provinceId) {
+            return citiesByProvince.getOrDefault(provinceId, Collections.emptyList());
+        }
+
+        public RegionCity getCity(Long id) {
+            return id == null ? null : cityById.get(id);
+        }
+
+        public RegionCity getCityByCode(String code) {
+            return code == null ? null : cityByCode.get(code);
+        }
+
+        /**
+         * 按名称查找城市，城市名称只在同一省份内唯一
+         */
+        public RegionCity getCityByName(Long provinceId, String name) {
+            return name == null ? null : cityByName.get(nameKey(provinceId, name));
+        }
+
+        public List<RegionDistrict> getDistricts(Long cityId) {
+            return districtsByCity.getOrDefault(cityId, Collections.emptyList());
+        }
+
+        public RegionDistrict getDistrict(Long id) {
+            return id == null ? null : districtById.get(id);
+        }
+
+        public RegionDistrict getDistrictByCode(String code) {
+            return code == null ? null : districtByCode.get(code);
+        }
+
+        /**
+         * 按名称查找区域，区域名称只在同一城市内唯一
+         */
+        public RegionDistrict getDistrictByName(Long cityId, String name) {
+            return name == null ? null : districtByName.get(nameKey(cityId, name));
+        }
+
+        /**
+         * 地区树接口的完整响应体（Result JSON）
+         */
+        public byte[] getTreeJson() {
+            return treeJson;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * 构建地区树，每次返回新的DTO对象，调用方可以修改
+         */
+        public List<RegionDTO> buildTree() {
+            List<RegionDTO> tree = new ArrayList<>(provinces.size());
+            for (RegionProvince province : provinces) {
+                RegionDTO provinceDTO = toDTO(province.getId(), province.getName(), province.getCode(), null);
+                List<RegionDTO> cityDTOs = new ArrayList<>();
+                for (RegionCity city : getCities(province.getId())) {
+                    RegionDTO cityDTO = toDTO(city.getId(), city.getName(), city.getCode(), province.getId());
+                    List<RegionDTO> districtDTOs = new ArrayList<>();
+                    for (RegionDistrict district : getDistricts(city.getId())) {
+                        RegionDTO districtDTO = toDTO(district.getId(), district.getName(), district.getCode(), city.getId());
+                        districtDTO.setChildren(new ArrayList<>()); // 区域没有子级
+                        districtDTOs.add(districtDTO);
+                    }
+                    cityDTO.setChildren(districtDTOs);
+                    cityDTOs.add(cityDTO);
+                }
+                provinceDTO.setChildren(cityDTOs);
+                tree.add(provinceDTO);
+            }
+            return tree;
+        }
+
+        private static RegionDTO toDTO(Long id, String name, String code, Long parentId) {
+            RegionDTO dto = new RegionDTO();
+            dto.setId(id);
+            dto.setName(name);
+            dto.setCode(code);
+            dto.setParentId(parentId);
+            return dto;
+        }
+
+        private static String nameKey(Long parentId, String name) {
+            return parentId + ":" + name;
+        }
+
+        private static <V> void putIfPresent(Map<String, V> index, String key, V value) {
+            // 重复的代码或名称保留ID最小的一条，与按ID排序的查询结果一致
+            if (key != null) {
+                index.putIfAbsent(key, value);
+            }
+        }
+    }
+}
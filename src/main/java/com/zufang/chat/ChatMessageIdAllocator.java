@@ -0,0 +1,107 @@
+package com.zufang.chat;
+
+import com.zufang.mapper.IdSequenceMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 聊天消息ID分配器
+ * 每个实例从id_sequence表原子地预留一段ID（号段），在号段内递增分配，用完后再预留下一段；
+ * 不同实例的号段互不重叠，多实例部署时预先分配的ID也不会冲突。
+ * ID保持为数据库自增ID同一量级的小整数，前端按数字处理不会丢失精度
+ */
+@Slf4j
+@Component
+public class ChatMessageIdAllocator {
+
+    private static final String SEQUENCE_NAME = "chat_message";
+
+    @Autowired
+    private IdSequenceMapper idSequenceMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${zufang.chat.id-block-size:1000}")
+    private int blockSize;
+
+    /**
+     * 预留号段使用独立事务，不受调用方事务影响，也不长时间持有序列行锁
+     */
+    private TransactionTemplate reserveTemplate;
+
+    /**
+     * 当前号段中下一个可分配的ID和号段的最大ID
+     */
+    private long next = 1;
+    private long end = 0;
+
+    private volatile boolean ready = false;
+
+    private final AtomicLong reservedBlocks = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        reserveTemplate = new TransactionTemplate(transactionManager);
+        reserveTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            idSequenceMapper.insertIgnore(SEQUENCE_NAME);
+            ready = true;
+        } catch (Exception e) {
+            log.warn("聊天消息ID号段不可用, 消息将使用数据库自增ID同步写入: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 是否可以预先分配消息ID
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 分配下一个消息ID，当前号段用完时预留新号段
+     */
+    public synchronized long nextId() {
+        if (next > end) {
+            reserve();
+        }
+        return next++;
+    }
+
+    /**
+     * 获取分配统计信息
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", ready);
+        stats.put("blockSize", blockSize);
+        stats.put("reservedBlocks", reservedBlocks.get());
+        stats.put("remaining", Math.max(0, end - next + 1));
+        return stats;
+    }
+
+    private void reserve() {
+        Long max = reserveTemplate.execute(status -> {
+            idSequenceMapper.reserveChatMessageIds(blockSize);
+            return idSequenceMapper.selectLastInsertId();
+        });
+        if (max == null || max < blockSize) {
+            throw new IllegalStateException("预留聊天消息ID号段失败");
+        }
+        end = max;
+        next = max - blockSize + 1;
+        reservedBlocks.incrementAndGet();
+        log.info("预留聊天消息ID号段: {} - {}", next, end);
+    }
+}
@@ -0,0 +1,493 @@
+package com.zufang.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zufang.entity.ChatMessage;
+import com.zufang.mapper.ChatMessageMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 聊天消息异步批量写入器
+ * 1. 消息ID在发送时由ChatMessageIdAllocator按号段预先分配，推送和落库都使用同一个ID，多实例之间不会重复；
+ * 2. 消息进入有界队列，由单个后台线程按批量多行INSERT写入，一批消息只占用一次数据库连接；
+ * 3. 队列已满或数据库不可用时消息追加到本地溢出文件，后台线程定期重放，内容相同的已落库消息视为重放跳过；
+ *    ID已被其他消息占用属于冲突，冲突消息记录错误日志并写入冲突文件，不会被静默丢弃；
+ * 4. 整批写入因数据库不可用以外的原因失败时逐条写入，单条仍失败的消息写入死信文件，不再重放，
+ *    避免一条异常消息拖住整批以及之后的所有消息；
+ * 5. 读取会话前调用awaitFlushed等待本实例已提交的消息落库；其他实例队列中的消息不在等待范围内，
+ *    标记已读之后才落库的消息保持未读，下次标记已读时处理；
+ * 6. ID号段不可用则不启用，消息按原方式同步写入。
+ */
+@Slf4j
+@Component
+public class ChatMessageWriter {
+
+    private static final String REPLAYING_SUFFIX = ".replaying";
+
+    private static final String CONFLICT_SUFFIX = ".conflict";
+
+    private static final String DEAD_LETTER_SUFFIX = ".dead";
+
+    @Autowired
+    private ChatMessageMapper chatMessageMapper;
+
+    @Autowired
+    private ChatSessionSummary chatSessionSummary;
+
+    @Autowired
+    private ChatMessageIdAllocator chatMessageIdAllocator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${zufang.chat.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zufang.chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${zufang.chat.write-behind.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 队列为空时等待新消息的最长时间（毫秒）
+     */
+    @Value("${zufang.chat.write-behind.flush-interval:200}")
+    private long flushInterval;
+
+    /**
+     * 重放溢出文件的间隔（毫秒）
+     */
+    @Value("${zufang.chat.write-behind.replay-interval:10000}")
+    private long replayInterval;
+
+    /**
+     * 读取会话前等待消息落库的最长时间（毫秒）
+     */
+    @Value("${zufang.chat.write-behind.read-wait-timeout:1000}")
+    private long readWaitTimeout;
+
+    @Value("${zufang.chat.write-behind.spill-file:data/chat-message-spill.jsonl}")
+    private String spillFile;
+
+    private BlockingQueue<ChatMessage> queue;
+
+    private final Object spillLock = new Object();
+
+    /**
+     * 进入队列的消息数和已处理（落库或写入溢出文件）的消息数，队列先进先出，
+     * 已处理数追上某一时刻的入队数即表示该时刻之前入队的消息都已处理
+     */
+    private final Object enqueueLock = new Object();
+    private final Object flushMonitor = new Object();
+    private final AtomicLong queuedSeq = new AtomicLong();
+    private final AtomicLong processedSeq = new AtomicLong();
+
+    private volatile boolean ready = false;
+
+    private volatile boolean running = false;
+
+    private Thread worker;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (!chatMessageIdAllocator.isReady()) {
+            log.warn("聊天消息异步写入未启用, 消息将同步写入: ID号段不可用");
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::run, "chat-writer");
+        worker.setDaemon(true);
+        worker.start();
+        ready = true;
+        log.info("聊天消息异步写入已启用");
+    }
+
+    /**
+     * 是否可以使用异步写入
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 提交消息，队列已满时写入溢出文件
+     *
+     * @param message 已分配ID的消息
+     */
+    public void enqueue(ChatMessage message) {
+        enqueued.incrementAndGet();
+        boolean offered;
+        synchronized (enqueueLock) {
+            offered = queue.offer(message);
+            if (offered) {
+                queuedSeq.incrementAndGet();
+            }
+        }
+        if (!offered) {
+            log.warn("聊天消息队列已满, 消息写入溢出文件: 消息ID={}", message.getId());
+            spill(Collections.singletonList(message));
+        }
+    }
+
+    /**
+     * 等待调用之前进入本实例队列的消息全部处理完成，最多等待read-wait-timeout毫秒
+     * 标记已读、读取聊天记录前调用，保证读到本实例已提交的消息；写入溢出文件的消息在重放后才会落库，
+     * 由其他实例接收的消息不在等待范围内
+     */
+    public void awaitFlushed() {
+        if (!ready) {
+            return;
+        }
+        long target;
+        synchronized (enqueueLock) {
+            target = queuedSeq.get();
+        }
+        if (processedSeq.get() >= target) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + readWaitTimeout;
+        synchronized (flushMonitor) {
+            while (processedSeq.get() < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("等待聊天消息落库超时: 待处理{}条", target - processedSeq.get());
+                    return;
+                }
+                try {
+                    flushMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取写入统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", ready);
+        stats.put("queueSize", queue == null ? 0 : queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("enqueued", enqueued.get());
+        stats.put("persisted", persisted.get());
+        stats.put("batches", batches.get());
+        stats.put("spilled", spilled.get());
+        stats.put("replayed", replayed.get());
+        stats.put("failures", failures.get());
+        stats.put("conflicts", conflicts.get());
+        stats.put("deadLetters", deadLetters.get());
+        stats.put("idAllocator", chatMessageIdAllocator.getStats());
+        return stats;
+    }
+
+    /**
+     * 停止时写完队列中剩余的消息，写不完的进入溢出文件
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<ChatMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.warn("停止时仍有未写入的聊天消息, 写入溢出文件: {}条", remaining.size());
+            spill(remaining);
+        }
+    }
+
+    private void run() {
+        long nextReplayAt = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                List<ChatMessage> batch = new ArrayList<>(batchSize);
+                ChatMessage first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    flush(batch);
+                }
+                if (System.currentTimeMillis() >= nextReplayAt) {
+                    nextReplayAt = System.currentTimeMillis() + replayInterval;
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("聊天消息写入线程异常", e);
+            }
+        }
+    }
+
+    private void flush(List<ChatMessage> batch) {
+        try {
+            List<ChatMessage> unwritten = write(batch);
+            if (!unwritten.isEmpty()) {
+                log.error("数据库不可用, 聊天消息写入溢出文件: {}条", unwritten.size());
+                spill(unwritten);
+            }
+        } finally {
+            synchronized (flushMonitor) {
+                processedSeq.addAndGet(batch.size());
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 写入一批消息：数据库不可用时保留整批；其他原因失败时逐条写入，单条仍失败的消息写入死信文件
+     *
+     * @return 因数据库不可用未写入的消息，由调用方写入溢出文件
+     */
+    private List<ChatMessage> write(List<ChatMessage> batch) {
+        try {
+            persist(batch);
+            return Collections.emptyList();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            if (isUnavailable(e)) {
+                return batch;
+            }
+            if (batch.size() == 1) {
+                deadLetter(batch.get(0), e);
+                return Collections.emptyList();
+            }
+            log.warn("批量写入聊天消息失败, 改为逐条写入: {}条, 原因: {}", batch.size(), e.getMessage());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            ChatMessage message = batch.get(i);
+            try {
+                persist(Collections.singletonList(message));
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                if (isUnavailable(e)) {
+                    return batch.subList(i, batch.size());
+                }
+                deadLetter(message, e);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 连接失败、超时、死锁等稍后重试可能成功的异常
+     */
+    private static boolean isUnavailable(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    /**
+     * 单独写入仍失败的消息转存死信文件，不再重放
+     */
+    private void deadLetter(ChatMessage message, Exception e) {
+        deadLetters.incrementAndGet();
+        log.error("聊天消息无法写入, 已转存死信文件: 消息ID={}", message.getId(), e);
+        append(Paths.get(spillFile + DEAD_LETTER_SUFFIX), Collections.singletonList(message));
+    }
+
+    /**
+     * 在一个事务中写入一批消息并更新会话汇总
+     * 内容相同的已落库消息是重放，跳过；ID被其他消息占用的是冲突，记录错误并写入冲突文件
+     */
+    private void persist(List<ChatMessage> batch) {
+        List<ChatMessage> conflicted = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = batch.stream().map(ChatMessage::getId).collect(Collectors.toList());
+            Map<Long, ChatMessage> stored = chatMessageMapper.selectStoredByIds(ids).stream()
+                    .collect(Collectors.toMap(ChatMessage::getId, message -> message));
+            List<ChatMessage> fresh = new ArrayList<>(batch.size());
+            for (ChatMessage message : batch) {
+                ChatMessage existing = stored.get(message.getId());
+                if (existing == null) {
+                    fresh.add(message);
+                } else if (!isSameMessage(existing, message)) {
+                    conflicted.add(message);
+                }
+            }
+            if (fresh.isEmpty()) {
+                return;
+            }
+            chatMessageMapper.insertBatch(fresh);
+            chatSessionSummary.apply(fresh);
+        });
+        batches.incrementAndGet();
+        persisted.addAndGet(batch.size() - conflicted.size());
+        if (!conflicted.isEmpty()) {
+            conflicts.addAndGet(conflicted.size());
+            log.error("聊天消息ID已被其他消息占用, 消息未写入, 已转存冲突文件: {}", conflicted.stream()
+                    .map(ChatMessage::getId).collect(Collectors.toList()));
+            append(Paths.get(spillFile + CONFLICT_SUFFIX), conflicted);
+        }
+    }
+
+    private static boolean isSameMessage(ChatMessage stored, ChatMessage message) {
+        return Objects.equals(stored.getSenderId(), message.getSenderId())
+                && Objects.equals(stored.getReceiverId(), message.getReceiverId())
+                && Objects.equals(stored.getHouseId(), message.getHouseId())
+                && Objects.equals(stored.getContent(), message.getContent());
+    }
+
+    /**
+     * 追加写入溢出文件，每条消息一行JSON
+     */
+    private void spill(List<ChatMessage> messages) {
+        if (append(Paths.get(spillFile), messages)) {
+            spilled.addAndGet(messages.size());
+        }
+    }
+
+    private boolean append(Path path, List<ChatMessage> messages) {
+        synchronized (spillLock) {
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                try (FileOutputStream out = new FileOutputStream(path.toFile(), true);
+                     Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                    for (ChatMessage message : messages) {
+                        writer.write(objectMapper.writeValueAsString(message));
+                        writer.write('\n');
+                    }
+                    writer.flush();
+                    out.getFD().sync();
+                }
+                return true;
+            } catch (IOException e) {
+                log.error("写入聊天消息文件失败, 消息丢失: {}, {}", path, messages.stream()
+                        .map(ChatMessage::getId).collect(Collectors.toList()), e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 重放溢出文件：先改名再读取，重放期间的新溢出写入新文件；
+     * 数据库不可用时剩余消息重新追加到溢出文件，等待下次重放
+     */
+    private void replaySpill() {
+        Path path = Paths.get(spillFile);
+        Path replaying = Paths.get(spillFile + REPLAYING_SUFFIX);
+        synchronized (spillLock) {
+            try {
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(path)) {
+                        return;
+                    }
+                    Files.move(path, replaying, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                log.error("准备重放聊天消息溢出文件失败", e);
+                return;
+            }
+        }
+
+        List<ChatMessage> messages;
+        try {
+            messages = readSpillFile(replaying);
+        } catch (IOException e) {
+            log.error("读取聊天消息溢出文件失败: {}", replaying, e);
+            return;
+        }
+        log.info("开始重放聊天消息溢出文件: {}条", messages.size());
+
+        int written = 0;
+        for (int index = 0; index < messages.size(); index += batchSize) {
+            int end = Math.min(index + batchSize, messages.size());
+            List<ChatMessage> unwritten = write(messages.subList(index, end));
+            written += end - index - unwritten.size();
+            if (!unwritten.isEmpty()) {
+                List<ChatMessage> remaining = new ArrayList<>(unwritten);
+                remaining.addAll(messages.subList(end, messages.size()));
+                log.warn("数据库不可用, 聊天消息溢出文件稍后继续重放: {}条", remaining.size());
+                spill(remaining);
+                break;
+            }
+        }
+        replayed.addAndGet(written);
+        try {
+            Files.deleteIfExists(replaying);
+        } catch (IOException e) {
+            log.error("删除已重放的聊天消息溢出文件失败: {}", replaying, e);
+        }
+    }
+
+    private List<ChatMessage> readSpillFile(Path path) throws IOException {
+        List<ChatMessage> messages = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    messages.add(objectMapper.readValue(line, ChatMessage.class));
+                } catch (IOException e) {
+                    // 进程中断可能留下不完整的最后一行
+                    log.error("跳过无法解析的聊天消息溢出记录: {}", line, e);
+                }
+            }
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,162 @@
+package com.zufang.chat;
+
+import com.zufang.common.util.IncrementalSummary;
+import com.zufang.common.util.SummaryState;
+import com.zufang.entity.ChatMessage;
+import com.zufang.mapper.ChatSessionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 聊天会话汇总维护
+ * chat_session为每个会话的双方各保存一行（最后一条消息 + 本方未读数），在消息写入的同一事务中更新；
+ * 汇总停用时会话列表回退为按聊天消息实时计算，启用、停用与重建规则见IncrementalSummary
+ */
+@Slf4j
+@Component
+public class ChatSessionSummary extends IncrementalSummary {
+
+    @Autowired
+    private ChatSessionMapper chatSessionMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${zufang.chat.session-summary.enabled:true}")
+    private boolean enabled;
+
+    public ChatSessionSummary() {
+        super(SummaryState.CHAT_SESSION, "聊天会话汇总");
+    }
+
+    /**
+     * 应用启动完成后检查会话汇总表，为空或被标记为需要重建时根据现有聊天消息重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            startup(chatSessionMapper.selectCount(null));
+        } catch (Exception e) {
+            log.warn("聊天会话汇总表不可用, 会话列表将按聊天消息计算: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 根据聊天消息重建会话汇总
+     *
+     * @return 会话行数
+     */
+    @Override
+    public int rebuild() {
+        if (!enabled) {
+            return 0;
+        }
+        Integer rows = runRebuild(() -> transactionTemplate.execute(status -> {
+            chatSessionMapper.deleteAll();
+            return chatSessionMapper.rebuildFromMessages();
+        }));
+        log.info("聊天会话汇总重建完成, 会话数: {}", rows);
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * 用一批新消息更新会话汇总，需在写入消息的事务中调用
+     * 同一会话的多条消息合并为一次更新：最后一条消息取ID最大的一条，接收方未读数累加
+     *
+     * @param messages 新写入的消息
+     */
+    public void apply(List<ChatMessage> messages) {
+        if (!isReady() || messages.isEmpty()) {
+            return;
+        }
+        Map<SessionKey, SessionDelta> deltas = new LinkedHashMap<>();
+        for (ChatMessage message : messages) {
+            merge(deltas, new SessionKey(message.getSenderId(), message.getReceiverId(), message.getHouseId()), message, 0);
+            merge(deltas, new SessionKey(message.getReceiverId(), message.getSenderId(), message.getHouseId()), message, 1);
+        }
+        update(() -> {
+            for (Map.Entry<SessionKey, SessionDelta> entry : deltas.entrySet()) {
+                SessionKey key = entry.getKey();
+                ChatMessage last = entry.getValue().last;
+                chatSessionMapper.upsertMessage(key.ownerId, key.peerId, key.houseId,
+                        last.getId(), last.getContent(), last.getCreateTime(), entry.getValue().unread);
+            }
+        }, "消息数=" + messages.size());
+    }
+
+    /**
+     * 清零某个会话中接收方的未读数
+     */
+    public void clearUnread(Long receiverId, Long senderId, Long houseId) {
+        if (!isReady()) {
+            return;
+        }
+        update(() -> chatSessionMapper.clearUnread(receiverId, senderId, houseId),
+                "receiverId=" + receiverId + ", senderId=" + senderId);
+    }
+
+    /**
+     * 清零用户所有会话的未读数
+     */
+    public void clearAllUnread(Long userId) {
+        if (!isReady()) {
+            return;
+        }
+        update(() -> chatSessionMapper.clearAllUnread(userId), "userId=" + userId);
+    }
+
+    private void merge(Map<SessionKey, SessionDelta> deltas, SessionKey key, ChatMessage message, int unread) {
+        SessionDelta delta = deltas.computeIfAbsent(key, k -> new SessionDelta());
+        if (delta.last == null || message.getId() > delta.last.getId()) {
+            delta.last = message;
+        }
+        delta.unread += unread;
+    }
+
+    private static class SessionKey {
+        private final Long ownerId;
+        private final Long peerId;
+        private final Long houseId;
+
+        SessionKey(Long ownerId, Long peerId, Long houseId) {
+            this.ownerId = ownerId;
+            this.peerId = peerId;
+            this.houseId = houseId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SessionKey)) {
+                return false;
+            }
+            SessionKey that = (SessionKey) o;
+            return ownerId.equals(that.ownerId) && peerId.equals(that.peerId) && houseId.equals(that.houseId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ownerId, peerId, houseId);
+        }
+    }
+
+    private static class SessionDelta {
+        private ChatMessage last;
+        private int unread;
+    }
+}
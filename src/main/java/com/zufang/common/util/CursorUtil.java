@@ -0,0 +1,117 @@
+package com.zufang.common.util;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.zufang.common.exception.BusinessException;
+import com.zufang.dto.CursorPageDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页工具类
+ * 游标由最后一条记录的 (create_time, id) 编码而成，查询时以 WHERE (create_time, id) < 游标 代替 OFFSET，
+ * 翻页耗时与页码无关
+ */
+public class CursorUtil {
+    
+    // 默认每页数量
+    public static final int DEFAULT_SIZE = 10;
+    
+    // 最大每页数量，与分页插件的maxLimit保持一致
+    public static final int MAX_SIZE = 1000;
+    
+    private static final String SEPARATOR = "|";
+    
+    private CursorUtil() {
+    }
+    
+    /**
+     * 规范每页数量
+     * @param size 请求的每页数量
+     * @return 合法的每页数量
+     */
+    public static int normalizeSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+    
+    /**
+     * 编码游标
+     * @param createTime 最后一条记录的创建时间
+     * @param id 最后一条记录的ID
+     * @return 游标字符串
+     */
+    public static String encode(LocalDateTime createTime, Long id) {
+        String raw = createTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 为查询追加游标条件、排序和LIMIT（多查一条用于判断是否还有下一页）
+     * @param wrapper 查询条件
+     * @param createTimeColumn 创建时间字段
+     * @param idColumn 主键字段
+     * @param cursor 游标，为空表示第一页
+     * @param size 每页数量
+     */
+    public static <T> void applyDescCursor(LambdaQueryWrapper<T> wrapper,
+                                           SFunction<T, LocalDateTime> createTimeColumn,
+                                           SFunction<T, Long> idColumn,
+                                           String cursor, int size) {
+        if (cursor != null && !cursor.isEmpty()) {
+            LocalDateTime createTime;
+            Long id;
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int index = raw.lastIndexOf(SEPARATOR);
+                createTime = LocalDateTime.parse(raw.substring(0, index));
+                id = Long.parseLong(raw.substring(index + 1));
+            } catch (Exception e) {
+                throw new BusinessException("无效的分页游标");
+            }
+            wrapper.and(w -> w
+                    .lt(createTimeColumn, createTime)
+                    .or(o -> o.eq(createTimeColumn, createTime).lt(idColumn, id)));
+        }
+        wrapper.orderByDesc(createTimeColumn);
+        wrapper.orderByDesc(idColumn);
+        wrapper.last("LIMIT " + (size + 1));
+    }
+    
+    /**
+     * 根据多查出的一条记录组装游标分页结果
+     * @param rows 查询结果（最多 size + 1 条）
+     * @param size 每页数量
+     * @param createTimeGetter 创建时间取值函数
+     * @param idGetter 主键取值函数
+     * @param converter 记录转换函数，整页批量转换
+     * @param total 总记录数，不统计时传null
+     * @return 游标分页结果
+     */
+    public static <T, R> CursorPageDTO<R> buildPage(List<T> rows, int size,
+                                                     Function<T, LocalDateTime> createTimeGetter,
+                                                     Function<T, Long> idGetter,
+                                                     Function<List<T>, List<R>> converter,
+                                                     Long total) {
+        boolean hasMore = rows.size() > size;
+        List<T> pageRows = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        
+        CursorPageDTO<R> page = new CursorPageDTO<>();
+        page.setRecords(converter.apply(pageRows));
+        page.setHasMore(hasMore);
+        page.setSize(size);
+        page.setTotal(total);
+        if (hasMore) {
+            T last = pageRows.get(pageRows.size() - 1);
+            page.setNextCursor(encode(createTimeGetter.apply(last), idGetter.apply(last)));
+        }
+        return page;
+    }
+}
@@ -0,0 +1,117 @@
+package com.zufang.common.util;
+
+import com.zufang.mapper.IdSequenceMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 趋势递增的唯一编号生成器（雪花算法）
+ * 编号由 41位毫秒时间戳 + 10位机器号 + 12位序列号 组成，订单号、合同号、交易流水号共用。
+ * 时间戳和序列号保存在同一个AtomicLong中，通过CAS递增，不加锁；
+ * 同一毫秒内序列号用尽或系统时钟回拨时沿用上一次的时间戳继续递增，保证单实例内严格递增。
+ * 未配置机器号时启动时从id_sequence表领取：序列每次加1，按1024取模得到机器号，
+ * 各实例按启动顺序依次使用不同的机器号，只要某个实例运行期间其他实例的启动次数不超过1023次就不会重复
+ */
+@Slf4j
+@Component
+public class IdGenerator {
+
+    /**
+     * 起始时间 2025-01-01 00:00:00 (UTC+8)
+     */
+    private static final long EPOCH = 1735660800000L;
+
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+
+    /**
+     * long的最大十进制位数，编号按该宽度左侧补零，使字符串顺序与数值顺序一致
+     */
+    private static final int NUMBER_WIDTH = 19;
+
+    private static final String WORKER_SEQUENCE = "id_worker";
+
+    private final long workerId;
+
+    /**
+     * 高位为最近一次使用的时间戳（相对起始时间），低12位为该时间戳下的序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param workerId 机器号，0-1023
+     */
+    public IdGenerator(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("机器号超出范围(0-" + MAX_WORKER_ID + "): " + workerId);
+        }
+        this.workerId = workerId;
+        log.info("编号生成器初始化完成, 机器号: {}", workerId);
+    }
+
+    /**
+     * @param workerId 配置的机器号，小于0时从id_sequence表领取
+     */
+    @Autowired
+    public IdGenerator(@Value("${zufang.id.worker-id:-1}") long workerId, IdSequenceMapper idSequenceMapper,
+                       PlatformTransactionManager transactionManager) {
+        this(workerId < 0 ? leaseWorkerId(idSequenceMapper, transactionManager) : workerId);
+    }
+
+    /**
+     * 生成下一个ID
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            // 时间前进则从序列号0开始；同一毫秒或时钟回拨时在上一次的基础上加1，序列号溢出自动进位到时间戳
+            long next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 生成带前缀的编号，如 ORD0123456789012345678
+     * @param prefix 编号前缀
+     */
+    public String nextNo(String prefix) {
+        String id = Long.toString(nextId());
+        StringBuilder builder = new StringBuilder(prefix.length() + NUMBER_WIDTH).append(prefix);
+        for (int i = id.length(); i < NUMBER_WIDTH; i++) {
+            builder.append('0');
+        }
+        return builder.append(id).toString();
+    }
+
+    /**
+     * 从id_sequence表领取机器号，使用独立事务保证递增与读取LAST_INSERT_ID在同一连接上
+     */
+    private static long leaseWorkerId(IdSequenceMapper idSequenceMapper, PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long value = template.execute(status -> {
+            idSequenceMapper.insertIgnore(WORKER_SEQUENCE);
+            idSequenceMapper.increment(WORKER_SEQUENCE);
+            return idSequenceMapper.selectLastInsertId();
+        });
+        if (value == null || value < 1) {
+            throw new IllegalStateException("领取编号生成器机器号失败");
+        }
+        long workerId = (value - 1) % (MAX_WORKER_ID + 1);
+        log.info("从id_sequence表领取机器号: {}（第{}次领取）", workerId, value);
+        return workerId;
+    }
+}
@@ -0,0 +1,120 @@
+package com.zufang.common.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 在业务事务中增量维护的汇总表
+ * 1. 启动时表中已有数据且没有重建标记才直接启用，否则先重建再启用；
+ * 2. 业务事务中更新汇总失败时异常向上抛出，汇总与业务数据一起回滚，不会出现不一致；
+ * 3. 不在事务中时业务数据已单独提交，更新失败则停用汇总并持久化重建标记；
+ * 4. 各实例定期检查重建标记，其他实例写入标记后本实例也停用汇总，重启后重建。
+ * 停用期间查询回退为按业务表实时计算
+ */
+@Slf4j
+public abstract class IncrementalSummary {
+
+    @Autowired
+    protected SummaryState summaryState;
+
+    private final String summaryName;
+
+    private final String description;
+
+    private volatile boolean ready = false;
+
+    /**
+     * @param summaryName 重建标记名称，见SummaryState中的常量
+     * @param description 日志中的汇总名称
+     */
+    protected IncrementalSummary(String summaryName, String description) {
+        this.summaryName = summaryName;
+        this.description = description;
+    }
+
+    /**
+     * 汇总是否可用于查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 根据业务数据重建汇总
+     *
+     * @return 重建的行数
+     */
+    public abstract int rebuild();
+
+    /**
+     * 启动时调用：表中已有数据且没有重建标记时直接启用，否则重建
+     *
+     * @param rows 汇总表当前行数
+     */
+    protected void startup(Long rows) {
+        if (rows != null && rows > 0 && !summaryState.needsRebuild(summaryName)) {
+            ready = true;
+            log.info("{}已就绪, 行数: {}", description, rows);
+        } else {
+            rebuild();
+        }
+    }
+
+    /**
+     * 执行重建：开始前读取标记版本号，重建期间停用，完成后清除标记并启用；
+     * 重建期间又被标记时标记保留，下次启动继续重建
+     *
+     * @param task 在事务中完成的重建
+     * @return 重建结果
+     */
+    protected <T> T runRebuild(Supplier<T> task) {
+        long version = summaryState.beginRebuild(summaryName);
+        ready = false;
+        T result = task.get();
+        summaryState.finishRebuild(summaryName, version);
+        ready = true;
+        return result;
+    }
+
+    /**
+     * 增量更新汇总，是否需要更新由调用方判断
+     *
+     * @param update  更新操作
+     * @param context 失败时写入日志的上下文
+     */
+    protected void update(Runnable update, String context) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            update.run();
+            return;
+        }
+        try {
+            update.run();
+        } catch (RuntimeException e) {
+            ready = false;
+            log.error("更新{}失败, 停用直到重建: {}", description, context, e);
+            summaryState.markDirty(summaryName);
+        }
+    }
+
+    /**
+     * 定期检查重建标记，其他实例标记后本实例同样停用
+     */
+    @Scheduled(fixedDelayString = "${zufang.summary.marker-check-interval:60000}")
+    public void checkRebuildMarker() {
+        if (!ready) {
+            return;
+        }
+        try {
+            if (summaryState.needsRebuild(summaryName)) {
+                ready = false;
+                log.warn("{}已被其他实例标记为需要重建, 停用直到重建", description);
+            }
+        } catch (Exception e) {
+            log.warn("检查{}重建标记失败: {}", description, e.getMessage());
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.zufang.common.util;
 
+import com.zufang.security.JwtPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
@@ -19,6 +23,9 @@ public class JwtUtil {
     private static final String SECRET_KEY_STRING = "zufangSystemSecretKey123456789012345678901234567890";
     private static final Key SECRET_KEY = Keys.hmacShaKeyFor(SECRET_KEY_STRING.getBytes());
     
+    // 解析器线程安全，复用同一个实例
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SECRET_KEY).build();
+    
     // token有效期（24小时）
     private static final long EXPIRATION = 86400000L;
     
@@ -69,11 +76,7 @@ public class JwtUtil {
      * @return Claims
      */
     public static Map<String, Object> parseToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token.replace(TOKEN_PREFIX, ""))
-                .getBody();
+        Claims claims = parseClaims(token);
         
         Map<String, Object> result = new HashMap<>();
         result.put("userId", claims.get("userId"));
@@ -84,6 +87,28 @@ public class JwtUtil {
         return result;
     }
 
+    /**
+     * 一次解析并验证token，取出用户信息
+     * @param token token
+     * @return 用户信息
+     * @throws io.jsonwebtoken.ExpiredJwtException token已过期
+     * @throws JwtException token无效或缺少用户ID
+     */
+    public static JwtPrincipal parsePrincipal(String token) {
+        Claims claims = parseClaims(token);
+        Object userId = claims.get("userId");
+        if (userId == null) {
+            throw new MalformedJwtException("token中缺少userId");
+        }
+        Object username = claims.get("username");
+        Object role = claims.get("role");
+        return new JwtPrincipal(
+                Long.valueOf(userId.toString()),
+                username != null ? username.toString() : null,
+                role != null ? role.toString() : null,
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+    }
+
     /**
      * 判断token是否过期
      * @param token token
@@ -91,11 +116,7 @@ public class JwtUtil {
      */
     public static boolean isTokenExpired(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token.replace(TOKEN_PREFIX, ""))
-                    .getBody();
+            Claims claims = parseClaims(token);
             return claims.getExpiration().before(new Date());
         } catch (Exception e) {
             return true;
@@ -109,11 +130,7 @@ public class JwtUtil {
      */
     public static String getUserId(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token.replace(TOKEN_PREFIX, ""))
-                    .getBody();
+            Claims claims = parseClaims(token);
             return claims.get("userId").toString();
         } catch (Exception e) {
             return null;
@@ -127,11 +144,7 @@ public class JwtUtil {
      */
     public static String getUsername(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token.replace(TOKEN_PREFIX, ""))
-                    .getBody();
+            Claims claims = parseClaims(token);
             return claims.get("username").toString();
         } catch (Exception e) {
             return null;
@@ -145,14 +158,17 @@ public class JwtUtil {
      */
     public static String getRole(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token.replace(TOKEN_PREFIX, ""))
-                    .getBody();
+            Claims claims = parseClaims(token);
             return claims.get("role").toString();
         } catch (Exception e) {
             return null;
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 验证签名并解析token，过期或无效时抛出JwtException
+     */
+    private static Claims parseClaims(String token) {
+        return PARSER.parseClaimsJws(token.replace(TOKEN_PREFIX, "")).getBody();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.zufang.common.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 有界LRU进程内缓存
+ * 基于按访问顺序排列的LinkedHashMap，超过最大条目数时淘汰最久未访问的条目，所有访问加锁；
+ * 条目可指定过期时间，读取到已过期的条目时删除并计为未命中；统计命中、未命中和淘汰次数
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LruCache<K, V> {
+
+    private final IntSupplier maxSize;
+
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > maxSize.getAsInt()) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize 最大条目数，每次写入时读取，可引用注入后才有值的配置字段
+     */
+    public LruCache(IntSupplier maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取缓存值并计入命中统计
+     * @param key 缓存键
+     * @return 不存在或已过期返回null
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expireAt > System.currentTimeMillis()) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 是否存在未过期的条目，不计入命中统计
+     * @param key 缓存键
+     */
+    public boolean containsKey(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null && entry.expireAt > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 写入不过期的条目
+     */
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    /**
+     * 写入条目
+     * @param expireAt 过期时间戳（毫秒）
+     */
+    public void put(K key, V value, long expireAt) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expireAt));
+        }
+    }
+
+    /**
+     * 修改已有条目的过期时间
+     * @param expireAt 过期时间戳（毫秒）
+     * @return 条目不存在时返回false
+     */
+    public boolean setExpireAt(K key, long expireAt) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return false;
+            }
+            entries.put(key, new Entry<>(entry.value, expireAt));
+            return true;
+        }
+    }
+
+    /**
+     * 删除条目
+     * @return 是否存在该条目
+     */
+    public boolean remove(K key) {
+        synchronized (entries) {
+            return entries.remove(key) != null;
+        }
+    }
+
+    /**
+     * 删除键满足条件的全部条目
+     */
+    public void removeIf(Predicate<K> filter) {
+        synchronized (entries) {
+            entries.keySet().removeIf(filter);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize.getAsInt();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expireAt;
+
+        Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
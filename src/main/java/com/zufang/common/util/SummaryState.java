@@ -0,0 +1,76 @@
+package com.zufang.common.util;
+
+import com.zufang.mapper.SummaryStateMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 汇总表状态
+ * 汇总表在业务事务中增量更新，更新失败而业务数据照常提交时，在独立事务中持久化"需要重建"标记；
+ * 应用启动时带有标记的汇总表先重建再启用，不会因为表中已有数据而直接使用不一致的汇总。
+ * 标记带版本号，重建期间又发生的失败不会被这次重建清除
+ */
+@Slf4j
+@Component
+public class SummaryState {
+
+    public static final String INCOME_LEDGER = "income_ledger";
+
+    public static final String CHAT_SESSION = "chat_session";
+
+    public static final String MESSAGE_COUNTER = "message_counter";
+
+    @Autowired
+    private SummaryStateMapper summaryStateMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 标记使用独立事务，业务事务提交与否都不影响标记
+     */
+    private TransactionTemplate markTemplate;
+
+    @PostConstruct
+    public void init() {
+        markTemplate = new TransactionTemplate(transactionManager);
+        markTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 汇总表是否被标记为需要重建
+     */
+    public boolean needsRebuild(String name) {
+        return summaryStateMapper.selectDirty(name) > 0;
+    }
+
+    /**
+     * 标记汇总表需要重建
+     * 标记写入失败时抛出异常，由调用方的业务事务回滚，避免业务数据与汇总不一致且没有任何记录
+     */
+    public void markDirty(String name) {
+        markTemplate.executeWithoutResult(status -> summaryStateMapper.markDirty(name));
+        log.warn("汇总表已标记为需要重建: {}", name);
+    }
+
+    /**
+     * 开始重建前读取标记版本号
+     */
+    public long beginRebuild(String name) {
+        return summaryStateMapper.selectVersion(name);
+    }
+
+    /**
+     * 重建完成后清除标记；重建期间又被标记时保留，下次启动继续重建
+     */
+    public void finishRebuild(String name, long version) {
+        if (summaryStateMapper.clearDirty(name, version) == 0 && needsRebuild(name)) {
+            log.warn("汇总表重建期间再次被标记, 保留重建标记: {}", name);
+        }
+    }
+}
@@ -1,22 +1,89 @@
 package com.zufang.config;
 
+import com.zufang.websocket.StompAuthInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket配置类
  */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String MODE_RELAY = "relay";
+
+    private final StompAuthInterceptor stompAuthInterceptor;
+
+    /**
+     * 代理模式：simple 内置代理；redis 内置代理 + Redis频道在实例间转发；relay 外部STOMP代理
+     */
+    @Value("${zufang.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${zufang.websocket.broker.relay-host:localhost}")
+    private String relayHost;
+
+    @Value("${zufang.websocket.broker.relay-port:61613}")
+    private int relayPort;
+
+    @Value("${zufang.websocket.broker.client-login:guest}")
+    private String clientLogin;
+
+    @Value("${zufang.websocket.broker.client-passcode:guest}")
+    private String clientPasscode;
+
+    @Value("${zufang.websocket.broker.system-login:guest}")
+    private String systemLogin;
+
+    @Value("${zufang.websocket.broker.system-passcode:guest}")
+    private String systemPasscode;
+
+    @Value("${zufang.websocket.broker.virtual-host:}")
+    private String virtualHost;
+
+    /**
+     * 每个会话未发出数据的上限（字节），超过后断开该会话
+     */
+    @Value("${zufang.websocket.outbound.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    /**
+     * 单次发送的时间上限（毫秒），超过后断开该会话
+     */
+    @Value("${zufang.websocket.outbound.send-time-limit:10000}")
+    private int sendTimeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // 配置消息代理前缀，客户端订阅时需要加上这个前缀
-        registry.enableSimpleBroker("/topic", "/user");
+        if (MODE_RELAY.equalsIgnoreCase(brokerMode)) {
+            // 外部STOMP代理（RabbitMQ、ActiveMQ等），用户目的地在实例之间通过代理广播解析
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (virtualHost != null && !virtualHost.isEmpty()) {
+                relay.setVirtualHost(virtualHost);
+            }
+        } else {
+            // 配置消息代理前缀，客户端订阅时需要加上这个前缀
+            // /queue用于已认证会话的用户目的地（/user/queue/xxx 解析为 /queue/xxx-user{会话ID}）
+            registry.enableSimpleBroker("/topic", "/user", "/queue");
+        }
         // 配置客户端发送消息的前缀
         registry.setApplicationDestinationPrefixes("/app");
         // 配置点对点消息前缀
@@ -30,4 +97,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
-} 
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // CONNECT时根据token设置会话的用户身份
+        registration.interceptors(stompAuthInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 慢客户端积压超过上限时断开，避免发送线程被拖住
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit);
+        registration.setSendTimeLimit(sendTimeLimit);
+    }
+} 
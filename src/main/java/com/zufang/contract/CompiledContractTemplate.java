@@ -0,0 +1,141 @@
+package com.zufang.contract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的合同模板
+ * 模板正文解析为“固定文本 / 变量”片段列表，渲染时按顺序一次拼接。解析规则与原先的逐项替换一致：
+ * 1. ${key} 和 {{key}} 替换为参数值，没有对应参数的替换为空；
+ * 2. “_____年/月/日” 替换为参数year、month、day；
+ * 3. “甲方（签字）：_____”、“乙方（签字）：_____” 替换为参数landlordName、tenantName。
+ * 参数值原样输出，不会再被当作模板语法解析
+ */
+public class CompiledContractTemplate {
+
+    private static final Pattern TOKEN = Pattern.compile(
+            "\\$\\{([^}]+)\\}"
+            + "|\\{\\{([^}]+)\\}\\}"
+            + "|甲方\\s*（签字）\\s*：\\s*_+"
+            + "|乙方\\s*（签字）\\s*：\\s*_+"
+            + "|_+([年月日])");
+
+    private static final int ESTIMATED_VALUE_LENGTH = 16;
+
+    private final Long templateId;
+
+    private final Integer version;
+
+    private final List<Segment> segments;
+
+    private final int estimatedLength;
+
+    private CompiledContractTemplate(Long templateId, Integer version, List<Segment> segments) {
+        this.templateId = templateId;
+        this.version = version;
+        this.segments = segments;
+        int length = 0;
+        for (Segment segment : segments) {
+            length += segment.literal != null ? segment.literal.length() : ESTIMATED_VALUE_LENGTH;
+        }
+        this.estimatedLength = length;
+    }
+
+    /**
+     * 解析模板正文
+     * @param templateId 模板ID
+     * @param version 模板版本
+     * @param content 模板正文
+     */
+    public static CompiledContractTemplate compile(Long templateId, Integer version, String content) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        Matcher matcher = TOKEN.matcher(content);
+        int last = 0;
+        while (matcher.find()) {
+            literal.append(content, last, matcher.start());
+            last = matcher.end();
+            String key = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            if (key != null) {
+                flush(segments, literal);
+                segments.add(Segment.variable(key));
+            } else if (matcher.group(3) != null) {
+                flush(segments, literal);
+                String unit = matcher.group(3);
+                segments.add(Segment.variable("年".equals(unit) ? "year" : "月".equals(unit) ? "month" : "day"));
+                literal.append(unit);
+            } else {
+                boolean partyA = matcher.group().startsWith("甲方");
+                literal.append(partyA ? "甲方（签字）：" : "乙方（签字）：");
+                flush(segments, literal);
+                segments.add(Segment.variable(partyA ? "landlordName" : "tenantName"));
+            }
+        }
+        literal.append(content, last, content.length());
+        flush(segments, literal);
+        return new CompiledContractTemplate(templateId, version, Collections.unmodifiableList(segments));
+    }
+
+    /**
+     * 渲染合同内容
+     * @param params 模板参数，缺少的参数或null值输出为空
+     */
+    public String render(Map<String, String> params) {
+        StringBuilder out = new StringBuilder(estimatedLength);
+        for (Segment segment : segments) {
+            if (segment.literal != null) {
+                out.append(segment.literal);
+            } else {
+                String value = params.get(segment.key);
+                if (value != null) {
+                    out.append(value);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    public Long getTemplateId() {
+        return templateId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * 片段数量
+     */
+    public int size() {
+        return segments.size();
+    }
+
+    private static void flush(List<Segment> segments, StringBuilder literal) {
+        if (literal.length() > 0) {
+            segments.add(Segment.literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    private static class Segment {
+        private final String literal;
+        private final String key;
+
+        private Segment(String literal, String key) {
+            this.literal = literal;
+            this.key = key;
+        }
+
+        static Segment literal(String text) {
+            return new Segment(text, null);
+        }
+
+        static Segment variable(String key) {
+            return new Segment(null, key);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.zufang.contract;
+
+import com.zufang.common.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 合同渲染内容缓存
+ * 合同内容由模板版本和参数决定，生成后不再变化，按合同ID缓存最近查看的渲染结果（有界LRU），不需要失效
+ */
+@Component
+public class ContractContentCache {
+
+    @Value("${zufang.contract.content-cache.max-size:500}")
+    private int maxSize;
+
+    private final LruCache<Long, String> contents = new LruCache<>(() -> maxSize);
+
+    /**
+     * 获取合同的渲染内容
+     * @param contractId 合同ID
+     * @return 未缓存返回null
+     */
+    public String get(Long contractId) {
+        return contents.get(contractId);
+    }
+
+    /**
+     * 缓存合同的渲染内容
+     * @param contractId 合同ID
+     * @param content 渲染内容
+     */
+    public void put(Long contractId, String content) {
+        if (contractId == null || content == null) {
+            return;
+        }
+        contents.put(contractId, content);
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", contents.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", contents.getHits());
+        stats.put("misses", contents.getMisses());
+        return stats;
+    }
+}
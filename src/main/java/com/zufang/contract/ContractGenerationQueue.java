@@ -0,0 +1,226 @@
+package com.zufang.contract;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zufang.entity.ContractOutbox;
+import com.zufang.event.OrderPaidEvent;
+import com.zufang.mapper.ContractOutboxMapper;
+import com.zufang.service.ContractService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单支付后的合同异步生成
+ * 1. 支付事务内只写入一条合同生成任务（contract_outbox），与订单状态一起提交或回滚；
+ * 2. 事务提交后把任务交给后台线程池生成合同，支付接口不等待合同渲染；
+ * 3. 线程池已满、生成失败或进程中断的任务由定时任务按重试时间重新领取，直到成功或重试次数用尽；
+ * 4. 任务通过尝试次数做领取校验，同一次尝试只会有一个线程执行；领取是一个到下次重试时间为止的租约，
+ *    执行超过租约的任务可能被重新领取并发执行，合同表order_id唯一，重复创建时返回已有合同。
+ * 关闭后恢复为在支付事务内同步创建合同
+ */
+@Slf4j
+@Component
+public class ContractGenerationQueue {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private ContractOutboxMapper contractOutboxMapper;
+
+    @Autowired
+    private ContractService contractService;
+
+    @Value("${zufang.contract.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zufang.contract.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    /**
+     * 重试间隔（毫秒），第n次尝试失败后等待n倍间隔
+     */
+    @Value("${zufang.contract.outbox.retry-delay:30000}")
+    private long retryDelay;
+
+    @Value("${zufang.contract.outbox.batch-size:100}")
+    private int batchSize;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ContractGenerationQueue(@Value("${zufang.contract.outbox.pool-size:2}") int poolSize,
+                                   @Value("${zufang.contract.outbox.queue-capacity:1000}") int queueCapacity) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "contract-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 在支付事务内写入合同生成任务
+     */
+    @EventListener
+    public void onOrderPaid(OrderPaidEvent event) {
+        if (!enabled) {
+            log.info("接收到订单支付成功事件，同步创建合同，订单ID：{}", event.getOrderId());
+            contractService.createContract(event.getOrderId(), null); // 使用null作为房东ID，因为这是系统自动创建
+            return;
+        }
+        contractOutboxMapper.insertPending(event.getOrderId(), LocalDateTime.now().plus(retryDelay, ChronoUnit.MILLIS));
+    }
+
+    /**
+     * 支付事务提交后立即提交生成任务
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void afterOrderPaid(OrderPaidEvent event) {
+        if (!enabled) {
+            return;
+        }
+        submit(event.getOrderId(), 0);
+    }
+
+    /**
+     * 定时领取到期的任务：立即提交被拒绝、生成失败待重试或执行中断的任务
+     */
+    @Scheduled(fixedDelayString = "${zufang.contract.outbox.poll-interval:10000}")
+    public void pollDueTasks() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<ContractOutbox> tasks = contractOutboxMapper.selectDue(LocalDateTime.now(), batchSize);
+            for (ContractOutbox task : tasks) {
+                submit(task.getOrderId(), task.getAttempts());
+            }
+        } catch (Exception e) {
+            log.error("查询待生成合同任务失败", e);
+        }
+    }
+
+    /**
+     * 将重试次数用尽的任务恢复为待生成
+     * @return 恢复的任务数
+     */
+    public int retryFailed() {
+        return contractOutboxMapper.resetFailed();
+    }
+
+    /**
+     * 获取合同生成统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pending", countByStatus("PENDING"));
+        stats.put("failed", countByStatus("FAILED"));
+        stats.put("queueSize", executor.getQueue().size());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("submitted", submitted.get());
+        stats.put("generated", generated.get());
+        stats.put("failures", failures.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    /**
+     * 停止时等待正在执行的任务，未执行的任务保留在任务表中，重启后由定时任务继续处理
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(Long orderId, int expectedAttempts) {
+        try {
+            executor.execute(() -> process(orderId, expectedAttempts));
+            submitted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.warn("合同生成线程池已满, 任务留待定时重试: 订单ID={}", orderId);
+        }
+    }
+
+    private void process(Long orderId, int expectedAttempts) {
+        LocalDateTime nextRetryTime = LocalDateTime.now().plus(
+                retryDelay * (expectedAttempts + 1), ChronoUnit.MILLIS);
+        try {
+            if (contractOutboxMapper.claim(orderId, expectedAttempts, nextRetryTime) == 0) {
+                return;
+            }
+        } catch (Exception e) {
+            log.error("领取合同生成任务失败, 留待定时重试: 订单ID={}", orderId, e);
+            return;
+        }
+        try {
+            Long contractId = contractService.createContract(orderId, null);
+            if (contractId != null) {
+                contractOutboxMapper.markDone(orderId, contractId);
+                generated.incrementAndGet();
+                log.info("订单合同生成完成: 订单ID={}, 合同ID={}", orderId, contractId);
+                return;
+            }
+            fail(orderId, expectedAttempts + 1, "合同创建失败");
+        } catch (Exception e) {
+            fail(orderId, expectedAttempts + 1, e.getMessage());
+        }
+    }
+
+    private void fail(Long orderId, int attempts, String error) {
+        failures.incrementAndGet();
+        String lastError = error == null ? "未知错误" : error;
+        if (lastError.length() > MAX_ERROR_LENGTH) {
+            lastError = lastError.substring(0, MAX_ERROR_LENGTH);
+        }
+        try {
+            contractOutboxMapper.markFailed(orderId, lastError, maxAttempts);
+        } catch (Exception e) {
+            log.error("记录合同生成失败原因失败: 订单ID={}", orderId, e);
+        }
+        if (attempts >= maxAttempts) {
+            log.error("订单合同生成失败, 重试次数已用尽: 订单ID={}, 原因={}", orderId, lastError);
+        } else {
+            log.warn("订单合同生成失败, 稍后重试: 订单ID={}, 第{}次, 原因={}", orderId, attempts, lastError);
+        }
+    }
+
+    private long countByStatus(String status) {
+        try {
+            LambdaQueryWrapper<ContractOutbox> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(ContractOutbox::getStatus, status);
+            return contractOutboxMapper.selectCount(wrapper);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.zufang.contract;
+
+import com.zufang.common.util.LruCache;
+import com.zufang.entity.ContractTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 合同模板引擎
+ * 每个模板按ID和版本只解析一次，编译结果缓存在进程内（有界LRU）。
+ * 模板修改后版本号加1，同一ID和版本的正文不会变化，模板删除时失效该模板的全部版本
+ */
+@Component
+public class ContractTemplateEngine {
+
+    @Value("${zufang.contract.template-cache.max-size:64}")
+    private int maxSize;
+
+    private final LruCache<String, CompiledContractTemplate> compiled = new LruCache<>(() -> maxSize);
+
+    /**
+     * 渲染合同内容
+     * @param template 合同模板
+     * @param params 模板参数
+     * @return 渲染后的合同内容
+     */
+    public String render(ContractTemplate template, Map<String, String> params) {
+        return getCompiled(template).render(params);
+    }
+
+    /**
+     * 获取模板的编译结果，该版本未编译时解析模板正文
+     * @param template 合同模板
+     */
+    public CompiledContractTemplate getCompiled(ContractTemplate template) {
+        Integer version = template.getVersion() == null ? 0 : template.getVersion();
+        String key = template.getId() + ":" + version;
+        CompiledContractTemplate cached = compiled.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompiledContractTemplate fresh = CompiledContractTemplate.compile(template.getId(), version, template.getContent());
+        compiled.put(key, fresh);
+        return fresh;
+    }
+
+    /**
+     * 模板删除后失效该模板全部版本的编译结果
+     * @param templateId 模板ID
+     */
+    public void evict(Long templateId) {
+        if (templateId == null) {
+            return;
+        }
+        String prefix = templateId + ":";
+        compiled.removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 获取编译缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", compiled.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", compiled.getHits());
+        // 每次未命中都会编译一次
+        stats.put("compiles", compiled.getMisses());
+        return stats;
+    }
+}
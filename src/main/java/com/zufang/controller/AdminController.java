@@ -2,6 +2,7 @@ package com.zufang.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zufang.common.response.Result;
+import com.zufang.dto.CursorPageDTO;
 import com.zufang.dto.HouseApproveDTO;
 import com.zufang.dto.HouseInfoDTO;
 import com.zufang.dto.HouseEditDTO;
@@ -13,6 +14,7 @@ import com.zufang.entity.User;
 import com.zufang.service.HouseService;
 import com.zufang.service.OrderService;
 import com.zufang.service.UserService;
+import com.zufang.stats.StatsCollector;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -46,6 +48,9 @@ public class AdminController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private StatsCollector statsCollector;
+
     /**
      * 管理员获取所有房源列表
      */
@@ -78,6 +83,26 @@ public class AdminController {
         }
     }
     
+    /**
+     * 管理员游标分页获取房源列表（适用于深翻页）
+     */
+    @GetMapping("/houses/cursor")
+    public Result<CursorPageDTO<HouseInfoDTO>> getHousesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        log.info("管理员游标分页获取房源列表: cursor={}, size={}, status={}, withTotal={}", cursor, size, status, withTotal);
+        
+        try {
+            CursorPageDTO<HouseInfoDTO> result = houseService.getHousesByCursor(status, cursor, size, withTotal);
+            return Result.success(result);
+        } catch (Exception e) {
+            log.error("管理员游标分页获取房源列表失败: {}", e.getMessage(), e);
+            return Result.fail("获取房源列表失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 管理员审核房源
      */
@@ -109,63 +134,26 @@ public class AdminController {
     
     /**
      * 管理员仪表盘统计数据
+     * 各项统计并发计算，超时或失败的指标返回默认值并列在partialMetrics中
      */
     @GetMapping("/stats")
     public Result<Map<String, Object>> getStats() {
         log.info("获取管理员仪表盘统计数据");
         
         try {
-            Map<String, Object> stats = new HashMap<>();
-            
-            // 获取用户总数
-            long userCount = 0;
-            try {
-                userCount = userService.count();
-                stats.put("userCount", userCount);
-            } catch (Exception e) {
-                log.error("获取用户总数失败", e);
-                stats.put("userCount", 0);
-            }
-            
-            // 获取房源总数
-            long houseCount = 0;
-            try {
-                houseCount = houseService.count();
-                stats.put("houseCount", houseCount);
-            } catch (Exception e) {
-                log.error("获取房源总数失败", e);
-                stats.put("houseCount", 0);
-            }
-            
-            // 获取订单总数和收入统计
-            try {
-                // 计算所有有效的订单数
-                int orderCount = orderService.countAllPaidOrders();
-                stats.put("orderCount", orderCount);
-                
-                // 计算总收入
-                BigDecimal totalIncome = orderService.calculateTotalIncome();
-                stats.put("income", totalIncome);
-                
-                // 计算本月收入
-                BigDecimal monthlyIncome = orderService.calculateMonthlyIncome();
-                stats.put("monthlyIncome", monthlyIncome);
-                
-                // 计算违约金收入
-                BigDecimal penaltyIncome = orderService.calculateTotalPenaltyIncome();
-                stats.put("penaltyIncome", penaltyIncome);
-                
-                // 添加月度收入数据
-                List<Map<String, Object>> monthlyData = orderService.getMonthlyIncomeData();
-                stats.put("monthlyIncomeData", monthlyData);
-            } catch (Exception e) {
-                log.error("获取订单统计失败", e);
-                stats.put("orderCount", 0);
-                stats.put("income", 0);
-                stats.put("monthlyIncome", 0);
-                stats.put("penaltyIncome", 0);
-                stats.put("monthlyIncomeData", new ArrayList<>());
-            }
+            StatsCollector.Metrics metrics = new StatsCollector.Metrics()
+                    // 用户总数、房源总数
+                    .add("userCount", userService::count, 0)
+                    .add("houseCount", houseService::count, 0)
+                    // 所有有效的订单数
+                    .add("orderCount", orderService::countAllPaidOrders, 0)
+                    // 总收入、本月收入、违约金收入
+                    .add("income", orderService::calculateTotalIncome, 0)
+                    .add("monthlyIncome", orderService::calculateMonthlyIncome, 0)
+                    .add("penaltyIncome", orderService::calculateTotalPenaltyIncome, 0)
+                    // 月度收入数据
+                    .add("monthlyIncomeData", orderService::getMonthlyIncomeData, new ArrayList<>());
+            Map<String, Object> stats = statsCollector.collect("admin", metrics);
             
             log.info("获取管理员仪表盘统计数据成功");
             return Result.success(stats);
@@ -499,6 +487,27 @@ public class AdminController {
         }
     }
     
+    /**
+     * 游标分页获取订单列表（适用于深翻页）
+     */
+    @GetMapping("/orders/cursor")
+    public Result<CursorPageDTO<OrderDTO>> getOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        log.info("管理员游标分页获取订单列表: cursor={}, size={}, status={}, withTotal={}", cursor, size, status, withTotal);
+        
+        try {
+            List<String> statuses = status != null && !status.isEmpty() ? Arrays.asList(status.split(",")) : null;
+            CursorPageDTO<OrderDTO> result = orderService.getOrdersByCursor(statuses, cursor, size, withTotal);
+            return Result.success(result);
+        } catch (Exception e) {
+            log.error("游标分页获取订单列表失败: {}", e.getMessage(), e);
+            return Result.fail("获取订单列表失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 获取订单详情
      */
@@ -1,14 +1,12 @@
 package com.zufang.controller;
 
+import com.zufang.cache.ChatParticipantCache;
 import com.zufang.common.response.Result;
+import com.zufang.dto.chat.ChatHistoryPageDTO;
 import com.zufang.dto.chat.ChatMessageDTO;
 import com.zufang.dto.chat.ChatSessionDTO;
 import com.zufang.entity.ChatMessage;
-import com.zufang.entity.House;
-import com.zufang.entity.User;
 import com.zufang.service.ChatMessageService;
-import com.zufang.service.HouseService;
-import com.zufang.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,8 +27,7 @@ import java.util.stream.Collectors;
 public class ChatController {
     
     private final ChatMessageService chatMessageService;
-    private final UserService userService;
-    private final HouseService houseService;
+    private final ChatParticipantCache chatParticipantCache;
     
     /**
      * 发送聊天消息
@@ -58,19 +55,20 @@ public class ChatController {
         messageDTO.setSenderId(userId);
         
         // 验证接收者是否存在
-        User receiver = userService.getById(messageDTO.getReceiverId());
-        if (receiver == null) {
+        if (chatParticipantCache.getUser(messageDTO.getReceiverId()) == null) {
             return Result.error("接收者不存在");
         }
         
         // 验证房源是否存在
-        House house = houseService.getById(messageDTO.getHouseId());
-        if (house == null) {
+        if (!chatParticipantCache.houseExists(messageDTO.getHouseId())) {
             return Result.error("房源不存在");
         }
         
         // 获取当前用户信息
-        User currentUser = userService.getById(userId);
+        ChatParticipantCache.Participant currentUser = chatParticipantCache.getUser(userId);
+        if (currentUser == null) {
+            return Result.error("用户不存在");
+        }
         
         // 设置发送者信息为当前登录用户信息
         messageDTO.setSenderAvatar(currentUser.getAvatar());
@@ -123,6 +121,46 @@ public class ChatController {
         return Result.ok(chatHistory);
     }
     
+    /**
+     * 从新到旧分页获取聊天历史记录
+     * 首次打开会话不传beforeId，向上加载更早消息时传入上一页返回的nextBeforeId
+     *
+     * @param userId     用户ID
+     * @param landlordId 房东ID
+     * @param houseId    房源ID
+     * @param beforeId   只返回该消息之前的消息
+     * @param size       每页数量
+     * @return 聊天历史分页结果
+     */
+    @GetMapping("/history/page")
+    public Result<ChatHistoryPageDTO> getChatHistoryPage(
+            @RequestParam Long userId,
+            @RequestParam Long landlordId,
+            @RequestParam Long houseId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(required = false) Integer size,
+            HttpServletRequest request) {
+        log.info("分页获取聊天历史记录: 用户:{}, 房东:{}, 房源:{}, beforeId:{}", userId, landlordId, houseId, beforeId);
+        
+        Long currentUserId = (Long) request.getAttribute("userId");
+        String userRole = (String) request.getAttribute("role");
+        
+        if (currentUserId == null || userRole == null) {
+            return Result.error("未登录，请先登录");
+        }
+        
+        ChatHistoryPageDTO page = chatMessageService.getChatHistoryPage(userId, landlordId, houseId, beforeId, size);
+        
+        // 打开会话（第一页）时将发给当前用户的消息标记为已读
+        if (beforeId == null) {
+            chatMessageService.markConversationAsRead(currentUserId, 
+                "USER".equalsIgnoreCase(userRole) ? landlordId : userId, 
+                houseId);
+        }
+        
+        return Result.ok(page);
+    }
+    
     /**
      * 获取未读消息数量
      *
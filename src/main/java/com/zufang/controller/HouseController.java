@@ -142,6 +142,20 @@ public class HouseController {
         }
     }
     
+    /**
+     * 获取房源搜索的分面统计
+     */
+    @PostMapping("/search/facets")
+    public Result<Map<String, Map<String, Integer>>> getSearchFacets(@RequestBody HouseSearchDTO searchDTO) {
+        try {
+            log.info("获取房源搜索分面统计, 条件: {}", searchDTO);
+            return Result.success(houseService.getSearchFacets(searchDTO));
+        } catch (Exception e) {
+            log.error("获取房源搜索分面统计失败: {}", e.getMessage(), e);
+            return Result.fail(e.getMessage());
+        }
+    }
+    
     /**
      * 搜索房源 (GET方式)
      */
@@ -6,6 +6,7 @@ import com.zufang.service.AppointmentService;
 import com.zufang.service.HouseService;
 import com.zufang.service.OrderService;
 import com.zufang.dto.HouseEditDTO;
+import com.zufang.stats.StatsCollector;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,8 +16,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -31,6 +30,7 @@ public class LandlordController {
     private final OrderService orderService;
     private final HouseService houseService;
     private final AppointmentService appointmentService;
+    private final StatsCollector statsCollector;
 
     /**
      * 获取房东首页统计数据
@@ -41,57 +41,17 @@ public class LandlordController {
         Long landlordId = (Long) request.getAttribute("userId");
         log.info("获取房东首页统计: landlordId={}", landlordId);
         
-        Map<String, Object> statistics = new HashMap<>();
-        
-        try {
-            // 1. 统计房东的房源数量
-            try {
-                int houseCount = houseService.countLandlordHouses(landlordId);
-                statistics.put("houseCount", houseCount);
-            } catch (Exception e) {
-                log.error("获取房东房源数量失败: {}", e.getMessage());
-                statistics.put("houseCount", 0);
-            }
-            
-            // 2. 统计待处理预约数量
-            try {
-                int pendingAppointmentCount = appointmentService.countLandlordPendingAppointments(landlordId);
-                statistics.put("pendingAppointmentCount", pendingAppointmentCount);
-            } catch (Exception e) {
-                log.error("获取房东待处理预约数量失败: {}", e.getMessage());
-                statistics.put("pendingAppointmentCount", 0);
-            }
-            
-            // 3. 统计进行中订单数量
-            try {
-                int activeOrderCount = orderService.countLandlordActiveOrders(landlordId);
-                statistics.put("activeOrderCount", activeOrderCount);
-            } catch (Exception e) {
-                log.error("获取房东进行中订单数量失败: {}", e.getMessage());
-                statistics.put("activeOrderCount", 0);
-            }
-            
-            // 4. 统计本月收入
-            try {
-                BigDecimal monthlyIncome = orderService.calculateLandlordMonthlyIncome(landlordId);
-                statistics.put("monthlyIncome", monthlyIncome);
-            } catch (Exception e) {
-                log.error("获取房东本月收入失败: {}", e.getMessage());
-                statistics.put("monthlyIncome", new BigDecimal("0.00"));
-            }
-            
-            return Result.success(statistics);
-        } catch (Exception e) {
-            log.error("获取房东首页统计失败: {}", e.getMessage(), e);
-            // 即使整体失败，也返回默认的统计数据
-            if (statistics.isEmpty()) {
-                statistics.put("houseCount", 0);
-                statistics.put("pendingAppointmentCount", 0);
-                statistics.put("activeOrderCount", 0);
-                statistics.put("monthlyIncome", new BigDecimal("0.00"));
-            }
-            return Result.success(statistics);
-        }
+        // 各项统计并发计算，超时或失败的指标返回默认值
+        StatsCollector.Metrics metrics = new StatsCollector.Metrics()
+                // 1. 统计房东的房源数量
+                .add("houseCount", () -> houseService.countLandlordHouses(landlordId), 0)
+                // 2. 统计待处理预约数量
+                .add("pendingAppointmentCount", () -> appointmentService.countLandlordPendingAppointments(landlordId), 0)
+                // 3. 统计进行中订单数量
+                .add("activeOrderCount", () -> orderService.countLandlordActiveOrders(landlordId), 0)
+                // 4. 统计本月收入
+                .add("monthlyIncome", () -> orderService.calculateLandlordMonthlyIncome(landlordId), new BigDecimal("0.00"));
+        return Result.success(statsCollector.collect("landlord:" + landlordId, metrics));
     }
 
     /**
@@ -152,28 +112,7 @@ public class LandlordController {
             statistics.put("terminateRequestsDesc", "当前待处理的退租申请数量");
             
             // 10. 添加月度收入数据
-            List<Map<String, Object>> monthlyIncomeData = new ArrayList<>();
-            LocalDate now = LocalDate.now();
-            
-            for (int i = 5; i >= 0; i--) {
-                LocalDate monthStart = now.minusMonths(i).withDayOfMonth(1);
-                LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
-                
-                // 格式化月份为 "yyyy-MM" 格式
-                String monthLabel = monthStart.format(DateTimeFormatter.ofPattern("yyyy-MM"));
-                
-                // 获取该月收入
-                BigDecimal income = orderService.calculateLandlordIncomeInPeriod(
-                    landlordId, 
-                    monthStart, 
-                    monthEnd
-                );
-                
-                Map<String, Object> monthData = new HashMap<>();
-                monthData.put("month", monthLabel);
-                monthData.put("income", income);
-                monthlyIncomeData.add(monthData);
-            }
+            List<Map<String, Object>> monthlyIncomeData = orderService.getMonthlyIncomeData(landlordId, 6);
             
             statistics.put("monthlyIncomeData", monthlyIncomeData);
             statistics.put("monthlyIncomeDataDesc", "近6个月的月度收入数据");
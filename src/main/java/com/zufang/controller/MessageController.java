@@ -3,6 +3,7 @@ package com.zufang.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zufang.common.api.CommonResult;
 import com.zufang.common.response.Result;
+import com.zufang.dto.CursorPageDTO;
 import com.zufang.dto.MessageSendRequest;
 import com.zufang.entity.Message;
 import com.zufang.service.MessageService;
@@ -66,6 +67,28 @@ public class MessageController {
         }
     }
     
+    /**
+     * 游标分页获取用户消息列表
+     */
+    @GetMapping("/user/messages/cursor")
+    public Result<CursorPageDTO<Message>> getUserMessagesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(defaultValue = "false") Boolean withTotal,
+            HttpServletRequest request) {
+        // 从请求中获取当前登录的用户ID
+        Long userId = (Long) request.getAttribute("userId");
+        log.info("游标分页获取用户消息列表: userId={}, cursor={}, size={}", userId, cursor, size);
+        
+        try {
+            CursorPageDTO<Message> messages = messageService.getUserMessagesByCursor(userId, cursor, size, withTotal);
+            return Result.success(messages);
+        } catch (Exception e) {
+            log.error("游标分页获取用户消息列表失败: {}", e.getMessage(), e);
+            return Result.fail("获取消息列表失败");
+        }
+    }
+    
     /**
      * 标记消息为已读
      */
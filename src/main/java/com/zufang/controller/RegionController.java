@@ -1,5 +1,6 @@
 package com.zufang.controller;
 
+import com.zufang.cache.RegionSnapshot;
 import com.zufang.common.Result;
 import com.zufang.dto.RegionDTO;
 import com.zufang.entity.RegionCity;
@@ -8,6 +9,9 @@ import com.zufang.entity.RegionProvince;
 import com.zufang.service.RegionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +28,9 @@ public class RegionController {
     @Autowired
     private RegionService regionService;
     
+    @Autowired
+    private RegionSnapshot regionSnapshot;
+    
     /**
      * 获取所有省份
      */
@@ -54,15 +61,24 @@ public class RegionController {
     
     /**
      * 获取所有地区（树形结构）
+     * 快照可用时直接返回预先序列化的响应体并带上ETag，请求头If-None-Match与之相同时返回304
      */
     @GetMapping("/tree")
-    public Result<List<RegionDTO>> getAllRegionsTree() {
+    public ResponseEntity<?> getAllRegionsTree() {
+        RegionSnapshot.Snapshot snapshot = regionSnapshot.get();
+        if (snapshot != null) {
+            return ResponseEntity.ok()
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(snapshot.getTreeJson());
+        }
         try {
             List<RegionDTO> regions = regionService.getAllRegionsTree();
-            return Result.success(regions);
+            return ResponseEntity.ok(Result.success(regions));
         } catch (Exception e) {
             log.error("获取地区树失败: {}", e.getMessage(), e);
-            return Result.fail(e.getMessage());
+            return ResponseEntity.ok(Result.fail(e.getMessage()));
         }
     }
     
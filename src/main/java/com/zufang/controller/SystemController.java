@@ -5,9 +5,26 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import com.zufang.cache.ChatParticipantCache;
+import com.zufang.cache.HouseDetailCache;
+import com.zufang.cache.RegionSnapshot;
+import com.zufang.contract.ContractContentCache;
+import com.zufang.contract.ContractGenerationQueue;
+import com.zufang.contract.ContractTemplateEngine;
+import com.zufang.chat.ChatMessageWriter;
 import com.zufang.common.Result;
+import com.zufang.order.HouseBookingLock;
+import com.zufang.service.ChatMessageService;
+import com.zufang.service.IncomeLedgerService;
+import com.zufang.service.MessageCounterService;
+import com.zufang.service.RedisCacheService;
 import com.zufang.service.SystemService;
+import com.zufang.security.TokenAuthenticator;
 import com.zufang.entity.SystemSetting;
+import com.zufang.websocket.BroadcastNotifier;
+import com.zufang.websocket.ClusterMessageRelay;
+import com.zufang.websocket.OnlineUserRegistry;
+import com.zufang.websocket.OutboundDispatcher;
 import com.zufang.dto.FeatureToggleDTO;
 
 import java.util.Map;
@@ -23,6 +40,57 @@ public class SystemController {
     @Autowired
     private SystemService systemService;
     
+    @Autowired
+    private HouseDetailCache houseDetailCache;
+    
+    @Autowired
+    private RedisCacheService redisCacheService;
+    
+    @Autowired
+    private IncomeLedgerService incomeLedgerService;
+    
+    @Autowired
+    private TokenAuthenticator tokenAuthenticator;
+    
+    @Autowired
+    private ChatMessageService chatMessageService;
+    
+    @Autowired
+    private ChatParticipantCache chatParticipantCache;
+    
+    @Autowired
+    private MessageCounterService messageCounterService;
+    
+    @Autowired
+    private OnlineUserRegistry onlineUserRegistry;
+    
+    @Autowired
+    private BroadcastNotifier broadcastNotifier;
+    
+    @Autowired
+    private ClusterMessageRelay clusterMessageRelay;
+    
+    @Autowired
+    private OutboundDispatcher outboundDispatcher;
+    
+    @Autowired
+    private ChatMessageWriter chatMessageWriter;
+    
+    @Autowired
+    private RegionSnapshot regionSnapshot;
+    
+    @Autowired
+    private ContractGenerationQueue contractGenerationQueue;
+    
+    @Autowired
+    private ContractTemplateEngine contractTemplateEngine;
+    
+    @Autowired
+    private ContractContentCache contractContentCache;
+    
+    @Autowired
+    private HouseBookingLock houseBookingLock;
+    
     /**
      * 获取系统设置
      */
@@ -53,6 +121,50 @@ public class SystemController {
         }
     }
     
+    /**
+     * 获取缓存命中统计
+     */
+    @GetMapping("/cache/stats")
+    public Result getCacheStats() {
+        try {
+            logger.info("获取缓存命中统计");
+            Map<String, Object> stats = new java.util.LinkedHashMap<>();
+            stats.put("redis", redisCacheService.getStats());
+            stats.put("houseDetail", houseDetailCache.getStats());
+            stats.put("token", tokenAuthenticator.getStats());
+            stats.put("chatParticipant", chatParticipantCache.getStats());
+            stats.put("chatWriter", chatMessageWriter.getStats());
+            stats.put("region", regionSnapshot.getStats());
+            stats.put("contractTemplate", contractTemplateEngine.getStats());
+            stats.put("contractContent", contractContentCache.getStats());
+            return Result.success(stats);
+        } catch (Exception e) {
+            logger.error("获取缓存命中统计失败", e);
+            return Result.error("获取缓存命中统计失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取WebSocket在线和广播推送统计
+     */
+    @GetMapping("/websocket/stats")
+    public Result getWebSocketStats() {
+        Map<String, Object> stats = new java.util.LinkedHashMap<>();
+        stats.put("online", onlineUserRegistry.getStats());
+        stats.put("broadcast", broadcastNotifier.getStats());
+        stats.put("cluster", clusterMessageRelay.getStats());
+        stats.put("outbound", outboundDispatcher.getStats());
+        return Result.success(stats);
+    }
+    
+    /**
+     * 获取房源预订锁统计
+     */
+    @GetMapping("/booking-lock/stats")
+    public Result getBookingLockStats() {
+        return Result.success(houseBookingLock.getStats());
+    }
+    
     /**
      * 获取功能开关设置
      */
@@ -99,6 +211,74 @@ public class SystemController {
         }
     }
     
+    /**
+     * 根据现有订单重建收入流水
+     */
+    @PostMapping("/income-ledger/rebuild")
+    public Result rebuildIncomeLedger() {
+        try {
+            logger.info("开始重建收入流水");
+            int count = incomeLedgerService.rebuild();
+            return Result.success("重建收入流水成功，共处理 " + count + " 个订单");
+        } catch (Exception e) {
+            logger.error("重建收入流水失败", e);
+            return Result.error("重建收入流水失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 根据聊天消息重建会话汇总
+     */
+    @PostMapping("/chat-session/rebuild")
+    public Result rebuildChatSessions() {
+        try {
+            logger.info("开始重建聊天会话汇总");
+            int count = chatMessageService.rebuildSessionSummary();
+            return Result.success("重建聊天会话汇总成功，共 " + count + " 个会话");
+        } catch (Exception e) {
+            logger.error("重建聊天会话汇总失败", e);
+            return Result.error("重建聊天会话汇总失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 根据消息表重建用户消息计数
+     */
+    @PostMapping("/message-counter/rebuild")
+    public Result rebuildMessageCounters() {
+        try {
+            logger.info("开始重建用户消息计数");
+            int count = messageCounterService.rebuild();
+            return Result.success("重建用户消息计数成功，共 " + count + " 个用户");
+        } catch (Exception e) {
+            logger.error("重建用户消息计数失败", e);
+            return Result.error("重建用户消息计数失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取合同异步生成统计
+     */
+    @GetMapping("/contract-outbox/stats")
+    public Result getContractOutboxStats() {
+        return Result.success(contractGenerationQueue.getStats());
+    }
+    
+    /**
+     * 重新生成重试次数已用尽的合同
+     */
+    @PostMapping("/contract-outbox/retry")
+    public Result retryFailedContracts() {
+        try {
+            logger.info("重新生成失败的合同");
+            int count = contractGenerationQueue.retryFailed();
+            return Result.success("已重新提交 " + count + " 个合同生成任务");
+        } catch (Exception e) {
+            logger.error("重新生成失败的合同失败", e);
+            return Result.error("重新生成失败的合同失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 数据库备份
      */
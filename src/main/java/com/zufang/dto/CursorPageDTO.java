@@ -0,0 +1,23 @@
+package com.zufang.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果DTO（按 create_time, id 倒序的键集分页）
+ */
+@Data
+public class CursorPageDTO<T> {
+    
+    private List<T> records = new ArrayList<>(); // 当前页数据
+    
+    private String nextCursor; // 下一页游标，没有更多数据时为null
+    
+    private Boolean hasMore; // 是否还有更多数据
+    
+    private Integer size; // 每页数量
+    
+    private Long total; // 总记录数，未请求统计时为null
+}
@@ -0,0 +1,34 @@
+package com.zufang.dto.chat;
+
+import com.zufang.entity.ChatMessage;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 聊天历史分页结果DTO（按消息从新到旧分页）
+ */
+@Data
+public class ChatHistoryPageDTO {
+    
+    /**
+     * 当前页消息，从新到旧排列
+     */
+    private List<ChatMessage> records = new ArrayList<>();
+    
+    /**
+     * 加载更早消息时使用的beforeId，没有更多消息时为null
+     */
+    private Long nextBeforeId;
+    
+    /**
+     * 是否还有更早的消息
+     */
+    private Boolean hasMore;
+    
+    /**
+     * 每页数量
+     */
+    private Integer size;
+}
@@ -0,0 +1,63 @@
+package com.zufang.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 聊天会话汇总实体类
+ * 每个会话（两个用户 + 房源）为双方各保存一行，记录最后一条消息和本方的未读数
+ */
+@Data
+@TableName("chat_session")
+public class ChatSession {
+
+    /**
+     * ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 会话所属用户ID
+     */
+    private Long ownerId;
+
+    /**
+     * 会话对方用户ID
+     */
+    private Long peerId;
+
+    /**
+     * 房源ID
+     */
+    private Long houseId;
+
+    /**
+     * 最后一条消息ID
+     */
+    private Long lastMessageId;
+
+    /**
+     * 最后一条消息内容
+     */
+    private String lastMessage;
+
+    /**
+     * 最后一条消息时间
+     */
+    private LocalDateTime lastMessageTime;
+
+    /**
+     * 对方发给本方的未读消息数
+     */
+    private Integer unreadCount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -73,7 +73,17 @@ public class Contract {
     private Long contractTemplateId;
 
     /**
-     * 填充后的合同内容
+     * 合同模板版本
+     */
+    private Integer templateVersion;
+
+    /**
+     * 合同模板参数（JSON），合同内容按模板版本和参数在查看时渲染
+     */
+    private String templateParams;
+
+    /**
+     * 填充后的合同内容，只有旧合同保存
      */
     private String filledContent;
 
@@ -0,0 +1,60 @@
+package com.zufang.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 合同生成任务实体类
+ * 与订单支付在同一事务中写入，保证支付成功的订单最终一定会生成合同
+ */
+@Data
+@TableName("contract_outbox")
+public class ContractOutbox {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 订单ID
+     */
+    private Long orderId;
+
+    /**
+     * 生成的合同ID
+     */
+    private Long contractId;
+
+    /**
+     * 状态：PENDING-待生成，DONE-已生成，FAILED-重试次数用尽
+     */
+    private String status;
+
+    /**
+     * 已尝试次数
+     */
+    private Integer attempts;
+
+    /**
+     * 下次重试时间
+     */
+    private LocalDateTime nextRetryTime;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
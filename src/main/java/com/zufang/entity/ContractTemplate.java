@@ -25,6 +25,11 @@ public class ContractTemplate {
      */
     private String content;
 
+    /**
+     * 模板版本，每次修改加1
+     */
+    private Integer version;
+
     /**
      * 创建时间
      */
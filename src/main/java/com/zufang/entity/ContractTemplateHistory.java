@@ -0,0 +1,40 @@
+package com.zufang.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 合同模板历史版本实体类
+ * 合同只保存模板ID、版本和参数，模板修改后已生成的合同按原版本渲染
+ */
+@Data
+@TableName("contract_template_history")
+public class ContractTemplateHistory {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 模板ID
+     */
+    private Long templateId;
+
+    /**
+     * 模板版本
+     */
+    private Integer version;
+
+    /**
+     * 该版本的合同正文内容
+     */
+    private String content;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+}
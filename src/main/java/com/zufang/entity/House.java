@@ -1,6 +1,8 @@
 package com.zufang.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableLogic;
 import com.baomidou.mybatisplus.annotation.TableName;
@@ -91,6 +93,9 @@ public class House implements Serializable {
     @TableLogic
     private Integer isDeleted; // 是否删除：0-未删除，1-已删除
     
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer version; // 状态版本号，仅由条件更新语句递增
+    
     // 获取房东ID
     public Long getLandlordId() {
         return this.ownerId;
@@ -0,0 +1,50 @@
+package com.zufang.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日收入汇总实体类
+ * 每个房东每天一行，平台收入为全部房东之和
+ */
+@Data
+@TableName("income_daily")
+public class IncomeDaily {
+
+    /**
+     * ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 房东ID
+     */
+    private Long landlordId;
+
+    /**
+     * 收入日期
+     */
+    private LocalDate incomeDate;
+
+    /**
+     * 租金收入
+     */
+    private BigDecimal rentIncome;
+
+    /**
+     * 违约金收入
+     */
+    private BigDecimal penaltyIncome;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
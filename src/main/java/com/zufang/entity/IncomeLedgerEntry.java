@@ -0,0 +1,75 @@
+package com.zufang.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 收入流水实体类
+ * 每个订单每种收入类型只记一条，金额同时累加到按房东、按天汇总的income_daily表
+ */
+@Data
+@TableName("income_ledger_entry")
+public class IncomeLedgerEntry {
+
+    /**
+     * 租金收入（支付时记入，不含押金）
+     */
+    public static final String TYPE_RENT = "RENT";
+
+    /**
+     * 退租时按实际租期对租金收入的调整（负数）
+     */
+    public static final String TYPE_RENT_ADJUST = "RENT_ADJUST";
+
+    /**
+     * 已支付订单取消时冲回的租金收入（负数）
+     */
+    public static final String TYPE_RENT_REVERSAL = "RENT_REVERSAL";
+
+    /**
+     * 违约金收入
+     */
+    public static final String TYPE_PENALTY = "PENALTY";
+
+    /**
+     * ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 订单ID
+     */
+    private Long orderId;
+
+    /**
+     * 房东ID
+     */
+    private Long landlordId;
+
+    /**
+     * 收入类型
+     */
+    private String entryType;
+
+    /**
+     * 金额
+     */
+    private BigDecimal amount;
+
+    /**
+     * 入账日期
+     */
+    private LocalDate incomeDate;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,38 @@
+package com.zufang.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户消息计数实体类
+ * 全局消息的未读数 = 全局消息总数 - 已读的全局消息数
+ */
+@Data
+@TableName("zf_message_counter")
+public class MessageCounter {
+
+    /**
+     * 用户ID
+     */
+    @TableId(type = IdType.INPUT)
+    private Long userId;
+
+    /**
+     * 个人未读消息数
+     */
+    private Integer unreadCount;
+
+    /**
+     * 已读的全局消息数
+     */
+    private Integer globalReadCount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
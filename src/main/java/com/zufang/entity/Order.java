@@ -166,6 +166,12 @@ public class Order {
      */
     @TableLogic
     private Boolean isDeleted;
+
+    /**
+     * 状态版本号，仅由条件更新语句递增，按ID更新实体时不写入
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer version;
     
     /**
      * 房源标题
@@ -0,0 +1,18 @@
+package com.zufang.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 房源变更事件（发布、编辑、状态变化、删除）
+ */
+@Getter
+public class HouseChangedEvent extends ApplicationEvent {
+    
+    private final Long houseId;
+    
+    public HouseChangedEvent(Long houseId) {
+        super(houseId);
+        this.houseId = houseId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.zufang.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 全局系统消息广播事件
+ */
+@Getter
+public class MessageBroadcastEvent extends ApplicationEvent {
+    
+    private final Long messageId;
+    
+    private final String title;
+    
+    private final String content;
+    
+    public MessageBroadcastEvent(Long messageId, String title, String content) {
+        super(messageId);
+        this.messageId = messageId;
+        this.title = title;
+        this.content = content;
+    }
+}
@@ -0,0 +1,13 @@
+package com.zufang.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 地区变更事件（省份、城市、区域的新增、修改、删除）
+ */
+public class RegionChangedEvent extends ApplicationEvent {
+    
+    public RegionChangedEvent(Object source) {
+        super(source);
+    }
+}
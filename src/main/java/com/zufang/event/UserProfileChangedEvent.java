@@ -0,0 +1,18 @@
+package com.zufang.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 用户资料变更事件（昵称、头像、联系方式等）
+ */
+@Getter
+public class UserProfileChangedEvent extends ApplicationEvent {
+    
+    private final Long userId;
+    
+    public UserProfileChangedEvent(Long userId) {
+        super(userId);
+        this.userId = userId;
+    }
+}
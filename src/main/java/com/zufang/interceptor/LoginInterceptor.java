@@ -1,10 +1,14 @@
 package com.zufang.interceptor;
 
 import com.zufang.common.exception.BusinessException;
-import com.zufang.common.util.JwtUtil;
+import com.zufang.security.JwtPrincipal;
+import com.zufang.security.TokenAuthenticator;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -15,6 +19,9 @@ import org.springframework.web.servlet.HandlerInterceptor;
 @Component
 public class LoginInterceptor implements HandlerInterceptor {
 
+    @Autowired
+    private TokenAuthenticator tokenAuthenticator;
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         // 获取请求路径
@@ -29,28 +36,21 @@ public class LoginInterceptor implements HandlerInterceptor {
         }
         
         try {
-            // 验证token
-            if (JwtUtil.isTokenExpired(token)) {
-                log.warn("token已过期, URI: {}", uri);
-                throw new BusinessException("登录已过期，请重新登录");
-            }
-            
-            // 解析用户ID
-            String userId = JwtUtil.getUserId(token);
-            if (userId == null) {
-                log.warn("token无效，无法解析用户ID, URI: {}", uri);
-                throw new BusinessException("无效的登录信息，请重新登录");
-            }
-            
-            // 解析用户角色
-            String role = JwtUtil.getRole(token);
+            // 一次验证并解析token，验证结果按token缓存到过期为止
+            JwtPrincipal principal = tokenAuthenticator.authenticate(token);
             
             // 将用户信息存入request
-            request.setAttribute("userId", Long.valueOf(userId));
-            request.setAttribute("role", role);
+            request.setAttribute("userId", principal.getUserId());
+            request.setAttribute("role", principal.getRole());
             
-            log.info("用户已登录, userId: {}, role: {}", userId, role);
+            log.info("用户已登录, userId: {}, role: {}", principal.getUserId(), principal.getRole());
             return true;
+        } catch (ExpiredJwtException e) {
+            log.warn("token已过期, URI: {}", uri);
+            throw new BusinessException("登录已过期，请重新登录");
+        } catch (JwtException e) {
+            log.warn("token无效，无法解析用户ID, URI: {}", uri);
+            throw new BusinessException("无效的登录信息，请重新登录");
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
@@ -3,11 +3,13 @@ package com.zufang.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zufang.dto.chat.ChatSessionDTO;
 import com.zufang.entity.ChatMessage;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -18,27 +20,83 @@ public interface ChatMessageMapper extends BaseMapper<ChatMessage> {
     
     /**
      * 获取聊天历史记录
+     * 发送者昵称和头像由调用方按会话统一填充，不再逐行关联用户表
      *
      * @param userId     用户ID
      * @param landlordId 房东ID
      * @param houseId    房源ID
      * @return 聊天记录列表
      */
-    @Select({"SELECT ", 
-            "    cm.*, ", 
-            "    u.nickname as sender_name, ", 
-            "    u.avatar as sender_avatar ", 
-            "FROM chat_message cm ", 
-            "LEFT JOIN user u ON cm.sender_id = u.id ", 
-            "WHERE ((cm.sender_id = #{userId} AND cm.receiver_id = #{landlordId}) ", 
-            "    OR (cm.sender_id = #{landlordId} AND cm.receiver_id = #{userId})) ", 
-            "    AND cm.house_id = #{houseId} ", 
-            "    AND cm.is_deleted = 0 ", 
-            "ORDER BY cm.create_time ASC"})
+    @Select({"SELECT * FROM chat_message ", 
+            "WHERE ((sender_id = #{userId} AND receiver_id = #{landlordId}) ", 
+            "    OR (sender_id = #{landlordId} AND receiver_id = #{userId})) ", 
+            "    AND house_id = #{houseId} ", 
+            "    AND is_deleted = 0 ", 
+            "ORDER BY create_time ASC, id ASC"})
     List<ChatMessage> getChatHistory(@Param("userId") Long userId,
                                    @Param("landlordId") Long landlordId,
                                    @Param("houseId") Long houseId);
     
+    /**
+     * 从新到旧分页获取聊天历史记录
+     * 两个发送方向分别走 idx_conversation_time(house_id, sender_id, receiver_id, create_time) 倒序扫描，
+     * 各取 limit 条后合并，耗时与会话总消息数无关
+     *
+     * @param userId     用户ID
+     * @param landlordId 房东ID
+     * @param houseId    房源ID
+     * @param beforeTime 游标消息的创建时间，为空表示从最新消息开始
+     * @param beforeId   游标消息ID，只返回排在它之前的消息
+     * @param limit      查询条数
+     * @return 聊天记录列表，从新到旧排列
+     */
+    @Select({"<script>", 
+            "SELECT * FROM (", 
+            "  (SELECT * FROM chat_message ", 
+            "   WHERE house_id = #{houseId} AND sender_id = #{userId} AND receiver_id = #{landlordId} AND is_deleted = 0 ", 
+            "   <if test='beforeTime != null'>AND (create_time &lt; #{beforeTime} OR (create_time = #{beforeTime} AND id &lt; #{beforeId}))</if> ", 
+            "   ORDER BY create_time DESC, id DESC LIMIT #{limit}) ", 
+            "  UNION ALL ", 
+            "  (SELECT * FROM chat_message ", 
+            "   WHERE house_id = #{houseId} AND sender_id = #{landlordId} AND receiver_id = #{userId} AND is_deleted = 0 ", 
+            "   <if test='beforeTime != null'>AND (create_time &lt; #{beforeTime} OR (create_time = #{beforeTime} AND id &lt; #{beforeId}))</if> ", 
+            "   ORDER BY create_time DESC, id DESC LIMIT #{limit}) ", 
+            ") t ", 
+            "ORDER BY create_time DESC, id DESC LIMIT #{limit}", 
+            "</script>"})
+    List<ChatMessage> getChatHistoryBefore(@Param("userId") Long userId,
+                                         @Param("landlordId") Long landlordId,
+                                         @Param("houseId") Long houseId,
+                                         @Param("beforeTime") LocalDateTime beforeTime,
+                                         @Param("beforeId") Long beforeId,
+                                         @Param("limit") int limit);
+    
+    /**
+     * 批量写入消息，消息ID由调用方预先分配
+     *
+     * @param messages 消息列表
+     * @return 影响行数
+     */
+    @Insert({"<script>", 
+            "INSERT INTO chat_message (id, sender_id, receiver_id, house_id, content, is_read, create_time, update_time, is_deleted, sender_avatar, sender_name) VALUES ", 
+            "<foreach collection='messages' item='m' separator=','>", 
+            "(#{m.id}, #{m.senderId}, #{m.receiverId}, #{m.houseId}, #{m.content}, #{m.isRead}, #{m.createTime}, #{m.updateTime}, #{m.isDeleted}, #{m.senderAvatar}, #{m.senderName})", 
+            "</foreach>", 
+            "</script>"})
+    int insertBatch(@Param("messages") List<ChatMessage> messages);
+    
+    /**
+     * 按ID查询已落库的消息（包括已删除的消息），用于区分重放的消息和ID冲突的消息
+     *
+     * @param ids 消息ID列表
+     * @return 已存在消息的ID、发送者、接收者、房源和内容
+     */
+    @Select({"<script>", 
+            "SELECT id, sender_id, receiver_id, house_id, content FROM chat_message WHERE id IN ", 
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>", 
+            "</script>"})
+    List<ChatMessage> selectStoredByIds(@Param("ids") List<Long> ids);
+    
     /**
      * 标记消息为已读
      *
@@ -0,0 +1,135 @@
+package com.zufang.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zufang.dto.chat.ChatSessionDTO;
+import com.zufang.entity.ChatSession;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 聊天会话汇总Mapper接口
+ */
+@Mapper
+public interface ChatSessionMapper extends BaseMapper<ChatSession> {
+
+    /**
+     * 用一条新消息更新会话汇总，会话不存在时创建
+     * 只有消息ID比已记录的更大时才覆盖最后一条消息，避免并发写入时旧消息覆盖新消息
+     *
+     * @param ownerId         会话所属用户ID
+     * @param peerId          会话对方用户ID
+     * @param houseId         房源ID
+     * @param messageId       消息ID
+     * @param content         消息内容
+     * @param messageTime     消息时间
+     * @param unreadIncrement 本方未读数增量
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO chat_session (owner_id, peer_id, house_id, last_message_id, last_message, last_message_time, unread_count) " +
+            "VALUES (#{ownerId}, #{peerId}, #{houseId}, #{messageId}, #{content}, #{messageTime}, #{unreadIncrement}) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "last_message = IF(VALUES(last_message_id) > last_message_id, VALUES(last_message), last_message), " +
+            "last_message_time = IF(VALUES(last_message_id) > last_message_id, VALUES(last_message_time), last_message_time), " +
+            "last_message_id = GREATEST(last_message_id, VALUES(last_message_id)), " +
+            "unread_count = unread_count + VALUES(unread_count)")
+    int upsertMessage(@Param("ownerId") Long ownerId,
+                      @Param("peerId") Long peerId,
+                      @Param("houseId") Long houseId,
+                      @Param("messageId") Long messageId,
+                      @Param("content") String content,
+                      @Param("messageTime") LocalDateTime messageTime,
+                      @Param("unreadIncrement") int unreadIncrement);
+
+    /**
+     * 清零某个会话中本方的未读数
+     */
+    @Update("UPDATE chat_session SET unread_count = 0 " +
+            "WHERE owner_id = #{ownerId} AND peer_id = #{peerId} AND house_id = #{houseId} AND unread_count > 0")
+    int clearUnread(@Param("ownerId") Long ownerId,
+                    @Param("peerId") Long peerId,
+                    @Param("houseId") Long houseId);
+
+    /**
+     * 清零用户所有会话的未读数
+     */
+    @Update("UPDATE chat_session SET unread_count = 0 WHERE owner_id = #{ownerId} AND unread_count > 0")
+    int clearAllUnread(@Param("ownerId") Long ownerId);
+
+    /**
+     * 获取房东的会话列表，对方为租户
+     */
+    @Select("SELECT " +
+            "    CONCAT(s.peer_id, '_', s.house_id) AS session_key, " +
+            "    s.peer_id AS user_id, " +
+            "    u.nickname AS user_name, " +
+            "    u.avatar AS user_avatar, " +
+            "    s.owner_id AS landlord_id, " +
+            "    l.nickname AS landlord_name, " +
+            "    l.avatar AS landlord_avatar, " +
+            "    s.house_id, " +
+            "    h.title AS house_name, " +
+            "    s.last_message, " +
+            "    s.last_message_time, " +
+            "    s.unread_count " +
+            "FROM chat_session s " +
+            "JOIN user u ON u.id = s.peer_id " +
+            "JOIN user l ON l.id = s.owner_id " +
+            "JOIN house h ON h.id = s.house_id " +
+            "WHERE s.owner_id = #{landlordId} " +
+            "ORDER BY s.last_message_time DESC")
+    List<ChatSessionDTO> getLandlordSessions(@Param("landlordId") Long landlordId);
+
+    /**
+     * 获取租户的会话列表，对方为房东
+     */
+    @Select("SELECT " +
+            "    CONCAT(s.peer_id, '_', s.house_id) AS session_key, " +
+            "    s.owner_id AS user_id, " +
+            "    t.nickname AS user_name, " +
+            "    t.avatar AS user_avatar, " +
+            "    s.peer_id AS landlord_id, " +
+            "    l.nickname AS landlord_name, " +
+            "    l.avatar AS landlord_avatar, " +
+            "    s.house_id, " +
+            "    h.title AS house_name, " +
+            "    s.last_message, " +
+            "    s.last_message_time, " +
+            "    s.unread_count " +
+            "FROM chat_session s " +
+            "JOIN user l ON l.id = s.peer_id " +
+            "JOIN user t ON t.id = s.owner_id " +
+            "JOIN house h ON h.id = s.house_id " +
+            "WHERE s.owner_id = #{tenantId} " +
+            "ORDER BY s.last_message_time DESC")
+    List<ChatSessionDTO> getTenantSessions(@Param("tenantId") Long tenantId);
+
+    /**
+     * 根据聊天消息重建会话汇总
+     *
+     * @return 写入的会话行数
+     */
+    @Insert("INSERT INTO chat_session (owner_id, peer_id, house_id, last_message_id, last_message, last_message_time, unread_count) " +
+            "SELECT p.owner_id, p.peer_id, p.house_id, m.id, m.content, m.create_time, " +
+            "    (SELECT COUNT(*) FROM chat_message cm " +
+            "     WHERE cm.receiver_id = p.owner_id AND cm.sender_id = p.peer_id AND cm.house_id = p.house_id " +
+            "     AND cm.is_read = 0 AND cm.is_deleted = 0) " +
+            "FROM ( " +
+            "    SELECT owner_id, peer_id, house_id, MAX(id) AS last_id FROM ( " +
+            "        SELECT sender_id AS owner_id, receiver_id AS peer_id, house_id, id FROM chat_message WHERE is_deleted = 0 " +
+            "        UNION ALL " +
+            "        SELECT receiver_id AS owner_id, sender_id AS peer_id, house_id, id FROM chat_message WHERE is_deleted = 0 " +
+            "    ) x GROUP BY owner_id, peer_id, house_id " +
+            ") p " +
+            "JOIN chat_message m ON m.id = p.last_id")
+    int rebuildFromMessages();
+
+    @Delete("DELETE FROM chat_session")
+    int deleteAll();
+}
@@ -0,0 +1,76 @@
+package com.zufang.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zufang.entity.ContractOutbox;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 合同生成任务Mapper接口
+ */
+@Mapper
+public interface ContractOutboxMapper extends BaseMapper<ContractOutbox> {
+
+    /**
+     * 创建待生成任务，同一订单只保留一条
+     *
+     * @param orderId       订单ID
+     * @param nextRetryTime 未被立即处理时，定时任务接手的时间
+     * @return 影响行数
+     */
+    @Insert("INSERT IGNORE INTO contract_outbox (order_id, status, attempts, next_retry_time, create_time, update_time) " +
+            "VALUES (#{orderId}, 'PENDING', 0, #{nextRetryTime}, NOW(), NOW())")
+    int insertPending(@Param("orderId") Long orderId, @Param("nextRetryTime") LocalDateTime nextRetryTime);
+
+    /**
+     * 领取任务：尝试次数与读取时一致才能领取成功，同一次尝试只会被一个线程执行；
+     * 领取时即写入下次重试时间，执行中断的任务到期后会被重新领取
+     *
+     * @param orderId          订单ID
+     * @param expectedAttempts 读取时的尝试次数
+     * @param nextRetryTime    下次重试时间
+     * @return 影响行数，0表示已被其他线程领取或已完成
+     */
+    @Update("UPDATE contract_outbox SET attempts = attempts + 1, next_retry_time = #{nextRetryTime}, update_time = NOW() " +
+            "WHERE order_id = #{orderId} AND status = 'PENDING' AND attempts = #{expectedAttempts}")
+    int claim(@Param("orderId") Long orderId,
+              @Param("expectedAttempts") int expectedAttempts,
+              @Param("nextRetryTime") LocalDateTime nextRetryTime);
+
+    /**
+     * 标记任务完成
+     */
+    @Update("UPDATE contract_outbox SET status = 'DONE', contract_id = #{contractId}, last_error = NULL, update_time = NOW() " +
+            "WHERE order_id = #{orderId}")
+    int markDone(@Param("orderId") Long orderId, @Param("contractId") Long contractId);
+
+    /**
+     * 记录失败原因，重试次数用尽时标记为FAILED
+     */
+    @Update("UPDATE contract_outbox SET last_error = #{lastError}, " +
+            "status = IF(attempts >= #{maxAttempts}, 'FAILED', status), update_time = NOW() " +
+            "WHERE order_id = #{orderId} AND status = 'PENDING'")
+    int markFailed(@Param("orderId") Long orderId,
+                   @Param("lastError") String lastError,
+                   @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 查询到期待重试的任务
+     */
+    @Select("SELECT * FROM contract_outbox WHERE status = 'PENDING' AND next_retry_time <= #{now} " +
+            "ORDER BY next_retry_time LIMIT #{limit}")
+    List<ContractOutbox> selectDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * 将重试次数用尽的任务恢复为待生成
+     */
+    @Update("UPDATE contract_outbox SET status = 'PENDING', attempts = 0, next_retry_time = NOW(), update_time = NOW() " +
+            "WHERE status = 'FAILED'")
+    int resetFailed();
+}
@@ -0,0 +1,30 @@
+package com.zufang.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zufang.entity.ContractTemplateHistory;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 合同模板历史版本Mapper接口
+ */
+@Mapper
+public interface ContractTemplateHistoryMapper extends BaseMapper<ContractTemplateHistory> {
+
+    /**
+     * 保存模板版本，同一版本只保存一次
+     */
+    @Insert("INSERT IGNORE INTO contract_template_history (template_id, version, content, create_time) " +
+            "VALUES (#{templateId}, #{version}, #{content}, NOW())")
+    int insertIgnore(@Param("templateId") Long templateId,
+                     @Param("version") Integer version,
+                     @Param("content") String content);
+
+    /**
+     * 查询模板的指定版本
+     */
+    @Select("SELECT * FROM contract_template_history WHERE template_id = #{templateId} AND version = #{version}")
+    ContractTemplateHistory selectVersion(@Param("templateId") Long templateId, @Param("version") Integer version);
+}
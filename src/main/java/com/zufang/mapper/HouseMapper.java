@@ -7,6 +7,7 @@ import com.zufang.entity.House;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -149,4 +150,17 @@ public interface HouseMapper extends BaseMapper<House> {
             @Param("hasParking") Boolean hasParking,
             @Param("sortField") String sortField,
             @Param("sortOrder") String sortOrder);
+    
+    /**
+     * 按状态比较并更新房源状态，同时递增版本号
+     * @param id 房源ID
+     * @param expectStatus 期望的当前状态
+     * @param status 新状态
+     * @return 影响行数，0表示房源不存在或状态已被其他请求修改
+     */
+    @Update("UPDATE house SET status = #{status}, version = version + 1, update_time = NOW() " +
+            "WHERE id = #{id} AND status = #{expectStatus} AND is_deleted = 0")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expectStatus") String expectStatus,
+                            @Param("status") String status);
 } 
\ No newline at end of file
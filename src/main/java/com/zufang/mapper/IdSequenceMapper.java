@@ -0,0 +1,50 @@
+package com.zufang.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * ID号段分配Mapper接口
+ */
+@Mapper
+public interface IdSequenceMapper {
+
+    /**
+     * 创建序列，已存在时忽略
+     *
+     * @param name 序列名称
+     * @return 影响行数
+     */
+    @Insert("INSERT IGNORE INTO id_sequence (name, max_value) VALUES (#{name}, 0)")
+    int insertIgnore(@Param("name") String name);
+
+    /**
+     * 为聊天消息预留一段ID，起点越过表中已有的最大ID（包括自增写入的消息）
+     * 新的最大值通过LAST_INSERT_ID返回，需与selectLastInsertId在同一事务中调用
+     *
+     * @param size 号段长度
+     * @return 影响行数
+     */
+    @Update("UPDATE id_sequence SET max_value = LAST_INSERT_ID(" +
+            "GREATEST(max_value, (SELECT COALESCE(MAX(id), 0) FROM chat_message)) + #{size}) " +
+            "WHERE name = 'chat_message'")
+    int reserveChatMessageIds(@Param("size") int size);
+
+    /**
+     * 序列值加1，新值通过LAST_INSERT_ID返回，需与selectLastInsertId在同一事务中调用
+     *
+     * @param name 序列名称
+     * @return 影响行数
+     */
+    @Update("UPDATE id_sequence SET max_value = LAST_INSERT_ID(max_value + 1) WHERE name = #{name}")
+    int increment(@Param("name") String name);
+
+    /**
+     * 获取当前连接最近一次通过LAST_INSERT_ID设置的值
+     */
+    @Select("SELECT LAST_INSERT_ID()")
+    Long selectLastInsertId();
+}
@@ -0,0 +1,97 @@
+package com.zufang.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zufang.entity.IncomeDaily;
+import com.zufang.entity.IncomeLedgerEntry;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 收入流水Mapper接口
+ */
+@Mapper
+public interface IncomeLedgerMapper extends BaseMapper<IncomeLedgerEntry> {
+
+    /**
+     * 写入收入流水，同一订单同一类型已存在时忽略
+     * @return 实际写入的行数
+     */
+    @Insert("INSERT IGNORE INTO income_ledger_entry (order_id, landlord_id, entry_type, amount, income_date, create_time) " +
+            "VALUES (#{orderId}, #{landlordId}, #{entryType}, #{amount}, #{incomeDate}, NOW())")
+    int insertIgnore(IncomeLedgerEntry entry);
+
+    /**
+     * 批量累加每日收入汇总
+     * 调用方按房东ID、日期排序传入，并发写入同一批日期时按相同顺序加锁
+     */
+    @Insert("<script>" +
+            "INSERT INTO income_daily (landlord_id, income_date, rent_income, penalty_income) VALUES " +
+            "<foreach collection='rows' item='row' separator=','>" +
+            "(#{row.landlordId}, #{row.incomeDate}, #{row.rentIncome}, #{row.penaltyIncome})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE rent_income = rent_income + VALUES(rent_income), " +
+            "penalty_income = penalty_income + VALUES(penalty_income)" +
+            "</script>")
+    int addDailyIncomes(@Param("rows") List<IncomeDaily> rows);
+
+    /**
+     * 汇总指定房东在日期范围内的收入，房东ID为空表示全部房东（平台收入），日期为空表示不限
+     */
+    @Select("<script>" +
+            "SELECT COALESCE(SUM(rent_income + penalty_income), 0) FROM income_daily WHERE 1 = 1 " +
+            "<if test='landlordId != null'>AND landlord_id = #{landlordId} </if>" +
+            "<if test='startDate != null'>AND income_date &gt;= #{startDate} </if>" +
+            "<if test='endDate != null'>AND income_date &lt;= #{endDate} </if>" +
+            "</script>")
+    BigDecimal sumIncome(@Param("landlordId") Long landlordId,
+                         @Param("startDate") LocalDate startDate,
+                         @Param("endDate") LocalDate endDate);
+
+    /**
+     * 汇总指定房东在日期范围内的违约金收入，房东ID为空表示全部房东（平台收入），日期为空表示不限
+     */
+    @Select("<script>" +
+            "SELECT COALESCE(SUM(penalty_income), 0) FROM income_daily WHERE 1 = 1 " +
+            "<if test='landlordId != null'>AND landlord_id = #{landlordId} </if>" +
+            "<if test='startDate != null'>AND income_date &gt;= #{startDate} </if>" +
+            "<if test='endDate != null'>AND income_date &lt;= #{endDate} </if>" +
+            "</script>")
+    BigDecimal sumPenaltyIncome(@Param("landlordId") Long landlordId,
+                                @Param("startDate") LocalDate startDate,
+                                @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按月汇总指定房东在日期范围内的收入，房东ID为空表示全部房东（平台收入）
+     * @return 每行包含month（yyyy-MM）和income，没有收入的月份不返回
+     */
+    @Select("<script>" +
+            "SELECT DATE_FORMAT(income_date, '%Y-%m') AS month, SUM(rent_income + penalty_income) AS income " +
+            "FROM income_daily " +
+            "WHERE income_date &gt;= #{startDate} AND income_date &lt;= #{endDate} " +
+            "<if test='landlordId != null'>AND landlord_id = #{landlordId} </if>" +
+            "GROUP BY DATE_FORMAT(income_date, '%Y-%m')" +
+            "</script>")
+    List<Map<String, Object>> sumMonthlyIncome(@Param("landlordId") Long landlordId,
+                                               @Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+
+    /**
+     * 删除旧版本写入的平台汇总行（landlord_id = 0），平台收入改为对全部房东求和
+     */
+    @Delete("DELETE FROM income_daily WHERE landlord_id = 0")
+    int deletePlatformDaily();
+
+    @Delete("DELETE FROM income_ledger_entry")
+    int deleteAllEntries();
+
+    @Delete("DELETE FROM income_daily")
+    int deleteAllDaily();
+}
@@ -0,0 +1,75 @@
+package com.zufang.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zufang.entity.MessageCounter;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 用户消息计数Mapper接口
+ */
+@Mapper
+public interface MessageCounterMapper extends BaseMapper<MessageCounter> {
+
+    /**
+     * 累加用户的计数，计数行不存在时创建，结果不小于0
+     *
+     * @param userId           用户ID
+     * @param unreadDelta      个人未读消息数增量
+     * @param globalReadDelta  已读全局消息数增量
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO zf_message_counter (user_id, unread_count, global_read_count) " +
+            "VALUES (#{userId}, GREATEST(#{unreadDelta}, 0), GREATEST(#{globalReadDelta}, 0)) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "unread_count = GREATEST(unread_count + #{unreadDelta}, 0), " +
+            "global_read_count = GREATEST(global_read_count + #{globalReadDelta}, 0)")
+    int addCounts(@Param("userId") Long userId,
+                  @Param("unreadDelta") int unreadDelta,
+                  @Param("globalReadDelta") int globalReadDelta);
+
+    /**
+     * 清零用户的个人未读消息数
+     */
+    @Update("UPDATE zf_message_counter SET unread_count = 0 WHERE user_id = #{userId} AND unread_count > 0")
+    int clearUnread(@Param("userId") Long userId);
+
+    /**
+     * 按阅读状态表重新统计用户已读的全局消息数
+     */
+    @Insert("INSERT INTO zf_message_counter (user_id, unread_count, global_read_count) " +
+            "SELECT #{userId}, 0, COUNT(*) FROM zf_message_read_status r " +
+            "JOIN zf_message m ON m.id = r.message_id " +
+            "WHERE r.user_id = #{userId} AND r.is_read = 1 AND m.is_global = 1 " +
+            "ON DUPLICATE KEY UPDATE global_read_count = VALUES(global_read_count)")
+    int recountGlobalRead(@Param("userId") Long userId);
+
+    /**
+     * 统计全局消息总数
+     */
+    @Select("SELECT COUNT(*) FROM zf_message WHERE is_global = 1")
+    long countGlobalMessages();
+
+    /**
+     * 根据消息表和阅读状态表重建所有用户的计数
+     *
+     * @return 写入的计数行数
+     */
+    @Insert("INSERT INTO zf_message_counter (user_id, unread_count, global_read_count) " +
+            "SELECT user_id, SUM(unread_count), SUM(global_read_count) FROM ( " +
+            "    SELECT user_id, COUNT(*) AS unread_count, 0 AS global_read_count FROM zf_message " +
+            "    WHERE is_global = 0 AND is_read = 0 GROUP BY user_id " +
+            "    UNION ALL " +
+            "    SELECT r.user_id, 0, COUNT(*) FROM zf_message_read_status r " +
+            "    JOIN zf_message m ON m.id = r.message_id " +
+            "    WHERE m.is_global = 1 AND r.is_read = 1 GROUP BY r.user_id " +
+            ") t GROUP BY user_id")
+    int rebuildAll();
+
+    @Delete("DELETE FROM zf_message_counter")
+    int deleteAll();
+}
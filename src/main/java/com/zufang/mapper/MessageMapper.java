@@ -3,10 +3,20 @@ package com.zufang.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zufang.entity.Message;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 /**
  * 消息Mapper接口
  */
 @Mapper
 public interface MessageMapper extends BaseMapper<Message> {
-} 
\ No newline at end of file
+
+    /**
+     * 将未读的个人消息标记为已读
+     * @param id 消息ID
+     * @return 影响行数，1表示由本次调用从未读改为已读，0表示已是已读状态
+     */
+    @Update("UPDATE zf_message SET is_read = 1, update_time = NOW() WHERE id = #{id} AND is_read = 0")
+    int markRead(@Param("id") Long id);
+}
@@ -2,11 +2,67 @@ package com.zufang.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zufang.entity.MessageReadStatus;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 消息阅读状态Mapper接口
  */
 @Mapper
 public interface MessageReadStatusMapper extends BaseMapper<MessageReadStatus> {
-} 
\ No newline at end of file
+
+    /**
+     * 将指定类型的全部全局消息标记为用户已读，已有的阅读状态记录改为已读
+     *
+     * @param userId 用户ID
+     * @param type   消息类型
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO zf_message_read_status (message_id, user_id, is_read, create_time) " +
+            "SELECT m.id, #{userId}, 1, NOW() FROM zf_message m " +
+            "WHERE m.is_global = 1 AND m.type = #{type} " +
+            "ON DUPLICATE KEY UPDATE is_read = 1")
+    int markAllGlobalAsRead(@Param("userId") Long userId, @Param("type") String type);
+
+    /**
+     * 新增全局消息的已读记录，用户已有该消息的阅读状态记录时忽略
+     *
+     * @param messageId 消息ID
+     * @param userId    用户ID
+     * @return 影响行数，0表示已有阅读状态记录
+     */
+    @Insert("INSERT IGNORE INTO zf_message_read_status (message_id, user_id, is_read, create_time) " +
+            "VALUES (#{messageId}, #{userId}, 1, NOW())")
+    int insertRead(@Param("messageId") Long messageId, @Param("userId") Long userId);
+
+    /**
+     * 将未读的阅读状态记录改为已读
+     *
+     * @param messageId 消息ID
+     * @param userId    用户ID
+     * @return 影响行数，1表示由本次调用从未读改为已读
+     */
+    @Update("UPDATE zf_message_read_status SET is_read = 1 " +
+            "WHERE message_id = #{messageId} AND user_id = #{userId} AND is_read = 0")
+    int markRead(@Param("messageId") Long messageId, @Param("userId") Long userId);
+
+    /**
+     * 查询用户已读的消息ID
+     *
+     * @param userId     用户ID
+     * @param messageIds 消息ID列表
+     * @return 已读的消息ID
+     */
+    @Select({"<script>",
+            "SELECT message_id FROM zf_message_read_status ",
+            "WHERE user_id = #{userId} AND is_read = 1 AND message_id IN ",
+            "<foreach collection='messageIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    List<Long> selectReadMessageIds(@Param("userId") Long userId, @Param("messageIds") Collection<Long> messageIds);
+}
@@ -3,10 +3,32 @@ package com.zufang.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zufang.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
 
 /**
  * 订单Mapper接口
  */
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
+
+    /**
+     * 待支付订单标记为已支付：只有订单仍为待支付且属于该用户时更新成功，同时递增版本号
+     * @param id 订单ID
+     * @param userId 租客ID
+     * @param payTime 支付时间
+     * @param payMethod 支付方式
+     * @param transactionId 交易流水号
+     * @return 影响行数，0表示订单已被支付、取消或不属于该用户
+     */
+    @Update("UPDATE `order` SET status = 'PAID', pay_time = #{payTime}, pay_method = #{payMethod}, " +
+            "transaction_id = #{transactionId}, version = version + 1, update_time = NOW() " +
+            "WHERE id = #{id} AND user_id = #{userId} AND status = 'UNPAID' AND is_deleted = 0")
+    int markPaid(@Param("id") Long id,
+                 @Param("userId") Long userId,
+                 @Param("payTime") LocalDateTime payTime,
+                 @Param("payMethod") String payMethod,
+                 @Param("transactionId") String transactionId);
 } 
\ No newline at end of file
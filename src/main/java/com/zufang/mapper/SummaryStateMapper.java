@@ -0,0 +1,52 @@
+package com.zufang.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 汇总表状态Mapper接口
+ */
+@Mapper
+public interface SummaryStateMapper {
+
+    /**
+     * 标记汇总表需要重建，同时递增版本号
+     *
+     * @param name 汇总表名称
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO summary_state (name, dirty, version) VALUES (#{name}, 1, 1) " +
+            "ON DUPLICATE KEY UPDATE dirty = 1, version = version + 1")
+    int markDirty(@Param("name") String name);
+
+    /**
+     * 查询汇总表是否需要重建，没有记录表示不需要
+     *
+     * @param name 汇总表名称
+     * @return 1表示需要重建
+     */
+    @Select("SELECT COALESCE(MAX(dirty), 0) FROM summary_state WHERE name = #{name}")
+    int selectDirty(@Param("name") String name);
+
+    /**
+     * 查询汇总表当前的标记版本号，没有记录时为0
+     *
+     * @param name 汇总表名称
+     * @return 版本号
+     */
+    @Select("SELECT COALESCE(MAX(version), 0) FROM summary_state WHERE name = #{name}")
+    long selectVersion(@Param("name") String name);
+
+    /**
+     * 清除需要重建的标记；重建期间又被标记过（版本号已变化）时不清除
+     *
+     * @param name 汇总表名称
+     * @param version 重建开始前读取的版本号
+     * @return 影响行数
+     */
+    @Update("UPDATE summary_state SET dirty = 0 WHERE name = #{name} AND version = #{version}")
+    int clearDirty(@Param("name") String name, @Param("version") long version);
+}
@@ -0,0 +1,115 @@
+package com.zufang.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 房源预订锁
+ * 同一房源的支付请求在进程内按房源ID排队，持有锁直到事务结束，
+ * 后到的请求读到的已是提交后的状态，比较并更新一次即可得出结果，不会在数据库行锁上堆积重试。
+ * 每个房源一把锁，不同房源之间互不等待；没有请求持有或等待时锁被移除，锁的数量只与正在支付的房源数有关。
+ * 锁只在单实例内生效，跨实例的正确性由房源和订单的状态比较更新保证
+ */
+@Slf4j
+@Component
+public class HouseBookingLock {
+
+    private final Map<Long, HouseLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * 等待锁的最长时间（毫秒），超时后本次请求失败
+     */
+    private final long timeout;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong contended = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public HouseBookingLock(@Value("${zufang.order.house-lock.timeout:3000}") long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * 获取房源的锁，在当前事务结束（提交或回滚）后释放；没有事务时立即释放，只依赖数据库的比较更新
+     * @param houseId 房源ID
+     * @return 等待超时或线程被中断返回false
+     */
+    public boolean lockUntilCompletion(Long houseId) {
+        HouseLock houseLock = locks.compute(houseId, (key, existing) -> {
+            HouseLock current = existing == null ? new HouseLock() : existing;
+            current.users++;
+            return current;
+        });
+        ReentrantLock lock = houseLock.lock;
+        try {
+            if (!lock.tryLock()) {
+                contended.incrementAndGet();
+                if (!lock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+                    timeouts.incrementAndGet();
+                    release(houseId);
+                    log.warn("等待房源锁超时: houseId={}, 超时={}ms", houseId, timeout);
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(houseId);
+            return false;
+        }
+        acquired.incrementAndGet();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            unlock(houseId, lock);
+            return true;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlock(houseId, lock);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 获取预订锁统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lockedHouses", locks.size());
+        stats.put("acquired", acquired.get());
+        stats.put("contended", contended.get());
+        stats.put("timeouts", timeouts.get());
+        return stats;
+    }
+
+    private void unlock(Long houseId, ReentrantLock lock) {
+        lock.unlock();
+        release(houseId);
+    }
+
+    /**
+     * 持有或等待者减1，为0时移除该房源的锁
+     */
+    private void release(Long houseId) {
+        locks.computeIfPresent(houseId, (key, existing) -> --existing.users == 0 ? null : existing);
+    }
+
+    private static class HouseLock {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 持有和等待该锁的请求数，只在ConcurrentHashMap.compute中修改
+         */
+        private int users;
+    }
+}
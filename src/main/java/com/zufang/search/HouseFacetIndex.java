@@ -0,0 +1,723 @@
+package com.zufang.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zufang.dto.HouseSearchDTO;
+import com.zufang.entity.House;
+import com.zufang.event.HouseChangedEvent;
+import com.zufang.mapper.HouseMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 房源分面筛选索引
+ * 对已上架房源按属性值建立位图（城市、区域、户型、出租类型等），价格和面积使用有序数组做区间查找，
+ * 结构化搜索通过位图求交完成，并同时给出各筛选项的分面计数。索引不可用时返回null，由调用方走SQL查询
+ */
+@Slf4j
+@Component
+public class HouseFacetIndex {
+
+    public static final String FACET_PROVINCE = "province";
+    public static final String FACET_CITY = "city";
+    public static final String FACET_DISTRICT = "district";
+    public static final String FACET_BEDROOM_COUNT = "bedroomCount";
+    public static final String FACET_HOUSE_TYPE = "houseType";
+    public static final String FACET_RENT_TYPE = "rentType";
+    public static final String FACET_HAS_ELEVATOR = "hasElevator";
+    public static final String FACET_HAS_PARKING = "hasParking";
+
+    private static final String[] FACETS = {
+            FACET_PROVINCE, FACET_CITY, FACET_DISTRICT, FACET_BEDROOM_COUNT,
+            FACET_HOUSE_TYPE, FACET_RENT_TYPE, FACET_HAS_ELEVATOR, FACET_HAS_PARKING
+    };
+
+    private static final String FILTER_KEYWORD = "keyword";
+    private static final String FILTER_PRICE = "price";
+    private static final String FILTER_AREA = "area";
+
+    /**
+     * 槽位顺序：创建时间倒序，相同时按ID倒序
+     */
+    private static final Comparator<House> TIME_ORDER = Comparator
+            .comparing(House::getCreateTime, Comparator.<LocalDateTime>nullsLast(Comparator.reverseOrder()))
+            .thenComparing(House::getId, Comparator.reverseOrder());
+
+    private static final Comparator<House> PRICE_ORDER = Comparator
+            .comparingLong(HouseFacetIndex::priceCents).thenComparing(TIME_ORDER);
+
+    private static final Comparator<House> AREA_ORDER = Comparator
+            .comparingInt(House::getArea).thenComparing(TIME_ORDER);
+
+    @Autowired
+    private HouseMapper houseMapper;
+
+    @Autowired
+    private HouseKeywordIndex houseKeywordIndex;
+
+    @Value("${zufang.search.facet-index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 当前查询快照，只读；全量加载时整体替换，房源变更时复制受影响的部分生成新快照后替换，查询无需加锁
+     */
+    private volatile Snapshot snapshot;
+
+    private volatile boolean ready = false;
+
+    /**
+     * 全量加载期间增量更新过的房源ID，新快照替换后按数据库最新数据重新应用；不在加载时为null，由this保护
+     */
+    private Set<Long> changedDuringReload;
+
+    private final Object reloadLock = new Object();
+
+    /**
+     * 应用启动完成后加载索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * 定时全量重载，兜底未经过HouseService的房源变更，同时回收已下架房源占用的槽位
+     */
+    @Scheduled(fixedDelayString = "${zufang.search.facet-index.reload-interval:1800000}",
+            initialDelayString = "${zufang.search.facet-index.reload-interval:1800000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * 全量加载已上架房源
+     * 读库期间提交的房源变更会被新快照覆盖，替换后重新应用这些房源的最新数据
+     */
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (reloadLock) {
+            doReload();
+        }
+    }
+
+    private void doReload() {
+        synchronized (this) {
+            changedDuringReload = new HashSet<>();
+        }
+        Set<Long> changed = null;
+        try {
+            LambdaQueryWrapper<House> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(House::getId, House::getProvince, House::getCity, House::getDistrict,
+                    House::getPrice, House::getArea, House::getBedroomCount, House::getHouseType,
+                    House::getRentType, House::getHasElevator, House::getHasParking,
+                    House::getStatus, House::getCreateTime);
+            wrapper.eq(House::getStatus, "APPROVED");
+            wrapper.eq(House::getIsDeleted, 0);
+            List<House> houses = houseMapper.selectList(wrapper);
+            Snapshot fresh = buildSnapshot(houses);
+
+            synchronized (this) {
+                snapshot = fresh;
+                changed = changedDuringReload;
+                changedDuringReload = null;
+                ready = true;
+            }
+            for (Long houseId : changed) {
+                refresh(houseId);
+            }
+            log.info("房源分面索引加载完成, 房源数: {}, 加载期间变更: {}", houses.size(), changed.size());
+        } catch (Exception e) {
+            log.error("房源分面索引加载失败, 房源搜索将使用SQL查询: {}", e.getMessage(), e);
+        } finally {
+            if (changed == null) {
+                synchronized (this) {
+                    changedDuringReload = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 房源状态或属性变更后增量更新（事务提交后执行）
+     * 只更新该房源所在的槽位：受影响的位图和排序数组复制后修改，其余部分与旧快照共用
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHouseChanged(HouseChangedEvent event) {
+        if (!enabled || event.getHouseId() == null) {
+            return;
+        }
+        if (!ready) {
+            // 首次加载尚未完成，记录下来等新快照替换后应用
+            synchronized (this) {
+                if (changedDuringReload != null) {
+                    changedDuringReload.add(event.getHouseId());
+                }
+            }
+            return;
+        }
+        try {
+            refresh(event.getHouseId());
+        } catch (Exception e) {
+            log.error("房源分面索引增量更新失败, 房源ID: {}", event.getHouseId(), e);
+        }
+    }
+
+    /**
+     * 按数据库中的最新数据更新单个房源，全量加载进行中时同时记录该房源
+     */
+    private void refresh(Long houseId) {
+        House house = houseMapper.selectById(houseId);
+        boolean listed = house != null && "APPROVED".equals(house.getStatus())
+                && (house.getIsDeleted() == null || house.getIsDeleted() == 0);
+        synchronized (this) {
+            if (changedDuringReload != null) {
+                changedDuringReload.add(houseId);
+            }
+            snapshot = listed ? snapshot.withHouse(house) : snapshot.withoutHouse(houseId);
+        }
+    }
+
+    /**
+     * 索引是否可用
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * 按搜索条件筛选房源
+     * @param searchDTO 搜索条件
+     * @param countFacets 是否计算分面计数，只有分面统计接口需要
+     * @return 当前页房源ID、总数和分面计数（未计算时为空）；索引不可用或关键词无法由索引处理时返回null
+     */
+    public SearchResult search(HouseSearchDTO searchDTO, boolean countFacets) {
+        if (!isReady()) {
+            return null;
+        }
+        Snapshot current = snapshot;
+
+        // 1. 为每个筛选条件计算位图
+        Map<String, BitSet> filters = new LinkedHashMap<>();
+        String keyword = searchDTO.getKeyword();
+        if (StringUtils.hasText(keyword)) {
+            if (isDirectCity(keyword)) {
+                filters.put(FILTER_KEYWORD, current.cityBits(keyword.replace("市", "").trim()));
+            } else {
+                boolean includeRegion = keyword.contains("省") || keyword.contains("区") || keyword.contains("县");
+                Set<Long> houseIds = houseKeywordIndex.search(keyword, includeRegion);
+                if (houseIds == null) {
+                    return null;
+                }
+                filters.put(FILTER_KEYWORD, current.idBits(houseIds));
+            }
+        }
+        if (StringUtils.hasText(searchDTO.getProvince())) {
+            filters.put(FACET_PROVINCE, current.valueBits(FACET_PROVINCE, searchDTO.getProvince()));
+        }
+        if (StringUtils.hasText(searchDTO.getCity())) {
+            filters.put(FACET_CITY, isDirectCity(searchDTO.getCity())
+                    ? current.cityBits(searchDTO.getCity().replace("市", "").trim())
+                    : current.valueBits(FACET_CITY, searchDTO.getCity()));
+        }
+        if (StringUtils.hasText(searchDTO.getDistrict())) {
+            filters.put(FACET_DISTRICT, current.valueBits(FACET_DISTRICT, searchDTO.getDistrict()));
+        }
+        if (searchDTO.getBedroomCount() != null) {
+            filters.put(FACET_BEDROOM_COUNT, current.valueBits(FACET_BEDROOM_COUNT, String.valueOf(searchDTO.getBedroomCount())));
+        }
+        if (StringUtils.hasText(searchDTO.getHouseType())) {
+            filters.put(FACET_HOUSE_TYPE, current.valueBits(FACET_HOUSE_TYPE, searchDTO.getHouseType()));
+        }
+        if (searchDTO.getRentType() != null) {
+            filters.put(FACET_RENT_TYPE, current.valueBits(FACET_RENT_TYPE, searchDTO.getRentType()));
+        }
+        if (searchDTO.getHasElevator() != null) {
+            filters.put(FACET_HAS_ELEVATOR, current.valueBits(FACET_HAS_ELEVATOR, String.valueOf(searchDTO.getHasElevator())));
+        }
+        if (searchDTO.getHasParking() != null) {
+            filters.put(FACET_HAS_PARKING, current.valueBits(FACET_HAS_PARKING, String.valueOf(searchDTO.getHasParking())));
+        }
+        if (searchDTO.getMinPrice() != null || searchDTO.getMaxPrice() != null) {
+            long min = searchDTO.getMinPrice() == null ? Long.MIN_VALUE : toCents(searchDTO.getMinPrice(), RoundingMode.CEILING);
+            long max = searchDTO.getMaxPrice() == null ? Long.MAX_VALUE : toCents(searchDTO.getMaxPrice(), RoundingMode.FLOOR);
+            filters.put(FILTER_PRICE, current.rangeBits(current.sortedPrices, current.priceSlots, min, max));
+        }
+        if (searchDTO.getMinArea() != null || searchDTO.getMaxArea() != null) {
+            long min = searchDTO.getMinArea() == null ? Long.MIN_VALUE : searchDTO.getMinArea();
+            long max = searchDTO.getMaxArea() == null ? Long.MAX_VALUE : searchDTO.getMaxArea();
+            filters.put(FILTER_AREA, current.rangeBits(current.sortedAreas, current.areaSlots, min, max));
+        }
+
+        // 2. 位图求交
+        BitSet matched = intersect(current, filters, null);
+
+        // 3. 分面计数：每个分面排除自身筛选条件，便于前端展示切换后的数量；列表查询不需要，跳过
+        Map<String, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+        if (countFacets) {
+            for (String facet : FACETS) {
+                BitSet base = filters.containsKey(facet) ? intersect(current, filters, facet) : matched;
+                Map<String, Integer> counts = new LinkedHashMap<>();
+                for (Map.Entry<String, BitSet> entry : current.facets.get(facet).entrySet()) {
+                    BitSet bits = (BitSet) entry.getValue().clone();
+                    bits.and(base);
+                    int count = bits.cardinality();
+                    if (count > 0) {
+                        counts.put(entry.getKey(), count);
+                    }
+                }
+                facetCounts.put(facet, counts);
+            }
+        }
+
+        // 4. 排序并分页
+        int pageNum = searchDTO.getPageNum() == null || searchDTO.getPageNum() < 1 ? 1 : searchDTO.getPageNum();
+        int pageSize = searchDTO.getPageSize() == null || searchDTO.getPageSize() < 1 ? 10 : searchDTO.getPageSize();
+        long offset = (long) (pageNum - 1) * pageSize;
+        List<Long> pageIds = new ArrayList<>(pageSize);
+        int[] order = sortOrder(current, searchDTO);
+        long skipped = 0;
+        for (int i = 0; i < order.length && pageIds.size() < pageSize; i++) {
+            int slot = order[i];
+            if (!matched.get(slot)) {
+                continue;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            pageIds.add(current.houses[slot].getId());
+        }
+
+        return new SearchResult(pageIds, matched.cardinality(), facetCounts);
+    }
+
+    private BitSet intersect(Snapshot current, Map<String, BitSet> filters, String excluded) {
+        BitSet result = (BitSet) current.live.clone();
+        for (Map.Entry<String, BitSet> entry : filters.entrySet()) {
+            if (!entry.getKey().equals(excluded)) {
+                result.and(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按排序条件返回槽位遍历顺序，与SQL搜索的排序规则保持一致：
+     * 价格、面积为空的房源与MySQL相同，升序时排在最前，降序时排在最后
+     */
+    private int[] sortOrder(Snapshot current, HouseSearchDTO searchDTO) {
+        String sortField = searchDTO.getSortField();
+        boolean asc = "asc".equals(searchDTO.getSortOrder());
+        if ("price".equals(sortField)) {
+            return asc ? concat(current.unpricedSlots, current.priceSlots)
+                    : concat(reversed(current.priceSlots), current.unpricedSlots);
+        }
+        if ("area".equals(sortField)) {
+            return asc ? concat(current.unsizedSlots, current.areaSlots)
+                    : concat(reversed(current.areaSlots), current.unsizedSlots);
+        }
+        // timeSlots按创建时间倒序排列
+        return "createTime".equals(sortField) && asc ? reversed(current.timeSlots) : current.timeSlots;
+    }
+
+    private int[] reversed(int[] slots) {
+        int[] result = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            result[i] = slots[slots.length - 1 - i];
+        }
+        return result;
+    }
+
+    private int[] concat(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private Snapshot buildSnapshot(List<House> houses) {
+        // 按创建时间倒序分配槽位
+        List<House> sorted = new ArrayList<>(houses);
+        sorted.sort(TIME_ORDER);
+
+        int size = sorted.size();
+        Snapshot result = new Snapshot();
+        result.houses = sorted.toArray(new House[0]);
+        result.live = new BitSet(size);
+        result.live.set(0, size);
+        result.timeSlots = new int[size];
+        result.slotById = new HashMap<>();
+        result.facets = new HashMap<>();
+        for (String facet : FACETS) {
+            result.facets.put(facet, new HashMap<>());
+        }
+
+        List<Integer> priced = new ArrayList<>();
+        List<Integer> sized = new ArrayList<>();
+        List<Integer> unpriced = new ArrayList<>();
+        List<Integer> unsized = new ArrayList<>();
+        for (int slot = 0; slot < size; slot++) {
+            House house = result.houses[slot];
+            result.timeSlots[slot] = slot;
+            result.slotById.put(house.getId(), slot);
+            for (String facet : FACETS) {
+                Object value = facetValue(house, facet);
+                if (value != null) {
+                    result.facets.get(facet).computeIfAbsent(String.valueOf(value), k -> new BitSet()).set(slot);
+                }
+            }
+            (house.getPrice() != null ? priced : unpriced).add(slot);
+            (house.getArea() != null ? sized : unsized).add(slot);
+        }
+
+        // 排序稳定，价格或面积相同时保持创建时间倒序
+        priced.sort(Comparator.comparing(slot -> result.houses[slot], PRICE_ORDER));
+        sized.sort(Comparator.comparing(slot -> result.houses[slot], AREA_ORDER));
+        result.priceSlots = toArray(priced);
+        result.sortedPrices = new long[priced.size()];
+        for (int i = 0; i < priced.size(); i++) {
+            result.sortedPrices[i] = priceCents(result.houses[priced.get(i)]);
+        }
+        result.areaSlots = toArray(sized);
+        result.sortedAreas = new long[sized.size()];
+        for (int i = 0; i < sized.size(); i++) {
+            result.sortedAreas[i] = result.houses[sized.get(i)].getArea();
+        }
+        result.unpricedSlots = toArray(unpriced);
+        result.unsizedSlots = toArray(unsized);
+        return result;
+    }
+
+    private static int[] toArray(List<Integer> slots) {
+        int[] result = new int[slots.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = slots.get(i);
+        }
+        return result;
+    }
+
+    private static Object facetValue(House house, String facet) {
+        switch (facet) {
+            case FACET_PROVINCE:
+                return house.getProvince();
+            case FACET_CITY:
+                return house.getCity();
+            case FACET_DISTRICT:
+                return house.getDistrict();
+            case FACET_BEDROOM_COUNT:
+                return house.getBedroomCount();
+            case FACET_HOUSE_TYPE:
+                return house.getHouseType();
+            case FACET_RENT_TYPE:
+                return house.getRentType();
+            case FACET_HAS_ELEVATOR:
+                return house.getHasElevator();
+            case FACET_HAS_PARKING:
+                return house.getHasParking();
+            default:
+                return null;
+        }
+    }
+
+    private static long priceCents(House house) {
+        return toCents(house.getPrice(), RoundingMode.HALF_UP);
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.movePointRight(2).setScale(0, roundingMode).longValue();
+    }
+
+    /**
+     * 判断是否是直辖市（北京、上海、天津、重庆）
+     */
+    private boolean isDirectCity(String cityName) {
+        String normalizedName = cityName.replace("市", "").trim();
+        return "北京".equals(normalizedName) ||
+               "上海".equals(normalizedName) ||
+               "天津".equals(normalizedName) ||
+               "重庆".equals(normalizedName);
+    }
+
+    /**
+     * 不可变的索引快照
+     * 槽位只增不减：下架的房源只清除live位和各结构中的槽位，重新上架时沿用原槽位，定时全量重载时回收
+     */
+    private static class Snapshot {
+        private House[] houses;
+        private BitSet live;
+        private int[] timeSlots;
+        private Map<Long, Integer> slotById;
+        private Map<String, Map<String, BitSet>> facets;
+        private long[] sortedPrices;
+        private int[] priceSlots;
+        private int[] unpricedSlots;
+        private long[] sortedAreas;
+        private int[] areaSlots;
+        private int[] unsizedSlots;
+
+        BitSet valueBits(String facet, String value) {
+            BitSet bits = facets.get(facet).get(value);
+            return bits != null ? bits : new BitSet();
+        }
+
+        /**
+         * 直辖市同时匹配"北京"和"北京市"两种写法
+         */
+        BitSet cityBits(String cityName) {
+            BitSet bits = (BitSet) valueBits(FACET_CITY, cityName).clone();
+            bits.or(valueBits(FACET_CITY, cityName + "市"));
+            return bits;
+        }
+
+        BitSet idBits(Set<Long> houseIds) {
+            BitSet bits = new BitSet(houses.length);
+            for (Long houseId : houseIds) {
+                Integer slot = slotById.get(houseId);
+                if (slot != null && live.get(slot)) {
+                    bits.set(slot);
+                }
+            }
+            return bits;
+        }
+
+        BitSet rangeBits(long[] sortedValues, int[] slots, long min, long max) {
+            BitSet bits = new BitSet(houses.length);
+            int from = lowerBound(sortedValues, min);
+            for (int i = from; i < sortedValues.length && sortedValues[i] <= max; i++) {
+                bits.set(slots[i]);
+            }
+            return bits;
+        }
+
+        private int lowerBound(long[] sortedValues, long key) {
+            int index = Arrays.binarySearch(sortedValues, key);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index > 0 && sortedValues[index - 1] == key) {
+                index--;
+            }
+            return index;
+        }
+
+        /**
+         * 返回包含该房源最新属性的新快照，当前快照不变
+         */
+        Snapshot withHouse(House house) {
+            Integer existing = slotById.get(house.getId());
+            Snapshot next = existing != null ? without(existing) : copy();
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                next.houses = houses.clone();
+            } else {
+                slot = houses.length;
+                next.houses = Arrays.copyOf(houses, slot + 1);
+                next.slotById = new HashMap<>(slotById);
+                next.slotById.put(house.getId(), slot);
+            }
+            next.houses[slot] = house;
+            if (next.live == live) {
+                next.live = (BitSet) live.clone();
+            }
+            next.live.set(slot);
+            next.timeSlots = insert(next.timeSlots, next.position(next.timeSlots, house, TIME_ORDER), slot);
+            for (String facet : FACETS) {
+                Object value = facetValue(house, facet);
+                if (value != null) {
+                    next.updateBits(facet, String.valueOf(value), slot, true);
+                }
+            }
+            if (house.getPrice() != null) {
+                int index = next.position(next.priceSlots, house, PRICE_ORDER);
+                next.priceSlots = insert(next.priceSlots, index, slot);
+                next.sortedPrices = insert(next.sortedPrices, index, priceCents(house));
+            } else {
+                next.unpricedSlots = insert(next.unpricedSlots, next.position(next.unpricedSlots, house, TIME_ORDER), slot);
+            }
+            if (house.getArea() != null) {
+                int index = next.position(next.areaSlots, house, AREA_ORDER);
+                next.areaSlots = insert(next.areaSlots, index, slot);
+                next.sortedAreas = insert(next.sortedAreas, index, house.getArea());
+            } else {
+                next.unsizedSlots = insert(next.unsizedSlots, next.position(next.unsizedSlots, house, TIME_ORDER), slot);
+            }
+            return next;
+        }
+
+        /**
+         * 返回不包含该房源的新快照，房源不在索引中时返回当前快照
+         */
+        Snapshot withoutHouse(Long houseId) {
+            Integer slot = slotById.get(houseId);
+            return slot != null && live.get(slot) ? without(slot) : this;
+        }
+
+        /**
+         * 复制快照并从各结构中移除槽位；槽位本就不在索引中时只做浅复制
+         */
+        private Snapshot without(int slot) {
+            Snapshot next = copy();
+            if (!live.get(slot)) {
+                return next;
+            }
+            House old = houses[slot];
+            next.live = (BitSet) live.clone();
+            next.live.clear(slot);
+            next.timeSlots = remove(timeSlots, indexOf(timeSlots, slot));
+            for (String facet : FACETS) {
+                Object value = facetValue(old, facet);
+                if (value != null) {
+                    next.updateBits(facet, String.valueOf(value), slot, false);
+                }
+            }
+            if (old.getPrice() != null) {
+                int index = indexOf(priceSlots, slot);
+                next.priceSlots = remove(priceSlots, index);
+                next.sortedPrices = remove(sortedPrices, index);
+            } else {
+                next.unpricedSlots = remove(unpricedSlots, indexOf(unpricedSlots, slot));
+            }
+            if (old.getArea() != null) {
+                int index = indexOf(areaSlots, slot);
+                next.areaSlots = remove(areaSlots, index);
+                next.sortedAreas = remove(sortedAreas, index);
+            } else {
+                next.unsizedSlots = remove(unsizedSlots, indexOf(unsizedSlots, slot));
+            }
+            return next;
+        }
+
+        /**
+         * 浅复制，各结构与当前快照共用，修改前需先复制
+         */
+        private Snapshot copy() {
+            Snapshot next = new Snapshot();
+            next.houses = houses;
+            next.live = live;
+            next.timeSlots = timeSlots;
+            next.slotById = slotById;
+            next.facets = new HashMap<>(facets);
+            next.sortedPrices = sortedPrices;
+            next.priceSlots = priceSlots;
+            next.unpricedSlots = unpricedSlots;
+            next.sortedAreas = sortedAreas;
+            next.areaSlots = areaSlots;
+            next.unsizedSlots = unsizedSlots;
+            return next;
+        }
+
+        /**
+         * 复制某个属性值的位图后设置或清除槽位，只在本快照刚复制出来时调用
+         */
+        private void updateBits(String facet, String value, int slot, boolean set) {
+            Map<String, BitSet> values = new HashMap<>(facets.get(facet));
+            BitSet bits = values.containsKey(value) ? (BitSet) values.get(value).clone() : new BitSet();
+            bits.set(slot, set);
+            if (bits.isEmpty()) {
+                values.remove(value);
+            } else {
+                values.put(value, bits);
+            }
+            facets.put(facet, values);
+        }
+
+        /**
+         * 房源按排序规则在槽位数组中的插入位置
+         */
+        private int position(int[] slots, House house, Comparator<House> order) {
+            int low = 0;
+            int high = slots.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.compare(houses[slots[mid]], house) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int indexOf(int[] slots, int slot) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == slot) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("槽位不在排序数组中: " + slot);
+        }
+
+        private static int[] insert(int[] values, int index, int value) {
+            int[] result = new int[values.length + 1];
+            System.arraycopy(values, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(values, index, result, index + 1, values.length - index);
+            return result;
+        }
+
+        private static long[] insert(long[] values, int index, long value) {
+            long[] result = new long[values.length + 1];
+            System.arraycopy(values, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(values, index, result, index + 1, values.length - index);
+            return result;
+        }
+
+        private static int[] remove(int[] values, int index) {
+            int[] result = new int[values.length - 1];
+            System.arraycopy(values, 0, result, 0, index);
+            System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+            return result;
+        }
+
+        private static long[] remove(long[] values, int index) {
+            long[] result = new long[values.length - 1];
+            System.arraycopy(values, 0, result, 0, index);
+            System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+            return result;
+        }
+    }
+
+    /**
+     * 分面搜索结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SearchResult {
+        /**
+         * 当前页房源ID，已按排序条件排列
+         */
+        private final List<Long> houseIds;
+        /**
+         * 命中总数
+         */
+        private final long total;
+        /**
+         * 分面计数：分面名称 -> (属性值 -> 房源数)
+         */
+        private final Map<String, Map<String, Integer>> facets;
+    }
+}
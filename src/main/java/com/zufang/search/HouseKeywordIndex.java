@@ -0,0 +1,343 @@
+package com.zufang.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zufang.entity.House;
+import com.zufang.event.HouseChangedEvent;
+import com.zufang.mapper.HouseMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 房源关键词倒排索引
+ * 对已上架房源的标题、描述、地址及省市区按二元分词（bigram）建立倒排表，
+ * 关键词搜索时先求各分词倒排表的交集得到候选房源，再做子串校验，结果与 LIKE '%kw%' 一致
+ */
+@Slf4j
+@Component
+public class HouseKeywordIndex {
+
+    private static final int FIELD_TITLE = 0;
+    private static final int FIELD_DESCRIPTION = 1;
+    private static final int FIELD_ADDRESS = 2;
+    private static final int FIELD_REGION = 3;
+
+    @Autowired
+    private HouseMapper houseMapper;
+
+    @Value("${zufang.search.keyword-index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 候选房源超过该数量时交由SQL处理，避免生成过长的IN条件
+     */
+    @Value("${zufang.search.keyword-index.max-candidates:2000}")
+    private int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 分词 -> 房源ID集合
+     */
+    private Map<String, Set<Long>> postings = new HashMap<>();
+
+    /**
+     * 房源ID -> 归一化后的字段文本，用于候选校验和增量删除
+     */
+    private Map<Long, String[]> documents = new HashMap<>();
+
+    /**
+     * 全量重建期间增量更新过的房源ID，重建结果替换后按数据库最新数据重新应用；不在重建时为null
+     */
+    private Set<Long> changedDuringRebuild;
+
+    private volatile boolean ready = false;
+
+    /**
+     * 应用启动完成后构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定时全量重建，兜底未经过HouseService的房源变更
+     */
+    @Scheduled(fixedDelayString = "${zufang.search.keyword-index.rebuild-interval:1800000}",
+            initialDelayString = "${zufang.search.keyword-index.rebuild-interval:1800000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * 全量重建索引
+     * 扫描期间提交的房源变更会被整体替换覆盖，替换后重新应用这些房源的最新数据
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Set<Long> changed = null;
+        try {
+            LambdaQueryWrapper<House> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(House::getId, House::getTitle, House::getDescription, House::getAddress,
+                    House::getProvince, House::getCity, House::getDistrict, House::getStatus);
+            wrapper.eq(House::getStatus, "APPROVED");
+            wrapper.eq(House::getIsDeleted, 0);
+            List<House> houses = houseMapper.selectList(wrapper);
+
+            Map<String, Set<Long>> newPostings = new HashMap<>();
+            Map<Long, String[]> newDocuments = new HashMap<>(houses.size() * 2);
+            for (House house : houses) {
+                String[] fields = toFields(house);
+                newDocuments.put(house.getId(), fields);
+                for (String token : tokenizeDocument(fields)) {
+                    newPostings.computeIfAbsent(token, k -> new HashSet<>()).add(house.getId());
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                postings = newPostings;
+                documents = newDocuments;
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Long houseId : changed) {
+                refresh(houseId);
+            }
+            log.info("房源关键词索引构建完成, 房源数: {}, 分词数: {}, 重建期间变更: {}, 耗时: {}ms",
+                    newDocuments.size(), newPostings.size(), changed.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("房源关键词索引构建失败, 关键词搜索将使用SQL模糊查询: {}", e.getMessage(), e);
+        } finally {
+            if (changed == null) {
+                lock.writeLock().lock();
+                try {
+                    changedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * 房源变更后增量更新索引（事务提交后执行）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHouseChanged(HouseChangedEvent event) {
+        if (!enabled || event.getHouseId() == null) {
+            return;
+        }
+        if (!ready) {
+            // 首次构建尚未完成，记录下来等构建结果替换后应用
+            lock.writeLock().lock();
+            try {
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.add(event.getHouseId());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        try {
+            refresh(event.getHouseId());
+        } catch (Exception e) {
+            log.error("房源关键词索引增量更新失败, 房源ID: {}", event.getHouseId(), e);
+        }
+    }
+
+    /**
+     * 查询包含关键词的房源ID
+     * @param keyword 关键词
+     * @param includeRegion 是否同时匹配省市区
+     * @return 候选房源ID集合；索引不可用或候选过多时返回null，调用方应回退到SQL模糊查询
+     */
+    public Set<Long> search(String keyword, boolean includeRegion) {
+        if (!enabled || !ready || keyword == null) {
+            return null;
+        }
+        String normalized = normalize(keyword.trim());
+        if (normalized.length() < 2) {
+            // 单字关键词没有二元分词，交由SQL处理
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            // 按倒排表长度从小到大求交集
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String token : tokenize(normalized)) {
+                Set<Long> ids = postings.get(token);
+                if (ids == null) {
+                    return Collections.emptySet();
+                }
+                lists.add(ids);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+            Set<Long> result = new LinkedHashSet<>();
+            for (Long id : lists.get(0)) {
+                boolean inAll = true;
+                for (int i = 1; i < lists.size() && inAll; i++) {
+                    inAll = lists.get(i).contains(id);
+                }
+                if (inAll && matches(documents.get(id), normalized, includeRegion)) {
+                    result.add(id);
+                    if (result.size() > maxCandidates) {
+                        return null;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引是否可用
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * 按数据库中的最新数据更新单个房源
+     */
+    private void refresh(Long houseId) {
+        House house = houseMapper.selectById(houseId);
+        if (house != null && "APPROVED".equals(house.getStatus())) {
+            index(house);
+        } else {
+            remove(houseId);
+        }
+    }
+
+    private void index(House house) {
+        String[] fields = toFields(house);
+        lock.writeLock().lock();
+        try {
+            recordChange(house.getId());
+            removeInternal(house.getId());
+            documents.put(house.getId(), fields);
+            for (String token : tokenizeDocument(fields)) {
+                postings.computeIfAbsent(token, k -> new HashSet<>()).add(house.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long houseId) {
+        lock.writeLock().lock();
+        try {
+            recordChange(houseId);
+            removeInternal(houseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 全量重建进行中时记录变更的房源，需持有写锁
+     */
+    private void recordChange(Long houseId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(houseId);
+        }
+    }
+
+    private void removeInternal(Long houseId) {
+        String[] oldFields = documents.remove(houseId);
+        if (oldFields == null) {
+            return;
+        }
+        for (String token : tokenizeDocument(oldFields)) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(houseId);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private boolean matches(String[] fields, String keyword, boolean includeRegion) {
+        if (fields == null) {
+            return false;
+        }
+        if (fields[FIELD_TITLE].contains(keyword)
+                || fields[FIELD_DESCRIPTION].contains(keyword)
+                || fields[FIELD_ADDRESS].contains(keyword)) {
+            return true;
+        }
+        return includeRegion && fields[FIELD_REGION].contains(keyword);
+    }
+
+    private String[] toFields(House house) {
+        String[] fields = new String[4];
+        fields[FIELD_TITLE] = normalize(house.getTitle());
+        fields[FIELD_DESCRIPTION] = normalize(house.getDescription());
+        fields[FIELD_ADDRESS] = normalize(house.getAddress());
+        // 省市区之间用换行分隔，避免跨字段拼接出不存在的子串
+        fields[FIELD_REGION] = normalize(house.getProvince()) + "\n"
+                + normalize(house.getCity()) + "\n"
+                + normalize(house.getDistrict());
+        return fields;
+    }
+
+    private Set<String> tokenizeDocument(String[] fields) {
+        Set<String> tokens = new HashSet<>();
+        for (String field : fields) {
+            tokens.addAll(tokenize(field));
+        }
+        return tokens;
+    }
+
+    /**
+     * 二元分词：相邻两个字符为一个词，中文与英文数字统一处理
+     */
+    private Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (int i = 0; i + 2 <= text.length(); i++) {
+            tokens.add(text.substring(i, i + 2));
+        }
+        return tokens;
+    }
+
+    private String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
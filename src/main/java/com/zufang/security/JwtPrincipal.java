@@ -0,0 +1,32 @@
+package com.zufang.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 已验证token中的用户信息，不可变
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal {
+
+    /**
+     * 用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 用户名
+     */
+    private final String username;
+
+    /**
+     * 角色
+     */
+    private final String role;
+
+    /**
+     * token过期时间（毫秒时间戳）
+     */
+    private final long expiresAt;
+}
@@ -0,0 +1,96 @@
+package com.zufang.security;
+
+import com.zufang.common.util.JwtUtil;
+import com.zufang.common.util.LruCache;
+import io.jsonwebtoken.ExpiredJwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * token认证组件
+ * 每个token只做一次签名验证和解析，验证通过的结果按token的SHA-256摘要缓存到token过期为止，
+ * 缓存为有界LRU；验证失败的token不缓存
+ */
+@Slf4j
+@Component
+public class TokenAuthenticator {
+
+    @Value("${zufang.auth.token-cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${zufang.auth.token-cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 缓存的最长时间（秒），即使token的有效期更长
+     */
+    @Value("${zufang.auth.token-cache.max-ttl-seconds:3600}")
+    private long maxTtlSeconds;
+
+    private final LruCache<String, JwtPrincipal> cache = new LruCache<>(() -> maxSize);
+
+    /**
+     * 验证token并返回用户信息
+     * @param token 请求头中的token
+     * @return 用户信息
+     * @throws ExpiredJwtException token已过期
+     * @throws io.jsonwebtoken.JwtException token无效
+     */
+    public JwtPrincipal authenticate(String token) {
+        if (!cacheEnabled) {
+            return checkExpiry(JwtUtil.parsePrincipal(token));
+        }
+
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        JwtPrincipal cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        JwtPrincipal principal = checkExpiry(JwtUtil.parsePrincipal(token));
+        cache.put(key, principal, Math.min(principal.getExpiresAt(), now + maxTtlSeconds * 1000));
+        return principal;
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", cacheEnabled);
+        stats.put("size", cache.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", cache.getHits());
+        stats.put("misses", cache.getMisses());
+        return stats;
+    }
+
+    /**
+     * 解析器已校验exp，这里再按毫秒精度兜底一次，与原有isTokenExpired的判断保持一致
+     */
+    private JwtPrincipal checkExpiry(JwtPrincipal principal) {
+        if (principal.getExpiresAt() <= System.currentTimeMillis()) {
+            throw new ExpiredJwtException(null, null, "token已过期");
+        }
+        return principal;
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // JDK必须提供SHA-256，不会发生
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.zufang.service;
 
+import com.zufang.dto.chat.ChatHistoryPageDTO;
 import com.zufang.dto.chat.ChatSessionDTO;
 import com.zufang.entity.ChatMessage;
 
@@ -33,6 +34,18 @@ public interface ChatMessageService {
      */
     List<ChatMessage> getChatHistory(Long userId, Long landlordId, Long houseId);
     
+    /**
+     * 从新到旧分页获取聊天历史记录
+     *
+     * @param userId     用户ID
+     * @param landlordId 房东ID
+     * @param houseId    房源ID
+     * @param beforeId   只返回该消息之前的消息，为空表示从最新消息开始
+     * @param size       每页数量
+     * @return 聊天历史分页结果
+     */
+    ChatHistoryPageDTO getChatHistoryPage(Long userId, Long landlordId, Long houseId, Long beforeId, Integer size);
+    
     /**
      * 获取未读消息数量
      * 
@@ -74,4 +87,11 @@ public interface ChatMessageService {
      * @return 会话列表
      */
     List<ChatSessionDTO> getTenantSessions(Long tenantId);
-} 
\ No newline at end of file
+    
+    /**
+     * 根据聊天消息重建会话汇总
+     *
+     * @return 会话行数
+     */
+    int rebuildSessionSummary();
+}
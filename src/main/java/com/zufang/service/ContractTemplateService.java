@@ -45,4 +45,12 @@ public interface ContractTemplateService extends IService<ContractTemplate> {
      * @return 合同模板分页数据
      */
     Page<ContractTemplateDTO> pageContractTemplates(Page<ContractTemplate> page);
+    
+    /**
+     * 获取合同模板的指定版本，模板已修改或已删除时从历史版本中查找
+     * @param id 合同模板ID
+     * @param version 模板版本
+     * @return 合同模板，不存在返回null
+     */
+    ContractTemplate getTemplateVersion(Long id, Integer version);
 } 
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.zufang.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zufang.dto.CursorPageDTO;
 import com.zufang.dto.HouseApproveDTO;
 import com.zufang.dto.HouseContractSettingDTO;
 import com.zufang.dto.HouseEditDTO;
@@ -55,6 +56,13 @@ public interface HouseService extends IService<House> {
      */
     Page<HouseInfoDTO> searchHouses(HouseSearchDTO searchDTO);
     
+    /**
+     * 获取房源搜索的分面统计
+     * @param searchDTO 搜索DTO
+     * @return 分面名称 -> (属性值 -> 房源数)，分面索引不可用时返回空Map
+     */
+    Map<String, Map<String, Integer>> getSearchFacets(HouseSearchDTO searchDTO);
+    
     /**
      * 获取房东发布的房源列表
      * @param userId 用户ID（房东ID）
@@ -110,6 +118,16 @@ public interface HouseService extends IService<House> {
      */
     Page<HouseInfoDTO> getHousesByStatus(String status, Integer pageNum, Integer pageSize);
     
+    /**
+     * 游标分页获取房源列表（管理员），按创建时间倒序
+     * @param status 状态，为空时查询所有房源
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页数量
+     * @param withTotal 是否统计总数
+     * @return 房源游标分页结果
+     */
+    CursorPageDTO<HouseInfoDTO> getHousesByCursor(String status, String cursor, Integer size, boolean withTotal);
+    
     /**
      * 获取推荐房源列表
      * @param limit 限制数量
@@ -0,0 +1,95 @@
+package com.zufang.service;
+
+import com.zufang.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 收入流水服务接口
+ * 订单支付、退租、支付违约金、取消时增量记账，收入统计改为按天汇总表的区间求和
+ */
+public interface IncomeLedgerService {
+
+    /**
+     * 按月汇总时表示统计平台全部房东的房东ID
+     */
+    Long PLATFORM_LANDLORD_ID = 0L;
+
+    /**
+     * 记录订单支付产生的租金收入
+     * @param order 已支付的订单
+     */
+    void recordPayment(Order order);
+
+    /**
+     * 记录退租时按实际租期对租金收入的调整
+     * @param order 已终止的订单
+     */
+    void recordTermination(Order order);
+
+    /**
+     * 记录违约金收入
+     * @param order 已支付违约金的订单
+     */
+    void recordPenalty(Order order);
+
+    /**
+     * 冲回已支付订单取消前记入的租金收入
+     * @param order 被取消的订单
+     */
+    void recordCancellation(Order order);
+
+    /**
+     * 汇总房东收入
+     * @param landlordId 房东ID
+     * @param startDate 开始日期（含），为空表示不限
+     * @param endDate 结束日期（含），为空表示不限
+     * @return 收入金额；流水不可用时返回null，调用方应回退到按订单计算
+     */
+    BigDecimal sumLandlordIncome(Long landlordId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 汇总平台收入
+     * @param startDate 开始日期（含），为空表示不限
+     * @param endDate 结束日期（含），为空表示不限
+     * @return 收入金额；流水不可用时返回null，调用方应回退到按订单计算
+     */
+    BigDecimal sumPlatformIncome(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 按月汇总收入
+     * @param landlordId 房东ID，统计平台全部房东时使用PLATFORM_LANDLORD_ID
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @return 月份（yyyy-MM） -> 收入，没有收入的月份不包含；流水不可用时返回null
+     */
+    Map<String, BigDecimal> sumMonthlyIncome(Long landlordId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 直接根据订单按与流水相同的规则计算月度收入，供流水不可用时使用，结果与sumMonthlyIncome一致
+     * @param landlordId 房东ID，为空时统计平台全部订单
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @return 月份（yyyy-MM） -> 收入，没有收入的月份不包含
+     */
+    Map<String, BigDecimal> computeMonthlyIncome(Long landlordId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 汇总平台违约金收入
+     * @return 违约金金额；流水不可用时返回null，调用方应回退到按订单计算
+     */
+    BigDecimal sumPlatformPenaltyIncome();
+
+    /**
+     * 根据现有订单重建收入流水
+     * @return 重建的订单数量
+     */
+    int rebuild();
+
+    /**
+     * 收入流水是否可用
+     */
+    boolean isReady();
+}
@@ -0,0 +1,62 @@
+package com.zufang.service;
+
+/**
+ * 用户消息计数服务接口
+ * 每个用户保存个人未读消息数和已读的全局消息数，在消息创建、标记已读、删除时与消息在同一事务中维护，
+ * 未读数查询只读一行计数和缓存的全局消息总数
+ */
+public interface MessageCounterService {
+
+    /**
+     * 获取用户未读消息数
+     * @param userId 用户ID
+     * @return 未读消息数；计数不可用时返回null，调用方应回退到按消息表统计
+     */
+    Integer countUnread(Long userId);
+
+    /**
+     * 记录用户新收到的个人消息
+     * @param userId 用户ID
+     */
+    void onPersonalMessageCreated(Long userId);
+
+    /**
+     * 记录用户已读一条个人消息
+     * @param userId 用户ID
+     */
+    void onPersonalMessageRead(Long userId);
+
+    /**
+     * 记录用户已读全部个人消息
+     * @param userId 用户ID
+     */
+    void onAllPersonalMessagesRead(Long userId);
+
+    /**
+     * 记录用户已读一条全局消息
+     * @param userId 用户ID
+     */
+    void onGlobalMessageRead(Long userId);
+
+    /**
+     * 按阅读状态表重新统计用户已读的全局消息数，用于批量变更阅读状态之后
+     * @param userId 用户ID
+     */
+    void recountGlobalRead(Long userId);
+
+    /**
+     * 全局消息总数发生变化
+     */
+    void onGlobalMessageCreated();
+
+    /**
+     * 根据消息表和阅读状态表重建所有用户的计数
+     * @return 计数行数
+     */
+    int rebuild();
+
+    /**
+     * 计数是否可用于查询
+     */
+    boolean isReady();
+}
@@ -1,6 +1,7 @@
 package com.zufang.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zufang.dto.CursorPageDTO;
 import com.zufang.dto.MessageSendRequest;
 import com.zufang.entity.Message;
 
@@ -25,6 +26,16 @@ public interface MessageService {
      */
     Page<Message> getUserMessages(Long userId, Integer page, Integer size);
     
+    /**
+     * 游标分页获取用户消息列表，按创建时间倒序
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页数量
+     * @param withTotal 是否统计总数
+     * @return 消息游标分页结果
+     */
+    CursorPageDTO<Message> getUserMessagesByCursor(Long userId, String cursor, Integer size, boolean withTotal);
+    
     /**
      * 统计用户未读消息数量
      * @param userId 用户ID
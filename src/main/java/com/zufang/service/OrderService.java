@@ -2,6 +2,7 @@ package com.zufang.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zufang.dto.BookingDTO;
+import com.zufang.dto.CursorPageDTO;
 import com.zufang.dto.OrderDTO;
 import com.zufang.dto.PaymentDTO;
 import com.zufang.dto.TerminateDTO;
@@ -205,6 +206,14 @@ public interface OrderService {
      * @return 月度收入数据
      */
     List<Map<String, Object>> getMonthlyIncomeData();
+    
+    /**
+     * 获取最近N个月（含本月）的月度收入数据
+     * @param landlordId 房东ID，为空时统计平台收入
+     * @param months 月数
+     * @return 按月份升序的收入数据，每项包含month（yyyy-MM）和income
+     */
+    List<Map<String, Object>> getMonthlyIncomeData(Long landlordId, int months);
 
     /**
      * 根据多个状态查询订单
@@ -213,6 +222,16 @@ public interface OrderService {
      * @return 订单DTO分页对象
      */
     Page<OrderDTO> pageOrdersByStatuses(Page<Order> page, List<String> statuses);
+    
+    /**
+     * 游标分页查询订单（管理员），按创建时间倒序
+     * @param statuses 状态列表，为空时查询所有订单
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页数量
+     * @param withTotal 是否统计总数
+     * @return 订单游标分页结果
+     */
+    CursorPageDTO<OrderDTO> getOrdersByCursor(List<String> statuses, String cursor, Integer size, boolean withTotal);
 
     /**
      * 用户申请退租
@@ -1,10 +1,13 @@
 package com.zufang.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Redis缓存服务接口
+ * 值以JSON形式存储，Redis前有进程内近端缓存；Redis不可用时自动降级为仅本地缓存
  */
 public interface RedisCacheService {
 
@@ -73,4 +76,25 @@ public interface RedisCacheService {
      * @return 是否设置成功
      */
     Boolean expire(String key, long timeout, TimeUnit unit);
+
+    /**
+     * 获取缓存，未命中时调用加载函数并写入缓存
+     * 同一个key的并发未命中只会调用一次加载函数，其余请求等待并共享结果
+     *
+     * @param key     缓存键
+     * @param clazz   返回类型
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     * @param loader  加载函数，返回null时不写入缓存
+     * @param <T>     值类型
+     * @return 缓存值或加载结果
+     */
+    <T> T getOrLoad(String key, Class<T> clazz, long timeout, TimeUnit unit, Supplier<T> loader);
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
 } 
\ No newline at end of file
@@ -1,33 +1,65 @@
 package com.zufang.service.impl;
 
+import com.zufang.chat.ChatMessageIdAllocator;
+import com.zufang.chat.ChatMessageWriter;
+import com.zufang.chat.ChatSessionSummary;
+import com.zufang.common.exception.BusinessException;
+import com.zufang.dto.chat.ChatHistoryPageDTO;
 import com.zufang.dto.chat.ChatSessionDTO;
 import com.zufang.entity.ChatMessage;
+import com.zufang.entity.User;
 import com.zufang.mapper.ChatMessageMapper;
+import com.zufang.mapper.ChatSessionMapper;
+import com.zufang.mapper.UserMapper;
 import com.zufang.service.ChatMessageService;
 import com.zufang.websocket.WebSocketService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 聊天消息服务实现类
+ * 消息由ChatMessageWriter异步批量写入，WebSocket推送不等待落库；
+ * 会话列表从chat_session汇总表读取，汇总表不可用时回退为按聊天消息实时计算
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ChatMessageServiceImpl implements ChatMessageService {
     
+    // 聊天历史默认每页数量
+    private static final int DEFAULT_HISTORY_SIZE = 20;
+    
+    // 聊天历史最大每页数量
+    private static final int MAX_HISTORY_SIZE = 100;
+    
     private final ChatMessageMapper chatMessageMapper;
+    private final ChatSessionMapper chatSessionMapper;
+    private final UserMapper userMapper;
     private final WebSocketService webSocketService;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatSessionSummary chatSessionSummary;
+    private final ChatMessageWriter chatMessageWriter;
+    private final ChatMessageIdAllocator chatMessageIdAllocator;
+    
+    @Override
+    public int rebuildSessionSummary() {
+        return chatSessionSummary.rebuild();
+    }
     
     @Override
-    @Transactional
     public ChatMessage sendMessage(Long senderId, Long receiverId, Long houseId, String content, String senderAvatar, String senderName) {
         log.info("发送聊天消息: 发送者:{}, 接收者:{}, 房源:{}, 内容:{}", senderId, receiverId, houseId, content);
         
@@ -43,7 +75,26 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         message.setCreateTime(LocalDateTime.now());
         message.setUpdateTime(LocalDateTime.now());
         
-        chatMessageMapper.insert(message);
+        if (chatMessageWriter.isReady()) {
+            // 预先分配消息ID，先推送再排队批量落库
+            message.setId(chatMessageIdAllocator.nextId());
+            notifyMessageReceived(message);
+            chatMessageWriter.enqueue(message);
+            return message;
+        }
+        
+        // 号段可用时同步写入也使用号段ID，避免自增ID落入其他实例已预留的号段
+        if (chatMessageIdAllocator.isReady()) {
+            message.setId(chatMessageIdAllocator.nextId());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (message.getId() != null) {
+                chatMessageMapper.insertBatch(Collections.singletonList(message));
+            } else {
+                chatMessageMapper.insert(message);
+            }
+            chatSessionSummary.apply(Collections.singletonList(message));
+        });
         
         // 发送WebSocket消息通知
         notifyMessageReceived(message);
@@ -77,7 +128,70 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     @Override
     public List<ChatMessage> getChatHistory(Long userId, Long landlordId, Long houseId) {
         log.info("获取聊天历史记录: 用户:{}, 房东:{}, 房源:{}", userId, landlordId, houseId);
-        return chatMessageMapper.getChatHistory(userId, landlordId, houseId);
+        chatMessageWriter.awaitFlushed();
+        List<ChatMessage> messages = chatMessageMapper.getChatHistory(userId, landlordId, houseId);
+        fillSenderInfo(messages, userId, landlordId);
+        return messages;
+    }
+    
+    @Override
+    public ChatHistoryPageDTO getChatHistoryPage(Long userId, Long landlordId, Long houseId, Long beforeId, Integer size) {
+        log.info("分页获取聊天历史记录: 用户:{}, 房东:{}, 房源:{}, beforeId:{}, size:{}", userId, landlordId, houseId, beforeId, size);
+        int pageSize = size == null || size < 1 ? DEFAULT_HISTORY_SIZE : Math.min(size, MAX_HISTORY_SIZE);
+        chatMessageWriter.awaitFlushed();
+        
+        LocalDateTime beforeTime = null;
+        if (beforeId != null) {
+            ChatMessage before = chatMessageMapper.selectById(beforeId);
+            if (before == null) {
+                // 游标消息不存在（尚未落库或已删除）时从最新消息开始
+                beforeId = null;
+            } else if (!houseId.equals(before.getHouseId()) || !isParticipant(before, userId, landlordId)) {
+                throw new BusinessException("无效的分页游标");
+            } else {
+                beforeTime = before.getCreateTime();
+            }
+        }
+        
+        // 多查一条用于判断是否还有更早的消息
+        List<ChatMessage> rows = chatMessageMapper.getChatHistoryBefore(
+                userId, landlordId, houseId, beforeTime, beforeId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatMessage> records = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        fillSenderInfo(records, userId, landlordId);
+        
+        ChatHistoryPageDTO page = new ChatHistoryPageDTO();
+        page.setRecords(records);
+        page.setHasMore(hasMore);
+        page.setSize(pageSize);
+        if (hasMore) {
+            page.setNextBeforeId(records.get(records.size() - 1).getId());
+        }
+        return page;
+    }
+    
+    private boolean isParticipant(ChatMessage message, Long userId, Long landlordId) {
+        return (userId.equals(message.getSenderId()) && landlordId.equals(message.getReceiverId()))
+                || (landlordId.equals(message.getSenderId()) && userId.equals(message.getReceiverId()));
+    }
+    
+    /**
+     * 按会话双方一次查询用户信息，填充每条消息的发送者昵称和头像
+     * 用户不存在时保留消息发送时记录的昵称和头像
+     */
+    private void fillSenderInfo(List<ChatMessage> messages, Long userId, Long landlordId) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Map<Long, User> userMap = userMapper.selectBatchIds(Arrays.asList(userId, landlordId)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a));
+        for (ChatMessage message : messages) {
+            User sender = userMap.get(message.getSenderId());
+            if (sender != null) {
+                message.setSenderName(sender.getNickname());
+                message.setSenderAvatar(sender.getAvatar());
+            }
+        }
     }
     
     @Override
@@ -89,25 +203,37 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     @Transactional
     public int markAllAsRead(Long userId) {
         log.info("将用户所有未读消息标记为已读: 用户:{}", userId);
-        return chatMessageMapper.markAllAsRead(userId);
+        chatMessageWriter.awaitFlushed();
+        int rows = chatMessageMapper.markAllAsRead(userId);
+        chatSessionSummary.clearAllUnread(userId);
+        return rows;
     }
     
     @Override
     @Transactional
     public int markConversationAsRead(Long receiverId, Long senderId, Long houseId) {
         log.info("将特定会话的所有未读消息标记为已读: 接收者:{}, 发送者:{}, 房源:{}", receiverId, senderId, houseId);
-        return chatMessageMapper.markConversationAsRead(receiverId, senderId, houseId);
+        chatMessageWriter.awaitFlushed();
+        int rows = chatMessageMapper.markConversationAsRead(receiverId, senderId, houseId);
+        chatSessionSummary.clearUnread(receiverId, senderId, houseId);
+        return rows;
     }
     
     @Override
     public List<ChatSessionDTO> getLandlordSessions(Long landlordId) {
         log.info("获取房东的聊天会话列表: 房东ID={}", landlordId);
+        if (chatSessionSummary.isReady()) {
+            return chatSessionMapper.getLandlordSessions(landlordId);
+        }
         return chatMessageMapper.getLandlordSessions(landlordId);
     }
 
     @Override
     public List<ChatSessionDTO> getTenantSessions(Long tenantId) {
         log.info("获取租户的聊天会话列表: 租户ID={}", tenantId);
+        if (chatSessionSummary.isReady()) {
+            return chatSessionMapper.getTenantSessions(tenantId);
+        }
         return chatMessageMapper.getTenantSessions(tenantId);
     }
 } 
\ No newline at end of file
@@ -3,6 +3,12 @@ package com.zufang.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zufang.common.util.IdGenerator;
+import com.zufang.contract.ContractContentCache;
+import com.zufang.contract.ContractTemplateEngine;
 import com.zufang.dto.ContractDTO;
 import com.zufang.dto.ContractSignDTO;
 import com.zufang.dto.ContractTemplateDTO;
@@ -11,7 +17,6 @@ import com.zufang.dto.UserInfoDTO;
 import com.zufang.entity.Contract;
 import com.zufang.entity.ContractTemplate;
 import com.zufang.entity.Order;
-import com.zufang.event.OrderPaidEvent;
 import com.zufang.mapper.ContractMapper;
 import com.zufang.mapper.OrderMapper;
 import com.zufang.service.ContractService;
@@ -21,7 +26,7 @@ import com.zufang.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -29,22 +34,39 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 import java.time.temporal.ChronoUnit;
 import java.time.LocalDate;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
 
 /**
  * 合同服务实现类
+ * 合同只保存模板ID、模板版本和模板参数，内容在查看详情时渲染；列表查询不加载合同内容
  */
 @Service
 @Slf4j
 public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> implements ContractService {
 
+    /**
+     * 房东预签引用，查看时按合同参数中的房东姓名生成签名
+     */
+    private static final String PRESET_LANDLORD_SIGNATURE = "preset:landlord";
+    
+    /**
+     * 租客签名过长时保存的引用，查看时生成“租客已签名”
+     */
+    private static final String PRESET_TENANT_SIGNATURE = "preset:tenant";
+    
+    /**
+     * 列表查询不加载的字段：合同内容、模板参数和签名只在详情中返回
+     */
+    private static final Set<String> LIST_EXCLUDED_COLUMNS = Set.of(
+            "filled_content", "template_params", "party_a_signature", "party_b_signature");
+
     @Autowired
     private OrderMapper orderMapper;
     
@@ -57,16 +79,17 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
     @Autowired
     private ContractTemplateService contractTemplateService;
     
-    /**
-     * 监听订单支付成功事件，创建合同
-     * @param event 订单支付成功事件
-     */
-    @EventListener
-    @Transactional
-    public void handleOrderPaidEvent(OrderPaidEvent event) {
-        log.info("接收到订单支付成功事件，订单ID：{}", event.getOrderId());
-        createContract(event.getOrderId(), null); // 使用null作为房东ID，因为这是系统自动创建
-    }
+    @Autowired
+    private ContractTemplateEngine contractTemplateEngine;
+    
+    @Autowired
+    private ContractContentCache contractContentCache;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private IdGenerator idGenerator;
     
     /**
      * 创建合同
@@ -114,7 +137,7 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
             
             // 检查是否已存在合同
             LambdaQueryWrapper<Contract> existCheckWrapper = new LambdaQueryWrapper<>();
-            existCheckWrapper.eq(Contract::getOrderId, orderId);
+            existCheckWrapper.select(Contract::getId).eq(Contract::getOrderId, orderId);
             Contract existingContract = getOne(existCheckWrapper, false);
             if (existingContract != null) {
                 log.info("该订单已存在合同，直接返回: orderId={}, contractId={}", orderId, existingContract.getId());
@@ -133,29 +156,14 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
             contract.setStatus("PENDING"); // 初始状态为待签署
             contract.setContractTemplateId(templateId);
             
-            // 生成甲方(房东)签名
-            try {
-                // 这里可以使用默认的签名图片，或者生成包含房东名字的简单签名
-                UserInfoDTO landlord = userService.getUserInfo(contract.getLandlordId());
-                String landlordName = landlord != null ? 
-                    (landlord.getRealName() != null ? landlord.getRealName() : landlord.getNickname()) : "房东";
-                
-                log.info("获取房东信息成功: landlordId={}, name={}", contract.getLandlordId(), landlordName);
-                
-                String partyASignature = generateLandlordSignature(landlordName);
-                contract.setPartyASignature(partyASignature);
-            } catch (Exception e) {
-                log.error("生成房东签名失败，但继续创建合同: {}", e.getMessage(), e);
-                // 使用默认签名或空签名继续
-                contract.setPartyASignature("data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">房东（已预签）</text></svg>");
-            }
+            // 甲方(房东)签名保存为预签引用，查看时按合同参数中的房东姓名生成
+            contract.setPartyASignature(PRESET_LANDLORD_SIGNATURE);
             
-            // 填充合同内容
+            // 保存模板版本和参数，合同内容在查看时渲染
             try {
-                String filledContent = fillContractContent(contract);
-                contract.setFilledContent(filledContent);
+                prepareContractContent(contract, houseInfo);
             } catch (Exception e) {
-                log.error("填充合同内容失败: {}", e.getMessage(), e);
+                log.error("生成合同参数失败: {}", e.getMessage(), e);
                 // 设置一个基本的内容，确保能创建合同
                 contract.setFilledContent("合同内容生成失败，请联系管理员");
             }
@@ -166,7 +174,19 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
             contract.setUpdateTime(now);
             
             log.info("准备保存合同: contractNo={}, 订单ID={}", contract.getContractNo(), contract.getOrderId());
-            save(contract);
+            try {
+                save(contract);
+            } catch (DuplicateKeyException e) {
+                // 订单ID唯一，其他线程（如租约过期后被重新领取的生成任务）已为该订单创建合同
+                LambdaQueryWrapper<Contract> committedWrapper = new LambdaQueryWrapper<>();
+                committedWrapper.select(Contract::getId).eq(Contract::getOrderId, orderId).last("LOCK IN SHARE MODE");
+                Contract committed = getOne(committedWrapper, false);
+                if (committed == null) {
+                    throw e;
+                }
+                log.info("该订单合同已由其他任务创建，直接返回: orderId={}, contractId={}", orderId, committed.getId());
+                return committed.getId();
+            }
             log.info("合同创建成功: contractId={}", contract.getId());
             
             return contract.getId();
@@ -248,12 +268,8 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
         
         log.info("签名数据过长({}字符)，进行处理以适应数据库字段长度限制", originalSignature.length());
         
-        // 创建一个简单的SVG格式签名，表示用户已签名
-        String svgSignature = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\">"
-                + "<text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"green\">租客已签名</text></svg>";
-        
-        // 将SVG转换为data URI格式
-        return "data:image/svg+xml;utf8," + svgSignature;
+        // 保存为预签引用，查看时生成表示用户已签名的SVG
+        return PRESET_TENANT_SIGNATURE;
     }
     
     /**
@@ -268,7 +284,12 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
             return null;
         }
         
-        return convertToDTO(contract);
+        ContractDTO dto = convertToDTO(contract);
+        Map<String, String> params = parseTemplateParams(contract);
+        dto.setFilledContent(renderContent(contract, params));
+        dto.setPartyASignature(resolveSignature(contract.getPartyASignature(), params));
+        dto.setPartyBSignature(resolveSignature(contract.getPartyBSignature(), params));
+        return dto;
     }
     
     /**
@@ -282,7 +303,8 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
     public Page<ContractDTO> getUserContracts(Long userId, Integer pageNum, Integer pageSize) {
         Page<Contract> page = new Page<>(pageNum, pageSize);
         LambdaQueryWrapper<Contract> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Contract::getUserId, userId)
+        queryWrapper.select(Contract.class, field -> !LIST_EXCLUDED_COLUMNS.contains(field.getColumn()))
+               .eq(Contract::getUserId, userId)
                .eq(Contract::getIsDeleted, 0)
                .orderByDesc(Contract::getCreateTime);
         
@@ -301,6 +323,7 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
     public Page<ContractDTO> getLandlordContracts(Long landlordId, Integer pageNum, Integer pageSize) {
         Page<Contract> page = new Page<>(pageNum, pageSize);
         LambdaQueryWrapper<Contract> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(Contract.class, field -> !LIST_EXCLUDED_COLUMNS.contains(field.getColumn()));
         
         // 仅当landlordId不为null时（即房东查询而非管理员查询），才添加landlordId条件
         if (landlordId != null) {
@@ -374,155 +397,193 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
     }
     
     /**
-     * 填充合同内容
+     * 生成合同模板参数：冻结生成合同时的房源、房东和租客信息，与模板版本一起保存到合同
+     * 模板或相关信息不存在时，合同内容保存为对应的提示信息
      * @param contract 合同对象
-     * @return 填充后的合同内容
+     * @param house 房源信息
      */
-    private String fillContractContent(Contract contract) {
+    private void prepareContractContent(Contract contract, HouseInfoDTO house) throws JsonProcessingException {
+        // 获取合同模板
+        ContractTemplate template = contractTemplateService.getById(contract.getContractTemplateId());
+        if (template == null) {
+            log.error("填充合同内容失败，合同模板不存在：templateId={}", contract.getContractTemplateId());
+            contract.setFilledContent("无法获取合同模板");
+            return;
+        }
+        
+        // 获取房东信息
+        UserInfoDTO landlord = userService.getUserInfo(contract.getLandlordId());
+        if (landlord == null) {
+            log.error("填充合同内容失败，房东不存在：landlordId={}", contract.getLandlordId());
+            contract.setFilledContent("无法获取房东信息");
+            return;
+        }
+        
+        // 获取租客信息
+        UserInfoDTO tenant = userService.getUserInfo(contract.getUserId());
+        if (tenant == null) {
+            log.error("填充合同内容失败，租客不存在：userId={}", contract.getUserId());
+            contract.setFilledContent("无法获取租客信息");
+            return;
+        }
+        
+        // 获取姓名
+        String landlordName = landlord.getRealName() != null ? landlord.getRealName() : landlord.getNickname();
+        String tenantName = tenant.getRealName() != null ? tenant.getRealName() : tenant.getNickname();
+        
+        // 计算违约金
+        String penaltyAmount = "1000.00";
+        if (house.getPenaltyAmount() != null) {
+            penaltyAmount = house.getPenaltyAmount().toString();
+        }
+        
+        // 获取当前日期，用于签订日期
+        LocalDate today = LocalDate.now();
+        
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("contractNo", contract.getContractNo());
+        params.put("signDate", contract.getCreateTime() != null ? contract.getCreateTime().toLocalDate().toString() : today.toString());
+        params.put("year", String.valueOf(today.getYear()));
+        params.put("month", String.valueOf(today.getMonthValue()));
+        params.put("day", String.valueOf(today.getDayOfMonth()));
+        params.put("houseTitle", house.getTitle());
+        params.put("houseAddress", house.getAddress());
+        params.put("houseArea", String.valueOf(house.getArea()));
+        params.put("startDate", contract.getStartDate().toString());
+        params.put("endDate", contract.getEndDate().toString());
+        params.put("leaseMonths", String.valueOf(ChronoUnit.MONTHS.between(contract.getStartDate(), contract.getEndDate())));
+        params.put("rentAmount", house.getPrice().toString());
+        params.put("monthlyRent", house.getPrice().toString());
+        params.put("depositAmount", house.getPrice().multiply(new BigDecimal(house.getDepositMonths())).toString());
+        params.put("landlordName", landlordName);
+        params.put("landlordIdCard", landlord.getIdCard() != null ? landlord.getIdCard() : "");
+        params.put("landlordPhone", landlord.getPhone() != null ? landlord.getPhone() : "");
+        params.put("userName", tenantName);
+        params.put("tenantName", tenantName);
+        params.put("userIdCard", tenant.getIdCard() != null ? tenant.getIdCard() : "");
+        params.put("tenantIdCard", tenant.getIdCard() != null ? tenant.getIdCard() : "");
+        params.put("userPhone", tenant.getPhone() != null ? tenant.getPhone() : "");
+        params.put("tenantPhone", tenant.getPhone() != null ? tenant.getPhone() : "");
+        params.put("penaltyAmount", penaltyAmount);
+        
+        contract.setTemplateVersion(template.getVersion());
+        contract.setTemplateParams(objectMapper.writeValueAsString(params));
+    }
+    
+    /**
+     * 获取合同内容：旧合同返回保存的内容，新合同按模板版本和参数渲染，渲染结果按合同ID缓存
+     * @param contract 合同对象
+     * @param params 合同模板参数
+     * @return 合同内容
+     */
+    private String renderContent(Contract contract, Map<String, String> params) {
+        if (StringUtils.hasText(contract.getFilledContent())) {
+            return contract.getFilledContent();
+        }
+        String cached = contractContentCache.get(contract.getId());
+        if (cached != null) {
+            return cached;
+        }
+        ContractTemplate template = contractTemplateService.getTemplateVersion(
+                contract.getContractTemplateId(), contract.getTemplateVersion());
+        if (template == null) {
+            log.error("渲染合同内容失败，合同模板版本不存在：templateId={}, version={}",
+                    contract.getContractTemplateId(), contract.getTemplateVersion());
+            return "无法获取合同模板";
+        }
         try {
-            // 获取合同模板
-            ContractTemplate template = contractTemplateService.getById(contract.getContractTemplateId());
-            if (template == null) {
-                log.error("填充合同内容失败，合同模板不存在：templateId={}", contract.getContractTemplateId());
-                return "无法获取合同模板";
-            }
-            
-            // 获取房源信息
-            HouseInfoDTO house = houseService.getHouseInfo(contract.getHouseId());
-            if (house == null) {
-                log.error("填充合同内容失败，房源不存在：houseId={}", contract.getHouseId());
-                return "无法获取房源信息";
-            }
-            
-            // 获取房东信息
-            UserInfoDTO landlord = userService.getUserInfo(contract.getLandlordId());
-            if (landlord == null) {
-                log.error("填充合同内容失败，房东不存在：landlordId={}", contract.getLandlordId());
-                return "无法获取房东信息";
-            }
-            
-            // 获取租客信息
-            UserInfoDTO tenant = userService.getUserInfo(contract.getUserId());
-            if (tenant == null) {
-                log.error("填充合同内容失败，租客不存在：userId={}", contract.getUserId());
-                return "无法获取租客信息";
-            }
-            
-            log.info("填充合同内容，房源信息：{}, 房东信息：{}, 租客信息：{}", house, landlord, tenant);
-            
-            // 获取姓名
-            String landlordName = landlord.getRealName() != null ? landlord.getRealName() : landlord.getNickname();
-            String tenantName = tenant.getRealName() != null ? tenant.getRealName() : tenant.getNickname();
-            
-            // 填充变量
-            String content = template.getContent();
-            
-            // 检查并处理HTML内容
-            // 如果内容包含HTML标签但不是完整的HTML文档，则进行适当处理
-            boolean hasHtmlTags = content.contains("<") && content.contains(">");
-            
-            if (hasHtmlTags) {
-                // 计算违约金
-                String penaltyAmount = "1000.00";
-                if (house.getPenaltyAmount() != null) {
-                    penaltyAmount = house.getPenaltyAmount().toString();
-                } 
-                
-                // 获取当前日期，用于签订日期
-                LocalDate today = LocalDate.now();
-                int year = today.getYear();
-                int month = today.getMonthValue();
-                int day = today.getDayOfMonth();
-                
-                // 先创建替换值的映射
-                Map<String, String> replaceValues = new HashMap<>();
-                replaceValues.put("contractNo", contract.getContractNo());
-                replaceValues.put("signDate", contract.getCreateTime() != null ? contract.getCreateTime().toLocalDate().toString() : LocalDate.now().toString());
-                replaceValues.put("year", String.valueOf(year));
-                replaceValues.put("month", String.valueOf(month));
-                replaceValues.put("day", String.valueOf(day));
-                replaceValues.put("houseTitle", house.getTitle());
-                replaceValues.put("houseAddress", house.getAddress());
-                replaceValues.put("houseArea", String.valueOf(house.getArea()));
-                replaceValues.put("startDate", contract.getStartDate().toString());
-                replaceValues.put("endDate", contract.getEndDate().toString());
-                replaceValues.put("rentAmount", house.getPrice().toString());
-                replaceValues.put("monthlyRent", house.getPrice().toString());
-                replaceValues.put("depositAmount", house.getPrice().multiply(new BigDecimal(house.getDepositMonths())).toString());
-                replaceValues.put("landlordName", landlordName);
-                replaceValues.put("landlordIdCard", landlord.getIdCard() != null ? landlord.getIdCard() : "");
-                replaceValues.put("landlordPhone", landlord.getPhone() != null ? landlord.getPhone() : "");
-                replaceValues.put("userName", tenantName);
-                replaceValues.put("tenantName", tenantName);
-                replaceValues.put("userIdCard", tenant.getIdCard() != null ? tenant.getIdCard() : "");
-                replaceValues.put("tenantIdCard", tenant.getIdCard() != null ? tenant.getIdCard() : "");
-                replaceValues.put("userPhone", tenant.getPhone() != null ? tenant.getPhone() : "");
-                replaceValues.put("tenantPhone", tenant.getPhone() != null ? tenant.getPhone() : "");
-                replaceValues.put("penaltyAmount", penaltyAmount);
-                
-                // 替换所有${变量}格式的占位符
-                for (Map.Entry<String, String> entry : replaceValues.entrySet()) {
-                    content = content.replace("${" + entry.getKey() + "}", entry.getValue());
-                }
-                
-                // 替换所有{{变量}}格式的占位符
-                for (Map.Entry<String, String> entry : replaceValues.entrySet()) {
-                    content = content.replace("{{" + entry.getKey() + "}}", entry.getValue());
-                }
-                
-                // 处理签订日期格式：_______年_______月_______日
-                content = content.replaceAll("_+年", year + "年");
-                content = content.replaceAll("_+月", month + "月");
-                content = content.replaceAll("_+日", day + "日");
-                
-                // 处理甲方乙方签字
-                content = content.replaceAll("甲方\\s*（签字）\\s*：\\s*_+", "甲方（签字）：" + landlordName);
-                content = content.replaceAll("乙方\\s*（签字）\\s*：\\s*_+", "乙方（签字）：" + tenantName);
-                
-                // 使用正则表达式查找并替换任何剩余的${...}和{{...}}格式的变量
-                content = content.replaceAll("\\$\\{[^}]+\\}", "");
-                content = content.replaceAll("\\{\\{[^}]+\\}\\}", "");
-            } else {
-                // 如果是纯文本，转换为HTML格式，保持原来的逻辑
-                LocalDate today = LocalDate.now();
-                int year = today.getYear();
-                int month = today.getMonthValue();
-                int day = today.getDayOfMonth();
-                
-                content = "<div class=\"contract-content\">" +
-                          "<h1 style=\"text-align: center;\">房屋租赁合同</h1>" +
-                          "<p style=\"text-align: right;\">合同编号：" + contract.getContractNo() + "</p>" +
-                          "<p style=\"text-align: right;\">签订日期：" + year + "年" + month + "月" + day + "日</p>" +
-                          "<p>甲方（出租方）：" + landlordName + "</p>" +
-                          "<p>身份证号：" + (landlord.getIdCard() != null ? landlord.getIdCard() : "") + "</p>" +
-                          "<p>联系电话：" + (landlord.getPhone() != null ? landlord.getPhone() : "") + "</p>" +
-                          "<p>乙方（承租方）：" + tenantName + "</p>" +
-                          "<p>身份证号：" + (tenant.getIdCard() != null ? tenant.getIdCard() : "") + "</p>" +
-                          "<p>联系电话：" + (tenant.getPhone() != null ? tenant.getPhone() : "") + "</p>" +
-                          "<p>甲乙双方就房屋租赁事宜，达成如下协议：</p>" +
-                          "<p>一、甲方将位于" + house.getAddress() + "，建筑面积" + house.getArea() + "平方米的房屋出租给乙方使用。</p>" +
-                          "<p>二、租赁期限自" + contract.getStartDate().toString() + "至" + contract.getEndDate().toString() + "，共计" + ChronoUnit.MONTHS.between(contract.getStartDate(), contract.getEndDate()) + "个月。</p>" +
-                          "<p>三、租金为每月" + house.getPrice() + "元。</p>" +
-                          "<p>四、违约金：" + (house.getPenaltyAmount() != null ? house.getPenaltyAmount().toString() : "1000.00") + "元。</p>" +
-                          "<p>九、甲方（签字）：" + landlordName + " 乙方（签字）：" + tenantName + "</p>" +
-                          "<p>签订日期：" + year + "年" + month + "月" + day + "日</p>" +
-                          "</div>";
-            }
-            
+            String content = renderTemplate(template, params);
+            contractContentCache.put(contract.getId(), content);
             return content;
         } catch (Exception e) {
-            log.error("填充合同内容异常：", e);
+            log.error("渲染合同内容异常：", e);
             return "<p>生成合同内容时发生错误：" + e.getMessage() + "</p>";
         }
     }
     
+    /**
+     * 按模板渲染合同内容
+     * @param template 合同模板
+     * @param params 合同模板参数
+     * @return 渲染后的合同内容
+     */
+    private String renderTemplate(ContractTemplate template, Map<String, String> params) {
+        String content = template.getContent();
+        
+        // 检查并处理HTML内容
+        // 如果内容包含HTML标签但不是完整的HTML文档，则进行适当处理
+        boolean hasHtmlTags = content.contains("<") && content.contains(">");
+        if (hasHtmlTags) {
+            // 按预编译的模板一次渲染：替换${变量}和{{变量}}占位符、签订日期和甲乙方签字，
+            // 未提供的变量替换为空
+            return contractTemplateEngine.render(template, params);
+        }
+        
+        // 如果是纯文本，转换为HTML格式，保持原来的逻辑
+        String signDate = params.get("year") + "年" + params.get("month") + "月" + params.get("day") + "日";
+        return "<div class=\"contract-content\">" +
+               "<h1 style=\"text-align: center;\">房屋租赁合同</h1>" +
+               "<p style=\"text-align: right;\">合同编号：" + params.get("contractNo") + "</p>" +
+               "<p style=\"text-align: right;\">签订日期：" + signDate + "</p>" +
+               "<p>甲方（出租方）：" + params.get("landlordName") + "</p>" +
+               "<p>身份证号：" + params.get("landlordIdCard") + "</p>" +
+               "<p>联系电话：" + params.get("landlordPhone") + "</p>" +
+               "<p>乙方（承租方）：" + params.get("tenantName") + "</p>" +
+               "<p>身份证号：" + params.get("tenantIdCard") + "</p>" +
+               "<p>联系电话：" + params.get("tenantPhone") + "</p>" +
+               "<p>甲乙双方就房屋租赁事宜，达成如下协议：</p>" +
+               "<p>一、甲方将位于" + params.get("houseAddress") + "，建筑面积" + params.get("houseArea") + "平方米的房屋出租给乙方使用。</p>" +
+               "<p>二、租赁期限自" + params.get("startDate") + "至" + params.get("endDate") + "，共计" + params.get("leaseMonths") + "个月。</p>" +
+               "<p>三、租金为每月" + params.get("rentAmount") + "元。</p>" +
+               "<p>四、违约金：" + params.get("penaltyAmount") + "元。</p>" +
+               "<p>九、甲方（签字）：" + params.get("landlordName") + " 乙方（签字）：" + params.get("tenantName") + "</p>" +
+               "<p>签订日期：" + signDate + "</p>" +
+               "</div>";
+    }
+    
+    /**
+     * 解析合同模板参数
+     * @param contract 合同对象
+     * @return 参数映射，旧合同或解析失败返回空映射
+     */
+    private Map<String, String> parseTemplateParams(Contract contract) {
+        if (!StringUtils.hasText(contract.getTemplateParams())) {
+            return Collections.emptyMap();
+        }
+        try {
+            return objectMapper.readValue(contract.getTemplateParams(), new TypeReference<Map<String, String>>() {});
+        } catch (Exception e) {
+            log.error("解析合同模板参数失败：contractId={}", contract.getId(), e);
+            return Collections.emptyMap();
+        }
+    }
+    
+    /**
+     * 将预签引用转换为签名图片，其他签名原样返回
+     * @param signature 保存的签名
+     * @param params 合同模板参数
+     * @return 签名data URI
+     */
+    private String resolveSignature(String signature, Map<String, String> params) {
+        if (PRESET_LANDLORD_SIGNATURE.equals(signature)) {
+            String landlordName = params.get("landlordName");
+            return generateLandlordSignature(StringUtils.hasText(landlordName) ? landlordName : "房东");
+        }
+        if (PRESET_TENANT_SIGNATURE.equals(signature)) {
+            // 创建一个简单的SVG格式签名，表示用户已签名
+            String svgSignature = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\">"
+                    + "<text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"green\">租客已签名</text></svg>";
+            return "data:image/svg+xml;utf8," + svgSignature;
+        }
+        return signature;
+    }
+    
     /**
      * 生成合同编号
      * @return 合同编号
      */
     private String generateContractNo() {
-        return "CTR" + DateTimeFormatter.ofPattern("yyyyMMdd").format(LocalDateTime.now()) 
-                + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.nextNo("CTR");
     }
     
     /**
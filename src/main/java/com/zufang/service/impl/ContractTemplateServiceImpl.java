@@ -3,34 +3,49 @@ package com.zufang.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zufang.contract.ContractTemplateEngine;
 import com.zufang.dto.ContractTemplateDTO;
 import com.zufang.entity.ContractTemplate;
+import com.zufang.entity.ContractTemplateHistory;
+import com.zufang.mapper.ContractTemplateHistoryMapper;
 import com.zufang.mapper.ContractTemplateMapper;
 import com.zufang.service.ContractTemplateService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * 合同模板服务实现类
+ * 模板每次修改版本号加1，各版本的正文保存在历史版本表中，已生成的合同始终按生成时的版本渲染
  */
 @Service
 @Slf4j
 public class ContractTemplateServiceImpl extends ServiceImpl<ContractTemplateMapper, ContractTemplate> implements ContractTemplateService {
 
+    @Autowired
+    private ContractTemplateEngine contractTemplateEngine;
+
+    @Autowired
+    private ContractTemplateHistoryMapper contractTemplateHistoryMapper;
+
     /**
      * 创建合同模板
      * @param dto 合同模板信息
      * @return 创建后的合同模板ID
      */
     @Override
+    @Transactional
     public Long createContractTemplate(ContractTemplateDTO dto) {
         ContractTemplate template = new ContractTemplate();
         BeanUtils.copyProperties(dto, template);
+        template.setVersion(1);
         save(template);
+        archive(template);
         return template.getId();
     }
 
@@ -41,16 +56,24 @@ public class ContractTemplateServiceImpl extends ServiceImpl<ContractTemplateMap
      * @return 是否更新成功
      */
     @Override
+    @Transactional
     public boolean updateContractTemplate(Long id, ContractTemplateDTO dto) {
         ContractTemplate template = getById(id);
         if (template == null) {
             log.warn("更新合同模板失败，模板ID {} 不存在", id);
             return false;
         }
+        // 修改前先保存当前版本，已引用该版本的合同仍可渲染
+        archive(template);
         
         BeanUtils.copyProperties(dto, template);
         template.setId(id);
-        return updateById(template);
+        template.setVersion(template.getVersion() == null ? 1 : template.getVersion() + 1);
+        boolean updated = updateById(template);
+        if (updated) {
+            archive(template);
+        }
+        return updated;
     }
 
     /**
@@ -59,8 +82,15 @@ public class ContractTemplateServiceImpl extends ServiceImpl<ContractTemplateMap
      * @return 是否删除成功
      */
     @Override
+    @Transactional
     public boolean deleteContractTemplate(Long id) {
-        return removeById(id);
+        ContractTemplate template = getById(id);
+        if (template != null) {
+            archive(template);
+        }
+        boolean removed = removeById(id);
+        contractTemplateEngine.evict(id);
+        return removed;
     }
 
     /**
@@ -104,4 +134,41 @@ public class ContractTemplateServiceImpl extends ServiceImpl<ContractTemplateMap
         
         return dtoPage;
     }
+
+    /**
+     * 获取合同模板的指定版本
+     * @param id 合同模板ID
+     * @param version 模板版本
+     * @return 合同模板，不存在返回null
+     */
+    @Override
+    public ContractTemplate getTemplateVersion(Long id, Integer version) {
+        ContractTemplate current = getById(id);
+        if (current != null && (version == null || version.equals(current.getVersion()))) {
+            return current;
+        }
+        if (version == null) {
+            return null;
+        }
+        ContractTemplateHistory history = contractTemplateHistoryMapper.selectVersion(id, version);
+        if (history == null) {
+            return null;
+        }
+        ContractTemplate template = new ContractTemplate();
+        template.setId(id);
+        template.setName(current != null ? current.getName() : null);
+        template.setContent(history.getContent());
+        template.setVersion(history.getVersion());
+        return template;
+    }
+
+    /**
+     * 保存模板当前版本的正文
+     */
+    private void archive(ContractTemplate template) {
+        if (template.getVersion() == null || template.getContent() == null) {
+            return;
+        }
+        contractTemplateHistoryMapper.insertIgnore(template.getId(), template.getVersion(), template.getContent());
+    }
 } 
\ No newline at end of file
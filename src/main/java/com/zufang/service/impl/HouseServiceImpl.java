@@ -4,8 +4,11 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zufang.cache.HouseDetailCache;
 import com.zufang.common.exception.BusinessException;
 import com.zufang.common.FileUtil;
+import com.zufang.common.util.CursorUtil;
+import com.zufang.dto.CursorPageDTO;
 import com.zufang.dto.HouseApproveDTO;
 import com.zufang.dto.HouseContractSettingDTO;
 import com.zufang.dto.HouseInfoDTO;
@@ -18,16 +21,18 @@ import com.zufang.entity.User;
 import com.zufang.entity.RegionCity;
 import com.zufang.entity.RegionDistrict;
 import com.zufang.entity.RegionProvince;
+import com.zufang.event.HouseChangedEvent;
 import com.zufang.mapper.HouseImageMapper;
 import com.zufang.mapper.HouseMapper;
 import com.zufang.mapper.UserMapper;
-import com.zufang.mapper.RegionCityMapper;
-import com.zufang.mapper.RegionDistrictMapper;
-import com.zufang.mapper.RegionProvinceMapper;
+import com.zufang.search.HouseFacetIndex;
+import com.zufang.search.HouseKeywordIndex;
 import com.zufang.service.HouseService;
+import com.zufang.service.RegionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -35,8 +40,12 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.Map;
 
@@ -57,13 +66,19 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
     private FileUtil fileUtil;
     
     @Autowired
-    private RegionCityMapper regionCityMapper;
+    private RegionService regionService;
     
     @Autowired
-    private RegionDistrictMapper regionDistrictMapper;
+    private HouseKeywordIndex houseKeywordIndex;
     
     @Autowired
-    private RegionProvinceMapper regionProvinceMapper;
+    private HouseFacetIndex houseFacetIndex;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private HouseDetailCache houseDetailCache;
     
     /**
      * 上传图片到本地静态资源文件夹
@@ -116,7 +131,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         
         // 根据provinceId设置省份名称
         if (house.getProvinceId() != null) {
-            RegionProvince provinceEntity = regionProvinceMapper.selectById(house.getProvinceId());
+            RegionProvince provinceEntity = regionService.getProvinceById(house.getProvinceId());
             if (provinceEntity != null) {
                 house.setProvince(provinceEntity.getName());
             }
@@ -124,7 +139,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         
         // 修正区域名称（使用districtId获取区域名称）
         if (house.getDistrictId() != null) {
-            RegionDistrict districtEntity = regionDistrictMapper.selectById(house.getDistrictId());
+            RegionDistrict districtEntity = regionService.getDistrictById(house.getDistrictId());
             if (districtEntity != null) {
                 house.setDistrict(districtEntity.getName());
             }
@@ -194,6 +209,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
             }
         }
         
+        eventPublisher.publishEvent(new HouseChangedEvent(house.getId()));
         log.info("发布房源成功, 房源ID: {}", house.getId());
         return house.getId();
     }
@@ -233,6 +249,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
             throw new BusinessException("审核房源失败");
         }
         
+        eventPublisher.publishEvent(new HouseChangedEvent(house.getId()));
         log.info("审核房源成功, 房源ID: {}, 状态: {}", approveDTO.getHouseId(), approveDTO.getStatus());
     }
     
@@ -283,6 +300,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
                 return false;
             }
             
+            eventPublisher.publishEvent(new HouseChangedEvent(houseId));
             log.info("审核房源成功, 房源ID: {}, 审核结果: {}", houseId, house.getStatus());
             return true;
         } catch (Exception e) {
@@ -338,6 +356,16 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
     
     @Override
     public HouseInfoDTO getHouseInfo(Long houseId) {
+        // 优先读取房源详情缓存（本地 + Redis），并发未命中只加载一次
+        return houseDetailCache.getOrLoad(houseId, () -> loadHouseInfo(houseId));
+    }
+    
+    /**
+     * 从数据库加载房源详情
+     * @param houseId 房源ID
+     * @return 房源详情DTO，房源不存在时返回null
+     */
+    private HouseInfoDTO loadHouseInfo(Long houseId) {
         // 1. 查询房源
         House house = this.getById(houseId);
         if (house == null) {
@@ -413,6 +441,12 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
     public Page<HouseInfoDTO> searchHouses(HouseSearchDTO searchDTO) {
         log.info("搜索房源, 条件: {}", searchDTO);
         
+        // 优先使用内存分面索引完成筛选，索引不可用时走SQL查询
+        HouseFacetIndex.SearchResult facetResult = houseFacetIndex.search(searchDTO, false);
+        if (facetResult != null) {
+            return toFacetSearchPage(facetResult, searchDTO);
+        }
+        
         // 1. 构建查询条件
         LambdaQueryWrapper<House> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(House::getIsDeleted, 0);
@@ -438,28 +472,44 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
                 searchDTO.getKeyword().contains("县")) {
                 
                 // 如果关键词看起来像地区名称，优先按地区匹配
-                wrapper.and(w -> w
-                        .like(House::getProvince, searchDTO.getKeyword())
-                        .or()
-                        .like(House::getCity, searchDTO.getKeyword())
-                        .or()
-                        .like(House::getDistrict, searchDTO.getKeyword())
-                        .or()
-                        .like(House::getTitle, searchDTO.getKeyword())
-                        .or()
-                        .like(House::getDescription, searchDTO.getKeyword())
-                        .or()
-                        .like(House::getAddress, searchDTO.getKeyword())
-                );
+                Set<Long> candidateIds = houseKeywordIndex.search(searchDTO.getKeyword(), true);
+                if (candidateIds != null) {
+                    if (candidateIds.isEmpty()) {
+                        return emptyHousePage(searchDTO.getPageNum(), searchDTO.getPageSize());
+                    }
+                    wrapper.in(House::getId, candidateIds);
+                } else {
+                    wrapper.and(w -> w
+                            .like(House::getProvince, searchDTO.getKeyword())
+                            .or()
+                            .like(House::getCity, searchDTO.getKeyword())
+                            .or()
+                            .like(House::getDistrict, searchDTO.getKeyword())
+                            .or()
+                            .like(House::getTitle, searchDTO.getKeyword())
+                            .or()
+                            .like(House::getDescription, searchDTO.getKeyword())
+                            .or()
+                            .like(House::getAddress, searchDTO.getKeyword())
+                    );
+                }
             } else {
-                // 标准关键词搜索
-                wrapper.and(w -> w
-                        .like(House::getTitle, searchDTO.getKeyword())
-                        .or()
-                        .like(House::getDescription, searchDTO.getKeyword())
-                        .or()
-                        .like(House::getAddress, searchDTO.getKeyword())
-                );
+                // 标准关键词搜索，优先使用倒排索引得到候选房源
+                Set<Long> candidateIds = houseKeywordIndex.search(searchDTO.getKeyword(), false);
+                if (candidateIds != null) {
+                    if (candidateIds.isEmpty()) {
+                        return emptyHousePage(searchDTO.getPageNum(), searchDTO.getPageSize());
+                    }
+                    wrapper.in(House::getId, candidateIds);
+                } else {
+                    wrapper.and(w -> w
+                            .like(House::getTitle, searchDTO.getKeyword())
+                            .or()
+                            .like(House::getDescription, searchDTO.getKeyword())
+                            .or()
+                            .like(House::getAddress, searchDTO.getKeyword())
+                    );
+                }
             }
         }
         
@@ -586,14 +636,17 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         Page<House> housePage = this.page(page, wrapper);
         
         // 3. 转换为DTO
-        List<HouseInfoDTO> houseInfoDTOList = new ArrayList<>();
-        if (housePage.getRecords() != null && !housePage.getRecords().isEmpty()) {
-            for (House house : housePage.getRecords()) {
-                // 如果是优先加载，可以简化DTO转换逻辑，减少查询次数
-                HouseInfoDTO houseInfoDTO = isPriorityLoad ? 
-                    convertToDTOSimplified(house) : convertToDTO(house);
-                houseInfoDTOList.add(houseInfoDTO);
+        List<HouseInfoDTO> houseInfoDTOList;
+        if (isPriorityLoad) {
+            // 如果是优先加载，简化DTO转换逻辑，不查询图片和房东信息
+            houseInfoDTOList = new ArrayList<>();
+            if (housePage.getRecords() != null) {
+                for (House house : housePage.getRecords()) {
+                    houseInfoDTOList.add(convertToDTOSimplified(house));
+                }
             }
+        } else {
+            houseInfoDTOList = convertToDTOList(housePage.getRecords());
         }
         
         // 4. 组装分页结果
@@ -607,6 +660,59 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         return resultPage;
     }
     
+    @Override
+    public Map<String, Map<String, Integer>> getSearchFacets(HouseSearchDTO searchDTO) {
+        HouseFacetIndex.SearchResult facetResult = houseFacetIndex.search(searchDTO, true);
+        if (facetResult == null) {
+            log.info("房源分面索引不可用, 不返回分面统计");
+            return new java.util.HashMap<>();
+        }
+        return facetResult.getFacets();
+    }
+    
+    /**
+     * 将分面索引的结果组装为房源分页结果
+     */
+    private Page<HouseInfoDTO> toFacetSearchPage(HouseFacetIndex.SearchResult facetResult, HouseSearchDTO searchDTO) {
+        Page<HouseInfoDTO> resultPage = new Page<>(searchDTO.getPageNum(), searchDTO.getPageSize(), facetResult.getTotal());
+        if (facetResult.getHouseIds().isEmpty()) {
+            resultPage.setRecords(new ArrayList<>());
+            return resultPage;
+        }
+        
+        // 按索引给出的顺序排列房源
+        Map<Long, House> houseMap = this.listByIds(facetResult.getHouseIds()).stream()
+                .collect(Collectors.toMap(House::getId, house -> house));
+        List<House> houses = new ArrayList<>();
+        for (Long houseId : facetResult.getHouseIds()) {
+            House house = houseMap.get(houseId);
+            if (house != null) {
+                houses.add(house);
+            }
+        }
+        
+        boolean isPriorityLoad = searchDTO.getPriorityLoad() != null && searchDTO.getPriorityLoad() && searchDTO.getPageNum() == 1;
+        if (isPriorityLoad) {
+            List<HouseInfoDTO> records = new ArrayList<>();
+            for (House house : houses) {
+                records.add(convertToDTOSimplified(house));
+            }
+            resultPage.setRecords(records);
+        } else {
+            resultPage.setRecords(convertToDTOList(houses));
+        }
+        return resultPage;
+    }
+    
+    /**
+     * 构建空的房源分页结果
+     */
+    private Page<HouseInfoDTO> emptyHousePage(Integer pageNum, Integer pageSize) {
+        Page<HouseInfoDTO> emptyPage = new Page<>(pageNum, pageSize, 0);
+        emptyPage.setRecords(new ArrayList<>());
+        return emptyPage;
+    }
+    
     /**
      * 简化版的DTO转换，用于优先加载场景
      * 减少不必要的关联查询，提高响应速度
@@ -659,18 +765,14 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
                  userId, housePage.getRecords().size(), housePage.getTotal());
 
         // 3. 转换DTO
-        List<HouseInfoDTO> dtoList = housePage.getRecords().stream()
-                .map(house -> {
-                    HouseInfoDTO dto = convertToDTO(house);
-                    if (house.getIsDeleted() == 1) {
-                        // 如果是已删除的房源，添加标记
-                        dto.setTitle("(已删除) " + dto.getTitle());
-                        dto.setStatus("DELETED");
-                        dto.setIsDeleted(true);
-                    }
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        List<HouseInfoDTO> dtoList = convertToDTOList(housePage.getRecords());
+        for (HouseInfoDTO dto : dtoList) {
+            if (Boolean.TRUE.equals(dto.getIsDeleted())) {
+                // 如果是已删除的房源，添加标记
+                dto.setTitle("(已删除) " + dto.getTitle());
+                dto.setStatus("DELETED");
+            }
+        }
         
         if (log.isDebugEnabled()) {
             dtoList.forEach(dto -> log.debug("房源DTO: {}", dto));
@@ -702,13 +804,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         Page<House> housePage = this.page(page, wrapper);
         
         // 3. 转换为DTO
-        List<HouseInfoDTO> houseInfoDTOList = new ArrayList<>();
-        if (housePage.getRecords() != null && !housePage.getRecords().isEmpty()) {
-            for (House house : housePage.getRecords()) {
-                HouseInfoDTO houseInfoDTO = convertToDTO(house);
-                houseInfoDTOList.add(houseInfoDTO);
-            }
-        }
+        List<HouseInfoDTO> houseInfoDTOList = convertToDTOList(housePage.getRecords());
         
         // 4. 组装分页结果
         Page<HouseInfoDTO> resultPage = new Page<>();
@@ -755,6 +851,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
             throw new BusinessException("下架房源失败");
         }
         
+        eventPublisher.publishEvent(new HouseChangedEvent(houseId));
         log.info("下架房源成功, 房源ID: {}", houseId);
     }
     
@@ -791,6 +888,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
             throw new BusinessException("上架房源失败");
         }
         
+        eventPublisher.publishEvent(new HouseChangedEvent(houseId));
         log.info("上架房源成功, 房源ID: {}", houseId);
     }
     
@@ -855,6 +953,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
             log.info("房源没有关联图片需要删除, 房源ID: {}", houseId);
         }
         
+        eventPublisher.publishEvent(new HouseChangedEvent(houseId));
         log.info("完成删除房源操作, 即将提交事务, House ID: {}", houseId);
     }
     
@@ -872,17 +971,12 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         Page<House> housePage = this.page(page, wrapper);
         
         // 3. 转换为DTO
-        List<HouseInfoDTO> houseInfoDTOList = new ArrayList<>();
-        if (housePage.getRecords() != null && !housePage.getRecords().isEmpty()) {
-            for (House house : housePage.getRecords()) {
-                HouseInfoDTO houseInfoDTO = convertToDTO(house);
-                if (house.getIsDeleted() == 1) {
-                    // 如果是已删除的房源，添加标记
-                    houseInfoDTO.setTitle("(已删除) " + houseInfoDTO.getTitle());
-                    houseInfoDTO.setStatus("DELETED");
-                    houseInfoDTO.setIsDeleted(true);
-                }
-                houseInfoDTOList.add(houseInfoDTO);
+        List<HouseInfoDTO> houseInfoDTOList = convertToDTOList(housePage.getRecords());
+        for (HouseInfoDTO houseInfoDTO : houseInfoDTOList) {
+            if (Boolean.TRUE.equals(houseInfoDTO.getIsDeleted())) {
+                // 如果是已删除的房源，添加标记
+                houseInfoDTO.setTitle("(已删除) " + houseInfoDTO.getTitle());
+                houseInfoDTO.setStatus("DELETED");
             }
         }
         
@@ -919,16 +1013,11 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         Page<House> housePage = this.page(page, wrapper);
         
         // 3. 转换为DTO
-        List<HouseInfoDTO> houseInfoDTOList = new ArrayList<>();
-        if (housePage.getRecords() != null && !housePage.getRecords().isEmpty()) {
-            for (House house : housePage.getRecords()) {
-                HouseInfoDTO houseInfoDTO = convertToDTO(house);
-                if (house.getIsDeleted() == 1) {
-                    houseInfoDTO.setTitle("(已删除) " + houseInfoDTO.getTitle());
-                    houseInfoDTO.setStatus("DELETED");
-                    houseInfoDTO.setIsDeleted(true);
-                }
-                houseInfoDTOList.add(houseInfoDTO);
+        List<HouseInfoDTO> houseInfoDTOList = convertToDTOList(housePage.getRecords());
+        for (HouseInfoDTO houseInfoDTO : houseInfoDTOList) {
+            if (Boolean.TRUE.equals(houseInfoDTO.getIsDeleted())) {
+                houseInfoDTO.setTitle("(已删除) " + houseInfoDTO.getTitle());
+                houseInfoDTO.setStatus("DELETED");
             }
         }
         
@@ -944,6 +1033,36 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         return resultPage;
     }
     
+    @Override
+    public CursorPageDTO<HouseInfoDTO> getHousesByCursor(String status, String cursor, Integer size, boolean withTotal) {
+        log.info("游标分页获取房源列表: status={}, cursor={}, size={}, withTotal={}", status, cursor, size, withTotal);
+        int pageSize = CursorUtil.normalizeSize(size);
+        
+        // 1. 构建查询条件
+        LambdaQueryWrapper<House> wrapper = new LambdaQueryWrapper<>();
+        if (StringUtils.hasText(status)) {
+            wrapper.eq(House::getStatus, status);
+            wrapper.eq(House::getIsDeleted, 0);
+        }
+        
+        // 2. 按需统计总数（不带游标条件）
+        Long total = withTotal ? baseMapper.selectCount(wrapper) : null;
+        
+        // 3. 游标查询
+        CursorUtil.applyDescCursor(wrapper, House::getCreateTime, House::getId, cursor, pageSize);
+        List<House> houses = baseMapper.selectList(wrapper);
+        
+        CursorPageDTO<HouseInfoDTO> result = CursorUtil.buildPage(houses, pageSize,
+                House::getCreateTime, House::getId, this::convertToDTOList, total);
+        for (HouseInfoDTO houseInfoDTO : result.getRecords()) {
+            if (Boolean.TRUE.equals(houseInfoDTO.getIsDeleted())) {
+                houseInfoDTO.setTitle("(已删除) " + houseInfoDTO.getTitle());
+                houseInfoDTO.setStatus("DELETED");
+            }
+        }
+        return result;
+    }
+    
     /**
      * 将House实体转换为HouseInfoDTO
      * @param house 房源实体
@@ -953,55 +1072,90 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         if (house == null) {
             return null;
         }
-
-        HouseInfoDTO houseInfoDTO = new HouseInfoDTO();
-        BeanUtils.copyProperties(house, houseInfoDTO);
-
-        // 处理封面图片URL
-        if (StringUtils.hasText(house.getCoverImage())) {
-            String coverImage = house.getCoverImage();
-            // 确保URL格式正确
-            if (!coverImage.startsWith("/") && !coverImage.startsWith("http")) {
-                coverImage = "/" + coverImage;
+        return convertToDTOList(Collections.singletonList(house)).get(0);
+    }
+    
+    /**
+     * 批量将House实体转换为HouseInfoDTO
+     * 整页房源的图片和房东信息各用一次IN查询加载，再在内存中组装，避免逐条转换的N+1查询
+     * @param houses 房源实体列表
+     * @return 房源详情DTO列表，顺序与入参一致
+     */
+    private List<HouseInfoDTO> convertToDTOList(List<House> houses) {
+        if (houses == null || houses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Set<Long> houseIds = new LinkedHashSet<>();
+        Set<Long> ownerIds = new LinkedHashSet<>();
+        for (House house : houses) {
+            if (house.getId() != null) {
+                houseIds.add(house.getId());
+            }
+            if (house.getOwnerId() != null) {
+                ownerIds.add(house.getOwnerId());
             }
-            houseInfoDTO.setCoverImage(coverImage);
         }
-
-        // 查询房源图片
-        LambdaQueryWrapper<HouseImage> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(HouseImage::getHouseId, house.getId());
-        wrapper.eq(HouseImage::getIsDeleted, 0);
-        wrapper.orderByAsc(HouseImage::getSort);
-        List<HouseImage> houseImages = houseImageMapper.selectList(wrapper);
         
-        // 查询房东信息
-        User owner = userMapper.selectById(house.getOwnerId());
+        // 批量查询房源图片，按房源分组
+        Map<Long, List<String>> imageMap = new HashMap<>();
+        if (!houseIds.isEmpty()) {
+            LambdaQueryWrapper<HouseImage> wrapper = new LambdaQueryWrapper<>();
+            wrapper.in(HouseImage::getHouseId, houseIds);
+            wrapper.eq(HouseImage::getIsDeleted, 0);
+            wrapper.orderByAsc(HouseImage::getHouseId);
+            wrapper.orderByAsc(HouseImage::getSort);
+            for (HouseImage houseImage : houseImageMapper.selectList(wrapper)) {
+                if (StringUtils.hasText(houseImage.getUrl())) {
+                    imageMap.computeIfAbsent(houseImage.getHouseId(), k -> new ArrayList<>())
+                            .add(normalizeImageUrl(houseImage.getUrl()));
+                }
+            }
+        }
         
-        // 设置房源图片
-        if (houseImages != null && !houseImages.isEmpty()) {
-            List<String> imageUrls = houseImages.stream()
-                    .map(houseImage -> {
-                        String url = houseImage.getUrl();
-                        // 确保URL格式正确
-                        if (!url.startsWith("/") && !url.startsWith("http")) {
-                            url = "/" + url;
-                        }
-                        return url;
-                    })
-                 .collect(Collectors.toList());
-            houseInfoDTO.setImages(imageUrls);
-        } else {
-            houseInfoDTO.setImages(new ArrayList<>());
+        // 批量查询房东信息
+        Map<Long, User> ownerMap = new HashMap<>();
+        if (!ownerIds.isEmpty()) {
+            for (User owner : userMapper.selectBatchIds(ownerIds)) {
+                ownerMap.put(owner.getId(), owner);
+            }
         }
-
-        // 设置房东信息
-        if (owner != null) {
-            houseInfoDTO.setOwnerName(owner.getNickname());
-            houseInfoDTO.setOwnerAvatar(owner.getAvatar());
-            houseInfoDTO.setOwnerPhone(owner.getPhone());
+        
+        List<HouseInfoDTO> result = new ArrayList<>(houses.size());
+        for (House house : houses) {
+            HouseInfoDTO houseInfoDTO = new HouseInfoDTO();
+            BeanUtils.copyProperties(house, houseInfoDTO);
+            houseInfoDTO.setIsDeleted(Integer.valueOf(1).equals(house.getIsDeleted()));
+            
+            // 处理封面图片URL
+            if (StringUtils.hasText(house.getCoverImage())) {
+                houseInfoDTO.setCoverImage(normalizeImageUrl(house.getCoverImage()));
+            }
+            
+            // 设置房源图片
+            List<String> imageUrls = imageMap.get(house.getId());
+            houseInfoDTO.setImages(imageUrls != null ? imageUrls : new ArrayList<>());
+            
+            // 设置房东信息
+            User owner = ownerMap.get(house.getOwnerId());
+            if (owner != null) {
+                houseInfoDTO.setOwnerName(owner.getNickname());
+                houseInfoDTO.setOwnerAvatar(owner.getAvatar());
+                houseInfoDTO.setOwnerPhone(owner.getPhone());
+            }
+            result.add(houseInfoDTO);
         }
-
-        return houseInfoDTO;
+        return result;
+    }
+    
+    /**
+     * 确保图片URL格式正确（相对路径补全前导斜杠）
+     */
+    private String normalizeImageUrl(String url) {
+        if (!url.startsWith("/") && !url.startsWith("http")) {
+            return "/" + url;
+        }
+        return url;
     }
     
     /**
@@ -1022,13 +1176,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         Page<House> housePage = this.page(page, wrapper);
         
         // 3. 转换为DTO列表
-        List<HouseInfoDTO> result = new ArrayList<>();
-        if (housePage.getRecords() != null && !housePage.getRecords().isEmpty()) {
-            for (House house : housePage.getRecords()) {
-                HouseInfoDTO dto = convertToDTO(house);
-                result.add(dto);
-            }
-        }
+        List<HouseInfoDTO> result = convertToDTOList(housePage.getRecords());
         
         log.info("获取推荐房源列表成功, 结果数: {}", result.size());
         return result;
@@ -1074,7 +1222,11 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         house.setMinLeaseTerm(dto.getMinLeaseTerm());
         house.setDepositMonths(dto.getDepositMonths());
         
-        return updateById(house);
+        boolean updated = updateById(house);
+        if (updated) {
+            eventPublisher.publishEvent(new HouseChangedEvent(house.getId()));
+        }
+        return updated;
     }
     
     /**
@@ -1119,6 +1271,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         try {
             boolean result = updateById(house);
             if (result) {
+                eventPublisher.publishEvent(new HouseChangedEvent(houseId));
                 log.info("房源状态更新成功: houseId={}, 旧状态={}, 新状态={}", 
                         houseId, oldStatus, status);
                 
@@ -1182,14 +1335,10 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         Page<House> housePage = this.page(page, wrapper);
         
         // 3. 转换为DTO
-        List<HouseInfoDTO> houseInfoDTOList = new ArrayList<>();
-        if (housePage.getRecords() != null && !housePage.getRecords().isEmpty()) {
-            for (House house : housePage.getRecords()) {
-                HouseInfoDTO houseInfoDTO = convertToDTO(house);
-                // 设置状态为"已删除"
-                houseInfoDTO.setStatus("DELETED");
-                houseInfoDTOList.add(houseInfoDTO);
-            }
+        List<HouseInfoDTO> houseInfoDTOList = convertToDTOList(housePage.getRecords());
+        for (HouseInfoDTO houseInfoDTO : houseInfoDTOList) {
+            // 设置状态为"已删除"
+            houseInfoDTO.setStatus("DELETED");
         }
         
         // 4. 组装分页结果
@@ -1228,7 +1377,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         if (editDTO.getProvinceId() != null) {
             house.setProvinceId(editDTO.getProvinceId());
             // 根据 provinceId 更新省份名称
-            RegionProvince provinceEntity = regionProvinceMapper.selectById(editDTO.getProvinceId());
+            RegionProvince provinceEntity = regionService.getProvinceById(editDTO.getProvinceId());
             if (provinceEntity != null) {
                 house.setProvince(provinceEntity.getName());
             }
@@ -1237,7 +1386,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         if (editDTO.getDistrictId() != null) {
             house.setDistrictId(editDTO.getDistrictId());
             // 根据 districtId 更新区域名称
-            RegionDistrict districtEntity = regionDistrictMapper.selectById(editDTO.getDistrictId());
+            RegionDistrict districtEntity = regionService.getDistrictById(editDTO.getDistrictId());
             if (districtEntity != null) {
                 house.setDistrict(districtEntity.getName());
             }
@@ -1281,6 +1430,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         // 处理房源图片（删除、新增）
         handleHouseImages(editDTO, house.getId());
         
+        eventPublisher.publishEvent(new HouseChangedEvent(house.getId()));
         log.info("编辑房源成功, 房源ID: {}", editDTO.getId());
         return true;
     }
@@ -1341,7 +1491,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         if (editDTO.getProvinceId() != null) {
             house.setProvinceId(editDTO.getProvinceId());
             // 根据 provinceId 更新省份名称
-            RegionProvince provinceEntity = regionProvinceMapper.selectById(editDTO.getProvinceId());
+            RegionProvince provinceEntity = regionService.getProvinceById(editDTO.getProvinceId());
             if (provinceEntity != null) {
                 house.setProvince(provinceEntity.getName());
             }
@@ -1350,7 +1500,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         if (editDTO.getCityId() != null) {
             house.setCityId(editDTO.getCityId());
             // 根据 cityId 更新城市名称
-            RegionCity cityEntity = regionCityMapper.selectById(editDTO.getCityId());
+            RegionCity cityEntity = regionService.getCityById(editDTO.getCityId());
             if (cityEntity != null) {
                 house.setCity(cityEntity.getName());
             }
@@ -1445,6 +1595,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         // 5. 处理房源图片
         handleHouseImages(editDTO, house.getId());
         
+        eventPublisher.publishEvent(new HouseChangedEvent(house.getId()));
         log.info("房源编辑成功: houseId={}", house.getId());
         return true;
     }
@@ -1640,19 +1791,31 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
             queryWrapper.eq("bedroom_count", query.getBedroomCount());
         }
         
-        // 设置查询条件：关键词（模糊查询）
+        // 设置查询条件：关键词，优先使用倒排索引得到候选房源，索引不可用时模糊查询
         if (queryParams != null && queryParams.containsKey("keyword")) {
             String keyword = (String) queryParams.get("keyword");
             if (StringUtils.hasText(keyword)) {
-                queryWrapper.and(wrapper -> wrapper
-                    .like("title", keyword)
-                    .or()
-                    .like("description", keyword)
-                    .or()
-                    .like("address", keyword)
-                    .or()
-                    .like("facilities", keyword)
-                );
+                Set<Long> candidateIds = houseKeywordIndex.search(keyword, false);
+                if (candidateIds != null) {
+                    if (candidateIds.isEmpty()) {
+                        Map<String, Object> result = new java.util.HashMap<>();
+                        result.put("total", 0L);
+                        result.put("pages", 0L);
+                        result.put("current", (long) pageRequest.getPageNumber() + 1);
+                        result.put("size", (long) pageRequest.getPageSize());
+                        result.put("records", new ArrayList<HouseInfoDTO>());
+                        return result;
+                    }
+                    queryWrapper.in("id", candidateIds);
+                } else {
+                    queryWrapper.and(wrapper -> wrapper
+                        .like("title", keyword)
+                        .or()
+                        .like("description", keyword)
+                        .or()
+                        .like("address", keyword)
+                    );
+                }
             }
         }
         
@@ -1673,9 +1836,7 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
         Page<House> resultPage = this.page(page, queryWrapper);
         
         // 转换为DTO
-        List<HouseInfoDTO> houseList = resultPage.getRecords().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<HouseInfoDTO> houseList = convertToDTOList(resultPage.getRecords());
         
         // 构建返回结果
         Map<String, Object> result = new java.util.HashMap<>();
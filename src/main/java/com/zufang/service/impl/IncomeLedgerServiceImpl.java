@@ -0,0 +1,472 @@
+package com.zufang.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zufang.common.util.IncrementalSummary;
+import com.zufang.common.util.SummaryState;
+import com.zufang.entity.IncomeDaily;
+import com.zufang.entity.IncomeLedgerEntry;
+import com.zufang.entity.Order;
+import com.zufang.mapper.IncomeLedgerMapper;
+import com.zufang.mapper.OrderMapper;
+import com.zufang.service.IncomeLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 收入流水服务实现类
+ * 收入规则与原有按订单计算的方式一致：
+ * 1. 支付时记入租金收入 = 总金额 - 押金（无押金信息时按总金额的80%估算），按租期逐日分摊；
+ * 2. 退租时按实际租期比例调整租金收入，冲回实际退租日之后各天分摊的租金；
+ * 3. 支付违约金时记入违约金收入，计在支付当天；
+ * 4. 已支付订单取消时冲回整个租期分摊的租金收入。
+ * 每条流水累加到该房东的每日汇总，统计时只需对日期区间求和；平台收入对全部房东的每日汇总求和，
+ * 不单独维护平台汇总行，避免所有支付都更新同一批行。
+ * 流水与订单更新处于同一事务中，写入失败时异常向上抛出，订单事务整体回滚；启用与重建规则见IncrementalSummary
+ */
+@Slf4j
+@Service
+public class IncomeLedgerServiceImpl extends IncrementalSummary implements IncomeLedgerService {
+
+    /**
+     * 计入收入的订单状态
+     */
+    private static final List<String> INCOME_STATUSES = Arrays.asList(
+            "PAID", "ACTIVE", "COMPLETED", "TERMINATE_REQUESTED", "TERMINATE_APPROVED", "TERMINATED");
+
+    /**
+     * 每日汇总每批写入的行数
+     */
+    private static final int DAILY_BATCH_SIZE = 500;
+
+    @Autowired
+    private IncomeLedgerMapper incomeLedgerMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${zufang.income-ledger.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 流水表及状态表可用，才写入流水
+     */
+    private volatile boolean available = false;
+
+    public IncomeLedgerServiceImpl() {
+        super(SummaryState.INCOME_LEDGER, "收入流水");
+    }
+
+    /**
+     * 应用启动完成后检查流水表，为空或被标记为需要重建时根据现有订单重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int platformRows = incomeLedgerMapper.deletePlatformDaily();
+            if (platformRows > 0) {
+                log.info("已删除旧的平台每日汇总行: {}", platformRows);
+            }
+            Long count = incomeLedgerMapper.selectCount(null);
+            available = true;
+            startup(count);
+        } catch (Exception e) {
+            available = false;
+            log.warn("收入流水表不可用, 收入统计将按订单计算: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordPayment(Order order) {
+        LocalDate incomeDate = order.getPayTime() != null ? order.getPayTime().toLocalDate() : LocalDate.now();
+        post(order, IncomeLedgerEntry.TYPE_RENT, rentIncome(order), incomeDate);
+    }
+
+    @Override
+    public void recordTermination(Order order) {
+        LocalDate incomeDate = order.getActualTerminateDate() != null ? order.getActualTerminateDate() : LocalDate.now();
+        post(order, IncomeLedgerEntry.TYPE_RENT_ADJUST, terminationAdjustment(order), incomeDate);
+    }
+
+    @Override
+    public void recordPenalty(Order order) {
+        if (!Boolean.TRUE.equals(order.getIsPenaltyPaid()) || order.getPenaltyAmount() == null) {
+            return;
+        }
+        LocalDate incomeDate = order.getPenaltyPayTime() != null ? order.getPenaltyPayTime().toLocalDate() : LocalDate.now();
+        post(order, IncomeLedgerEntry.TYPE_PENALTY, order.getPenaltyAmount(), incomeDate);
+    }
+
+    @Override
+    public void recordCancellation(Order order) {
+        post(order, IncomeLedgerEntry.TYPE_RENT_REVERSAL, rentIncome(order).negate(), LocalDate.now());
+    }
+
+    @Override
+    public BigDecimal sumLandlordIncome(Long landlordId, LocalDate startDate, LocalDate endDate) {
+        if (!isReady() || landlordId == null) {
+            return null;
+        }
+        try {
+            return incomeLedgerMapper.sumIncome(landlordId, startDate, endDate);
+        } catch (Exception e) {
+            log.error("汇总房东收入流水失败: landlordId={}, error={}", landlordId, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public BigDecimal sumPlatformIncome(LocalDate startDate, LocalDate endDate) {
+        if (!isReady()) {
+            return null;
+        }
+        try {
+            return incomeLedgerMapper.sumIncome(null, startDate, endDate);
+        } catch (Exception e) {
+            log.error("汇总平台收入流水失败: error={}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, BigDecimal> sumMonthlyIncome(Long landlordId, LocalDate startDate, LocalDate endDate) {
+        if (!isReady() || landlordId == null) {
+            return null;
+        }
+        try {
+            Map<String, BigDecimal> result = new HashMap<>();
+            Long filter = PLATFORM_LANDLORD_ID.equals(landlordId) ? null : landlordId;
+            for (Map<String, Object> row : incomeLedgerMapper.sumMonthlyIncome(filter, startDate, endDate)) {
+                result.put(String.valueOf(row.get("month")), toBigDecimal(row.get("income")));
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("按月汇总收入流水失败: landlordId={}, error={}", landlordId, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, BigDecimal> computeMonthlyIncome(Long landlordId, LocalDate startDate, LocalDate endDate) {
+        // 只查询可能有收入落在区间内的订单：租期结束晚于区间开始，或支付、创建、退租、违约金支付发生在区间开始之后
+        LocalDateTime startTime = startDate.atStartOfDay();
+        LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+        wrapper.in(Order::getStatus, INCOME_STATUSES)
+                .eq(landlordId != null, Order::getLandlordId, landlordId)
+                .and(w -> w.gt(Order::getEndDate, startDate)
+                        .or().ge(Order::getPayTime, startTime)
+                        .or().ge(Order::getCreateTime, startTime)
+                        .or().ge(Order::getActualTerminateDate, startDate)
+                        .or().ge(Order::getPenaltyPayTime, startTime));
+        List<Order> orders = orderMapper.selectList(wrapper);
+
+        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
+        Map<String, BigDecimal> result = new HashMap<>();
+        for (Order order : orders) {
+            if (order.getLandlordId() == null) {
+                continue;
+            }
+            for (IncomeLedgerEntry entry : replay(order)) {
+                for (Map.Entry<LocalDate, BigDecimal> day : dailyAmounts(order, entry).entrySet()) {
+                    if (!day.getKey().isBefore(startDate) && !day.getKey().isAfter(endDate)) {
+                        result.merge(day.getKey().format(monthFormatter), day.getValue(), BigDecimal::add);
+                    }
+                }
+            }
+        }
+        log.info("按订单计算月度收入: landlordId={}, 订单数={}", landlordId, orders.size());
+        return result;
+    }
+
+    @Override
+    public BigDecimal sumPlatformPenaltyIncome() {
+        if (!isReady()) {
+            return null;
+        }
+        try {
+            return incomeLedgerMapper.sumPenaltyIncome(null, null, null);
+        } catch (Exception e) {
+            log.error("汇总平台违约金流水失败: error={}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized int rebuild() {
+        if (!enabled) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        available = true;
+        Integer rebuilt = runRebuild(() -> transactionTemplate.execute(status -> {
+            incomeLedgerMapper.deleteAllEntries();
+            incomeLedgerMapper.deleteAllDaily();
+
+            LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<>();
+            wrapper.in(Order::getStatus, INCOME_STATUSES);
+            List<Order> orders = orderMapper.selectList(wrapper);
+
+            // 先在内存中按房东、按天汇总，再批量写入每日汇总表
+            Map<DailyKey, BigDecimal[]> daily = new TreeMap<>();
+            for (Order order : orders) {
+                if (order.getLandlordId() == null) {
+                    continue;
+                }
+                for (IncomeLedgerEntry entry : replay(order)) {
+                    incomeLedgerMapper.insertIgnore(entry);
+                    accumulate(daily, order, entry);
+                }
+            }
+            writeDaily(daily);
+            return orders.size();
+        }));
+        log.info("收入流水重建完成, 订单数: {}, 耗时: {}ms", rebuilt, System.currentTimeMillis() - start);
+        return rebuilt == null ? 0 : rebuilt;
+    }
+
+    @Override
+    public boolean isReady() {
+        return enabled && super.isReady();
+    }
+
+    /**
+     * 写入一条流水并把金额按天累加到房东的每日汇总
+     * 与订单更新处于同一事务中，写入失败（包括死锁、锁等待超时）时异常直接抛出，
+     * 订单事务整体回滚，不会出现订单已更新而流水缺失，或事务已被数据库回滚却仍报告成功的情况
+     */
+    private void post(Order order, String entryType, BigDecimal amount, LocalDate incomeDate) {
+        if (!enabled || !available || order == null || order.getId() == null || order.getLandlordId() == null
+                || amount == null || amount.signum() == 0) {
+            return;
+        }
+        update(() -> {
+            IncomeLedgerEntry entry = newEntry(order, entryType, amount, incomeDate);
+            if (incomeLedgerMapper.insertIgnore(entry) == 0) {
+                log.info("收入流水已存在, 跳过: orderId={}, type={}", order.getId(), entryType);
+                return;
+            }
+            Map<DailyKey, BigDecimal[]> daily = new TreeMap<>();
+            accumulate(daily, order, entry);
+            writeDaily(daily);
+            log.info("记录收入流水: orderId={}, landlordId={}, type={}, amount={}, date={}",
+                    order.getId(), order.getLandlordId(), entryType, amount, incomeDate);
+        }, "orderId=" + order.getId() + ", type=" + entryType);
+    }
+
+    /**
+     * 按收入规则重放订单产生的全部流水，结果与订单逐次增量记账一致
+     */
+    private List<IncomeLedgerEntry> replay(Order order) {
+        List<IncomeLedgerEntry> entries = new ArrayList<>();
+        LocalDateTime paidAt = order.getPayTime() != null ? order.getPayTime() : order.getCreateTime();
+        LocalDate payDate = paidAt != null ? paidAt.toLocalDate() : LocalDate.now();
+        addEntry(entries, order, IncomeLedgerEntry.TYPE_RENT, rentIncome(order), payDate);
+
+        if ("TERMINATED".equals(order.getStatus())) {
+            LocalDate terminateDate = order.getActualTerminateDate() != null
+                    ? order.getActualTerminateDate() : payDate;
+            addEntry(entries, order, IncomeLedgerEntry.TYPE_RENT_ADJUST, terminationAdjustment(order), terminateDate);
+        }
+
+        if (Boolean.TRUE.equals(order.getIsPenaltyPaid()) && order.getPenaltyAmount() != null) {
+            LocalDate penaltyDate = order.getPenaltyPayTime() != null
+                    ? order.getPenaltyPayTime().toLocalDate()
+                    : (order.getActualTerminateDate() != null ? order.getActualTerminateDate() : payDate);
+            addEntry(entries, order, IncomeLedgerEntry.TYPE_PENALTY, order.getPenaltyAmount(), penaltyDate);
+        }
+        return entries;
+    }
+
+    private void addEntry(List<IncomeLedgerEntry> entries, Order order, String entryType,
+                          BigDecimal amount, LocalDate incomeDate) {
+        if (amount != null && amount.signum() != 0) {
+            entries.add(newEntry(order, entryType, amount, incomeDate));
+        }
+    }
+
+    /**
+     * 把一条流水按天展开后累加到房东的每日汇总
+     */
+    private void accumulate(Map<DailyKey, BigDecimal[]> daily, Order order, IncomeLedgerEntry entry) {
+        int column = IncomeLedgerEntry.TYPE_PENALTY.equals(entry.getEntryType()) ? 1 : 0;
+        for (Map.Entry<LocalDate, BigDecimal> day : dailyAmounts(order, entry).entrySet()) {
+            BigDecimal[] sums = daily.computeIfAbsent(new DailyKey(order.getLandlordId(), day.getKey()),
+                    k -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            sums[column] = sums[column].add(day.getValue());
+        }
+    }
+
+    /**
+     * 流水金额在各天的分摊
+     * 租金按租期[开始日期, 结束日期)逐日分摊，第n天的金额为前n天累计租金与前n-1天累计租金之差，
+     * 累计租金与退租调整使用相同的比例和舍入，因此各天相加与流水金额一致；
+     * 退租调整冲回实际退租日起各天的租金，取消冲回整个租期的租金；
+     * 违约金以及没有有效租期的租金记在入账日期当天
+     */
+    private Map<LocalDate, BigDecimal> dailyAmounts(Order order, IncomeLedgerEntry entry) {
+        Map<LocalDate, BigDecimal> days = new LinkedHashMap<>();
+        LocalDate leaseStart = order.getStartDate();
+        long totalDays = leaseStart != null && order.getEndDate() != null
+                ? ChronoUnit.DAYS.between(leaseStart, order.getEndDate()) : 0;
+        if (IncomeLedgerEntry.TYPE_PENALTY.equals(entry.getEntryType()) || totalDays <= 0) {
+            days.put(entry.getIncomeDate(), entry.getAmount());
+            return days;
+        }
+
+        BigDecimal rent = rentIncome(order);
+        long fromDay = 0;
+        if (IncomeLedgerEntry.TYPE_RENT_ADJUST.equals(entry.getEntryType())) {
+            fromDay = ChronoUnit.DAYS.between(leaseStart, terminateDate(order));
+        }
+        boolean reverse = !IncomeLedgerEntry.TYPE_RENT.equals(entry.getEntryType());
+        BigDecimal accrued = accruedRent(rent, fromDay, totalDays);
+        for (long day = fromDay; day < totalDays; day++) {
+            BigDecimal next = accruedRent(rent, day + 1, totalDays);
+            BigDecimal share = next.subtract(accrued);
+            days.put(leaseStart.plusDays(day), reverse ? share.negate() : share);
+            accrued = next;
+        }
+        return days;
+    }
+
+    /**
+     * 租期前days天按比例应得的租金
+     */
+    private BigDecimal accruedRent(BigDecimal rent, long days, long totalDays) {
+        return rent.multiply(new BigDecimal(days)).divide(new BigDecimal(totalDays), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 按房东ID、日期顺序分批写入每日汇总，金额为0的行跳过
+     */
+    private void writeDaily(Map<DailyKey, BigDecimal[]> daily) {
+        List<IncomeDaily> rows = new ArrayList<>(DAILY_BATCH_SIZE);
+        for (Map.Entry<DailyKey, BigDecimal[]> entry : daily.entrySet()) {
+            BigDecimal[] sums = entry.getValue();
+            if (sums[0].signum() == 0 && sums[1].signum() == 0) {
+                continue;
+            }
+            IncomeDaily row = new IncomeDaily();
+            row.setLandlordId(entry.getKey().landlordId);
+            row.setIncomeDate(entry.getKey().incomeDate);
+            row.setRentIncome(sums[0]);
+            row.setPenaltyIncome(sums[1]);
+            rows.add(row);
+            if (rows.size() >= DAILY_BATCH_SIZE) {
+                incomeLedgerMapper.addDailyIncomes(rows);
+                rows = new ArrayList<>(DAILY_BATCH_SIZE);
+            }
+        }
+        if (!rows.isEmpty()) {
+            incomeLedgerMapper.addDailyIncomes(rows);
+        }
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+
+    private IncomeLedgerEntry newEntry(Order order, String entryType, BigDecimal amount, LocalDate incomeDate) {
+        IncomeLedgerEntry entry = new IncomeLedgerEntry();
+        entry.setOrderId(order.getId());
+        entry.setLandlordId(order.getLandlordId());
+        entry.setEntryType(entryType);
+        entry.setAmount(amount);
+        entry.setIncomeDate(incomeDate);
+        return entry;
+    }
+
+    /**
+     * 订单租金收入（不含押金）
+     */
+    private BigDecimal rentIncome(Order order) {
+        if (order.getTotalAmount() != null && order.getDeposit() != null) {
+            return order.getTotalAmount().subtract(order.getDeposit());
+        } else if (order.getTotalAmount() != null) {
+            // 没有押金信息时按总金额的80%估算
+            return order.getTotalAmount().multiply(new BigDecimal("0.8"));
+        }
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * 退租时租金收入的调整额 = 按实际租期比例计算的租金 - 已记入的租金
+     */
+    private BigDecimal terminationAdjustment(Order order) {
+        if (order.getStartDate() == null || order.getEndDate() == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal rentCollected = rentIncome(order);
+        long totalDays = ChronoUnit.DAYS.between(order.getStartDate(), order.getEndDate());
+        long daysRented = ChronoUnit.DAYS.between(order.getStartDate(), terminateDate(order));
+        if (totalDays <= 0 || daysRented < 0 || daysRented >= totalDays) {
+            return BigDecimal.ZERO;
+        }
+        return accruedRent(rentCollected, daysRented, totalDays).subtract(rentCollected);
+    }
+
+    private LocalDate terminateDate(Order order) {
+        return order.getActualTerminateDate() != null ? order.getActualTerminateDate() : LocalDate.now();
+    }
+
+    private static class DailyKey implements Comparable<DailyKey> {
+        private final Long landlordId;
+        private final LocalDate incomeDate;
+
+        DailyKey(Long landlordId, LocalDate incomeDate) {
+            this.landlordId = landlordId;
+            this.incomeDate = incomeDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DailyKey)) {
+                return false;
+            }
+            DailyKey other = (DailyKey) o;
+            return Objects.equals(landlordId, other.landlordId) && Objects.equals(incomeDate, other.incomeDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(landlordId, incomeDate);
+        }
+
+        @Override
+        public int compareTo(DailyKey other) {
+            int result = landlordId.compareTo(other.landlordId);
+            return result != 0 ? result : incomeDate.compareTo(other.incomeDate);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.zufang.service.impl;
+
+import com.zufang.common.util.IncrementalSummary;
+import com.zufang.common.util.SummaryState;
+import com.zufang.entity.MessageCounter;
+import com.zufang.mapper.MessageCounterMapper;
+import com.zufang.service.MessageCounterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 用户消息计数服务实现类
+ * 计数停用时未读数查询回退到按消息表统计，启用、停用与重建规则见IncrementalSummary
+ */
+@Slf4j
+@Service
+public class MessageCounterServiceImpl extends IncrementalSummary implements MessageCounterService {
+
+    @Autowired
+    private MessageCounterMapper messageCounterMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${zufang.message.unread-counter.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 全局消息总数的缓存时间（毫秒），多实例部署时其他实例新增的全局消息在此时间内可见
+     */
+    @Value("${zufang.message.unread-counter.global-count-ttl:10000}")
+    private long globalCountTtl;
+
+    private volatile long globalCount = -1;
+
+    private volatile long globalCountExpireAt = 0;
+
+    public MessageCounterServiceImpl() {
+        super(SummaryState.MESSAGE_COUNTER, "消息计数");
+    }
+
+    /**
+     * 应用启动完成后检查计数表，为空或被标记为需要重建时根据现有消息重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            startup(messageCounterMapper.selectCount(null));
+        } catch (Exception e) {
+            log.warn("消息计数表不可用, 未读数将按消息表统计: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Integer countUnread(Long userId) {
+        if (!isReady() || userId == null) {
+            return null;
+        }
+        MessageCounter counter = messageCounterMapper.selectById(userId);
+        long unread = counter == null ? 0 : counter.getUnreadCount();
+        long globalRead = counter == null ? 0 : counter.getGlobalReadCount();
+        long total = unread + Math.max(getGlobalCount() - globalRead, 0);
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void onPersonalMessageCreated(Long userId) {
+        add(userId, 1, 0);
+    }
+
+    @Override
+    public void onPersonalMessageRead(Long userId) {
+        add(userId, -1, 0);
+    }
+
+    @Override
+    public void onAllPersonalMessagesRead(Long userId) {
+        if (!isReady() || userId == null) {
+            return;
+        }
+        update(() -> messageCounterMapper.clearUnread(userId), "userId=" + userId);
+    }
+
+    @Override
+    public void onGlobalMessageRead(Long userId) {
+        add(userId, 0, 1);
+    }
+
+    @Override
+    public void recountGlobalRead(Long userId) {
+        if (!isReady() || userId == null) {
+            return;
+        }
+        update(() -> messageCounterMapper.recountGlobalRead(userId), "userId=" + userId);
+    }
+
+    @Override
+    public void onGlobalMessageCreated() {
+        globalCountExpireAt = 0;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 提交前其他请求可能已按旧总数重新缓存，提交后再失效一次
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    globalCountExpireAt = 0;
+                }
+            });
+        }
+    }
+
+    @Override
+    public int rebuild() {
+        if (!enabled) {
+            return 0;
+        }
+        Integer rows = runRebuild(() -> {
+            Integer rebuilt = transactionTemplate.execute(status -> {
+                messageCounterMapper.deleteAll();
+                return messageCounterMapper.rebuildAll();
+            });
+            globalCountExpireAt = 0;
+            return rebuilt;
+        });
+        log.info("消息计数重建完成, 计数行数: {}", rows);
+        return rows == null ? 0 : rows;
+    }
+
+    private void add(Long userId, int unreadDelta, int globalReadDelta) {
+        if (!isReady() || userId == null) {
+            return;
+        }
+        update(() -> messageCounterMapper.addCounts(userId, unreadDelta, globalReadDelta), "userId=" + userId);
+    }
+
+    private long getGlobalCount() {
+        long now = System.currentTimeMillis();
+        if (globalCount < 0 || globalCountExpireAt <= now) {
+            globalCount = messageCounterMapper.countGlobalMessages();
+            globalCountExpireAt = now + globalCountTtl;
+        }
+        return globalCount;
+    }
+}
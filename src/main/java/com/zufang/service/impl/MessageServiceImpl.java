@@ -4,21 +4,29 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zufang.common.util.CursorUtil;
+import com.zufang.dto.CursorPageDTO;
 import com.zufang.dto.MessageSendRequest;
 import com.zufang.entity.Message;
+import com.zufang.event.MessageBroadcastEvent;
 import com.zufang.entity.MessageReadStatus;
 import com.zufang.entity.User;
 import com.zufang.mapper.MessageMapper;
 import com.zufang.mapper.MessageReadStatusMapper;
 import com.zufang.mapper.UserMapper;
+import com.zufang.service.MessageCounterService;
 import com.zufang.service.MessageService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 消息服务实现类
@@ -32,6 +40,12 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
     
     @Autowired
     private MessageReadStatusMapper messageReadStatusMapper;
+    
+    @Autowired
+    private MessageCounterService messageCounterService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * 创建消息
@@ -48,6 +62,11 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
         
         // 保存消息
         save(message);
+        if (Boolean.TRUE.equals(message.getIsGlobal())) {
+            messageCounterService.onGlobalMessageCreated();
+        } else {
+            messageCounterService.onPersonalMessageCreated(message.getUserId());
+        }
         
         log.info("创建消息成功: id={}", message.getId());
         return message.getId();
@@ -77,22 +96,61 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
         Page<Message> result = page(pageParam, wrapper);
         
         // 处理消息的已读状态
-        result.getRecords().forEach(message -> {
-            if (message.getIsGlobal() != null && message.getIsGlobal()) {
-                // 对于全局消息，从消息阅读状态表中获取已读状态
-                MessageReadStatus readStatus = messageReadStatusMapper.selectOne(
-                    new LambdaQueryWrapper<MessageReadStatus>()
-                        .eq(MessageReadStatus::getMessageId, message.getId())
-                        .eq(MessageReadStatus::getUserId, userId)
-                );
-                message.setIsRead(readStatus != null && readStatus.getIsRead());
-            }
-        });
+        fillGlobalReadStatus(result.getRecords(), userId);
         
         log.info("获取用户消息列表成功: userId={}, total={}", userId, result.getTotal());
         return result;
     }
     
+    /**
+     * 游标分页获取用户消息列表
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Message> getUserMessagesByCursor(Long userId, String cursor, Integer size, boolean withTotal) {
+        log.info("游标分页获取用户消息列表: userId={}, cursor={}, size={}, withTotal={}", userId, cursor, size, withTotal);
+        int pageSize = CursorUtil.normalizeSize(size);
+        
+        // 构建查询条件
+        LambdaQueryWrapper<Message> wrapper = new LambdaQueryWrapper<>();
+        wrapper.and(w -> w
+                .eq(Message::getUserId, userId)
+                .or()
+                .eq(Message::getIsGlobal, true)
+            );
+        
+        // 按需统计总数（不带游标条件）
+        Long total = withTotal ? baseMapper.selectCount(wrapper) : null;
+        
+        CursorUtil.applyDescCursor(wrapper, Message::getCreateTime, Message::getId, cursor, pageSize);
+        List<Message> messages = baseMapper.selectList(wrapper);
+        
+        return CursorUtil.buildPage(messages, pageSize, Message::getCreateTime, Message::getId,
+                rows -> {
+                    fillGlobalReadStatus(rows, userId);
+                    return rows;
+                }, total);
+    }
+    
+    /**
+     * 对于全局消息，从消息阅读状态表中获取当前用户的已读状态（整页一次查询）
+     */
+    private void fillGlobalReadStatus(List<Message> messages, Long userId) {
+        List<Long> globalIds = messages.stream()
+            .filter(message -> Boolean.TRUE.equals(message.getIsGlobal()))
+            .map(Message::getId)
+            .collect(Collectors.toList());
+        if (globalIds.isEmpty()) {
+            return;
+        }
+        Set<Long> readIds = new HashSet<>(messageReadStatusMapper.selectReadMessageIds(userId, globalIds));
+        messages.forEach(message -> {
+            if (Boolean.TRUE.equals(message.getIsGlobal())) {
+                message.setIsRead(readIds.contains(message.getId()));
+            }
+        });
+    }
+    
     /**
      * 统计用户未读消息数量
      */
@@ -100,6 +158,11 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
     public int countUnreadMessages(Long userId) {
         log.info("统计用户未读消息数量: userId={}", userId);
         
+        Integer counted = messageCounterService.countUnread(userId);
+        if (counted != null) {
+            return counted;
+        }
+        
         // 统计用户特定的未读消息
         LambdaQueryWrapper<Message> userMessageWrapper = new LambdaQueryWrapper<>();
         userMessageWrapper.eq(Message::getUserId, userId)
@@ -159,41 +222,17 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
         LocalDateTime now = LocalDateTime.now();
         
         if (message.getIsGlobal() != null && message.getIsGlobal()) {
-            // 全局消息 - 创建或更新用户的阅读状态
-            MessageReadStatus readStatus = messageReadStatusMapper.selectOne(
-                new LambdaQueryWrapper<MessageReadStatus>()
-                    .eq(MessageReadStatus::getMessageId, messageId)
-                    .eq(MessageReadStatus::getUserId, userId)
-            );
-            
-            if (readStatus == null) {
-                // 创建新的阅读状态记录
-                readStatus = new MessageReadStatus();
-                readStatus.setMessageId(messageId);
-                readStatus.setUserId(userId);
-                readStatus.setIsRead(true);
-                readStatus.setCreateTime(now);
-                boolean success = messageReadStatusMapper.insert(readStatus) > 0;
-                
-                // 更新消息的更新时间
-                message.setUpdateTime(now);
-                updateById(message);
-                
-                return success;
-            } else if (!readStatus.getIsRead()) {
-                // 更新已有记录
-                readStatus.setIsRead(true);
-                boolean success = messageReadStatusMapper.updateById(readStatus) > 0;
+            // 全局消息 - 创建或更新用户的阅读状态，只有从未读改为已读的那一次请求扣减未读数
+            boolean changed = messageReadStatusMapper.insertRead(messageId, userId) == 1
+                    || messageReadStatusMapper.markRead(messageId, userId) == 1;
+            if (changed) {
+                messageCounterService.onGlobalMessageRead(userId);
                 
                 // 更新消息的更新时间
                 message.setUpdateTime(now);
                 updateById(message);
-                
-                return success;
-            } else {
-                // 已经是已读状态，无需更新
-                return true;
             }
+            return true;
         } else {
             // 用户特定消息 - 验证所有者并更新
             if (!userId.equals(message.getUserId())) {
@@ -202,19 +241,14 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
                 return false;
             }
             
-            // 如果已经是已读状态，直接返回成功
-            if (message.getIsRead()) {
+            // 只有从未读改为已读的那一次请求扣减未读数，并发的重复标记不会重复扣减
+            if (baseMapper.markRead(messageId) == 1) {
+                messageCounterService.onPersonalMessageRead(userId);
+                log.info("标记消息为已读成功: messageId={}", messageId);
+            } else {
                 log.info("消息已经是已读状态，无需更新: messageId={}", messageId);
-                return true;
             }
-            
-            // 更新消息为已读状态
-            message.setIsRead(true);
-            message.setUpdateTime(now);
-            boolean success = updateById(message);
-            
-            log.info("标记消息为已读{}成功: messageId={}", success ? "" : "不", messageId);
-            return success;
+            return true;
         }
     }
     
@@ -235,37 +269,12 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
         
         // 执行批量更新
         boolean success = update(wrapper);
+        messageCounterService.onAllPersonalMessagesRead(userId);
         
-        // 获取所有未读的全局消息
-        List<Message> globalMessages = list(
-            new LambdaQueryWrapper<Message>()
-                .eq(Message::getIsGlobal, true)
-                .eq(Message::getType, "SYSTEM")
-        );
-        
-        // 标记所有全局消息为已读
-        for (Message message : globalMessages) {
-            // 检查用户是否已阅读该消息
-            MessageReadStatus readStatus = messageReadStatusMapper.selectOne(
-                new LambdaQueryWrapper<MessageReadStatus>()
-                    .eq(MessageReadStatus::getMessageId, message.getId())
-                    .eq(MessageReadStatus::getUserId, userId)
-            );
-            
-            if (readStatus == null) {
-                // 创建新的阅读状态记录
-                readStatus = new MessageReadStatus();
-                readStatus.setMessageId(message.getId());
-                readStatus.setUserId(userId);
-                readStatus.setIsRead(true);
-                readStatus.setCreateTime(LocalDateTime.now());
-                messageReadStatusMapper.insert(readStatus);
-            } else if (!readStatus.getIsRead()) {
-                // 更新已有记录
-                readStatus.setIsRead(true);
-                messageReadStatusMapper.updateById(readStatus);
-            }
-        }
+        // 一条语句标记所有全局系统消息为已读
+        int globalMarked = messageReadStatusMapper.markAllGlobalAsRead(userId, "SYSTEM");
+        log.info("标记全局系统消息为已读: userId={}, 影响行数={}", userId, globalMarked);
+        messageCounterService.recountGlobalRead(userId);
         
         log.info("标记用户所有消息为已读{}成功: userId={}", success ? "" : "不", userId);
         return true;
@@ -301,6 +310,7 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
             deletedStatus.setIsRead(true); // 标记为已读
             deletedStatus.setCreateTime(LocalDateTime.now());
             messageReadStatusMapper.insert(deletedStatus);
+            messageCounterService.recountGlobalRead(userId);
             
             log.info("标记全局消息为已删除状态: messageId={}, userId={}", messageId, userId);
             return true;
@@ -314,6 +324,9 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
             
             // 删除消息
             boolean success = removeById(messageId);
+            if (success && !Boolean.TRUE.equals(message.getIsRead())) {
+                messageCounterService.onPersonalMessageRead(userId);
+            }
             
             log.info("删除消息{}成功: messageId={}", success ? "" : "不", messageId);
             return success;
@@ -343,6 +356,9 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
             
             // 保存消息
             boolean saved = save(message);
+            if (saved) {
+                messageCounterService.onPersonalMessageCreated(userId);
+            }
             
             log.info("发送系统消息{}成功: userId={}, messageId={}", saved ? "" : "不", userId, message.getId());
             return saved;
@@ -374,6 +390,9 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
             
             // 保存消息
             boolean saved = save(message);
+            if (saved) {
+                messageCounterService.onPersonalMessageCreated(userId);
+            }
             
             log.info("发送消息{}成功: userId={}, messageId={}", saved ? "" : "不", userId, message.getId());
             return saved;
@@ -398,6 +417,10 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
         message.setCreateTime(LocalDateTime.now());
         message.setUpdateTime(LocalDateTime.now());
         save(message);
+        messageCounterService.onGlobalMessageCreated();
+        
+        // 事务提交后推送给所有在线用户
+        eventPublisher.publishEvent(new MessageBroadcastEvent(message.getId(), message.getTitle(), message.getContent()));
         
         log.info("创建全局系统消息成功: messageId={}", message.getId());
     }
@@ -434,13 +457,7 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
             );
             
             // 填充全局消息的已读状态
-            for (Message message : messagePage.getRecords()) {
-                if (message.getIsGlobal() != null && message.getIsGlobal()) {
-                    // 检查用户的阅读状态
-                    Boolean readStatus = getMessageReadStatus(message.getId(), userId);
-                    message.setIsRead(readStatus);
-                }
-            }
+            fillGlobalReadStatus(messagePage.getRecords(), userId);
             
             return messagePage;
         }
@@ -458,9 +475,9 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
         
         // 对于非全局消息，直接更新消息表
         if (message.getIsGlobal() == null || !message.getIsGlobal()) {
-            message.setIsRead(true);
-            message.setUpdateTime(LocalDateTime.now());
-            updateById(message);
+            if (baseMapper.markRead(messageId) == 1) {
+                messageCounterService.onPersonalMessageRead(message.getUserId());
+            }
             return;
         }
         
@@ -7,22 +7,31 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.zufang.common.enums.OrderStatus;
 import com.zufang.common.exception.BusinessException;
+import com.zufang.common.util.CursorUtil;
+import com.zufang.common.util.IdGenerator;
 import com.zufang.dto.*;
 import com.zufang.entity.Contract;
 import com.zufang.entity.House;
 import com.zufang.entity.Order;
+import com.zufang.entity.User;
+import com.zufang.event.HouseChangedEvent;
 import com.zufang.event.OrderPaidEvent;
+import com.zufang.mapper.HouseMapper;
 import com.zufang.mapper.OrderMapper;
+import com.zufang.mapper.UserMapper;
+import com.zufang.order.HouseBookingLock;
 import com.zufang.service.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
@@ -45,6 +54,11 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements OrderService {
 
+    /**
+     * 月度收入数据最多统计的月数
+     */
+    private static final int MAX_INCOME_MONTHS = 120;
+
     @Autowired
     private HouseService houseService;
     
@@ -63,6 +77,27 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     @Autowired
     private SqlSessionFactory sqlSessionFactory;
     
+    @Autowired
+    private HouseMapper houseMapper;
+    
+    @Autowired
+    private UserMapper userMapper;
+    
+    @Autowired
+    private IncomeLedgerService incomeLedgerService;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private HouseBookingLock houseBookingLock;
+    
+    /**
+     * 管理员仪表盘月度收入图表的月数
+     */
+    @Value("${zufang.statistics.monthly-income-months:12}")
+    private int monthlyIncomeMonths;
+    
     /**
      * 创建订单
      * @param dto 订房信息
@@ -165,20 +200,37 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             return false;
         }
         
-        // 更新订单状态
+        // 同一房源的支付在进程内排队，锁在事务结束后释放
+        if (!houseBookingLock.lockUntilCompletion(order.getHouseId())) {
+            log.error("支付订单失败，房源正在被其他订单支付：{}", order.getHouseId());
+            return false;
+        }
+        
+        // 房源从已上架改为已出租，并发支付同一房源时只有一个订单能更新成功
+        if (houseMapper.compareAndSetStatus(order.getHouseId(), "APPROVED", "RENTED") == 0) {
+            log.error("支付订单失败，房源已出租或已下架：{}", order.getHouseId());
+            return false;
+        }
+        
+        // 订单从待支付改为已支付，订单已被重复支付或取消时回滚房源状态
+        LocalDateTime payTime = LocalDateTime.now();
+        String transactionId = generateTransactionId();
+        if (baseMapper.markPaid(order.getId(), userId, payTime, dto.getPayMethod(), transactionId) == 0) {
+            log.error("支付订单失败，订单状态已变更：{}", order.getId());
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        eventPublisher.publishEvent(new HouseChangedEvent(order.getHouseId()));
+        
         order.setStatus("PAID");
-        order.setPayTime(LocalDateTime.now());
+        order.setPayTime(payTime);
         order.setPayMethod(dto.getPayMethod());
-        order.setTransactionId(generateTransactionId());
-        updateById(order);
+        order.setTransactionId(transactionId);
         
-        // 更新房源状态为已出租
-        boolean houseUpdated = houseService.updateHouseStatus(order.getHouseId(), "RENTED");
-        if (!houseUpdated) {
-            log.warn("订单支付成功，但更新房源状态失败，房源ID：{}", order.getHouseId());
-        }
+        // 记入租金收入流水
+        incomeLedgerService.recordPayment(order);
         
-        // 发布订单支付成功事件，让ContractService监听并处理合同创建
+        // 发布订单支付成功事件，由ContractGenerationQueue在事务提交后异步创建合同
         eventPublisher.publishEvent(new OrderPaidEvent(order.getId()));
         
         return true;
@@ -211,6 +263,8 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             return false;
         }
         
+        boolean wasPaid = "PAID".equals(order.getStatus());
+        
         // 更新订单状态
         order.setStatus("CANCELLED");
         order.setCancelReason(reason);
@@ -219,6 +273,11 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         boolean updated = updateById(order);
         
         if (updated) {
+            // 已支付订单取消时冲回租金收入流水
+            if (wasPaid) {
+                incomeLedgerService.recordCancellation(order);
+            }
+            
             // 如果订单已支付，则需要取消相关联的合同
             if ("PAID".equals(order.getStatus())) {
                 // 查询与订单关联的合同
@@ -363,6 +422,40 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         }
     }
     
+    /**
+     * 游标分页查询订单
+     * 状态使用精确匹配（兼容大小写写法），以便走status索引
+     */
+    @Override
+    public CursorPageDTO<OrderDTO> getOrdersByCursor(List<String> statuses, String cursor, Integer size, boolean withTotal) {
+        log.info("游标分页查询订单: statuses={}, cursor={}, size={}, withTotal={}", statuses, cursor, size, withTotal);
+        int pageSize = CursorUtil.normalizeSize(size);
+        
+        LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
+        if (statuses != null && !statuses.isEmpty()) {
+            Set<String> statusValues = new LinkedHashSet<>();
+            for (String status : statuses) {
+                if (StringUtils.hasText(status)) {
+                    statusValues.add(status.trim());
+                    statusValues.add(status.trim().toUpperCase());
+                    statusValues.add(status.trim().toLowerCase());
+                }
+            }
+            if (!statusValues.isEmpty()) {
+                queryWrapper.in(Order::getStatus, statusValues);
+            }
+        }
+        
+        // 按需统计总数（不带游标条件）
+        Long total = withTotal ? baseMapper.selectCount(queryWrapper) : null;
+        
+        CursorUtil.applyDescCursor(queryWrapper, Order::getCreateTime, Order::getId, cursor, pageSize);
+        List<Order> orders = baseMapper.selectList(queryWrapper);
+        
+        return CursorUtil.buildPage(orders, pageSize, Order::getCreateTime, Order::getId,
+                this::convertToDTOList, total);
+    }
+    
     /**
      * 房东分页查询自己的订单
      * @param page 分页参数
@@ -408,8 +501,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
      * @return 订单编号
      */
     private String generateOrderNo() {
-        return "ORD" + DateTimeFormatter.ofPattern("yyyyMMdd").format(LocalDateTime.now()) 
-                + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.nextNo("ORD");
     }
     
     /**
@@ -417,8 +509,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
      * @return 交易流水号
      */
     private String generateTransactionId() {
-        return "TRX" + DateTimeFormatter.ofPattern("yyyyMMddHHmmss").format(LocalDateTime.now()) 
-                + UUID.randomUUID().toString().substring(0, 12).toUpperCase();
+        return idGenerator.nextNo("TRX");
     }
     
     /**
@@ -444,87 +535,154 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
      * 将Order转换为OrderDTO
      */
     private OrderDTO convertToDTO(Order order) {
-        OrderDTO dto = new OrderDTO();
-        BeanUtils.copyProperties(order, dto);
-        
-        // 格式化租期日期
-        if (order.getStartDate() != null) {
-            dto.setLeaseStartDate(order.getStartDate().toString());
+        return convertToDTOList(Collections.singletonList(order)).get(0);
+    }
+    
+    /**
+     * 批量将Order转换为OrderDTO
+     * 先收集整页订单的房源ID和用户ID（租客、房东），各用一次IN查询取回，避免逐行查询房源和用户
+     */
+    private List<OrderDTO> convertToDTOList(List<Order> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return new ArrayList<>();
         }
         
-        if (order.getEndDate() != null) {
-            dto.setLeaseEndDate(order.getEndDate().toString());
+        // 1. 批量查询房源
+        Map<Long, House> houseMap = null;
+        try {
+            Set<Long> houseIds = orders.stream()
+                    .map(Order::getHouseId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            houseMap = houseIds.isEmpty() ? new HashMap<>() : houseMapper.selectBatchIds(houseIds).stream()
+                    .collect(Collectors.toMap(House::getId, house -> house, (a, b) -> a));
+        } catch (Exception e) {
+            log.error("批量获取房源信息异常: error={}", e.getMessage(), e);
         }
         
-        // 获取房源信息
+        // 2. 批量查询租客和房东
+        Map<Long, User> userMap = null;
         try {
-            HouseInfoDTO houseInfo = houseService.getHouseInfo(order.getHouseId());
-            if (houseInfo != null) {
-                dto.setHouseTitle(houseInfo.getTitle());
-                dto.setHouseCoverImage(houseInfo.getCoverImage());
-                dto.setHouseImage(houseInfo.getCoverImage());
-                dto.setHouseAddress(houseInfo.getCity() + houseInfo.getDistrict() + houseInfo.getAddress());
-                dto.setIsHouseDeleted(false);
-            } else {
-                // 如果房源不存在，设置默认值并标记房源已删除
-                dto.setHouseTitle("房源信息已删除");
-                dto.setHouseCoverImage("");
-                dto.setHouseImage("");
-                dto.setHouseAddress("地址信息已删除");
-                dto.setIsHouseDeleted(true);
+            Set<Long> userIds = new HashSet<>();
+            for (Order order : orders) {
+                if (order.getUserId() != null) {
+                    userIds.add(order.getUserId());
+                }
+                if (order.getLandlordId() != null) {
+                    userIds.add(order.getLandlordId());
+                }
             }
+            userMap = userIds.isEmpty() ? new HashMap<>() : userMapper.selectBatchIds(userIds).stream()
+                    .collect(Collectors.toMap(User::getId, user -> user, (a, b) -> a));
         } catch (Exception e) {
-            log.error("获取房源信息异常: houseId={}, error={}", order.getHouseId(), e.getMessage(), e);
+            log.error("批量获取用户信息异常: error={}", e.getMessage(), e);
+        }
+        
+        // 3. 组装DTO
+        List<OrderDTO> result = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            OrderDTO dto = new OrderDTO();
+            BeanUtils.copyProperties(order, dto);
+            
+            // 格式化租期日期
+            if (order.getStartDate() != null) {
+                dto.setLeaseStartDate(order.getStartDate().toString());
+            }
+            
+            if (order.getEndDate() != null) {
+                dto.setLeaseEndDate(order.getEndDate().toString());
+            }
+            
+            fillHouseInfo(dto, houseMap);
+            fillUserInfo(dto, userMap);
+            fillLandlordInfo(dto, userMap);
+            
+            // 退租字段处理 - BeanUtils.copyProperties已复制基本字段，无需额外处理
+            
+            result.add(dto);
+        }
+        return result;
+    }
+    
+    /**
+     * 填充房源信息
+     * @param houseMap 批量查询的房源，查询失败时为null
+     */
+    private void fillHouseInfo(OrderDTO dto, Map<Long, House> houseMap) {
+        if (houseMap == null) {
             dto.setHouseTitle("房源信息获取失败");
             dto.setHouseCoverImage("");
             dto.setHouseImage("");
             dto.setHouseAddress("地址信息获取失败");
             dto.setIsHouseDeleted(false);
+            return;
         }
         
-        // 获取用户信息
-        try {
-            UserInfoDTO userInfo = userService.getUserInfo(order.getUserId());
-            if (userInfo != null) {
-                dto.setUserName(userInfo.getNickname() != null ? userInfo.getNickname() : userInfo.getUsername());
-                dto.setUserPhone(userInfo.getPhone());
-                // 添加租客真实姓名
-                dto.setUserRealName(userInfo.getRealName());
-            } else {
-                dto.setUserName("未知用户");
-                dto.setUserPhone("");
-                dto.setUserRealName("");
-            }
-        } catch (Exception e) {
-            log.error("获取用户信息异常: userId={}, error={}", order.getUserId(), e.getMessage(), e);
+        House house = houseMap.get(dto.getHouseId());
+        if (house != null) {
+            dto.setHouseTitle(house.getTitle());
+            dto.setHouseCoverImage(house.getCoverImage());
+            dto.setHouseImage(house.getCoverImage());
+            dto.setHouseAddress(house.getCity() + house.getDistrict() + house.getAddress());
+            dto.setIsHouseDeleted(false);
+        } else {
+            // 如果房源不存在，设置默认值并标记房源已删除
+            dto.setHouseTitle("房源信息已删除");
+            dto.setHouseCoverImage("");
+            dto.setHouseImage("");
+            dto.setHouseAddress("地址信息已删除");
+            dto.setIsHouseDeleted(true);
+        }
+    }
+    
+    /**
+     * 填充租客信息
+     * @param userMap 批量查询的用户，查询失败时为null
+     */
+    private void fillUserInfo(OrderDTO dto, Map<Long, User> userMap) {
+        if (userMap == null) {
             dto.setUserName("用户信息获取失败");
             dto.setUserPhone("");
             dto.setUserRealName("");
+            return;
         }
         
-        // 获取房东信息
-        try {
-            UserInfoDTO landlordInfo = userService.getUserInfo(order.getLandlordId());
-            if (landlordInfo != null) {
-                dto.setLandlordName(landlordInfo.getNickname() != null ? landlordInfo.getNickname() : landlordInfo.getUsername());
-                // 添加房东真实姓名和电话
-                dto.setLandlordRealName(landlordInfo.getRealName());
-                dto.setLandlordPhone(landlordInfo.getPhone());
-            } else {
-                dto.setLandlordName("未知房东");
-                dto.setLandlordRealName("");
-                dto.setLandlordPhone("");
-            }
-        } catch (Exception e) {
-            log.error("获取房东信息异常: landlordId={}, error={}", order.getLandlordId(), e.getMessage(), e);
+        User user = userMap.get(dto.getUserId());
+        if (user != null) {
+            dto.setUserName(user.getNickname() != null ? user.getNickname() : user.getUsername());
+            dto.setUserPhone(user.getPhone());
+            // 添加租客真实姓名
+            dto.setUserRealName(user.getRealName());
+        } else {
+            dto.setUserName("未知用户");
+            dto.setUserPhone("");
+            dto.setUserRealName("");
+        }
+    }
+    
+    /**
+     * 填充房东信息
+     * @param userMap 批量查询的用户，查询失败时为null
+     */
+    private void fillLandlordInfo(OrderDTO dto, Map<Long, User> userMap) {
+        if (userMap == null) {
             dto.setLandlordName("房东信息获取失败");
             dto.setLandlordRealName("");
             dto.setLandlordPhone("");
+            return;
         }
         
-        // 退租字段处理 - BeanUtils.copyProperties已复制基本字段，无需额外处理
-        
-        return dto;
+        User landlord = userMap.get(dto.getLandlordId());
+        if (landlord != null) {
+            dto.setLandlordName(landlord.getNickname() != null ? landlord.getNickname() : landlord.getUsername());
+            // 添加房东真实姓名和电话
+            dto.setLandlordRealName(landlord.getRealName());
+            dto.setLandlordPhone(landlord.getPhone());
+        } else {
+            dto.setLandlordName("未知房东");
+            dto.setLandlordRealName("");
+            dto.setLandlordPhone("");
+        }
     }
     
     /**
@@ -533,9 +691,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
      * @return DTO分页数据
      */
     private Page<OrderDTO> convertToOrderDTOPage(Page<Order> orderPage) {
-        List<OrderDTO> records = orderPage.getRecords().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<OrderDTO> records = convertToDTOList(orderPage.getRecords());
         
         Page<OrderDTO> dtoPage = new Page<>();
         dtoPage.setRecords(records);
@@ -549,9 +705,21 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     /**
      * 计算房东总收入
+     * 优先从收入流水汇总，流水不可用时按订单计算
      */
     @Override
     public BigDecimal calculateLandlordTotalIncome(Long landlordId) {
+        BigDecimal income = incomeLedgerService.sumLandlordIncome(landlordId, null, null);
+        if (income != null) {
+            return income;
+        }
+        return scanLandlordTotalIncome(landlordId);
+    }
+
+    /**
+     * 按订单计算房东总收入
+     */
+    private BigDecimal scanLandlordTotalIncome(Long landlordId) {
         log.info("计算房东总收入: landlordId={}", landlordId);
         
         try {
@@ -700,9 +868,21 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     /**
      * 计算房东在指定时间段内的收入
+     * 优先从收入流水汇总，流水不可用时按订单计算
      */
     @Override
     public BigDecimal calculateLandlordIncomeInPeriod(Long landlordId, LocalDate startDate, LocalDate endDate) {
+        BigDecimal income = incomeLedgerService.sumLandlordIncome(landlordId, startDate, endDate);
+        if (income != null) {
+            return income;
+        }
+        return scanLandlordIncomeInPeriod(landlordId, startDate, endDate);
+    }
+
+    /**
+     * 按订单计算房东在指定时间段内的收入
+     */
+    private BigDecimal scanLandlordIncomeInPeriod(Long landlordId, LocalDate startDate, LocalDate endDate) {
         log.info("计算房东时间段内收入: landlordId={}, startDate={}, endDate={}", landlordId, startDate, endDate);
         
         try {
@@ -1382,9 +1562,21 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     /**
      * 计算平台总收入
+     * 优先从收入流水汇总，流水不可用时按订单计算
      */
     @Override
     public BigDecimal calculateTotalIncome() {
+        BigDecimal income = incomeLedgerService.sumPlatformIncome(null, null);
+        if (income != null) {
+            return income;
+        }
+        return scanTotalIncome();
+    }
+
+    /**
+     * 按订单计算平台总收入
+     */
+    private BigDecimal scanTotalIncome() {
         log.info("计算平台总收入");
         
         try {
@@ -1524,9 +1716,23 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     /**
      * 计算平台本月收入
+     * 优先从收入流水汇总，流水不可用时按订单计算
      */
     @Override
     public BigDecimal calculateMonthlyIncome() {
+        LocalDate now = LocalDate.now();
+        BigDecimal income = incomeLedgerService.sumPlatformIncome(
+                now.with(TemporalAdjusters.firstDayOfMonth()), now.with(TemporalAdjusters.lastDayOfMonth()));
+        if (income != null) {
+            return income;
+        }
+        return scanMonthlyIncome();
+    }
+
+    /**
+     * 按订单计算平台本月收入
+     */
+    private BigDecimal scanMonthlyIncome() {
         log.info("计算平台本月收入");
         
         try {
@@ -1673,50 +1879,37 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
      */
     @Override
     public List<Map<String, Object>> getMonthlyIncomeData() {
-        log.info("获取月度收入数据");
+        return getMonthlyIncomeData(null, monthlyIncomeMonths);
+    }
+    
+    /**
+     * 获取最近N个月的月度收入数据
+     * 优先从收入流水按月汇总，流水不可用时查询一次订单、按与流水相同的规则计算
+     */
+    @Override
+    public List<Map<String, Object>> getMonthlyIncomeData(Long landlordId, int months) {
+        log.info("获取月度收入数据: landlordId={}, months={}", landlordId, months);
         
         try {
-            List<Map<String, Object>> monthlyData = new ArrayList<>();
-            LocalDate now = LocalDate.now();
+            int monthCount = Math.max(1, Math.min(months, MAX_INCOME_MONTHS));
+            LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).minusMonths(monthCount - 1);
+            LocalDate lastDay = LocalDate.now().with(TemporalAdjusters.lastDayOfMonth());
+            
+            Map<String, BigDecimal> incomeByMonth = incomeLedgerService.sumMonthlyIncome(
+                    landlordId != null ? landlordId : IncomeLedgerService.PLATFORM_LANDLORD_ID, firstMonth, lastDay);
+            if (incomeByMonth == null) {
+                incomeByMonth = incomeLedgerService.computeMonthlyIncome(landlordId, firstMonth, lastDay);
+            }
             
-            // 计算近12个月的收入数据
-            for (int i = 11; i >= 0; i--) {
-                LocalDate monthStart = now.minusMonths(i).withDayOfMonth(1);
-                LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
-                
-                LocalDateTime startDateTime = monthStart.atStartOfDay();
-                LocalDateTime endDateTime = monthEnd.atTime(23, 59, 59);
-                
-                // 查询指定月份内的所有有效订单
-                QueryWrapper<Order> wrapper = new QueryWrapper<>();
-                wrapper.and(w -> w.eq("status", "PAID")
-                        .or().eq("status", "COMPLETED")
-                        .or().eq("status", "ACTIVE")
-                        .or().eq("status", "TERMINATED")
-                        .or().eq("status", "TERMINATE_APPROVED")
-                        .or().eq("status", "TERMINATE_REQUESTED"))
-                    .and(w -> w.between("create_time", startDateTime, endDateTime)
-                        .or().between("pay_time", startDateTime, endDateTime));
-                
-                List<Order> orders = baseMapper.selectList(wrapper);
-                
-                // 计算月收入
-                BigDecimal monthIncome = BigDecimal.ZERO;
-                for (Order order : orders) {
-                    BigDecimal orderIncome = order.getTotalAmount();
-                    // 排除押金
-                    if (order.getDeposit() != null && order.getDeposit().compareTo(BigDecimal.ZERO) > 0) {
-                        orderIncome = orderIncome.subtract(order.getDeposit());
-                    }
-                    monthIncome = monthIncome.add(orderIncome);
-                }
-                
-                // 格式化月份为 "yyyy-MM" 格式
-                String monthLabel = monthStart.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+            // 按月份补齐没有收入的月份
+            List<Map<String, Object>> monthlyData = new ArrayList<>(monthCount);
+            DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
+            for (int i = 0; i < monthCount; i++) {
+                String monthLabel = firstMonth.plusMonths(i).format(monthFormatter);
                 
                 Map<String, Object> monthData = new HashMap<>();
                 monthData.put("month", monthLabel);
-                monthData.put("income", monthIncome);
+                monthData.put("income", incomeByMonth.getOrDefault(monthLabel, BigDecimal.ZERO));
                 monthlyData.add(monthData);
             }
             
@@ -1985,6 +2178,9 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             log.error("更新订单状态为TERMINATED失败: orderId={}", orderId);
             // 即使订单更新失败，也尝试更新房源状态，但记录错误
             // 理论上事务应回滚，但这里增加健壮性
+        } else {
+            // 按实际租期调整租金收入流水
+            incomeLedgerService.recordTermination(order);
         }
         
         // 更新房源状态为 APPROVED (可出租)
@@ -2427,6 +2623,9 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
                         order.setUpdateTime(LocalDateTime.now());
                         boolean orderUpdated = updateById(order);
                         log.info("更新订单状态为TERMINATED: orderId={}, 结果={}", orderId, orderUpdated ? "成功" : "失败");
+                        if (orderUpdated) {
+                            incomeLedgerService.recordTermination(order);
+                        }
                     }
                     
                     // 强制更新房源状态为APPROVED（三种方式尝试）
@@ -2453,6 +2652,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
                 boolean orderUpdated = updateById(order);
                 if (orderUpdated) {
                     log.info("订单已更新为已终止状态: orderId={}", orderId);
+                    incomeLedgerService.recordTermination(order);
                 }
                 
                 // 强制更新房源状态为APPROVED
@@ -2483,6 +2683,10 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             if (result) {
                 log.info("违约金支付成功，订单已更新为已终止: orderId={}, amount={}", orderId, order.getPenaltyAmount());
                 
+                // 记入违约金收入，并按实际租期调整租金收入流水
+                incomeLedgerService.recordPenalty(order);
+                incomeLedgerService.recordTermination(order);
+                
                 // 强制更新房源状态为APPROVED
                 updateHouseStatusToApproved(order.getHouseId());
                 
@@ -2619,6 +2823,9 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         if (!updateSuccess) {
             log.error("所有更新房源状态的尝试都失败，需手动处理: houseId={}", houseId);
             // 可以考虑发送系统告警或将待处理任务保存到数据库，后续由定时任务处理
+        } else {
+            // 直接SQL更新绕过了HouseService，需要单独通知缓存和搜索索引
+            eventPublisher.publishEvent(new HouseChangedEvent(houseId));
         }
     }
 
@@ -2701,9 +2908,21 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     /**
      * 计算总违约金收入
+     * 优先从收入流水汇总，流水不可用时按订单计算
      */
     @Override
     public BigDecimal calculateTotalPenaltyIncome() {
+        BigDecimal income = incomeLedgerService.sumPlatformPenaltyIncome();
+        if (income != null) {
+            return income;
+        }
+        return scanTotalPenaltyIncome();
+    }
+
+    /**
+     * 按订单计算总违约金收入
+     */
+    private BigDecimal scanTotalPenaltyIncome() {
         log.info("计算平台总违约金收入");
         
         try {
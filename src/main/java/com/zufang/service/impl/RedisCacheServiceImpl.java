@@ -1,75 +1,376 @@
 package com.zufang.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zufang.common.util.LruCache;
 import com.zufang.service.RedisCacheService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
 
 /**
  * Redis缓存服务实现类
- * Redis功能已禁用，所有方法都是空操作
+ * 1. 值统一序列化为JSON字符串写入Redis，读取时按目标类型反序列化；
+ * 2. Redis前有一层有界的进程内近端缓存（按访问顺序淘汰，过期时间较短），存放JSON字符串，每次读取都得到新对象；
+ * 3. 同一个key的并发未命中通过single-flight合并为一次加载；
+ * 4. Redis异常时在一段时间内只使用近端缓存，到期后自动恢复访问Redis；
+ * 5. Redis不可用期间的删除会记录下来，恢复后先补删再访问Redis，避免恢复后读到删除前的旧值；
+ * 6. 加载期间key被删除时不写回加载结果，避免把删除前读到的旧数据重新放入缓存。
+ *    仅能发现本实例的删除，其他实例的删除依赖过期时间兜底
  */
 @Slf4j
 @Service
-@SuppressWarnings("unchecked")
 public class RedisCacheServiceImpl implements RedisCacheService {
 
+    /**
+     * 未指定过期时间时使用的默认过期时间（秒）
+     */
+    private static final long DEFAULT_EXPIRE_SECONDS = 60 * 60;
+
+    /**
+     * 删除计数的分段数，key按哈希落到其中一段
+     */
+    private static final int DELETE_STAMP_STRIPES = 256;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${zufang.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zufang.cache.near-max-size:5000}")
+    private int nearMaxSize;
+
+    /**
+     * 近端缓存过期时间（秒），较短以限制多实例之间的数据不一致窗口
+     */
+    @Value("${zufang.cache.near-expire-seconds:60}")
+    private long nearExpireSeconds;
+
+    /**
+     * Redis异常后暂停访问Redis的时间（毫秒）
+     */
+    @Value("${zufang.cache.redis-retry-interval:30000}")
+    private long redisRetryInterval;
+
+    private final LruCache<String, String> nearCache = new LruCache<>(() -> nearMaxSize);
+
+    /**
+     * 正在加载中的key，用于合并并发未命中
+     */
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Redis不可用期间删除的key，恢复后补删
+     */
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 分段的删除计数，加载前后不一致说明加载期间key被删除过
+     */
+    private final AtomicLongArray deleteStamps = new AtomicLongArray(DELETE_STAMP_STRIPES);
+
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong sharedLoads = new AtomicLong();
+    private final AtomicLong redisErrors = new AtomicLong();
+
+    private volatile long redisUnavailableUntil = 0;
+
     @Override
     public <T> void set(String key, T value) {
-        // Redis功能已禁用，不执行任何操作
-        log.debug("Redis功能已禁用，跳过设置缓存操作, key: {}", key);
+        set(key, value, DEFAULT_EXPIRE_SECONDS, TimeUnit.SECONDS);
     }
 
     @Override
     public <T> void set(String key, T value, long timeout, TimeUnit unit) {
-        // Redis功能已禁用，不执行任何操作
-        log.debug("Redis功能已禁用，跳过设置缓存操作, key: {}, 过期时间: {} {}", key, timeout, unit);
+        if (!enabled || key == null || value == null) {
+            return;
+        }
+        String json = serialize(key, value);
+        if (json == null) {
+            return;
+        }
+        putNear(key, json, unit.toMillis(timeout));
+        if (isRedisAvailable()) {
+            try {
+                stringRedisTemplate.opsForValue().set(key, json, timeout, unit);
+            } catch (Exception e) {
+                markRedisUnavailable(e);
+            }
+        }
     }
 
     @Override
     public <T> T get(String key, Class<T> clazz) {
-        // Redis功能已禁用，直接返回null
-        log.debug("Redis功能已禁用，跳过获取缓存操作, key: {}", key);
-        return null;
+        String json = getJson(key);
+        return json == null ? null : deserialize(key, json, objectMapper.getTypeFactory().constructType(clazz));
     }
 
     @Override
     public <T> List<T> getList(String key, Class<T> clazz) {
-        // Redis功能已禁用，直接返回空列表
-        log.debug("Redis功能已禁用，跳过获取列表缓存操作, key: {}", key);
-        return new ArrayList<>();
+        String json = getJson(key);
+        if (json == null) {
+            return new ArrayList<>();
+        }
+        List<T> list = deserialize(key, json, objectMapper.getTypeFactory().constructCollectionType(List.class, clazz));
+        return list == null ? new ArrayList<>() : list;
     }
 
     @Override
     public Boolean delete(String key) {
-        // Redis功能已禁用，直接返回true表示操作成功
-        log.debug("Redis功能已禁用，跳过删除缓存操作, key: {}", key);
-        return true;
+        if (key == null) {
+            return false;
+        }
+        deleteStamps.incrementAndGet(stripe(key));
+        // 正在进行的加载可能已读到旧数据，之后的请求重新加载
+        inFlight.remove(key);
+        return evict(key);
     }
 
     @Override
     public Boolean hasKey(String key) {
-        // Redis功能已禁用，直接返回false表示key不存在
-        log.debug("Redis功能已禁用，跳过判断key存在操作, key: {}", key);
+        if (!enabled || key == null) {
+            return false;
+        }
+        if (nearCache.containsKey(key)) {
+            return true;
+        }
+        if (isRedisAvailable()) {
+            try {
+                return Boolean.TRUE.equals(stringRedisTemplate.hasKey(key));
+            } catch (Exception e) {
+                markRedisUnavailable(e);
+            }
+        }
         return false;
     }
 
     @Override
     public Boolean expire(String key, long timeout, TimeUnit unit) {
-        // Redis功能已禁用，直接返回true表示操作成功
-        log.debug("Redis功能已禁用，跳过设置过期时间操作, key: {}, 过期时间: {} {}", key, timeout, unit);
-        return true;
+        if (!enabled || key == null) {
+            return false;
+        }
+        long expireMillis = Math.min(unit.toMillis(timeout), nearExpireSeconds * 1000);
+        boolean updated = nearCache.setExpireAt(key, System.currentTimeMillis() + expireMillis);
+        if (isRedisAvailable()) {
+            try {
+                updated = Boolean.TRUE.equals(stringRedisTemplate.expire(key, timeout, unit)) || updated;
+            } catch (Exception e) {
+                markRedisUnavailable(e);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String key, Class<T> clazz, long timeout, TimeUnit unit, Supplier<T> loader) {
+        if (!enabled || key == null) {
+            return loader.get();
+        }
+        T cached = get(key, clazz);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            // 已有线程在加载该key，等待其结果
+            sharedLoads.incrementAndGet();
+            try {
+                Object value = existing.join();
+                return value == null ? null : copyOf(key, value, clazz);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            // 获得加载权后再查一次，避免刚写入缓存的值被重复加载
+            T value = get(key, clazz);
+            if (value == null) {
+                loads.incrementAndGet();
+                long stamp = deleteStamps.get(stripe(key));
+                value = loader.get();
+                if (value != null && deleteStamps.get(stripe(key)) == stamp) {
+                    set(key, value, timeout, unit);
+                    // 检查与写入之间发生的删除，撤销刚写入的值
+                    if (deleteStamps.get(stripe(key)) != stamp) {
+                        evict(key);
+                    }
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 定期补删Redis不可用期间删除的key，不等下一次缓存访问
+     */
+    @Scheduled(fixedDelayString = "${zufang.cache.pending-delete-interval:5000}")
+    public void flushPendingDeletes() {
+        if (!pendingDeletes.isEmpty()) {
+            isRedisAvailable();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long hits = nearCache.getHits() + redisHits.get();
+        long total = hits + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("nearSize", nearCache.size());
+        stats.put("nearMaxSize", nearMaxSize);
+        stats.put("nearHits", nearCache.getHits());
+        stats.put("redisHits", redisHits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        stats.put("loads", loads.get());
+        stats.put("sharedLoads", sharedLoads.get());
+        stats.put("evictions", nearCache.getEvictions());
+        stats.put("redisErrors", redisErrors.get());
+        stats.put("redisAvailable", isRedisAvailable());
+        stats.put("pendingDeletes", pendingDeletes.size());
+        return stats;
+    }
+
+    /**
+     * 依次查询近端缓存和Redis，返回JSON字符串
+     */
+    private String getJson(String key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        String json = nearCache.get(key);
+        if (json != null) {
+            return json;
+        }
+        if (isRedisAvailable()) {
+            try {
+                json = stringRedisTemplate.opsForValue().get(key);
+                if (json != null) {
+                    redisHits.incrementAndGet();
+                    putNear(key, json, Long.MAX_VALUE);
+                    return json;
+                }
+            } catch (Exception e) {
+                markRedisUnavailable(e);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void putNear(String key, String json, long expireMillis) {
+        long expireAt = System.currentTimeMillis() + Math.min(expireMillis, nearExpireSeconds * 1000);
+        nearCache.put(key, json, expireAt);
+    }
+
+    /**
+     * 删除近端缓存和Redis中的值，Redis不可用时记录下来等恢复后补删
+     */
+    private boolean evict(String key) {
+        boolean removed = nearCache.remove(key);
+        if (isRedisAvailable()) {
+            try {
+                return Boolean.TRUE.equals(stringRedisTemplate.delete(key)) || removed;
+            } catch (Exception e) {
+                markRedisUnavailable(e);
+            }
+        }
+        pendingDeletes.add(key);
+        return removed;
+    }
+
+    private int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % DELETE_STAMP_STRIPES;
+    }
+
+    /**
+     * Redis是否可用，可用时先补删不可用期间删除的key，补删失败视为仍不可用
+     */
+    private boolean isRedisAvailable() {
+        if (System.currentTimeMillis() < redisUnavailableUntil) {
+            return false;
+        }
+        if (pendingDeletes.isEmpty()) {
+            return true;
+        }
+        synchronized (pendingDeletes) {
+            try {
+                for (String key : new ArrayList<>(pendingDeletes)) {
+                    stringRedisTemplate.delete(key);
+                    pendingDeletes.remove(key);
+                }
+                return true;
+            } catch (Exception e) {
+                markRedisUnavailable(e);
+                return false;
+            }
+        }
+    }
+
+    private void markRedisUnavailable(Exception e) {
+        redisErrors.incrementAndGet();
+        redisUnavailableUntil = System.currentTimeMillis() + redisRetryInterval;
+        log.warn("访问Redis缓存失败, {}ms内仅使用本地缓存: {}", redisRetryInterval, e.getMessage());
+    }
+
+    private String serialize(String key, Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            log.error("缓存值序列化失败, key: {}", key, e);
+            return null;
+        }
+    }
+
+    private <T> T deserialize(String key, String json, JavaType type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (Exception e) {
+            log.error("缓存值反序列化失败, key: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 等待中的线程各自拿到一份副本，避免共享同一个对象
+     */
+    private <T> T copyOf(String key, Object value, Class<T> clazz) {
+        String json = serialize(key, value);
+        return json == null ? null : deserialize(key, json, objectMapper.getTypeFactory().constructType(clazz));
     }
-} 
\ No newline at end of file
+}
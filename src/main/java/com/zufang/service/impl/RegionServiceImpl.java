@@ -1,10 +1,12 @@
 package com.zufang.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zufang.cache.RegionSnapshot;
 import com.zufang.dto.RegionDTO;
 import com.zufang.entity.RegionCity;
 import com.zufang.entity.RegionDistrict;
 import com.zufang.entity.RegionProvince;
+import com.zufang.event.RegionChangedEvent;
 import com.zufang.mapper.RegionCityMapper;
 import com.zufang.mapper.RegionDistrictMapper;
 import com.zufang.mapper.RegionProvinceMapper;
@@ -13,16 +15,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 地区服务实现类
+ * 查询优先使用RegionSnapshot内存快照，快照不可用时查询数据库；增删改在事务提交后重建快照
  */
 @Slf4j
 @Service
@@ -39,8 +41,18 @@ public class RegionServiceImpl implements RegionService {
     @Autowired
     private RegionDistrictMapper regionDistrictMapper;
     
+    @Autowired
+    private RegionSnapshot regionSnapshot;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
     public List<RegionProvince> getAllProvinces() {
+        RegionSnapshot.Snapshot snapshot = regionSnapshot.get();
+        if (snapshot != null) {
+            return snapshot.getProvinces();
+        }
         LambdaQueryWrapper<RegionProvince> wrapper = new LambdaQueryWrapper<>();
         wrapper.orderByAsc(RegionProvince::getId);
         return regionProvinceMapper.selectList(wrapper);
@@ -48,6 +60,10 @@ public class RegionServiceImpl implements RegionService {
     
     @Override
     public List<RegionCity> getCitiesByProvinceId(Long provinceId) {
+        RegionSnapshot.Snapshot snapshot = regionSnapshot.get();
+        if (snapshot != null) {
+            return snapshot.getCities(provinceId);
+        }
         LambdaQueryWrapper<RegionCity> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(RegionCity::getProvinceId, provinceId);
         wrapper.orderByAsc(RegionCity::getId);
@@ -56,11 +72,19 @@ public class RegionServiceImpl implements RegionService {
     
     @Override
     public RegionProvince getProvinceById(Long id) {
+        RegionSnapshot.Snapshot snapshot = regionSnapshot.get();
+        if (snapshot != null) {
+            return snapshot.getProvince(id);
+        }
         return regionProvinceMapper.selectById(id);
     }
     
     @Override
     public RegionCity getCityById(Long id) {
+        RegionSnapshot.Snapshot snapshot = regionSnapshot.get();
+        if (snapshot != null) {
+            return snapshot.getCity(id);
+        }
         return regionCityMapper.selectById(id);
     }
     
@@ -93,6 +117,7 @@ public class RegionServiceImpl implements RegionService {
         
         // 使用MyBatis-Plus的insert方法
         regionProvinceMapper.insert(province);
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
         return province.getId();
     }
     
@@ -137,6 +162,7 @@ public class RegionServiceImpl implements RegionService {
         city.setIsDeleted(0);
         
         regionCityMapper.insert(city);
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
         return city.getId();
     }
     
@@ -155,7 +181,9 @@ public class RegionServiceImpl implements RegionService {
         province.setUpdateTime(LocalDateTime.now());
         
         // 使用MyBatis-Plus的updateById方法
-        return regionProvinceMapper.updateById(province) > 0;
+        boolean updated = regionProvinceMapper.updateById(province) > 0;
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
+        return updated;
     }
     
     @Override
@@ -189,20 +217,25 @@ public class RegionServiceImpl implements RegionService {
         // 设置更新时间
         city.setUpdateTime(LocalDateTime.now());
         
-        return regionCityMapper.updateById(city) > 0;
+        boolean updated = regionCityMapper.updateById(city) > 0;
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
+        return updated;
     }
     
     @Override
     @Transactional
     public boolean deleteProvince(Long id) {
-        // 先删除该省份下的所有城市和区域
-        List<RegionCity> cities = getCitiesByProvinceId(id);
-        for (RegionCity city : cities) {
+        // 先删除该省份下的所有城市和区域（按数据库中的城市列表，不使用快照）
+        LambdaQueryWrapper<RegionCity> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(RegionCity::getProvinceId, id);
+        for (RegionCity city : regionCityMapper.selectList(wrapper)) {
             deleteCity(city.getId());
         }
         
         // 使用MyBatis-Plus的逻辑删除
-        return regionProvinceMapper.deleteById(id) > 0;
+        boolean deleted = regionProvinceMapper.deleteById(id) > 0;
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
+        return deleted;
     }
     
     @Override
@@ -212,58 +245,27 @@ public class RegionServiceImpl implements RegionService {
         regionDistrictMapper.logicalDeleteByCityId(id);
         
         // 删除城市
-        return regionCityMapper.logicalDelete(id) > 0;
+        boolean deleted = regionCityMapper.logicalDelete(id) > 0;
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
+        return deleted;
     }
     
     @Override
     public List<RegionDTO> getAllRegionsTree() {
-        // 获取所有省份
-        List<RegionProvince> provinces = getAllProvinces();
-        
-        // 转换为树形结构
-        return provinces.stream().map(province -> {
-            RegionDTO provinceDTO = new RegionDTO();
-            provinceDTO.setId(province.getId());
-            provinceDTO.setName(province.getName());
-            provinceDTO.setCode(province.getCode());
-            provinceDTO.setParentId(null); // 省份没有父级
-            
-            // 获取该省份下的所有城市
-            List<RegionCity> cities = getCitiesByProvinceId(province.getId());
-            
-            // 转换城市列表
-            List<RegionDTO> cityDTOs = cities.stream().map(city -> {
-                RegionDTO cityDTO = new RegionDTO();
-                cityDTO.setId(city.getId());
-                cityDTO.setName(city.getName());
-                cityDTO.setCode(city.getCode());
-                cityDTO.setParentId(province.getId());
-                
-                // 获取该城市下的所有区域
-                List<RegionDistrict> districts = getDistrictsByCityId(city.getId());
-                
-                // 转换区域列表
-                List<RegionDTO> districtDTOs = districts.stream().map(district -> {
-                    RegionDTO districtDTO = new RegionDTO();
-                    districtDTO.setId(district.getId());
-                    districtDTO.setName(district.getName());
-                    districtDTO.setCode(district.getCode());
-                    districtDTO.setParentId(city.getId());
-                    districtDTO.setChildren(new ArrayList<>()); // 区域没有子级
-                    return districtDTO;
-                }).collect(Collectors.toList());
-                
-                cityDTO.setChildren(districtDTOs);
-                return cityDTO;
-            }).collect(Collectors.toList());
-            
-            provinceDTO.setChildren(cityDTOs);
-            return provinceDTO;
-        }).collect(Collectors.toList());
+        RegionSnapshot.Snapshot snapshot = regionSnapshot.get();
+        if (snapshot == null) {
+            // 快照不可用时临时加载一份，三次查询构建整棵树
+            snapshot = regionSnapshot.load();
+        }
+        return snapshot.buildTree();
     }
     
     @Override
     public List<RegionDistrict> getDistrictsByCityId(Long cityId) {
+        RegionSnapshot.Snapshot snapshot = regionSnapshot.get();
+        if (snapshot != null) {
+            return snapshot.getDistricts(cityId);
+        }
         LambdaQueryWrapper<RegionDistrict> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(RegionDistrict::getCityId, cityId);
         wrapper.orderByAsc(RegionDistrict::getId);
@@ -272,6 +274,10 @@ public class RegionServiceImpl implements RegionService {
     
     @Override
     public RegionDistrict getDistrictById(Long id) {
+        RegionSnapshot.Snapshot snapshot = regionSnapshot.get();
+        if (snapshot != null) {
+            return snapshot.getDistrict(id);
+        }
         return regionDistrictMapper.selectById(id);
     }
     
@@ -321,6 +327,7 @@ public class RegionServiceImpl implements RegionService {
         district.setIsDeleted(0);
         
         regionDistrictMapper.insert(district);
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
         return district.getId();
     }
     
@@ -360,13 +367,17 @@ public class RegionServiceImpl implements RegionService {
         // 设置更新时间
         district.setUpdateTime(LocalDateTime.now());
         
-        return regionDistrictMapper.updateById(district) > 0;
+        boolean updated = regionDistrictMapper.updateById(district) > 0;
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
+        return updated;
     }
     
     @Override
     @Transactional
     public boolean deleteDistrict(Long id) {
         // 删除区域
-        return regionDistrictMapper.logicalDelete(id) > 0;
+        boolean deleted = regionDistrictMapper.logicalDelete(id) > 0;
+        eventPublisher.publishEvent(new RegionChangedEvent(this));
+        return deleted;
     }
 } 
\ No newline at end of file
@@ -3,17 +3,20 @@ package com.zufang.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zufang.cache.ChatParticipantCache;
 import com.zufang.common.exception.BusinessException;
 import com.zufang.common.util.JwtUtil;
 import com.zufang.dto.UserInfoDTO;
 import com.zufang.dto.UserLoginDTO;
 import com.zufang.dto.UserRegisterDTO;
 import com.zufang.entity.User;
+import com.zufang.event.UserProfileChangedEvent;
 import com.zufang.mapper.UserMapper;
 import com.zufang.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -33,6 +36,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
     @Autowired
     private UserMapper userMapper;
+    
+    @Autowired
+    private ChatParticipantCache chatParticipantCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
     public Map<String, Object> login(UserLoginDTO loginDTO) {
@@ -416,6 +425,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             
             if (result > 0) {
                 log.info("更新用户信息成功, 用户ID: {}", userInfoDTO.getId());
+                chatParticipantCache.evictUser(userInfoDTO.getId());
+                eventPublisher.publishEvent(new UserProfileChangedEvent(userInfoDTO.getId()));
                 return true;
             } else {
                 log.warn("更新用户信息失败, 用户ID: {}", userInfoDTO.getId());
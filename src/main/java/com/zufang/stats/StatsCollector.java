@@ -0,0 +1,252 @@
+package com.zufang.stats;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 仪表盘统计并发采集器
+ * 各项统计指标相互独立，在有界线程池中并发计算；整体等待时间不超过超时时间，
+ * 超时的指标取消执行，超时或失败的指标使用添加时指定的固定兜底值并在结果的partialMetrics中列出。
+ * 同一key同一时间只有一次采集，并发的请求等待该次结果；完整的结果按key缓存一小段时间，
+ * 短时间内的重复刷新直接返回快照
+ */
+@Slf4j
+@Component
+public class StatsCollector {
+
+    /**
+     * 结果中列出未能按时完成的指标名称的字段
+     */
+    public static final String PARTIAL_METRICS_KEY = "partialMetrics";
+
+    private static final int MAX_SNAPSHOTS = 1000;
+
+    /**
+     * 等待全部指标完成的最长时间（毫秒）
+     */
+    @Value("${zufang.statistics.timeout:3000}")
+    private long timeout;
+
+    /**
+     * 完整结果的快照缓存时间（毫秒），0表示不缓存
+     */
+    @Value("${zufang.statistics.snapshot-ttl:5000}")
+    private long snapshotTtl;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 正在进行的采集，key为快照key
+     */
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    public StatsCollector(@Value("${zufang.statistics.pool-size:8}") int poolSize,
+                          @Value("${zufang.statistics.queue-capacity:200}") int queueCapacity) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "stats-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 并发采集统计指标
+     * @param snapshotKey 快照缓存key，为空时不使用快照
+     * @param metrics 待采集的指标
+     * @return 指标名称 -> 指标值，按添加顺序排列
+     */
+    public Map<String, Object> collect(String snapshotKey, Metrics metrics) {
+        if (snapshotKey == null) {
+            return compute(metrics);
+        }
+        Map<String, Object> cached = getSnapshot(snapshotKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Map<String, Object>> collecting = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = inFlight.putIfAbsent(snapshotKey, collecting);
+        if (running != null) {
+            // 同一key已有采集在进行，等待其结果，等待时间不超过该次采集的超时时间
+            return new LinkedHashMap<>(running.join());
+        }
+        try {
+            cached = getSnapshot(snapshotKey);
+            if (cached != null) {
+                collecting.complete(cached);
+                return new LinkedHashMap<>(cached);
+            }
+            Map<String, Object> result = compute(metrics);
+            Map<String, Object> shared = new LinkedHashMap<>(result);
+            if (!result.containsKey(PARTIAL_METRICS_KEY) && snapshotTtl > 0) {
+                // 只缓存完整的结果，避免兜底值在快照有效期内被反复返回
+                putSnapshot(snapshotKey, shared);
+            }
+            collecting.complete(shared);
+            return result;
+        } catch (RuntimeException e) {
+            collecting.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(snapshotKey, collecting);
+        }
+    }
+
+    private Map<String, Object> compute(Metrics metrics) {
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        for (Metric metric : metrics.items) {
+            try {
+                futures.put(metric.name, executor.submit(metric.supplier::get));
+            } catch (Exception e) {
+                // 线程池已满，该指标直接使用兜底值
+                log.warn("统计线程池已满, 跳过指标: {}", metric.name);
+                futures.put(metric.name, CompletableFuture.failedFuture(e));
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + timeout;
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<String> partialMetrics = new ArrayList<>();
+        for (Metric metric : metrics.items) {
+            Future<Object> future = futures.get(metric.name);
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                result.put(metric.name, future.get(remaining, TimeUnit.MILLISECONDS));
+            } catch (TimeoutException | CancellationException e) {
+                cancelUnfinished(futures);
+                log.warn("统计指标超时, 使用兜底值: {}, 超时时间: {}ms", metric.name, timeout);
+                result.put(metric.name, metric.fallback);
+                partialMetrics.add(metric.name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                result.put(metric.name, metric.fallback);
+                partialMetrics.add(metric.name);
+            } catch (Exception e) {
+                log.error("统计指标计算失败, 使用兜底值: {}", metric.name, e.getCause() != null ? e.getCause() : e);
+                result.put(metric.name, metric.fallback);
+                partialMetrics.add(metric.name);
+            }
+        }
+
+        if (!partialMetrics.isEmpty()) {
+            result.put(PARTIAL_METRICS_KEY, partialMetrics);
+        }
+        return result;
+    }
+
+    /**
+     * 使快照失效
+     * @param snapshotKey 快照缓存key
+     */
+    public void evict(String snapshotKey) {
+        snapshots.remove(snapshotKey);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 已到超时时间，取消全部未完成的指标：排队中的不再执行，执行中的线程被中断
+     * 从后往前取消，避免先释放的线程又领取到排队中的指标
+     */
+    private void cancelUnfinished(Map<String, Future<Object>> futures) {
+        List<Future<Object>> pending = new ArrayList<>(futures.values());
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            pending.get(i).cancel(true);
+        }
+    }
+
+    private Map<String, Object> getSnapshot(String snapshotKey) {
+        if (snapshotTtl <= 0) {
+            return null;
+        }
+        Snapshot snapshot = snapshots.get(snapshotKey);
+        if (snapshot != null && snapshot.expireAt > System.currentTimeMillis()) {
+            return new LinkedHashMap<>(snapshot.values);
+        }
+        return null;
+    }
+
+    private void putSnapshot(String snapshotKey, Map<String, Object> values) {
+        long now = System.currentTimeMillis();
+        if (snapshots.size() >= MAX_SNAPSHOTS) {
+            Iterator<Snapshot> iterator = snapshots.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expireAt <= now) {
+                    iterator.remove();
+                }
+            }
+            if (snapshots.size() >= MAX_SNAPSHOTS) {
+                return;
+            }
+        }
+        snapshots.put(snapshotKey, new Snapshot(values, now + snapshotTtl));
+    }
+
+    /**
+     * 待采集的指标集合
+     */
+    public static class Metrics {
+        private final List<Metric> items = new ArrayList<>();
+
+        /**
+         * 添加指标
+         * @param name 指标名称
+         * @param supplier 计算函数
+         * @param fallback 超时或失败时返回的固定兜底值
+         */
+        public Metrics add(String name, Supplier<?> supplier, Object fallback) {
+            items.add(new Metric(name, supplier, fallback));
+            return this;
+        }
+    }
+
+    private static class Metric {
+        private final String name;
+        private final Supplier<Object> supplier;
+        private final Object fallback;
+
+        @SuppressWarnings("unchecked")
+        Metric(String name, Supplier<?> supplier, Object fallback) {
+            this.name = name;
+            this.supplier = (Supplier<Object>) supplier;
+            this.fallback = fallback;
+        }
+    }
+
+    private static class Snapshot {
+        private final Map<String, Object> values;
+        private final long expireAt;
+
+        Snapshot(Map<String, Object> values, long expireAt) {
+            this.values = values;
+            this.expireAt = expireAt;
+        }
+    }
+}
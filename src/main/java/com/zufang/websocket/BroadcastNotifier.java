@@ -0,0 +1,70 @@
+package com.zufang.websocket;
+
+import com.zufang.event.MessageBroadcastEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局系统消息推送
+ * 广播事务提交后向/topic/system-messages推送一次，所有在线会话都会收到；
+ * 客户端收到后在本地把未读数加一，不需要轮询未读数接口
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BroadcastNotifier {
+
+    /**
+     * 全局系统消息的订阅地址
+     */
+    public static final String SYSTEM_MESSAGE_TOPIC = "/topic/system-messages";
+
+    private final WebSocketService webSocketService;
+
+    private final OnlineUserRegistry onlineUserRegistry;
+
+    private final AtomicLong broadcasts = new AtomicLong();
+
+    /**
+     * 最近一次广播推送时的会话数，即送达范围
+     */
+    private final AtomicLong lastDeliveredSessions = new AtomicLong();
+
+    private final AtomicLong totalDeliveredSessions = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageBroadcast(MessageBroadcastEvent event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("messageId", event.getMessageId());
+        data.put("unreadDelta", 1);
+        
+        WebSocketMessage message = WebSocketMessage.createSystemBroadcast(
+                event.getMessageId(), event.getTitle(), event.getContent(), data);
+        webSocketService.sendMessageToAll(SYSTEM_MESSAGE_TOPIC, message);
+        
+        int sessions = onlineUserRegistry.getSessionCount();
+        broadcasts.incrementAndGet();
+        lastDeliveredSessions.set(sessions);
+        totalDeliveredSessions.addAndGet(sessions);
+        log.info("推送全局系统消息: messageId={}, 在线会话数={}, 在线用户数={}",
+                event.getMessageId(), sessions, onlineUserRegistry.getOnlineUserCount());
+    }
+
+    /**
+     * 获取广播推送统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("broadcasts", broadcasts.get());
+        stats.put("lastDeliveredSessions", lastDeliveredSessions.get());
+        stats.put("totalDeliveredSessions", totalDeliveredSessions.get());
+        return stats;
+    }
+}
@@ -0,0 +1,149 @@
+package com.zufang.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多实例WebSocket消息转发
+ * 代理模式为redis时，出站消息先发布到Redis频道，每个实例订阅该频道并投递给本实例上的会话，
+ * 用户连接在任意实例都能收到；发布失败时退回到只在本实例投递。其他模式下不做任何事
+ */
+@Slf4j
+@Component
+public class ClusterMessageRelay implements MessageListener {
+
+    public static final String MODE_REDIS = "redis";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${zufang.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${zufang.websocket.broker.redis-channel:zufang:websocket:outbound}")
+    private String channel;
+
+    private RedisMessageListenerContainer container;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong publishFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(this, new ChannelTopic(channel));
+        container.afterPropertiesSet();
+        container.start();
+        log.info("WebSocket消息通过Redis频道在实例间转发: {}", channel);
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    /**
+     * 是否启用Redis转发
+     */
+    public boolean isEnabled() {
+        return MODE_REDIS.equalsIgnoreCase(brokerMode);
+    }
+
+    /**
+     * 发布发给指定用户的消息
+     * @return 是否已发布；返回false时调用方应在本实例直接投递
+     */
+    public boolean publishToUser(String user, String destination, Object payload) {
+        return publish(user, destination, payload);
+    }
+
+    /**
+     * 发布广播消息
+     * @return 是否已发布；返回false时调用方应在本实例直接投递
+     */
+    public boolean publishToAll(String destination, Object payload) {
+        return publish(null, destination, payload);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            JsonNode envelope = objectMapper.readTree(new String(message.getBody(), StandardCharsets.UTF_8));
+            String destination = envelope.path("destination").asText();
+            JsonNode payload = envelope.path("payload");
+            received.incrementAndGet();
+            if (envelope.hasNonNull("user")) {
+                messagingTemplate.convertAndSendToUser(envelope.get("user").asText(), destination, payload);
+            } else {
+                messagingTemplate.convertAndSend(destination, payload);
+            }
+        } catch (Exception e) {
+            log.error("投递Redis转发的WebSocket消息失败", e);
+        }
+    }
+
+    /**
+     * 获取转发统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", brokerMode);
+        stats.put("published", published.get());
+        stats.put("received", received.get());
+        stats.put("publishFailures", publishFailures.get());
+        return stats;
+    }
+
+    private boolean publish(String user, String destination, Object payload) {
+        if (!isEnabled()) {
+            return false;
+        }
+        try {
+            Map<String, Object> envelope = new LinkedHashMap<>();
+            envelope.put("user", user);
+            envelope.put("destination", destination);
+            envelope.put("payload", payload);
+            stringRedisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(envelope));
+            published.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            publishFailures.incrementAndGet();
+            log.warn("发布WebSocket消息到Redis失败, 仅在本实例投递: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.zufang.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在线用户登记
+ * 记录本实例当前的WebSocket会话及其用户，用于统计广播的送达范围和判断用户是否在线；
+ * 未认证的连接只计入会话数
+ */
+@Slf4j
+@Component
+public class OnlineUserRegistry {
+
+    /**
+     * 会话ID -> 用户ID，匿名会话的用户ID为null
+     */
+    private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> 会话数
+     */
+    private final Map<Long, Integer> userSessionCounts = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (sessionId == null) {
+            return;
+        }
+        Long userId = userIdOf(event.getUser());
+        if (userId == null) {
+            sessions.put(sessionId, 0L);
+        } else {
+            sessions.put(sessionId, userId);
+            userSessionCounts.merge(userId, 1, Integer::sum);
+        }
+        log.debug("WebSocket会话连接: sessionId={}, userId={}", sessionId, userId);
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        Long userId = sessions.remove(event.getSessionId());
+        if (userId != null && userId != 0L) {
+            userSessionCounts.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+        log.debug("WebSocket会话断开: sessionId={}, userId={}", event.getSessionId(), userId);
+    }
+
+    /**
+     * 用户是否有在线会话
+     * @param userId 用户ID
+     */
+    public boolean isOnline(Long userId) {
+        return userId != null && userSessionCounts.containsKey(userId);
+    }
+
+    /**
+     * 当前会话数（包括匿名会话）
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 当前在线的认证用户数
+     */
+    public int getOnlineUserCount() {
+        return userSessionCounts.size();
+    }
+
+    /**
+     * 获取在线统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", getSessionCount());
+        stats.put("onlineUsers", getOnlineUserCount());
+        return stats;
+    }
+
+    private Long userIdOf(Principal principal) {
+        if (principal instanceof StompPrincipal) {
+            return ((StompPrincipal) principal).getUserId();
+        }
+        return null;
+    }
+}
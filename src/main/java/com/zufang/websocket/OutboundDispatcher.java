@@ -0,0 +1,178 @@
+package com.zufang.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket出站消息异步分发器
+ * 1. 调用方线程只负责入队，发送在专用线程池中进行，慢客户端不会阻塞请求线程；
+ * 2. 每个接收者一个有界队列，按入队顺序发送，队列满时丢弃最早的消息；
+ * 3. 带合并key的通知在队列中尚未发送时被同key的新通知替换，突发的重复通知只发送最新的一条
+ */
+@Slf4j
+@Component
+public class OutboundDispatcher {
+
+    @Value("${zufang.websocket.outbound.threads:2}")
+    private int threads;
+
+    /**
+     * 每个接收者待发送消息的上限
+     */
+    @Value("${zufang.websocket.outbound.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ExecutorService executor;
+
+    private final Map<String, RecipientQueue> queues = new ConcurrentHashMap<>();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ws-outbound-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 提交出站消息
+     * @param recipient 接收者标识，同一接收者的消息按顺序发送
+     * @param coalesceKey 合并key，为空表示不合并
+     * @param send 实际发送动作
+     */
+    public void dispatch(String recipient, String coalesceKey, Runnable send) {
+        RecipientQueue queue;
+        boolean schedule;
+        while (true) {
+            queue = queues.computeIfAbsent(recipient, RecipientQueue::new);
+            synchronized (queue) {
+                // 队列在发送完毕后已被移出，重新获取该接收者的队列
+                if (queue.removed) {
+                    continue;
+                }
+                if (coalesceKey != null) {
+                    for (OutboundTask task : queue.tasks) {
+                        if (coalesceKey.equals(task.coalesceKey)) {
+                            task.send = send;
+                            coalesced.incrementAndGet();
+                            return;
+                        }
+                    }
+                }
+                if (queue.tasks.size() >= queueCapacity) {
+                    queue.tasks.pollFirst();
+                    dropped.incrementAndGet();
+                    log.warn("WebSocket待发送消息过多, 丢弃最早的一条: recipient={}", recipient);
+                }
+                queue.tasks.addLast(new OutboundTask(coalesceKey, send));
+                enqueued.incrementAndGet();
+                schedule = !queue.scheduled;
+                queue.scheduled = true;
+                break;
+            }
+        }
+        if (schedule) {
+            RecipientQueue scheduled = queue;
+            executor.execute(() -> drain(scheduled));
+        }
+    }
+
+    /**
+     * 统计因发送缓冲区或发送时间超限而被断开的慢客户端
+     */
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(event.getCloseStatus())) {
+            slowConsumerDisconnects.incrementAndGet();
+            log.warn("WebSocket慢客户端被断开: sessionId={}", event.getSessionId());
+        }
+    }
+
+    /**
+     * 获取分发统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recipients", queues.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("sent", sent.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("dropped", dropped.get());
+        stats.put("failures", failures.get());
+        stats.put("slowConsumerDisconnects", slowConsumerDisconnects.get());
+        return stats;
+    }
+
+    private void drain(RecipientQueue queue) {
+        while (true) {
+            OutboundTask task;
+            synchronized (queue) {
+                task = queue.tasks.pollFirst();
+                if (task == null) {
+                    // 发送完毕后移出空队列，避免接收者越来越多时队列一直占用内存
+                    queue.scheduled = false;
+                    queue.removed = queues.remove(queue.recipient, queue);
+                    return;
+                }
+            }
+            try {
+                task.send.run();
+                sent.incrementAndGet();
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                log.error("发送WebSocket消息失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private static class RecipientQueue {
+        private final String recipient;
+        private final Deque<OutboundTask> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean removed;
+
+        RecipientQueue(String recipient) {
+            this.recipient = recipient;
+        }
+    }
+
+    private static class OutboundTask {
+        private final String coalesceKey;
+        private Runnable send;
+
+        OutboundTask(String coalesceKey, Runnable send) {
+            this.coalesceKey = coalesceKey;
+            this.send = send;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.zufang.websocket;
+
+import com.zufang.security.JwtPrincipal;
+import com.zufang.security.TokenAuthenticator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * STOMP连接认证拦截器
+ * CONNECT帧携带token头时验证并把用户ID设为会话身份；未携带或无效的token按匿名连接处理，与原有行为一致
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private static final String TOKEN_HEADER = "token";
+
+    private final TokenAuthenticator tokenAuthenticator;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String token = accessor.getFirstNativeHeader(TOKEN_HEADER);
+        if (token == null || token.isEmpty()) {
+            return message;
+        }
+        try {
+            JwtPrincipal principal = tokenAuthenticator.authenticate(token);
+            accessor.setUser(new StompPrincipal(principal.getUserId()));
+        } catch (Exception e) {
+            log.warn("WebSocket连接token无效, 按匿名连接处理: {}", e.getMessage());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,24 @@
+package com.zufang.websocket;
+
+import java.security.Principal;
+
+/**
+ * WebSocket会话的用户身份，名称为用户ID，供/user目的地解析使用
+ */
+public class StompPrincipal implements Principal {
+
+    private final Long userId;
+
+    public StompPrincipal(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getName() {
+        return userId.toString();
+    }
+}
@@ -91,4 +91,24 @@ public class WebSocketMessage {
                 .data(data)
                 .build();
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 创建一个全局系统消息通知
+     * 
+     * @param messageId 消息ID
+     * @param title 消息标题
+     * @param content 消息内容
+     * @param data 附加数据
+     * @return 系统消息通知对象
+     */
+    public static WebSocketMessage createSystemBroadcast(Long messageId, String title, String content, Object data) {
+        return WebSocketMessage.builder()
+                .type("SYSTEM_BROADCAST")
+                .title(title)
+                .content(content)
+                .timestamp(LocalDateTime.now())
+                .referenceId(messageId)
+                .data(data)
+                .build();
+    }
+} 
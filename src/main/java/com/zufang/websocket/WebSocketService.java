@@ -7,13 +7,23 @@ import org.springframework.stereotype.Service;
 
 /**
  * WebSocket消息服务
+ * 消息交给OutboundDispatcher异步发送，调用方线程不等待客户端
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WebSocketService {
 
+    /**
+     * 广播消息在分发器中的接收者标识
+     */
+    private static final String BROADCAST_RECIPIENT = "*";
+
     private final SimpMessagingTemplate messagingTemplate;
+    
+    private final ClusterMessageRelay clusterMessageRelay;
+    
+    private final OutboundDispatcher outboundDispatcher;
 
     /**
      * 发送消息给指定用户
@@ -23,12 +33,9 @@ public class WebSocketService {
      * @param payload 消息内容
      */
     public void sendMessageToUser(Long userId, String destination, Object payload) {
-        try {
-            log.info("发送WebSocket消息给用户: {}, 目的地: {}, 内容: {}", userId, destination, payload);
-            messagingTemplate.convertAndSendToUser(userId.toString(), destination, payload);
-        } catch (Exception e) {
-            log.error("发送WebSocket消息给用户失败: " + e.getMessage(), e);
-        }
+        log.debug("发送WebSocket消息给用户: {}, 目的地: {}", userId, destination);
+        outboundDispatcher.dispatch(userId.toString(), null,
+                () -> deliverToUser(userId.toString(), destination, payload));
     }
 
     /**
@@ -38,27 +45,27 @@ public class WebSocketService {
      * @param payload     消息内容
      */
     public void sendMessageToAll(String destination, Object payload) {
-        try {
-            log.info("发送WebSocket广播消息, 目的地: {}, 内容: {}", destination, payload);
-            messagingTemplate.convertAndSend(destination, payload);
-        } catch (Exception e) {
-            log.error("发送WebSocket广播消息失败: " + e.getMessage(), e);
-        }
+        log.debug("发送WebSocket广播消息, 目的地: {}", destination);
+        outboundDispatcher.dispatch(BROADCAST_RECIPIENT, null, () -> {
+            if (!clusterMessageRelay.publishToAll(destination, payload)) {
+                messagingTemplate.convertAndSend(destination, payload);
+            }
+        });
     }
     
     /**
      * 发送消息给指定用户
+     * 同一用户尚未发出的同类型、同关联ID通知只保留最新的一条
      *
      * @param userId  用户ID
      * @param message 消息对象
      */
     public void sendMessage(String userId, WebSocketMessage message) {
-        try {
-            log.info("发送WebSocket消息给用户: {}, 类型: {}, 内容: {}", userId, message.getType(), message.getContent());
-            messagingTemplate.convertAndSendToUser(userId, "/queue/messages", message);
-        } catch (Exception e) {
-            log.error("发送WebSocket消息给用户失败: " + e.getMessage(), e);
-        }
+        log.debug("发送WebSocket消息给用户: {}, 类型: {}, 关联ID: {}", userId, message.getType(), message.getReferenceId());
+        String coalesceKey = message.getReferenceId() == null ? null
+                : "/queue/messages:" + message.getType() + ":" + message.getReferenceId();
+        outboundDispatcher.dispatch(userId, coalesceKey,
+                () -> deliverToUser(userId, "/queue/messages", message));
     }
     
     /**
@@ -71,12 +78,18 @@ public class WebSocketService {
      * @param data       附加数据
      */
     public void sendChatMessage(Long senderId, Long receiverId, Long houseId, String content, Object data) {
-        try {
-            WebSocketMessage message = WebSocketMessage.createChatMessage(senderId, receiverId, houseId, content, data);
-            log.info("发送聊天消息: 发送者:{}, 接收者:{}, 房源:{}, 内容:{}", senderId, receiverId, houseId, content);
-            messagingTemplate.convertAndSendToUser(receiverId.toString(), "/queue/chat", message);
-        } catch (Exception e) {
-            log.error("发送聊天消息失败: " + e.getMessage(), e);
+        WebSocketMessage message = WebSocketMessage.createChatMessage(senderId, receiverId, houseId, content, data);
+        log.debug("发送聊天消息: 发送者:{}, 接收者:{}, 房源:{}", senderId, receiverId, houseId);
+        outboundDispatcher.dispatch(receiverId.toString(), null,
+                () -> deliverToUser(receiverId.toString(), "/queue/chat", message));
+    }
+    
+    /**
+     * 投递给指定用户：多实例转发启用时经由Redis，由用户所在的实例投递
+     */
+    private void deliverToUser(String user, String destination, Object payload) {
+        if (!clusterMessageRelay.publishToUser(user, destination, payload)) {
+            messagingTemplate.convertAndSendToUser(user, destination, payload);
         }
     }
-} 
\ No newline at end of file
+}
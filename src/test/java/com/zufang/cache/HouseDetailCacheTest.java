@@ -0,0 +1,62 @@
+package com.zufang.cache;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.zufang.common.constants.RedisConstants;
+import com.zufang.entity.House;
+import com.zufang.event.UserProfileChangedEvent;
+import com.zufang.mapper.HouseMapper;
+import com.zufang.service.RedisCacheService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 房源详情缓存：房东资料变更后失效其全部房源的详情缓存
+ */
+class HouseDetailCacheTest {
+
+    private final RedisCacheService redisCacheService = mock(RedisCacheService.class);
+    private final HouseMapper houseMapper = mock(HouseMapper.class);
+
+    private HouseDetailCache houseDetailCache;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 按房东查询房源使用Lambda条件构造器，需要实体的表结构信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), House.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        houseDetailCache = new HouseDetailCache();
+        ReflectionTestUtils.setField(houseDetailCache, "redisCacheService", redisCacheService);
+        ReflectionTestUtils.setField(houseDetailCache, "houseMapper", houseMapper);
+        ReflectionTestUtils.setField(houseDetailCache, "enabled", true);
+    }
+
+    @Test
+    void ownerProfileChangeEvictsOwnerHouses() {
+        when(houseMapper.selectList(any())).thenReturn(Arrays.asList(house(11L), house(12L)));
+
+        houseDetailCache.onUserProfileChanged(new UserProfileChangedEvent(7L));
+
+        verify(redisCacheService).delete(RedisConstants.HOUSE_DETAIL_PREFIX + 11L);
+        verify(redisCacheService).delete(RedisConstants.HOUSE_DETAIL_PREFIX + 12L);
+    }
+
+    private House house(Long id) {
+        House house = new House();
+        house.setId(id);
+        return house;
+    }
+}
@@ -0,0 +1,111 @@
+package com.zufang.cache;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zufang.entity.RegionCity;
+import com.zufang.entity.RegionDistrict;
+import com.zufang.entity.RegionProvince;
+import com.zufang.event.RegionChangedEvent;
+import com.zufang.mapper.RegionCityMapper;
+import com.zufang.mapper.RegionDistrictMapper;
+import com.zufang.mapper.RegionProvinceMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 省市区快照：加载过程中提交的地区变更不会因为事件早于加载开始而被跳过
+ */
+class RegionSnapshotTest {
+
+    private final List<RegionProvince> provinces = new CopyOnWriteArrayList<>();
+
+    /**
+     * 非空时下一次查询省份先等待该信号，模拟加载读库期间有变更提交
+     */
+    private volatile CountDownLatch loadGate;
+    private final CountDownLatch loading = new CountDownLatch(1);
+
+    private RegionSnapshot regionSnapshot;
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, RegionProvince.class);
+        TableInfoHelper.initTableInfo(assistant, RegionCity.class);
+        TableInfoHelper.initTableInfo(assistant, RegionDistrict.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        provinces.add(province(1L, "北京"));
+
+        RegionProvinceMapper regionProvinceMapper = mock(RegionProvinceMapper.class);
+        when(regionProvinceMapper.selectList(any())).thenAnswer(invocation -> {
+            List<RegionProvince> read = new ArrayList<>(provinces);
+            CountDownLatch gate = loadGate;
+            if (gate != null) {
+                loadGate = null;
+                loading.countDown();
+                gate.await(5, TimeUnit.SECONDS);
+            }
+            return read;
+        });
+        RegionCityMapper regionCityMapper = mock(RegionCityMapper.class);
+        when(regionCityMapper.selectList(any())).thenReturn(Collections.emptyList());
+        RegionDistrictMapper regionDistrictMapper = mock(RegionDistrictMapper.class);
+        when(regionDistrictMapper.selectList(any())).thenReturn(Collections.emptyList());
+
+        regionSnapshot = new RegionSnapshot();
+        ReflectionTestUtils.setField(regionSnapshot, "regionProvinceMapper", regionProvinceMapper);
+        ReflectionTestUtils.setField(regionSnapshot, "regionCityMapper", regionCityMapper);
+        ReflectionTestUtils.setField(regionSnapshot, "regionDistrictMapper", regionDistrictMapper);
+        ReflectionTestUtils.setField(regionSnapshot, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(regionSnapshot, "enabled", true);
+        regionSnapshot.reload();
+    }
+
+    @Test
+    void changeCommittedDuringReloadIsLoaded() throws Exception {
+        // 事件在事务内发布，早于提交，也早于本次加载开始
+        RegionChangedEvent event = new RegionChangedEvent(this);
+        Thread.sleep(5);
+        CountDownLatch gate = new CountDownLatch(1);
+        loadGate = gate;
+        CompletableFuture<Void> inFlight = CompletableFuture.runAsync(regionSnapshot::reload);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 加载已读到旧数据，此时事务提交，提交后的监听器收到事件
+        provinces.add(province(2L, "上海"));
+        CompletableFuture<Void> listener = CompletableFuture.runAsync(() -> regionSnapshot.onRegionChanged(event));
+        gate.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+        listener.get(5, TimeUnit.SECONDS);
+
+        assertThat(regionSnapshot.get().getProvinceByName("上海")).isNotNull();
+    }
+
+    private RegionProvince province(Long id, String name) {
+        RegionProvince province = new RegionProvince();
+        province.setId(id);
+        province.setName(name);
+        province.setCode("P" + id);
+        return province;
+    }
+}
@@ -0,0 +1,145 @@
+package com.zufang.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zufang.entity.ChatMessage;
+import com.zufang.mapper.ChatMessageMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 聊天消息写入：异常消息转存死信文件，不影响同批其他消息；数据库不可用时整批保留到下次重放
+ */
+class ChatMessageWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ChatMessageMapper chatMessageMapper = mock(ChatMessageMapper.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<Long> inserted = new CopyOnWriteArrayList<>();
+
+    /**
+     * 插入包含该ID的消息时抛出的异常，为null时正常写入
+     */
+    private volatile Long poisonId;
+    private volatile RuntimeException insertError;
+
+    private Path spillFile;
+    private ChatMessageWriter chatMessageWriter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        spillFile = tempDir.resolve("spill.jsonl");
+        when(chatMessageMapper.selectStoredByIds(anyList())).thenReturn(Collections.emptyList());
+        when(chatMessageMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<ChatMessage> messages = invocation.getArgument(0);
+            for (ChatMessage message : messages) {
+                if (insertError != null && (poisonId == null || poisonId.equals(message.getId()))) {
+                    throw insertError;
+                }
+            }
+            messages.forEach(message -> inserted.add(message.getId()));
+            return messages.size();
+        });
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        chatMessageWriter = new ChatMessageWriter();
+        ReflectionTestUtils.setField(chatMessageWriter, "chatMessageMapper", chatMessageMapper);
+        ReflectionTestUtils.setField(chatMessageWriter, "chatSessionSummary", mock(ChatSessionSummary.class));
+        ReflectionTestUtils.setField(chatMessageWriter, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(chatMessageWriter, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(chatMessageWriter, "batchSize", 10);
+        ReflectionTestUtils.setField(chatMessageWriter, "spillFile", spillFile.toString());
+    }
+
+    @Test
+    void poisonMessageIsDeadLetteredAndRestOfBatchIsWritten() throws IOException {
+        writeSpill(1L, 2L, 3L, 4L, 5L);
+        poisonId = 3L;
+        insertError = new DataIntegrityViolationException("Data too long for column 'content'");
+
+        replay();
+
+        assertThat(inserted).containsExactly(1L, 2L, 4L, 5L);
+        assertThat(ids(Path.of(spillFile + ".dead"))).containsExactly(3L);
+        assertThat(spillFile).doesNotExist();
+
+        replay();
+        assertThat(inserted).containsExactly(1L, 2L, 4L, 5L);
+    }
+
+    @Test
+    void unavailableDatabaseKeepsMessagesForNextReplay() throws IOException {
+        writeSpill(1L, 2L, 3L);
+        insertError = new CannotGetJdbcConnectionException("Connection refused");
+
+        replay();
+
+        assertThat(inserted).isEmpty();
+        assertThat(ids(spillFile)).containsExactly(1L, 2L, 3L);
+        assertThat(Path.of(spillFile + ".dead")).doesNotExist();
+
+        insertError = null;
+        replay();
+
+        assertThat(inserted).containsExactly(1L, 2L, 3L);
+        assertThat(spillFile).doesNotExist();
+    }
+
+    private void replay() {
+        ReflectionTestUtils.invokeMethod(chatMessageWriter, "replaySpill");
+    }
+
+    private void writeSpill(Long... ids) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Long id : ids) {
+            ChatMessage message = new ChatMessage();
+            message.setId(id);
+            message.setSenderId(1L);
+            message.setReceiverId(2L);
+            message.setHouseId(3L);
+            message.setContent("消息" + id);
+            message.setIsRead(false);
+            message.setCreateTime(LocalDateTime.of(2025, 6, 18, 10, 0));
+            lines.add(objectMapper.writeValueAsString(message));
+        }
+        Files.write(spillFile, lines, StandardCharsets.UTF_8);
+    }
+
+    private List<Long> ids(Path path) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            ids.add(objectMapper.readValue(line, ChatMessage.class).getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,102 @@
+package com.zufang.chat;
+
+import com.zufang.common.util.SummaryState;
+import com.zufang.entity.ChatMessage;
+import com.zufang.mapper.ChatSessionMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 会话汇总：事务中更新失败随消息一起回滚，事务外更新失败时持久化重建标记，启动时带标记的汇总先重建再启用
+ */
+class ChatSessionSummaryTest {
+
+    private final ChatSessionMapper chatSessionMapper = mock(ChatSessionMapper.class);
+    private final SummaryState summaryState = mock(SummaryState.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private ChatSessionSummary chatSessionSummary;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+
+        chatSessionSummary = new ChatSessionSummary();
+        ReflectionTestUtils.setField(chatSessionSummary, "chatSessionMapper", chatSessionMapper);
+        ReflectionTestUtils.setField(chatSessionSummary, "summaryState", summaryState);
+        ReflectionTestUtils.setField(chatSessionSummary, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(chatSessionSummary, "enabled", true);
+    }
+
+    @Test
+    void startupRebuildsMarkedSummaryEvenWhenNotEmpty() {
+        when(chatSessionMapper.selectCount(null)).thenReturn(10L);
+        when(summaryState.needsRebuild(SummaryState.CHAT_SESSION)).thenReturn(true);
+        when(summaryState.beginRebuild(SummaryState.CHAT_SESSION)).thenReturn(3L);
+
+        chatSessionSummary.onApplicationReady();
+
+        verify(chatSessionMapper).deleteAll();
+        verify(chatSessionMapper).rebuildFromMessages();
+        verify(summaryState).finishRebuild(SummaryState.CHAT_SESSION, 3L);
+        assertThat(chatSessionSummary.isReady()).isTrue();
+    }
+
+    @Test
+    void failedApplyInTransactionRollsBackWithMessages() {
+        ReflectionTestUtils.setField(chatSessionSummary, "ready", true);
+        when(chatSessionMapper.upsertMessage(anyLong(), anyLong(), anyLong(), anyLong(), anyString(), any(), anyInt()))
+                .thenThrow(new IllegalStateException("db down"));
+        ChatMessage message = new ChatMessage();
+        message.setId(1L);
+        message.setSenderId(1L);
+        message.setReceiverId(2L);
+        message.setHouseId(3L);
+        message.setContent("你好");
+        message.setCreateTime(LocalDateTime.now());
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThatThrownBy(() -> chatSessionSummary.apply(Collections.singletonList(message)))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        verify(summaryState, never()).markDirty(any());
+        assertThat(chatSessionSummary.isReady()).isTrue();
+    }
+
+    @Test
+    void failedClearUnreadOutsideTransactionMarksSummaryForRebuild() {
+        ReflectionTestUtils.setField(chatSessionSummary, "ready", true);
+        doThrow(new IllegalStateException("db down")).when(chatSessionMapper).clearAllUnread(eq(2L));
+
+        chatSessionSummary.clearAllUnread(2L);
+
+        verify(summaryState).markDirty(SummaryState.CHAT_SESSION);
+        assertThat(chatSessionSummary.isReady()).isFalse();
+    }
+}
@@ -0,0 +1,107 @@
+package com.zufang.common.util;
+
+import com.zufang.mapper.IdSequenceMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 编号生成器：多线程并发生成的编号全局唯一，每个线程内严格递增，编号字符串顺序与生成顺序一致，未配置机器号的实例依次领取不同机器号
+ */
+class IdGeneratorTest {
+
+    private static final int THREADS = 16;
+
+    private static final int IDS_PER_THREAD = 100_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasePerThread() throws Exception {
+        IdGenerator idGenerator = new IdGenerator(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Callable<long[]> task = () -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids[i] = idGenerator.nextId();
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                results.add(future.get());
+            }
+
+            Set<Long> unique = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+            for (long[] ids : results) {
+                for (int i = 0; i < ids.length; i++) {
+                    if (i > 0) {
+                        assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                    }
+                    unique.add(ids[i]);
+                }
+            }
+            assertThat(unique).hasSize(THREADS * IDS_PER_THREAD);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void numbersSortLikeIds() {
+        IdGenerator idGenerator = new IdGenerator(1);
+        String previous = idGenerator.nextNo("ORD");
+        for (int i = 0; i < 10_000; i++) {
+            String next = idGenerator.nextNo("ORD");
+            assertThat(next).hasSize(previous.length()).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void unconfiguredInstancesLeaseDistinctWorkerIds() {
+        IdSequenceMapper idSequenceMapper = mock(IdSequenceMapper.class);
+        when(idSequenceMapper.selectLastInsertId()).thenReturn(1L, 2L, 1025L);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+        long first = workerId(new IdGenerator(-1, idSequenceMapper, transactionManager));
+        long second = workerId(new IdGenerator(-1, idSequenceMapper, transactionManager));
+        long wrapped = workerId(new IdGenerator(-1, idSequenceMapper, transactionManager));
+
+        assertThat(first).isEqualTo(0);
+        assertThat(second).isEqualTo(1);
+        assertThat(wrapped).isEqualTo(0);
+        assertThat(workerId(new IdGenerator(7, idSequenceMapper, transactionManager))).isEqualTo(7);
+        verify(idSequenceMapper, times(3)).increment("id_worker");
+        assertThatThrownBy(() -> new IdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 编号中第12位到第21位为机器号
+     */
+    private long workerId(IdGenerator idGenerator) {
+        return (idGenerator.nextId() >>> 12) & 1023;
+    }
+}
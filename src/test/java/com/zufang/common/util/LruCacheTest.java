@@ -0,0 +1,45 @@
+package com.zufang.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 有界LRU缓存：超过最大条目数时淘汰最久未访问的条目，过期条目计为未命中
+ */
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyAccessedEntry() {
+        LruCache<String, Integer> cache = new LruCache<>(() -> 2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertThat(cache.get("a")).isEqualTo(1);
+
+        cache.put("c", 3);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("c")).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(3);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredEntryIsRemovedAndCountedAsMiss() {
+        LruCache<String, Integer> cache = new LruCache<>(() -> 10);
+        long now = System.currentTimeMillis();
+        cache.put("expired", 1, now - 1);
+        cache.put("live", 2, now + 60_000);
+
+        assertThat(cache.containsKey("expired")).isFalse();
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.setExpireAt("live", now - 1)).isTrue();
+        assertThat(cache.get("live")).isNull();
+        assertThat(cache.getHits()).isZero();
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,146 @@
+package com.zufang.contract;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 预编译模板与原先逐项替换的输出一致：覆盖初始化脚本中的合同模板、“_____年/月/日”以及紧邻变量的签字行
+ */
+class CompiledContractTemplateTest {
+
+    private static final String TEMPLATE_INSERT = "INSERT INTO `contract_template` VALUES (";
+
+    @Test
+    void seededTemplatesRenderLikeReplaceChain() throws IOException {
+        List<String> templates = seededTemplates();
+        assertThat(templates).isNotEmpty();
+
+        Map<String, String> params = params();
+        for (int i = 0; i < templates.size(); i++) {
+            String content = templates.get(i);
+            String rendered = CompiledContractTemplate.compile((long) i + 1, 1, content).render(params);
+
+            assertThat(rendered).isEqualTo(replaceChain(content, params));
+            assertThat(rendered).doesNotContain("${").doesNotContain("{{");
+        }
+        assertThat(CompiledContractTemplate.compile(1L, 1, templates.get(0)).render(params))
+                .contains("2025年6月18日")
+                .contains("甲方（签字）：张三")
+                .contains("乙方（签字）：李四");
+    }
+
+    @Test
+    void datesAndSignaturesNextToPlaceholdersRenderLikeReplaceChain() {
+        String content = "<p>签订日期：_______年____月__日，编号${contractNo}_____年</p>\r\n"
+                + "<p>${landlordName}甲方（签字）：____________${landlordPhone}</p>\r\n"
+                + "<p>{{tenantName}}乙方 （签字） ：  ___{{tenantPhone}}乙方（签字）：_</p>\r\n"
+                + "<p>${startDate}至${endDate}，未知变量${unknown}{{missing}}，___日___月</p>";
+        Map<String, String> params = params();
+
+        String rendered = CompiledContractTemplate.compile(9L, 1, content).render(params);
+
+        assertThat(rendered).isEqualTo(replaceChain(content, params));
+        assertThat(rendered).isEqualTo("<p>签订日期：2025年6月18日，编号HT202506180012025年</p>\r\n"
+                + "<p>张三甲方（签字）：张三13800000001</p>\r\n"
+                + "<p>李四乙方（签字）：李四13900000002乙方（签字）：李四</p>\r\n"
+                + "<p>2025-07-01至2026-06-30，未知变量，18日6月</p>");
+    }
+
+    /**
+     * 原先ContractServiceImpl中的逐项替换
+     */
+    static String replaceChain(String content, Map<String, String> replaceValues) {
+        for (Map.Entry<String, String> entry : replaceValues.entrySet()) {
+            content = content.replace("${" + entry.getKey() + "}", entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : replaceValues.entrySet()) {
+            content = content.replace("{{" + entry.getKey() + "}}", entry.getValue());
+        }
+        content = content.replaceAll("_+年", replaceValues.get("year") + "年");
+        content = content.replaceAll("_+月", replaceValues.get("month") + "月");
+        content = content.replaceAll("_+日", replaceValues.get("day") + "日");
+        content = content.replaceAll("甲方\\s*（签字）\\s*：\\s*_+", "甲方（签字）：" + replaceValues.get("landlordName"));
+        content = content.replaceAll("乙方\\s*（签字）\\s*：\\s*_+", "乙方（签字）：" + replaceValues.get("tenantName"));
+        content = content.replaceAll("\\$\\{[^}]+\\}", "");
+        content = content.replaceAll("\\{\\{[^}]+\\}\\}", "");
+        return content;
+    }
+
+    static Map<String, String> params() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("contractNo", "HT20250618001");
+        params.put("signDate", "2025-06-18");
+        params.put("year", "2025");
+        params.put("month", "6");
+        params.put("day", "18");
+        params.put("houseTitle", "阳光小区两室一厅");
+        params.put("houseAddress", "北京市朝阳区阳光小区3号楼");
+        params.put("houseArea", "85.5");
+        params.put("houseType", "两室一厅");
+        params.put("orientation", "南北通透");
+        params.put("decoration", "精装修");
+        params.put("startDate", "2025-07-01");
+        params.put("endDate", "2026-06-30");
+        params.put("leaseTerm", "12");
+        params.put("rentAmount", "3500.00");
+        params.put("monthlyRent", "3500.00");
+        params.put("deposit", "3500.00");
+        params.put("depositAmount", "3500.00");
+        params.put("landlordName", "张三");
+        params.put("landlordIdCard", "110101199001011234");
+        params.put("landlordPhone", "13800000001");
+        params.put("userName", "李四");
+        params.put("tenantName", "李四");
+        params.put("userIdCard", "110101199202022345");
+        params.put("tenantIdCard", "110101199202022345");
+        params.put("userPhone", "13900000002");
+        params.put("tenantPhone", "13900000002");
+        params.put("penaltyAmount", "7000.00");
+        return params;
+    }
+
+    /**
+     * 读取初始化脚本中的合同模板正文（每条INSERT的第二个字符串字段）
+     */
+    static List<String> seededTemplates() throws IOException {
+        List<String> templates = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get("zufang_db.sql"), StandardCharsets.UTF_8)) {
+            if (line.startsWith(TEMPLATE_INSERT)) {
+                templates.add(sqlStrings(line).get(1));
+            }
+        }
+        return templates;
+    }
+
+    private static List<String> sqlStrings(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = null;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (current == null) {
+                if (c == '\'') {
+                    current = new StringBuilder();
+                }
+            } else if (c == '\\') {
+                char next = line.charAt(++i);
+                current.append(next == 'r' ? '\r' : next == 'n' ? '\n' : next == 't' ? '\t' : next);
+            } else if (c == '\'') {
+                values.add(current.toString());
+                current = null;
+            } else {
+                current.append(c);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,59 @@
+package com.zufang.contract;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合同渲染基准：初始化脚本中的合同模板，原先逐项替换与预编译模板的单次渲染耗时
+ * 不随单元测试执行，在项目根目录先执行 mvn test-compile，再从IDE运行main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractRenderBenchmark {
+
+    private String content;
+
+    private Map<String, String> params;
+
+    private CompiledContractTemplate compiled;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = CompiledContractTemplateTest.seededTemplates().get(0);
+        params = CompiledContractTemplateTest.params();
+        compiled = CompiledContractTemplate.compile(1L, 1, content);
+    }
+
+    @Benchmark
+    public String replaceChain() {
+        return CompiledContractTemplateTest.replaceChain(content, params);
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        return compiled.render(params);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ContractRenderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
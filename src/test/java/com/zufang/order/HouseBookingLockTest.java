@@ -0,0 +1,68 @@
+package com.zufang.order;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 房源预订锁：同一房源互斥到事务结束，不同房源互不等待，释放后不保留锁
+ */
+class HouseBookingLockTest {
+
+    private final HouseBookingLock houseBookingLock = new HouseBookingLock(200);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            completeTransaction();
+        }
+    }
+
+    @Test
+    void sameHouseWaitsUntilTransactionCompletes() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(houseBookingLock.lockUntilCompletion(1L)).isTrue();
+
+        boolean acquiredWhileHeld = CompletableFuture.supplyAsync(() -> houseBookingLock.lockUntilCompletion(1L))
+                .get(5, TimeUnit.SECONDS);
+        assertThat(acquiredWhileHeld).isFalse();
+
+        completeTransaction();
+        boolean acquiredAfterCompletion = CompletableFuture.supplyAsync(() -> houseBookingLock.lockUntilCompletion(1L))
+                .get(5, TimeUnit.SECONDS);
+        assertThat(acquiredAfterCompletion).isTrue();
+        assertThat(houseBookingLock.getStats().get("timeouts")).isEqualTo(1L);
+    }
+
+    @Test
+    void differentHousesDoNotContend() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        for (long houseId = 1; houseId <= 1000; houseId++) {
+            assertThat(houseBookingLock.lockUntilCompletion(houseId)).isTrue();
+        }
+
+        boolean otherHouse = CompletableFuture.supplyAsync(() -> houseBookingLock.lockUntilCompletion(1001L))
+                .get(5, TimeUnit.SECONDS);
+        assertThat(otherHouse).isTrue();
+        assertThat(houseBookingLock.getStats().get("contended")).isEqualTo(0L);
+        assertThat(houseBookingLock.getStats().get("lockedHouses")).isEqualTo(1000);
+
+        completeTransaction();
+        assertThat(houseBookingLock.getStats().get("lockedHouses")).isEqualTo(0);
+    }
+
+    private static void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+}
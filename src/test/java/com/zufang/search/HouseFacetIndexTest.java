@@ -0,0 +1,206 @@
+package com.zufang.search;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.zufang.dto.HouseSearchDTO;
+import com.zufang.entity.House;
+import com.zufang.event.HouseChangedEvent;
+import com.zufang.mapper.HouseMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 房源分面索引：增量更新后的查询结果与全量重建一致，全量加载读库期间的变更不会被覆盖，价格、面积为空的房源按MySQL规则参与排序
+ */
+class HouseFacetIndexTest {
+
+    private final Map<Long, House> houses = new LinkedHashMap<>();
+
+    /**
+     * 非空时下一次全量查询读完数据后等待该信号，模拟加载读库期间有变更提交
+     */
+    private volatile CountDownLatch scanGate;
+    private final CountDownLatch scanning = new CountDownLatch(1);
+
+    private HouseFacetIndex houseFacetIndex;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 全量加载使用Lambda条件构造器，需要实体的表结构信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), House.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        add(house(1L, "北京", "朝阳区", "3000", 60, 1));
+        add(house(2L, "北京", "海淀区", null, 80, 2));
+        add(house(3L, "上海", "浦东新区", "2000", null, 3));
+        add(house(4L, "北京", "朝阳区", "3000", 45, 4));
+        add(house(5L, "杭州", "西湖区", "5000", 120, 5));
+        houseFacetIndex = index();
+    }
+
+    @Test
+    void housesWithoutPriceOrAreaStayInSortedResults() {
+        assertThat(ids(houseFacetIndex, search("price", "asc"))).containsExactly(2L, 3L, 4L, 1L, 5L);
+        assertThat(ids(houseFacetIndex, search("price", "desc"))).containsExactly(5L, 1L, 4L, 3L, 2L);
+        assertThat(ids(houseFacetIndex, search("area", "asc"))).containsExactly(3L, 4L, 1L, 2L, 5L);
+        assertThat(ids(houseFacetIndex, search("area", "desc"))).containsExactly(5L, 2L, 1L, 4L, 3L);
+    }
+
+    @Test
+    void incrementalChangesMatchFullRebuild() {
+        // 改价、改区域、新上架、下架、重新上架、删除后未上架的房源
+        change(house(1L, "北京", "海淀区", null, 60, 1));
+        change(house(3L, "上海", "浦东新区", "2500", 95, 3));
+        change(house(6L, "北京", "朝阳区", "2800", 70, 6));
+        House offline = house(4L, "北京", "朝阳区", "3000", 45, 4);
+        offline.setStatus("OFFLINE");
+        change(offline);
+        change(house(4L, "北京", "东城区", "3200", 45, 4));
+        House rejected = house(5L, "杭州", "西湖区", "5000", 120, 5);
+        rejected.setStatus("REJECTED");
+        change(rejected);
+        houses.remove(5L);
+        houseFacetIndex.onHouseChanged(new HouseChangedEvent(7L));
+
+        HouseFacetIndex rebuilt = index();
+        for (HouseSearchDTO searchDTO : queries()) {
+            HouseFacetIndex.SearchResult expected = rebuilt.search(searchDTO, true);
+            HouseFacetIndex.SearchResult actual = houseFacetIndex.search(searchDTO, true);
+            assertThat(actual.getHouseIds()).isEqualTo(expected.getHouseIds());
+            assertThat(actual.getTotal()).isEqualTo(expected.getTotal());
+            assertThat(actual.getFacets()).isEqualTo(expected.getFacets());
+        }
+        assertThat(ids(houseFacetIndex, search("createTime", "desc"))).containsExactly(6L, 4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void changesCommittedDuringReloadSurviveSwap() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        scanGate = gate;
+        CompletableFuture<Void> reload = CompletableFuture.runAsync(houseFacetIndex::reload);
+        assertThat(scanning.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 加载已读到旧数据，此时新上架一套房源、改价一套房源
+        change(house(6L, "北京", "朝阳区", "2800", 70, 6));
+        change(house(1L, "北京", "朝阳区", "3500", 60, 1));
+        gate.countDown();
+        reload.get(5, TimeUnit.SECONDS);
+
+        HouseSearchDTO searchDTO = search("price", "desc");
+        searchDTO.setDistrict("朝阳区");
+        assertThat(ids(houseFacetIndex, searchDTO)).containsExactly(1L, 4L, 6L);
+    }
+
+    @Test
+    void facetsAreCountedOnlyWhenRequested() {
+        HouseSearchDTO searchDTO = search(null, null);
+
+        assertThat(houseFacetIndex.search(searchDTO, false).getFacets()).isEmpty();
+        assertThat(houseFacetIndex.search(searchDTO, true).getFacets().get(HouseFacetIndex.FACET_CITY))
+                .containsEntry("北京", 3).containsEntry("上海", 1).containsEntry("杭州", 1);
+    }
+
+    private List<HouseSearchDTO> queries() {
+        List<HouseSearchDTO> queries = new ArrayList<>();
+        for (String sortField : new String[]{"price", "area", "createTime", null}) {
+            queries.add(search(sortField, "asc"));
+            queries.add(search(sortField, "desc"));
+        }
+        HouseSearchDTO city = search("price", "asc");
+        city.setCity("北京");
+        queries.add(city);
+        HouseSearchDTO district = search(null, null);
+        district.setDistrict("朝阳区");
+        queries.add(district);
+        HouseSearchDTO range = search("area", "desc");
+        range.setMinPrice(new BigDecimal("2000"));
+        range.setMaxPrice(new BigDecimal("3000"));
+        range.setMinArea(50);
+        queries.add(range);
+        return queries;
+    }
+
+    private HouseFacetIndex index() {
+        HouseMapper houseMapper = mock(HouseMapper.class);
+        when(houseMapper.selectList(any())).thenAnswer(invocation -> {
+            List<House> read = new ArrayList<>(houses.values());
+            CountDownLatch gate = scanGate;
+            if (gate != null) {
+                scanGate = null;
+                scanning.countDown();
+                gate.await(5, TimeUnit.SECONDS);
+            }
+            return read;
+        });
+        when(houseMapper.selectById(any())).thenAnswer(invocation -> houses.get((Long) invocation.getArgument(0)));
+        HouseFacetIndex index = new HouseFacetIndex();
+        ReflectionTestUtils.setField(index, "houseMapper", houseMapper);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        index.reload();
+        return index;
+    }
+
+    /**
+     * 修改房源数据后发布变更事件，已下架的房源不再出现在全量加载结果中
+     */
+    private void change(House house) {
+        houses.put(house.getId(), house);
+        houseFacetIndex.onHouseChanged(new HouseChangedEvent(house.getId()));
+        if (!"APPROVED".equals(house.getStatus())) {
+            houses.remove(house.getId());
+        }
+    }
+
+    private void add(House house) {
+        houses.put(house.getId(), house);
+    }
+
+    private List<Long> ids(HouseFacetIndex index, HouseSearchDTO searchDTO) {
+        return index.search(searchDTO, false).getHouseIds();
+    }
+
+    private HouseSearchDTO search(String sortField, String sortOrder) {
+        HouseSearchDTO searchDTO = new HouseSearchDTO();
+        searchDTO.setSortField(sortField);
+        searchDTO.setSortOrder(sortOrder);
+        searchDTO.setPageSize(20);
+        return searchDTO;
+    }
+
+    private House house(Long id, String city, String district, String price, Integer area, int day) {
+        House house = new House();
+        house.setId(id);
+        house.setProvince("北京".equals(city) || "上海".equals(city) ? city : "浙江省");
+        house.setCity(city);
+        house.setDistrict(district);
+        house.setPrice(price == null ? null : new BigDecimal(price));
+        house.setArea(area);
+        house.setBedroomCount(2);
+        house.setRentType("WHOLE");
+        house.setHasElevator(id % 2 == 0);
+        house.setStatus("APPROVED");
+        house.setIsDeleted(0);
+        house.setCreateTime(LocalDateTime.of(2025, 6, day, 10, 0));
+        return house;
+    }
+}
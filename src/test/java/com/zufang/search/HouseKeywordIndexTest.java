@@ -0,0 +1,114 @@
+package com.zufang.search;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.zufang.entity.House;
+import com.zufang.event.HouseChangedEvent;
+import com.zufang.mapper.HouseMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 房源关键词索引：全量重建读库期间提交的房源变更不会被重建结果覆盖
+ */
+class HouseKeywordIndexTest {
+
+    private final Map<Long, House> houses = new ConcurrentHashMap<>();
+
+    /**
+     * 非空时下一次全量查询先等待该信号，模拟重建读库期间有变更提交
+     */
+    private volatile CountDownLatch scanGate;
+    private final CountDownLatch scanning = new CountDownLatch(1);
+
+    private HouseKeywordIndex houseKeywordIndex;
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), House.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        houses.put(1L, house(1L, "阳光小区两室一厅", "APPROVED"));
+        houses.put(2L, house(2L, "阳光花园一室户", "APPROVED"));
+
+        HouseMapper houseMapper = mock(HouseMapper.class);
+        when(houseMapper.selectList(any())).thenAnswer(invocation -> {
+            ArrayList<House> read = new ArrayList<>();
+            for (House house : houses.values()) {
+                if ("APPROVED".equals(house.getStatus())) {
+                    read.add(copy(house));
+                }
+            }
+            CountDownLatch gate = scanGate;
+            if (gate != null) {
+                scanGate = null;
+                scanning.countDown();
+                gate.await(5, TimeUnit.SECONDS);
+            }
+            return read;
+        });
+        when(houseMapper.selectById(any())).thenAnswer(invocation -> {
+            House house = houses.get((Long) invocation.getArgument(0));
+            return house == null ? null : copy(house);
+        });
+
+        houseKeywordIndex = new HouseKeywordIndex();
+        ReflectionTestUtils.setField(houseKeywordIndex, "houseMapper", houseMapper);
+        ReflectionTestUtils.setField(houseKeywordIndex, "enabled", true);
+        ReflectionTestUtils.setField(houseKeywordIndex, "maxCandidates", 2000);
+        houseKeywordIndex.rebuild();
+    }
+
+    @Test
+    void changesCommittedDuringRebuildSurviveSwap() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        scanGate = gate;
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(houseKeywordIndex::rebuild);
+        assertThat(scanning.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 重建已读到旧数据，此时新上架一套房源、下架一套房源
+        houses.put(3L, house(3L, "阳光公寓精装单间", "APPROVED"));
+        houseKeywordIndex.onHouseChanged(new HouseChangedEvent(3L));
+        houses.get(2L).setStatus("OFFLINE");
+        houseKeywordIndex.onHouseChanged(new HouseChangedEvent(2L));
+        gate.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertThat(houseKeywordIndex.search("阳光", false)).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    private House house(Long id, String title, String status) {
+        House house = new House();
+        house.setId(id);
+        house.setTitle(title);
+        house.setDescription("");
+        house.setAddress("北京市朝阳区");
+        house.setProvince("北京");
+        house.setCity("北京");
+        house.setDistrict("朝阳区");
+        house.setStatus(status);
+        house.setIsDeleted(0);
+        return house;
+    }
+
+    private House copy(House house) {
+        return house(house.getId(), house.getTitle(), house.getStatus());
+    }
+}
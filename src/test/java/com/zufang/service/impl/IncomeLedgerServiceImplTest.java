@@ -0,0 +1,172 @@
+package com.zufang.service.impl;
+
+import com.zufang.common.util.SummaryState;
+import com.zufang.entity.IncomeDaily;
+import com.zufang.entity.Order;
+import com.zufang.mapper.IncomeLedgerMapper;
+import com.zufang.mapper.OrderMapper;
+import com.zufang.service.IncomeLedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 收入流水：租金按租期逐日分摊，退租冲回剩余租期，汇总写入失败时异常抛给订单事务
+ */
+class IncomeLedgerServiceImplTest {
+
+    private static final Long LANDLORD_ID = 7L;
+
+    private final IncomeLedgerMapper incomeLedgerMapper = mock(IncomeLedgerMapper.class);
+    private final SummaryState summaryState = mock(SummaryState.class);
+    private final List<IncomeDaily> dailyRows = new ArrayList<>();
+
+    private IncomeLedgerServiceImpl incomeLedgerService;
+
+    @BeforeEach
+    void setUp() {
+        when(incomeLedgerMapper.insertIgnore(any())).thenReturn(1);
+        doAnswer(invocation -> {
+            dailyRows.addAll(invocation.getArgument(0));
+            return dailyRows.size();
+        }).when(incomeLedgerMapper).addDailyIncomes(anyList());
+
+        incomeLedgerService = new IncomeLedgerServiceImpl();
+        ReflectionTestUtils.setField(incomeLedgerService, "incomeLedgerMapper", incomeLedgerMapper);
+        ReflectionTestUtils.setField(incomeLedgerService, "summaryState", summaryState);
+        ReflectionTestUtils.setField(incomeLedgerService, "enabled", true);
+        ReflectionTestUtils.setField(incomeLedgerService, "available", true);
+        ReflectionTestUtils.setField(incomeLedgerService, "ready", true);
+    }
+
+    @Test
+    void paymentSpreadsRentOverLeaseDays() {
+        Order order = yearLease();
+
+        incomeLedgerService.recordPayment(order);
+
+        TreeMap<LocalDate, BigDecimal> landlordRent = rentByDate(LANDLORD_ID);
+        assertThat(landlordRent).hasSize(365);
+        assertThat(landlordRent.firstKey()).isEqualTo(order.getStartDate());
+        assertThat(landlordRent.lastKey()).isEqualTo(order.getEndDate().minusDays(1));
+        assertThat(sum(landlordRent.values())).isEqualByComparingTo("36500.00");
+        // 支付当月只计入当月的租期天数
+        assertThat(sum(landlordRent.headMap(LocalDate.of(2025, 2, 1)).values())).isEqualByComparingTo("3100.00");
+        // 不写平台汇总行，平台收入由全部房东的汇总求和
+        assertThat(rentByDate(IncomeLedgerService.PLATFORM_LANDLORD_ID)).isEmpty();
+    }
+
+    @Test
+    void terminationReversesRemainingLeaseDays() {
+        Order order = yearLease();
+        incomeLedgerService.recordPayment(order);
+        order.setActualTerminateDate(order.getStartDate().plusDays(100));
+        order.setStatus("TERMINATED");
+
+        incomeLedgerService.recordTermination(order);
+
+        TreeMap<LocalDate, BigDecimal> landlordRent = rentByDate(LANDLORD_ID);
+        assertThat(sum(landlordRent.values())).isEqualByComparingTo("10000.00");
+        assertThat(sum(landlordRent.tailMap(order.getActualTerminateDate()).values())).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void failedDailyWriteRollsBackOrderTransaction() {
+        when(incomeLedgerMapper.addDailyIncomes(anyList())).thenThrow(new IllegalStateException("deadlock"));
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThatThrownBy(() -> incomeLedgerService.recordPayment(yearLease()))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        verify(summaryState, never()).markDirty(any());
+        assertThat(incomeLedgerService.isReady()).isTrue();
+    }
+
+    @Test
+    void monthlyIncomeFromOrdersMatchesLedger() {
+        Order order = yearLease();
+        incomeLedgerService.recordPayment(order);
+        order.setActualTerminateDate(LocalDate.of(2025, 5, 20));
+        order.setStatus("TERMINATED");
+        incomeLedgerService.recordTermination(order);
+        order.setIsPenaltyPaid(true);
+        order.setPenaltyAmount(new BigDecimal("500.00"));
+        order.setPenaltyPayTime(LocalDateTime.of(2025, 5, 20, 9, 0));
+        incomeLedgerService.recordPenalty(order);
+
+        Map<String, BigDecimal> ledger = new TreeMap<>();
+        for (IncomeDaily row : dailyRows) {
+            if (row.getLandlordId().equals(LANDLORD_ID)) {
+                ledger.merge(row.getIncomeDate().toString().substring(0, 7),
+                        row.getRentIncome().add(row.getPenaltyIncome()), BigDecimal::add);
+            }
+        }
+        ledger.values().removeIf(amount -> amount.signum() == 0);
+
+        OrderMapper orderMapper = mock(OrderMapper.class);
+        when(orderMapper.selectList(any())).thenReturn(Collections.singletonList(order));
+        ReflectionTestUtils.setField(incomeLedgerService, "orderMapper", orderMapper);
+        Map<String, BigDecimal> computed = new TreeMap<>(incomeLedgerService.computeMonthlyIncome(
+                LANDLORD_ID, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)));
+        computed.values().removeIf(amount -> amount.signum() == 0);
+
+        assertThat(computed.keySet()).isEqualTo(ledger.keySet());
+        computed.forEach((month, amount) -> assertThat(amount).isEqualByComparingTo(ledger.get(month)));
+        assertThat(computed.get("2025-05")).isEqualByComparingTo("2400.00");
+    }
+
+    private Order yearLease() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setLandlordId(LANDLORD_ID);
+        order.setStartDate(LocalDate.of(2025, 1, 1));
+        order.setEndDate(LocalDate.of(2026, 1, 1));
+        order.setTotalAmount(new BigDecimal("37500.00"));
+        order.setDeposit(new BigDecimal("1000.00"));
+        order.setPayTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        order.setStatus("PAID");
+        return order;
+    }
+
+    /**
+     * 某个房东按日期合并后的租金
+     */
+    private TreeMap<LocalDate, BigDecimal> rentByDate(Long landlordId) {
+        TreeMap<LocalDate, BigDecimal> rent = new TreeMap<>();
+        for (IncomeDaily row : dailyRows) {
+            if (row.getLandlordId().equals(landlordId)) {
+                rent.merge(row.getIncomeDate(), row.getRentIncome(), BigDecimal::add);
+            }
+        }
+        return rent;
+    }
+
+    private BigDecimal sum(Collection<BigDecimal> amounts) {
+        return amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
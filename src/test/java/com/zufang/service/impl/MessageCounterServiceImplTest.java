@@ -0,0 +1,109 @@
+package com.zufang.service.impl;
+
+import com.zufang.common.util.SummaryState;
+import com.zufang.mapper.MessageCounterMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 消息计数：事务中写入失败随消息一起回滚，事务外写入失败时持久化重建标记，
+ * 其他实例写入标记后停用计数，启动时带标记的计数先重建再启用
+ */
+class MessageCounterServiceImplTest {
+
+    private final MessageCounterMapper messageCounterMapper = mock(MessageCounterMapper.class);
+    private final SummaryState summaryState = mock(SummaryState.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private MessageCounterServiceImpl messageCounterService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+
+        messageCounterService = new MessageCounterServiceImpl();
+        ReflectionTestUtils.setField(messageCounterService, "messageCounterMapper", messageCounterMapper);
+        ReflectionTestUtils.setField(messageCounterService, "summaryState", summaryState);
+        ReflectionTestUtils.setField(messageCounterService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(messageCounterService, "enabled", true);
+    }
+
+    @Test
+    void startupTrustsUnmarkedCounters() {
+        when(messageCounterMapper.selectCount(null)).thenReturn(5L);
+
+        messageCounterService.onApplicationReady();
+
+        verify(messageCounterMapper, never()).deleteAll();
+        assertThat(messageCounterService.isReady()).isTrue();
+    }
+
+    @Test
+    void startupRebuildsMarkedCounters() {
+        when(messageCounterMapper.selectCount(null)).thenReturn(5L);
+        when(summaryState.needsRebuild(SummaryState.MESSAGE_COUNTER)).thenReturn(true);
+        when(summaryState.beginRebuild(SummaryState.MESSAGE_COUNTER)).thenReturn(2L);
+
+        messageCounterService.onApplicationReady();
+
+        verify(messageCounterMapper).rebuildAll();
+        verify(summaryState).finishRebuild(SummaryState.MESSAGE_COUNTER, 2L);
+        assertThat(messageCounterService.isReady()).isTrue();
+    }
+
+    @Test
+    void failedCounterUpdateInTransactionRollsBackWithMessage() {
+        ReflectionTestUtils.setField(messageCounterService, "ready", true);
+        when(messageCounterMapper.addCounts(anyLong(), anyInt(), anyInt())).thenThrow(new IllegalStateException("db down"));
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThatThrownBy(() -> messageCounterService.onPersonalMessageCreated(1L))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        verify(summaryState, never()).markDirty(any());
+        assertThat(messageCounterService.isReady()).isTrue();
+    }
+
+    @Test
+    void failedCounterUpdateOutsideTransactionMarksCountersForRebuild() {
+        ReflectionTestUtils.setField(messageCounterService, "ready", true);
+        when(messageCounterMapper.addCounts(anyLong(), anyInt(), anyInt())).thenThrow(new IllegalStateException("db down"));
+
+        messageCounterService.onPersonalMessageCreated(1L);
+
+        verify(summaryState).markDirty(SummaryState.MESSAGE_COUNTER);
+        assertThat(messageCounterService.isReady()).isFalse();
+        assertThat(messageCounterService.countUnread(1L)).isNull();
+    }
+
+    @Test
+    void markerWrittenByAnotherInstanceDisablesCounters() {
+        ReflectionTestUtils.setField(messageCounterService, "ready", true);
+        when(summaryState.needsRebuild(SummaryState.MESSAGE_COUNTER)).thenReturn(true);
+
+        messageCounterService.checkRebuildMarker();
+
+        assertThat(messageCounterService.isReady()).isFalse();
+        verify(messageCounterMapper, never()).deleteAll();
+    }
+}
@@ -0,0 +1,70 @@
+package com.zufang.service.impl;
+
+import com.zufang.entity.Message;
+import com.zufang.mapper.MessageMapper;
+import com.zufang.mapper.MessageReadStatusMapper;
+import com.zufang.service.MessageCounterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 消息已读：同一条消息被重复或并发标记已读时，未读数只扣减一次
+ */
+class MessageServiceImplTest {
+
+    private final MessageMapper messageMapper = mock(MessageMapper.class);
+    private final MessageReadStatusMapper messageReadStatusMapper = mock(MessageReadStatusMapper.class);
+    private final MessageCounterService messageCounterService = mock(MessageCounterService.class);
+
+    private MessageServiceImpl messageService;
+
+    @BeforeEach
+    void setUp() {
+        messageService = new MessageServiceImpl();
+        ReflectionTestUtils.setField(messageService, "baseMapper", messageMapper);
+        ReflectionTestUtils.setField(messageService, "messageReadStatusMapper", messageReadStatusMapper);
+        ReflectionTestUtils.setField(messageService, "messageCounterService", messageCounterService);
+    }
+
+    @Test
+    void personalMessageDecrementsOnlyForRequestThatMarkedIt() {
+        // 两个请求都读到未读状态，条件更新只有一个成功
+        when(messageMapper.selectById(1L)).thenReturn(message(1L, false));
+        when(messageMapper.markRead(1L)).thenReturn(1, 0);
+
+        assertThat(messageService.markMessageAsRead(1L, 7L)).isTrue();
+        assertThat(messageService.markMessageAsRead(1L, 7L)).isTrue();
+        messageService.markMessageAsRead(1L);
+
+        verify(messageCounterService, times(1)).onPersonalMessageRead(7L);
+    }
+
+    @Test
+    void globalMessageDecrementsOnlyForRequestThatMarkedIt() {
+        when(messageMapper.selectById(2L)).thenReturn(message(2L, true));
+        // 第一次新增已读记录，第二次记录已存在且已是已读
+        when(messageReadStatusMapper.insertRead(2L, 7L)).thenReturn(1, 0);
+        when(messageReadStatusMapper.markRead(2L, 7L)).thenReturn(0);
+
+        assertThat(messageService.markMessageAsRead(2L, 7L)).isTrue();
+        assertThat(messageService.markMessageAsRead(2L, 7L)).isTrue();
+
+        verify(messageCounterService, times(1)).onGlobalMessageRead(7L);
+    }
+
+    private Message message(Long id, boolean global) {
+        Message message = new Message();
+        message.setId(id);
+        message.setUserId(7L);
+        message.setIsGlobal(global);
+        message.setIsRead(false);
+        return message;
+    }
+}
@@ -0,0 +1,184 @@
+package com.zufang.service.impl;
+
+import com.zufang.common.util.IdGenerator;
+import com.zufang.dto.PaymentDTO;
+import com.zufang.entity.Order;
+import com.zufang.event.OrderPaidEvent;
+import com.zufang.mapper.HouseMapper;
+import com.zufang.mapper.OrderMapper;
+import com.zufang.order.HouseBookingLock;
+import com.zufang.service.IncomeLedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 多个线程同时支付同一房源的订单：只有一个订单支付成功，房源只出租一次，只发布一次支付成功事件
+ */
+class OrderPaymentConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final long HOUSE_ID = 20L;
+
+    private OrderServiceImpl orderService;
+
+    /**
+     * 模拟数据库中的房源状态和订单状态，比较并更新在同一把锁内完成，与单行UPDATE的原子性一致
+     */
+    private String houseStatus = "APPROVED";
+    private final Map<Long, String> orderStatus = new ConcurrentHashMap<>();
+
+    private final AtomicInteger rentedTransitions = new AtomicInteger();
+    private final AtomicInteger paidOrders = new AtomicInteger();
+    private final AtomicInteger insideHouseUpdate = new AtomicInteger();
+    private final AtomicInteger maxInsideHouseUpdate = new AtomicInteger();
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        OrderMapper orderMapper = mock(OrderMapper.class);
+        HouseMapper houseMapper = mock(HouseMapper.class);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+        for (long orderId = 1; orderId <= THREADS; orderId++) {
+            orderStatus.put(orderId, "UNPAID");
+        }
+        when(orderMapper.selectById(any())).thenAnswer(invocation -> {
+            Long orderId = invocation.getArgument(0);
+            Order order = new Order();
+            order.setId(orderId);
+            order.setUserId(orderId);
+            order.setHouseId(HOUSE_ID);
+            order.setStatus(orderStatus.get(orderId));
+            order.setVersion(0);
+            return order;
+        });
+        when(orderMapper.markPaid(anyLong(), anyLong(), any(), any(), anyString())).thenAnswer(invocation -> {
+            Long orderId = invocation.getArgument(0);
+            boolean updated = orderStatus.replace(orderId, "UNPAID", "PAID");
+            if (updated) {
+                paidOrders.incrementAndGet();
+            }
+            return updated ? 1 : 0;
+        });
+        when(houseMapper.compareAndSetStatus(eq(HOUSE_ID), eq("APPROVED"), eq("RENTED"))).thenAnswer(invocation -> {
+            int inside = insideHouseUpdate.incrementAndGet();
+            maxInsideHouseUpdate.accumulateAndGet(inside, Math::max);
+            try {
+                Thread.sleep(1);
+                synchronized (this) {
+                    if (!"APPROVED".equals(houseStatus)) {
+                        return 0;
+                    }
+                    houseStatus = "RENTED";
+                    rentedTransitions.incrementAndGet();
+                    return 1;
+                }
+            } finally {
+                insideHouseUpdate.decrementAndGet();
+            }
+        });
+        doAnswer(invocation -> events.add(invocation.getArgument(0)))
+                .when(eventPublisher).publishEvent(any(ApplicationEvent.class));
+
+        orderService = new OrderServiceImpl();
+        ReflectionTestUtils.setField(orderService, "baseMapper", orderMapper);
+        ReflectionTestUtils.setField(orderService, "houseMapper", houseMapper);
+        ReflectionTestUtils.setField(orderService, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(orderService, "incomeLedgerService", mock(IncomeLedgerService.class));
+        ReflectionTestUtils.setField(orderService, "idGenerator", new IdGenerator(1));
+        ReflectionTestUtils.setField(orderService, "houseBookingLock", new HouseBookingLock(5000));
+    }
+
+    @Test
+    void onlyOneOfManyOrdersForOneHouseIsPaid() throws Exception {
+        List<Boolean> results = runConcurrently(index -> (long) index + 1);
+
+        assertThat(results.stream().filter(Boolean::booleanValue).count()).isEqualTo(1);
+        assertThat(paidOrders.get()).isEqualTo(1);
+        assertThat(orderStatus.values().stream().filter("PAID"::equals).count()).isEqualTo(1);
+        assertThat(rentedTransitions.get()).isEqualTo(1);
+        assertThat(houseStatus).isEqualTo("RENTED");
+        assertThat(events.stream().filter(event -> event instanceof OrderPaidEvent).count()).isEqualTo(1);
+        // 同一房源的状态更新在进程内串行执行
+        assertThat(maxInsideHouseUpdate.get()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedPaymentOfOneOrderIsAppliedOnce() throws Exception {
+        List<Boolean> results = runConcurrently(index -> 1L);
+
+        assertThat(results.stream().filter(Boolean::booleanValue).count()).isEqualTo(1);
+        assertThat(paidOrders.get()).isEqualTo(1);
+        assertThat(rentedTransitions.get()).isEqualTo(1);
+        assertThat(events.stream().filter(event -> event instanceof OrderPaidEvent).count()).isEqualTo(1);
+    }
+
+    /**
+     * 所有线程同时开始支付，每个线程模拟一个事务：事务结束时执行已注册的同步回调（释放房源锁）
+     */
+    private List<Boolean> runConcurrently(IntFunction<Long> orderIdOfThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Long orderId = orderIdOfThread.apply(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    PaymentDTO dto = new PaymentDTO();
+                    dto.setOrderId(orderId);
+                    dto.setPayMethod("WECHAT");
+                    return payInTransaction(dto, orderId);
+                }));
+            }
+            start.countDown();
+            List<Boolean> results = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean payInTransaction(PaymentDTO dto, Long userId) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            return orderService.payOrder(dto, userId);
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            for (TransactionSynchronization synchronization : synchronizations) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.zufang.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Redis缓存：Redis不可用期间的删除在恢复后补删，加载期间被删除的key不写回旧数据
+ */
+class RedisCacheServiceImplTest {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+
+    private RedisCacheServiceImpl redisCacheService;
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        redisCacheService = new RedisCacheServiceImpl();
+        ReflectionTestUtils.setField(redisCacheService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(redisCacheService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(redisCacheService, "enabled", true);
+        ReflectionTestUtils.setField(redisCacheService, "nearMaxSize", 100);
+        ReflectionTestUtils.setField(redisCacheService, "nearExpireSeconds", 60L);
+        ReflectionTestUtils.setField(redisCacheService, "redisRetryInterval", 30000L);
+    }
+
+    @Test
+    void deleteDuringOutageIsReplayedBeforeNextRead() {
+        when(valueOperations.get("house:1"))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"))
+                .thenReturn(null);
+        assertThat(redisCacheService.get("house:1", String.class)).isNull();
+
+        redisCacheService.delete("house:1");
+        verify(stringRedisTemplate, never()).delete(anyString());
+
+        // 暂停期结束，Redis中仍是删除前的旧值
+        ReflectionTestUtils.setField(redisCacheService, "redisUnavailableUntil", 0L);
+        assertThat(redisCacheService.get("house:1", String.class)).isNull();
+
+        InOrder inOrder = inOrder(stringRedisTemplate, valueOperations);
+        inOrder.verify(stringRedisTemplate).delete("house:1");
+        inOrder.verify(valueOperations).get("house:1");
+        assertThat(redisCacheService.getStats()).containsEntry("pendingDeletes", 0);
+    }
+
+    @Test
+    void valueLoadedBeforeDeleteIsNotWrittenBack() {
+        String value = redisCacheService.getOrLoad("house:2", String.class, 10, TimeUnit.MINUTES, () -> {
+            // 加载已读到旧数据，此时数据被修改并删除缓存
+            redisCacheService.delete("house:2");
+            return "旧数据";
+        });
+
+        assertThat(value).isEqualTo("旧数据");
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        assertThat(redisCacheService.get("house:2", String.class)).isNull();
+
+        assertThat(redisCacheService.getOrLoad("house:2", String.class, 10, TimeUnit.MINUTES, () -> "新数据"))
+                .isEqualTo("新数据");
+        verify(valueOperations).set("house:2", "\"新数据\"", 10, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,103 @@
+package com.zufang.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 统计采集：超时的指标被取消并返回兜底值，同一key的并发请求只采集一次
+ */
+class StatsCollectorTest {
+
+    private StatsCollector statsCollector;
+
+    @AfterEach
+    void tearDown() {
+        statsCollector.shutdown();
+    }
+
+    @Test
+    void timedOutMetricsAreCancelled() throws Exception {
+        statsCollector = collector(1, 100, 0);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicInteger queuedRuns = new AtomicInteger();
+        StatsCollector.Metrics metrics = new StatsCollector.Metrics()
+                .add("slow", () -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return 1L;
+                }, 0L)
+                .add("queued", queuedRuns::incrementAndGet, -1);
+
+        Map<String, Object> result = statsCollector.collect(null, metrics);
+
+        assertThat(result).containsEntry("slow", 0L).containsEntry("queued", -1);
+        assertThat(result.get(StatsCollector.PARTIAL_METRICS_KEY)).isEqualTo(List.of("slow", "queued"));
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        // 排队中的指标已取消，线程空闲后也不会再执行
+        assertThat(statsCollector.collect(null, new StatsCollector.Metrics().add("next", () -> 2L, 0L)))
+                .containsEntry("next", 2L);
+        assertThat(queuedRuns).hasValue(0);
+    }
+
+    @Test
+    void concurrentRequestsForSameKeyCollectOnce() throws Exception {
+        statsCollector = collector(4, 5000, 0);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        StatsCollector.Metrics metrics = new StatsCollector.Metrics().add("orders", () -> {
+            runs.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 42L;
+        }, 0L);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch started = new CountDownLatch(8);
+            List<Future<Map<String, Object>>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(callers.submit(() -> {
+                    started.countDown();
+                    return statsCollector.collect("admin", metrics);
+                }));
+            }
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<Map<String, Object>> request : requests) {
+                assertThat(request.get(5, TimeUnit.SECONDS)).containsEntry("orders", 42L)
+                        .doesNotContainKey(StatsCollector.PARTIAL_METRICS_KEY);
+            }
+            assertThat(runs).hasValue(1);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private StatsCollector collector(int poolSize, long timeout, long snapshotTtl) {
+        StatsCollector collector = new StatsCollector(poolSize, 10);
+        ReflectionTestUtils.setField(collector, "timeout", timeout);
+        ReflectionTestUtils.setField(collector, "snapshotTtl", snapshotTtl);
+        return collector;
+    }
+}
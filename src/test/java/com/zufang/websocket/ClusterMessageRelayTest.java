@@ -0,0 +1,133 @@
+package com.zufang.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * 多实例转发：一个实例发布的消息经Redis频道到达每个实例，由各实例投递给本地会话
+ */
+class ClusterMessageRelayTest {
+
+    private static final String CHANNEL = "zufang:websocket:outbound";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 模拟Redis频道：发布的消息依次交给所有订阅的实例
+     */
+    private final List<ClusterMessageRelay> subscribers = new ArrayList<>();
+
+    private StringRedisTemplate redisTemplate;
+    private SimpMessagingTemplate nodeAMessaging;
+    private SimpMessagingTemplate nodeBMessaging;
+    private ClusterMessageRelay nodeA;
+    private ClusterMessageRelay nodeB;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        doAnswer(invocation -> {
+            byte[] body = invocation.<String>getArgument(1).getBytes(StandardCharsets.UTF_8);
+            DefaultMessage message = new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body);
+            for (ClusterMessageRelay subscriber : subscribers) {
+                subscriber.onMessage(message, null);
+            }
+            return (long) subscribers.size();
+        }).when(redisTemplate).convertAndSend(eq(CHANNEL), anyString());
+
+        nodeAMessaging = mock(SimpMessagingTemplate.class);
+        nodeBMessaging = mock(SimpMessagingTemplate.class);
+        nodeA = relay(nodeAMessaging);
+        nodeB = relay(nodeBMessaging);
+        subscribers.add(nodeA);
+        subscribers.add(nodeB);
+    }
+
+    @Test
+    void userMessageReachesEveryInstance() {
+        Map<String, Object> payload = Collections.singletonMap("content", "你好");
+
+        boolean published = nodeA.publishToUser("42", "/queue/messages", payload);
+
+        assertThat(published).isTrue();
+        for (SimpMessagingTemplate messaging : List.of(nodeAMessaging, nodeBMessaging)) {
+            verify(messaging).convertAndSendToUser(eq("42"), eq("/queue/messages"), any(Object.class));
+            verify(messaging, never()).convertAndSend(anyString(), any(Object.class));
+        }
+        assertThat(nodeA.getStats().get("published")).isEqualTo(1L);
+        assertThat(nodeB.getStats().get("received")).isEqualTo(1L);
+    }
+
+    @Test
+    void broadcastKeepsPayloadContent() {
+        nodeB.publishToAll("/topic/broadcast", Collections.singletonMap("title", "系统维护"));
+
+        for (SimpMessagingTemplate messaging : List.of(nodeAMessaging, nodeBMessaging)) {
+            ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+            verify(messaging).convertAndSend(eq("/topic/broadcast"), payload.capture());
+            assertThat(((JsonNode) payload.getValue()).get("title").asText()).isEqualTo("系统维护");
+        }
+    }
+
+    @Test
+    void publishFailureFallsBackToLocalDelivery() {
+        doThrow(new IllegalStateException("redis down")).when(redisTemplate).convertAndSend(eq(CHANNEL), anyString());
+
+        boolean published = nodeA.publishToUser("42", "/queue/messages", "hi");
+
+        assertThat(published).isFalse();
+        assertThat(nodeA.getStats().get("publishFailures")).isEqualTo(1L);
+        verifyNoInteractions(nodeAMessaging, nodeBMessaging);
+    }
+
+    @Test
+    void otherModesDoNotPublish() {
+        ReflectionTestUtils.setField(nodeA, "brokerMode", "simple");
+
+        assertThat(nodeA.publishToAll("/topic/broadcast", "hi")).isFalse();
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void relayModeTcpClientIsOnClasspath() {
+        // mode=relay时STOMP代理转发使用Reactor Netty建立TCP连接
+        ReactorNettyTcpClient<byte[]> client = new ReactorNettyTcpClient<>("localhost", 61613, new StompReactorNettyCodec());
+        client.shutdown();
+    }
+
+    private ClusterMessageRelay relay(SimpMessagingTemplate messagingTemplate) {
+        ClusterMessageRelay relay = new ClusterMessageRelay();
+        ReflectionTestUtils.setField(relay, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(relay, "stringRedisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(relay, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(relay, "brokerMode", ClusterMessageRelay.MODE_REDIS);
+        ReflectionTestUtils.setField(relay, "channel", CHANNEL);
+        return relay;
+    }
+}
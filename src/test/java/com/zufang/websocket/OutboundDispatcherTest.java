@@ -0,0 +1,83 @@
+package com.zufang.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 出站消息分发：发送完毕后移出空队列，队列移出与新消息入队并发时同一接收者的消息不丢失、不乱序
+ */
+class OutboundDispatcherTest {
+
+    private static final int RECIPIENTS = 50;
+
+    private static final int MESSAGES = 200;
+
+    private OutboundDispatcher outboundDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboundDispatcher = new OutboundDispatcher();
+        ReflectionTestUtils.setField(outboundDispatcher, "threads", 4);
+        ReflectionTestUtils.setField(outboundDispatcher, "queueCapacity", MESSAGES);
+        outboundDispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboundDispatcher.shutdown();
+    }
+
+    @Test
+    void drainedQueuesAreRemovedAndOrderIsKept() throws Exception {
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(RECIPIENTS * MESSAGES);
+        ExecutorService producers = Executors.newFixedThreadPool(RECIPIENTS);
+        try {
+            for (int r = 0; r < RECIPIENTS; r++) {
+                String recipient = "user-" + r;
+                List<Integer> messages = Collections.synchronizedList(new ArrayList<>());
+                received.put(recipient, messages);
+                producers.execute(() -> {
+                    for (int i = 0; i < MESSAGES; i++) {
+                        int seq = i;
+                        outboundDispatcher.dispatch(recipient, null, () -> {
+                            messages.add(seq);
+                            done.countDown();
+                        });
+                        // 间歇让出，使队列在发送完毕被移出的同时有新消息入队
+                        if (i % 10 == 0) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            producers.shutdownNow();
+        }
+
+        for (List<Integer> messages : received.values()) {
+            assertThat(messages).hasSize(MESSAGES).isSorted();
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((int) outboundDispatcher.getStats().get("recipients") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(outboundDispatcher.getStats().get("recipients")).isEqualTo(0);
+        assertThat(outboundDispatcher.getStats().get("sent")).isEqualTo((long) RECIPIENTS * MESSAGES);
+    }
+}
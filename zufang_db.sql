@@ -68,7 +68,8 @@ CREATE TABLE `chat_message`  (
   PRIMARY KEY (`id`) USING BTREE,
   INDEX `idx_sender_receiver`(`sender_id` ASC, `receiver_id` ASC) USING BTREE,
   INDEX `idx_house_id`(`house_id` ASC) USING BTREE,
-  INDEX `idx_receiver_read`(`receiver_id` ASC, `is_read` ASC) USING BTREE
+  INDEX `idx_receiver_read`(`receiver_id` ASC, `is_read` ASC) USING BTREE,
+  INDEX `idx_conversation_time`(`house_id` ASC, `sender_id` ASC, `receiver_id` ASC, `create_time` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 50 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '聊天消息表' ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
@@ -124,6 +125,29 @@ INSERT INTO `chat_message` VALUES (47, 2, 1, 21, '你也好', 1, '2025-04-09 10:
 INSERT INTO `chat_message` VALUES (48, 2, 1, 21, '你好', 1, '2025-04-09 10:05:00', '2025-04-09 02:05:24', 0, 'http://113.45.161.48:9000/zufang/avatar/34552beb4dc9424f8e6006f607871cac.png', '1111');
 INSERT INTO `chat_message` VALUES (49, 2, 1, 21, '12', 1, '2025-04-09 10:05:32', '2025-04-09 02:05:39', 0, 'http://113.45.161.48:9000/zufang/avatar/34552beb4dc9424f8e6006f607871cac.png', '1111');
 
+-- ----------------------------
+-- Table structure for chat_session
+-- ----------------------------
+DROP TABLE IF EXISTS `chat_session`;
+CREATE TABLE `chat_session`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `owner_id` bigint NOT NULL COMMENT '会话所属用户ID',
+  `peer_id` bigint NOT NULL COMMENT '会话对方用户ID',
+  `house_id` bigint NOT NULL COMMENT '房源ID',
+  `last_message_id` bigint NOT NULL COMMENT '最后一条消息ID',
+  `last_message` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL COMMENT '最后一条消息内容',
+  `last_message_time` datetime NOT NULL COMMENT '最后一条消息时间',
+  `unread_count` int NOT NULL DEFAULT 0 COMMENT '对方发给本方的未读消息数',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_owner_peer_house`(`owner_id` ASC, `peer_id` ASC, `house_id` ASC) USING BTREE,
+  INDEX `idx_owner_time`(`owner_id` ASC, `last_message_time` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '聊天会话汇总表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of chat_session
+-- ----------------------------
+
 -- ----------------------------
 -- Table structure for contract
 -- ----------------------------
@@ -140,7 +164,7 @@ CREATE TABLE `contract`  (
   `end_date` date NOT NULL COMMENT '租期结束日期',
   `status` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '状态：PENDING-待签署，SIGNED-已签署，TERMINATED-已终止',
   `contract_template_id` bigint NOT NULL COMMENT '使用的合同模板ID',
-  `filled_content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '填充后的合同内容',
+  `filled_content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL COMMENT '填充后的合同内容（旧合同），新合同按模板和参数渲染',
   `party_a_signature` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '甲方签名',
   `party_b_signature` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '乙方签名',
   `sign_date` datetime NULL DEFAULT NULL COMMENT '签署日期',
@@ -148,9 +172,11 @@ CREATE TABLE `contract`  (
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `is_deleted` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
+  `template_version` int NULL DEFAULT NULL COMMENT '使用的合同模板版本',
+  `template_params` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL COMMENT '合同模板参数（JSON）',
   PRIMARY KEY (`id`) USING BTREE,
   UNIQUE INDEX `idx_contract_no`(`contract_no` ASC) USING BTREE,
-  INDEX `idx_order_id`(`order_id` ASC) USING BTREE,
+  UNIQUE INDEX `uk_order_id`(`order_id` ASC) USING BTREE,
   INDEX `idx_house_id`(`house_id` ASC) USING BTREE,
   INDEX `idx_user_id`(`user_id` ASC) USING BTREE,
   INDEX `idx_landlord_id`(`landlord_id` ASC) USING BTREE,
@@ -160,10 +186,33 @@ CREATE TABLE `contract`  (
 -- ----------------------------
 -- Records of contract
 -- ----------------------------
-INSERT INTO `contract` VALUES (11, 11, 20, 1, 2, 'CTR202504079870923E', NULL, '2025-04-07', '2025-07-06', 'SIGNED', 1, '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：CTR202504079870923E</p>\r\n<p style=\"text-align: right;\">签订日期：2025-04-07</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>李白</strong></p>\r\n<p>身份证号码：500234200309282435</p>\r\n<p>联系电话：18723577492</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>何鸿涛</strong></p>\r\n<p>身份证号码：50023420030928243X</p>\r\n<p>联系电话：13384403671</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于中央大街（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为100平方米，房屋类型为，朝向为。</p>\r\n<p>1.3 该房屋装修情况为，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共个月，自2025-04-07起至2025-07-06止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币1528.00元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金0.00元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：李白&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：何鸿涛</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：2025年4月7日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：2025年4月7日</p>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">李白（已预签）</text></svg>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"green\">租客已签名</text></svg>', '2025-04-07 14:19:58', 0.00, '2025-04-07 14:19:49', '2025-04-07 14:19:49', 0);
-INSERT INTO `contract` VALUES (12, 12, 20, 1, 2, 'CTR20250407E4CB93BC', NULL, '2025-04-07', '2025-07-06', 'SIGNED', 1, '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：CTR20250407E4CB93BC</p>\r\n<p style=\"text-align: right;\">签订日期：2025-04-07</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>李白</strong></p>\r\n<p>身份证号码：500234200309282435</p>\r\n<p>联系电话：18723577492</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>何鸿涛</strong></p>\r\n<p>身份证号码：50023420030928243X</p>\r\n<p>联系电话：13384403671</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于中央大街（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为100平方米，房屋类型为，朝向为。</p>\r\n<p>1.3 该房屋装修情况为，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共个月，自2025-04-07起至2025-07-06止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币1528.00元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金0.00元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：李白&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：何鸿涛</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：2025年4月7日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：2025年4月7日</p>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">李白（已预签）</text></svg>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"green\">租客已签名</text></svg>', '2025-04-07 14:21:31', 0.00, '2025-04-07 14:21:27', '2025-04-07 14:21:27', 0);
-INSERT INTO `contract` VALUES (13, 13, 20, 4, 2, 'CTR202504076117591F', NULL, '2025-04-07', '2025-07-06', 'PENDING', 1, '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：CTR202504076117591F</p>\r\n<p style=\"text-align: right;\">签订日期：2025-04-07</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>李白</strong></p>\r\n<p>身份证号码：500234200309282435</p>\r\n<p>联系电话：18723577492</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>123456</strong></p>\r\n<p>身份证号码：</p>\r\n<p>联系电话：17623772904</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于中央大街（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为100平方米，房屋类型为，朝向为。</p>\r\n<p>1.3 该房屋装修情况为，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共个月，自2025-04-07起至2025-07-06止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币1528.00元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金0.00元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：李白&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：123456</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：2025年4月7日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：2025年4月7日</p>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">李白（已预签）</text></svg>', NULL, NULL, 0.00, '2025-04-07 15:10:04', '2025-04-07 15:10:04', 0);
-INSERT INTO `contract` VALUES (14, 14, 20, 4, 2, 'CTR2025040733A7F220', NULL, '2025-04-07', '2025-07-06', 'SIGNED', 1, '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：CTR2025040733A7F220</p>\r\n<p style=\"text-align: right;\">签订日期：2025-04-07</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>李白</strong></p>\r\n<p>身份证号码：500234200309282435</p>\r\n<p>联系电话：18723577492</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>1232</strong></p>\r\n<p>身份证号码：500333203929102</p>\r\n<p>联系电话：17623772904</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于中央大街（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为100平方米，房屋类型为，朝向为。</p>\r\n<p>1.3 该房屋装修情况为，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共个月，自2025-04-07起至2025-07-06止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币1528.00元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金0.00元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：李白&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：1232</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：2025年4月7日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：2025年4月7日</p>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">李白（已预签）</text></svg>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"green\">租客已签名</text></svg>', '2025-04-07 15:10:55', 0.00, '2025-04-07 15:10:49', '2025-04-07 15:10:49', 0);
+INSERT INTO `contract` VALUES (11, 11, 20, 1, 2, 'CTR202504079870923E', NULL, '2025-04-07', '2025-07-06', 'SIGNED', 1, '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：CTR202504079870923E</p>\r\n<p style=\"text-align: right;\">签订日期：2025-04-07</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>李白</strong></p>\r\n<p>身份证号码：500234200309282435</p>\r\n<p>联系电话：18723577492</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>何鸿涛</strong></p>\r\n<p>身份证号码：50023420030928243X</p>\r\n<p>联系电话：13384403671</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于中央大街（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为100平方米，房屋类型为，朝向为。</p>\r\n<p>1.3 该房屋装修情况为，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共个月，自2025-04-07起至2025-07-06止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币1528.00元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金0.00元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：李白&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：何鸿涛</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：2025年4月7日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：2025年4月7日</p>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">李白（已预签）</text></svg>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"green\">租客已签名</text></svg>', '2025-04-07 14:19:58', 0.00, '2025-04-07 14:19:49', '2025-04-07 14:19:49', 0, NULL, NULL);
+INSERT INTO `contract` VALUES (12, 12, 20, 1, 2, 'CTR20250407E4CB93BC', NULL, '2025-04-07', '2025-07-06', 'SIGNED', 1, '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：CTR20250407E4CB93BC</p>\r\n<p style=\"text-align: right;\">签订日期：2025-04-07</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>李白</strong></p>\r\n<p>身份证号码：500234200309282435</p>\r\n<p>联系电话：18723577492</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>何鸿涛</strong></p>\r\n<p>身份证号码：50023420030928243X</p>\r\n<p>联系电话：13384403671</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于中央大街（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为100平方米，房屋类型为，朝向为。</p>\r\n<p>1.3 该房屋装修情况为，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共个月，自2025-04-07起至2025-07-06止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币1528.00元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金0.00元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：李白&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：何鸿涛</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：2025年4月7日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：2025年4月7日</p>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">李白（已预签）</text></svg>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"green\">租客已签名</text></svg>', '2025-04-07 14:21:31', 0.00, '2025-04-07 14:21:27', '2025-04-07 14:21:27', 0, NULL, NULL);
+INSERT INTO `contract` VALUES (13, 13, 20, 4, 2, 'CTR202504076117591F', NULL, '2025-04-07', '2025-07-06', 'PENDING', 1, '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：CTR202504076117591F</p>\r\n<p style=\"text-align: right;\">签订日期：2025-04-07</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>李白</strong></p>\r\n<p>身份证号码：500234200309282435</p>\r\n<p>联系电话：18723577492</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>123456</strong></p>\r\n<p>身份证号码：</p>\r\n<p>联系电话：17623772904</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于中央大街（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为100平方米，房屋类型为，朝向为。</p>\r\n<p>1.3 该房屋装修情况为，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共个月，自2025-04-07起至2025-07-06止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币1528.00元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金0.00元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：李白&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：123456</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：2025年4月7日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：2025年4月7日</p>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">李白（已预签）</text></svg>', NULL, NULL, 0.00, '2025-04-07 15:10:04', '2025-04-07 15:10:04', 0, NULL, NULL);
+INSERT INTO `contract` VALUES (14, 14, 20, 4, 2, 'CTR2025040733A7F220', NULL, '2025-04-07', '2025-07-06', 'SIGNED', 1, '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：CTR2025040733A7F220</p>\r\n<p style=\"text-align: right;\">签订日期：2025-04-07</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>李白</strong></p>\r\n<p>身份证号码：500234200309282435</p>\r\n<p>联系电话：18723577492</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>1232</strong></p>\r\n<p>身份证号码：500333203929102</p>\r\n<p>联系电话：17623772904</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于中央大街（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为100平方米，房屋类型为，朝向为。</p>\r\n<p>1.3 该房屋装修情况为，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共个月，自2025-04-07起至2025-07-06止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币1528.00元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金0.00元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：李白&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：1232</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：2025年4月7日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：2025年4月7日</p>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"blue\">李白（已预签）</text></svg>', 'data:image/svg+xml;utf8,<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"50\"><text x=\"10\" y=\"30\" font-family=\"Arial\" font-size=\"20\" fill=\"green\">租客已签名</text></svg>', '2025-04-07 15:10:55', 0.00, '2025-04-07 15:10:49', '2025-04-07 15:10:49', 0, NULL, NULL);
+
+-- ----------------------------
+-- Table structure for contract_outbox
+-- ----------------------------
+DROP TABLE IF EXISTS `contract_outbox`;
+CREATE TABLE `contract_outbox`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `order_id` bigint NOT NULL COMMENT '订单ID',
+  `contract_id` bigint NULL DEFAULT NULL COMMENT '生成的合同ID',
+  `status` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL DEFAULT 'PENDING' COMMENT '状态：PENDING-待生成，DONE-已生成，FAILED-重试次数用尽',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+  `next_retry_time` datetime NOT NULL COMMENT '下次重试时间',
+  `last_error` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '最近一次失败原因',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_order_id`(`order_id` ASC) USING BTREE,
+  INDEX `idx_status_retry`(`status` ASC, `next_retry_time` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '合同生成任务表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of contract_outbox
+-- ----------------------------
 
 -- ----------------------------
 -- Table structure for contract_template
@@ -176,14 +225,33 @@ CREATE TABLE `contract_template`  (
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `is_deleted` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
+  `version` int NOT NULL DEFAULT 1 COMMENT '模板版本，每次修改加1',
   PRIMARY KEY (`id`) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 3 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '合同模板表' ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
 -- Records of contract_template
 -- ----------------------------
-INSERT INTO `contract_template` VALUES (1, '标准住房租赁合同', '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：${contractNo}</p>\r\n<p style=\"text-align: right;\">签订日期：${signDate}</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>${landlordName}</strong></p>\r\n<p>身份证号码：${landlordIdCard}</p>\r\n<p>联系电话：${landlordPhone}</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>${userName}</strong></p>\r\n<p>身份证号码：${userIdCard}</p>\r\n<p>联系电话：${userPhone}</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于${houseAddress}（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为${houseArea}平方米，房屋类型为${houseType}，朝向为${orientation}。</p>\r\n<p>1.3 该房屋装修情况为${decoration}，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共${leaseTerm}个月，自${startDate}起至${endDate}止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币${monthlyRent}元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币${deposit}元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金${penaltyAmount}元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：____________________&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：____________________</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：_______年_____月_____日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：_______年_____月_____日</p>', '2025-04-05 10:00:00', '2025-04-05 10:00:00', 0);
-INSERT INTO `contract_template` VALUES (2, '商铺租赁合同', '<h1 style=\"text-align: center;\">商铺租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：${contractNo}</p>\r\n<p style=\"text-align: right;\">签订日期：${signDate}</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>${landlordName}</strong></p>\r\n<p>身份证号码：${landlordIdCard}</p>\r\n<p>联系电话：${landlordPhone}</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>${userName}</strong></p>\r\n<p>身份证号码：${userIdCard}</p>\r\n<p>联系电话：${userPhone}</p>\r\n\r\n<h3>第一条 租赁物业基本情况</h3>\r\n<p>1.1 商铺坐落于${houseAddress}（以下简称该商铺）。</p>\r\n<p>1.2 该商铺建筑面积为${houseArea}平方米。</p>\r\n<p>1.3 该商铺装修情况为${decoration}，该商铺附属设施、设备状况详见合同附件一《商铺设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共${leaseTerm}个月，自${startDate}起至${endDate}止。</p>\r\n<p>2.2 租赁期满后，乙方享有同等条件下的优先承租权，如乙方要求继续租赁，应提前60天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该商铺月租金为人民币${monthlyRent}元整。</p>\r\n<p>3.2 租金支付方式：季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币${deposit}元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 商铺用途及要求</h3>\r\n<p>4.1 该商铺用途为商业经营，乙方拟经营的业态为________________，不得擅自改变商铺约定用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，具备从事相关经营活动的合法资质，并依法办理相关证照。</p>\r\n<p>4.3 乙方应爱护并合理使用商铺及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该商铺有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该商铺及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n<p>5.3 乙方应当自行办理经营所需的相关许可证照，相关费用由乙方承担。</p>\r\n\r\n<h3>第六条 装修与改造</h3>\r\n<p>6.1 乙方对商铺进行装修、改造，须事先征得甲方书面同意，并确保装修符合消防、环保等要求。</p>\r\n<p>6.2 租赁期满或合同解除时，除甲乙双方另有约定外，乙方应将商铺恢复原状后返还甲方。</p>\r\n\r\n<h3>第七条 合同的变更、解除与终止</h3>\r\n<p>7.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>7.2 有下列情形之一的，甲方有权解除合同，收回商铺：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将商铺转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该商铺从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方未经甲方同意对商铺进行结构性改造。</p>\r\n<p>7.3 在租赁期内，甲方如需提前收回商铺，应至少提前90天书面通知乙方，并向乙方支付相当于三个月租金的补偿金。</p>\r\n<p>7.4 在租赁期内，乙方如需提前退租，应至少提前60天书面通知甲方，经甲方同意后办理退租手续，并向甲方支付相当于两个月租金的违约金。</p>\r\n\r\n<h3>第八条 违约责任</h3>\r\n<p>8.1 甲方违反本合同约定，未能及时交付该商铺或者交付的商铺不符合约定，乙方有权要求甲方按照月租金的50%支付违约金。</p>\r\n<p>8.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>8.3 乙方违反本合同约定，擅自将该商铺转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的三倍支付违约金。</p>\r\n\r\n<h3>第九条 不可抗力</h3>\r\n<p>9.1 因地震、台风、水灾、火灾等不可抗力原因导致无法履行合同的，彼此不承担违约责任，但应及时通知对方并提供相应证明。</p>\r\n<p>9.2 因不可抗力导致合同目的无法实现的，合同终止。</p>\r\n\r\n<h3>第十条 争议解决方式</h3>\r\n<p>10.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向商铺所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第十一条 其他约定事项</h3>\r\n<p>11.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>11.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：____________________&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：____________________</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：_______年_____月_____日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：_______年_____月_____日</p>', '2025-04-05 10:00:00', '2025-04-05 10:00:00', 0);
+INSERT INTO `contract_template` VALUES (1, '标准住房租赁合同', '<h1 style=\"text-align: center;\">房屋租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：${contractNo}</p>\r\n<p style=\"text-align: right;\">签订日期：${signDate}</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>${landlordName}</strong></p>\r\n<p>身份证号码：${landlordIdCard}</p>\r\n<p>联系电话：${landlordPhone}</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>${userName}</strong></p>\r\n<p>身份证号码：${userIdCard}</p>\r\n<p>联系电话：${userPhone}</p>\r\n\r\n<h3>第一条 租赁房屋基本情况</h3>\r\n<p>1.1 房屋坐落于${houseAddress}（以下简称该房屋）。</p>\r\n<p>1.2 该房屋建筑面积为${houseArea}平方米，房屋类型为${houseType}，朝向为${orientation}。</p>\r\n<p>1.3 该房屋装修情况为${decoration}，该房屋附属设施、设备状况详见合同附件一《房屋设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共${leaseTerm}个月，自${startDate}起至${endDate}止。</p>\r\n<p>2.2 租赁期满后，如乙方要求继续租赁，应提前30天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该房屋月租金为人民币${monthlyRent}元整。</p>\r\n<p>3.2 租金支付方式：月付/季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每月/季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币${deposit}元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 房屋用途及要求</h3>\r\n<p>4.1 该房屋用途为居住，乙方不得擅自改变房屋用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，不利用该房屋从事违法违规活动。</p>\r\n<p>4.3 乙方应爱护并合理使用房屋及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该房屋有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该房屋及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n\r\n<h3>第六条 合同的变更、解除与终止</h3>\r\n<p>6.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>6.2 有下列情形之一的，甲方有权解除合同，收回房屋：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将房屋转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该房屋从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方故意损坏房屋。</p>\r\n<p>6.3 在租赁期内，甲方如需提前收回房屋，应至少提前30天书面通知乙方，并与乙方协商补偿事宜。</p>\r\n<p>6.4 在租赁期内，乙方如需提前退租，应至少提前30天书面通知甲方，经甲方同意后办理退租手续。</p>\r\n\r\n<h3>第七条 违约责任</h3>\r\n<p>7.1 甲方违反本合同约定，未能及时交付该房屋或者交付的房屋不符合约定，乙方有权要求甲方按照月租金的30%支付违约金。</p>\r\n<p>7.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>7.3 乙方违反本合同约定，擅自将该房屋转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的50%支付违约金。</p>\r\n<p>7.4 乙方在租赁期内提前退租的，应支付违约金${penaltyAmount}元。</p>\r\n\r\n<h3>第八条 争议解决方式</h3>\r\n<p>8.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向房屋所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第九条 其他约定事项</h3>\r\n<p>9.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>9.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：____________________&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：____________________</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：_______年_____月_____日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：_______年_____月_____日</p>', '2025-04-05 10:00:00', '2025-04-05 10:00:00', 0, 1);
+INSERT INTO `contract_template` VALUES (2, '商铺租赁合同', '<h1 style=\"text-align: center;\">商铺租赁合同</h1>\r\n<p style=\"text-align: right;\">合同编号：${contractNo}</p>\r\n<p style=\"text-align: right;\">签订日期：${signDate}</p>\r\n\r\n<p>出租方（以下简称甲方）：<strong>${landlordName}</strong></p>\r\n<p>身份证号码：${landlordIdCard}</p>\r\n<p>联系电话：${landlordPhone}</p>\r\n\r\n<p>承租方（以下简称乙方）：<strong>${userName}</strong></p>\r\n<p>身份证号码：${userIdCard}</p>\r\n<p>联系电话：${userPhone}</p>\r\n\r\n<h3>第一条 租赁物业基本情况</h3>\r\n<p>1.1 商铺坐落于${houseAddress}（以下简称该商铺）。</p>\r\n<p>1.2 该商铺建筑面积为${houseArea}平方米。</p>\r\n<p>1.3 该商铺装修情况为${decoration}，该商铺附属设施、设备状况详见合同附件一《商铺设备设施清单》。</p>\r\n\r\n<h3>第二条 租赁期限</h3>\r\n<p>2.1 租赁期共${leaseTerm}个月，自${startDate}起至${endDate}止。</p>\r\n<p>2.2 租赁期满后，乙方享有同等条件下的优先承租权，如乙方要求继续租赁，应提前60天向甲方提出，协商一致后重新签订租赁合同。</p>\r\n\r\n<h3>第三条 租金及押金</h3>\r\n<p>3.1 该商铺月租金为人民币${monthlyRent}元整。</p>\r\n<p>3.2 租金支付方式：季付/半年付/年付。</p>\r\n<p>3.3 乙方应于每季/半年/年的第一天前支付租金。</p>\r\n<p>3.4 押金：人民币${deposit}元整，合同终止时，如乙方无违约行为且按约定结清各项费用，甲方应全额退还押金。</p>\r\n\r\n<h3>第四条 商铺用途及要求</h3>\r\n<p>4.1 该商铺用途为商业经营，乙方拟经营的业态为________________，不得擅自改变商铺约定用途。</p>\r\n<p>4.2 乙方保证遵守国家法律法规及当地政府的有关规定，具备从事相关经营活动的合法资质，并依法办理相关证照。</p>\r\n<p>4.3 乙方应爱护并合理使用商铺及其附属设施，如有损坏，应及时通知甲方并负责修复或经济赔偿。</p>\r\n\r\n<h3>第五条 相关费用的承担</h3>\r\n<p>5.1 在租赁期内，与该商铺有关的水费、电费、燃气费、网络费、物业管理费等费用由乙方承担。</p>\r\n<p>5.2 在租赁期内，该商铺及附属设施、设备保险费、房产税等由甲方承担。</p>\r\n<p>5.3 乙方应当自行办理经营所需的相关许可证照，相关费用由乙方承担。</p>\r\n\r\n<h3>第六条 装修与改造</h3>\r\n<p>6.1 乙方对商铺进行装修、改造，须事先征得甲方书面同意，并确保装修符合消防、环保等要求。</p>\r\n<p>6.2 租赁期满或合同解除时，除甲乙双方另有约定外，乙方应将商铺恢复原状后返还甲方。</p>\r\n\r\n<h3>第七条 合同的变更、解除与终止</h3>\r\n<p>7.1 经甲乙双方协商一致，可以变更或解除本合同。</p>\r\n<p>7.2 有下列情形之一的，甲方有权解除合同，收回商铺：</p>\r\n<p>&nbsp;&nbsp;a) 乙方擅自将商铺转租、分租或转让给第三方；</p>\r\n<p>&nbsp;&nbsp;b) 乙方利用该商铺从事违法经营活动；</p>\r\n<p>&nbsp;&nbsp;c) 乙方拖欠租金累计达30天以上；</p>\r\n<p>&nbsp;&nbsp;d) 乙方未经甲方同意对商铺进行结构性改造。</p>\r\n<p>7.3 在租赁期内，甲方如需提前收回商铺，应至少提前90天书面通知乙方，并向乙方支付相当于三个月租金的补偿金。</p>\r\n<p>7.4 在租赁期内，乙方如需提前退租，应至少提前60天书面通知甲方，经甲方同意后办理退租手续，并向甲方支付相当于两个月租金的违约金。</p>\r\n\r\n<h3>第八条 违约责任</h3>\r\n<p>8.1 甲方违反本合同约定，未能及时交付该商铺或者交付的商铺不符合约定，乙方有权要求甲方按照月租金的50%支付违约金。</p>\r\n<p>8.2 乙方违反本合同约定，未能按时支付租金，除应补交租金外，还应按日支付应付而未付租金的0.5%作为违约金。</p>\r\n<p>8.3 乙方违反本合同约定，擅自将该商铺转租、分租或转让给第三方，甲方有权解除合同并要求乙方按照月租金的三倍支付违约金。</p>\r\n\r\n<h3>第九条 不可抗力</h3>\r\n<p>9.1 因地震、台风、水灾、火灾等不可抗力原因导致无法履行合同的，彼此不承担违约责任，但应及时通知对方并提供相应证明。</p>\r\n<p>9.2 因不可抗力导致合同目的无法实现的，合同终止。</p>\r\n\r\n<h3>第十条 争议解决方式</h3>\r\n<p>10.1 本合同履行中如发生争议，双方应协商解决；协商不成的，可向商铺所在地的人民法院提起诉讼。</p>\r\n\r\n<h3>第十一条 其他约定事项</h3>\r\n<p>11.1 本合同未尽事宜，可由双方协商一致，签订补充协议。补充协议与本合同具有同等效力。</p>\r\n<p>11.2 本合同连同附件一经签字或盖章后生效。本合同一式两份，甲乙双方各执一份，具有同等法律效力。</p>\r\n\r\n<p>&nbsp;</p>\r\n<p>甲方（签字）：____________________&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;乙方（签字）：____________________</p>\r\n<p>&nbsp;</p>\r\n<p>签订日期：_______年_____月_____日&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;签订日期：_______年_____月_____日</p>', '2025-04-05 10:00:00', '2025-04-05 10:00:00', 0, 1);
+
+-- ----------------------------
+-- Table structure for contract_template_history
+-- ----------------------------
+DROP TABLE IF EXISTS `contract_template_history`;
+CREATE TABLE `contract_template_history`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `template_id` bigint NOT NULL COMMENT '模板ID',
+  `version` int NOT NULL COMMENT '模板版本',
+  `content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '该版本的合同正文内容',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_template_version`(`template_id` ASC, `version` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '合同模板历史版本表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of contract_template_history
+-- ----------------------------
 
 -- ----------------------------
 -- Table structure for house
@@ -226,18 +294,20 @@ CREATE TABLE `house`  (
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `is_deleted` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
+  `version` int NOT NULL DEFAULT 0 COMMENT '状态版本号，条件更新状态时加1',
   PRIMARY KEY (`id`) USING BTREE,
   INDEX `idx_owner_id`(`owner_id` ASC) USING BTREE,
   INDEX `idx_city_district`(`city` ASC, `district` ASC) USING BTREE,
   INDEX `idx_province_city`(`province_id` ASC, `city_id` ASC) USING BTREE,
-  INDEX `idx_status`(`status` ASC) USING BTREE
+  INDEX `idx_status`(`status` ASC) USING BTREE,
+  INDEX `idx_create_time_id`(`create_time` DESC, `id` DESC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 22 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '房源表' ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
 -- Records of house
 -- ----------------------------
-INSERT INTO `house` VALUES (20, '测试房源', '测试的房源', 100, 1528.00, '中央大街', '重庆市', '重庆市', '万州区', 7, 10, 29, 1, 1, 1, '东', 3, 5, '精装修', 1, 1, 'APARTMENT', 'WHOLE', 'RENTED', NULL, 'http://113.45.161.48:9000/zufang/house/fb1a55221dd1444e98506d74885a6726.jpg', 2, 1, 3, 3, 30.00, 1000.00, 0.00, '2025-04-05 15:49:06', '2025-04-07 15:11:05', 0);
-INSERT INTO `house` VALUES (21, '短发书法大赛', '发大水放大放大', 1, 2.00, '放大放大放', '江苏省', '南京市', '鼓楼区', 4, 5, 13, 1, 1, 1, '东', 3, 4, '精装修', 0, 0, 'APARTMENT', 'WHOLE', 'APPROVED', NULL, 'http://113.45.161.48:9000/zufang/house/6a848281ef0b4f9c9239f2d6b5f788d0.png', 2, 1, 12, 1, 30.00, 1000.00, 0.00, '2025-04-05 16:13:51', '2025-04-07 14:27:33', 0);
+INSERT INTO `house` VALUES (20, '测试房源', '测试的房源', 100, 1528.00, '中央大街', '重庆市', '重庆市', '万州区', 7, 10, 29, 1, 1, 1, '东', 3, 5, '精装修', 1, 1, 'APARTMENT', 'WHOLE', 'RENTED', NULL, 'http://113.45.161.48:9000/zufang/house/fb1a55221dd1444e98506d74885a6726.jpg', 2, 1, 3, 3, 30.00, 1000.00, 0.00, '2025-04-05 15:49:06', '2025-04-07 15:11:05', 0, 0);
+INSERT INTO `house` VALUES (21, '短发书法大赛', '发大水放大放大', 1, 2.00, '放大放大放', '江苏省', '南京市', '鼓楼区', 4, 5, 13, 1, 1, 1, '东', 3, 4, '精装修', 0, 0, 'APARTMENT', 'WHOLE', 'APPROVED', NULL, 'http://113.45.161.48:9000/zufang/house/6a848281ef0b4f9c9239f2d6b5f788d0.png', 2, 1, 12, 1, 30.00, 1000.00, 0.00, '2025-04-05 16:13:51', '2025-04-07 14:27:33', 0, 0);
 
 -- ----------------------------
 -- Table structure for house_comment
@@ -295,6 +365,62 @@ INSERT INTO `house_image` VALUES (22, 21, 'http://113.45.161.48:9000/zufang/hous
 INSERT INTO `house_image` VALUES (23, 21, 'http://113.45.161.48:9000/zufang/house/6f8701f4a7f34fef8b7a0686387ce350.png', 1, 0, '2025-04-07 14:27:33', '2025-04-07 14:27:33', 0);
 INSERT INTO `house_image` VALUES (24, 21, 'http://113.45.161.48:9000/zufang/house/6a848281ef0b4f9c9239f2d6b5f788d0.png', 0, 1, '2025-04-07 14:27:34', '2025-04-07 14:27:34', 0);
 
+-- ----------------------------
+-- Table structure for id_sequence
+-- ----------------------------
+DROP TABLE IF EXISTS `id_sequence`;
+CREATE TABLE `id_sequence`  (
+  `name` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '序列名称',
+  `max_value` bigint NOT NULL DEFAULT 0 COMMENT '已分配的最大值',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`name`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = 'ID号段分配表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of id_sequence
+-- ----------------------------
+
+-- ----------------------------
+-- Table structure for income_daily
+-- ----------------------------
+DROP TABLE IF EXISTS `income_daily`;
+CREATE TABLE `income_daily`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `landlord_id` bigint NOT NULL COMMENT '房东ID',
+  `income_date` date NOT NULL COMMENT '入账日期',
+  `rent_income` decimal(12, 2) NOT NULL DEFAULT 0.00 COMMENT '租金收入',
+  `penalty_income` decimal(12, 2) NOT NULL DEFAULT 0.00 COMMENT '违约金收入',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_landlord_date`(`landlord_id` ASC, `income_date` ASC) USING BTREE COMMENT '房东日期唯一索引',
+  INDEX `idx_income_date`(`income_date` ASC) USING BTREE COMMENT '平台按日期区间汇总'
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '每日收入汇总表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of income_daily
+-- ----------------------------
+
+-- ----------------------------
+-- Table structure for income_ledger_entry
+-- ----------------------------
+DROP TABLE IF EXISTS `income_ledger_entry`;
+CREATE TABLE `income_ledger_entry`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `order_id` bigint NOT NULL COMMENT '订单ID',
+  `landlord_id` bigint NOT NULL COMMENT '房东ID',
+  `entry_type` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '收入类型：RENT-租金，RENT_ADJUST-退租调整，RENT_REVERSAL-取消冲回，PENALTY-违约金',
+  `amount` decimal(12, 2) NOT NULL COMMENT '金额',
+  `income_date` date NOT NULL COMMENT '入账日期',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_order_type`(`order_id` ASC, `entry_type` ASC) USING BTREE COMMENT '订单收入类型唯一索引',
+  INDEX `idx_landlord_date`(`landlord_id` ASC, `income_date` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '收入流水表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of income_ledger_entry
+-- ----------------------------
+
 -- ----------------------------
 -- Table structure for order
 -- ----------------------------
@@ -330,21 +456,23 @@ CREATE TABLE `order`  (
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `is_deleted` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
+  `version` int NOT NULL DEFAULT 0 COMMENT '状态版本号，条件更新状态时加1',
   PRIMARY KEY (`id`) USING BTREE,
   UNIQUE INDEX `idx_order_no`(`order_no` ASC) USING BTREE,
   INDEX `idx_house_id`(`house_id` ASC) USING BTREE,
   INDEX `idx_user_id`(`user_id` ASC) USING BTREE,
   INDEX `idx_landlord_id`(`landlord_id` ASC) USING BTREE,
-  INDEX `idx_status`(`status` ASC) USING BTREE
+  INDEX `idx_status`(`status` ASC) USING BTREE,
+  INDEX `idx_create_time_id`(`create_time` DESC, `id` DESC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 15 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '订单表' ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
 -- Records of order
 -- ----------------------------
-INSERT INTO `order` VALUES (11, 'ORD20250407F8A0568F', 20, 1, 2, '2025-04-07', '2025-07-06', 1528.00, 4584.00, 30.56, 9198.56, 'PAYMENT_CANCELLED', NULL, NULL, NULL, '用户取消支付', NULL, NULL, NULL, NULL, NULL, NULL, 0.00, 0, NULL, NULL, NULL, '2025-04-07 14:19:48', '2025-04-07 14:20:07', 0);
-INSERT INTO `order` VALUES (12, 'ORD20250407D910C01E', 20, 1, 2, '2025-04-07', '2025-07-06', 1528.00, 4584.00, 30.56, 9198.56, 'TERMINATED', '2025-04-07 14:21:34', 'BANK', 'TRX202504071421347BCF4C71-013', NULL, '1', '2025-04-07 14:25:34', '2025-04-10', '2025-04-07', '不准', '2025-04-07 14:25:50', 1329.36, 1, '2025-04-07 14:26:07', 'ONLINE', '实际租期: 23/90 天, 剩余天数: 67 天', '2025-04-07 14:21:26', '2025-04-07 14:25:34', 0);
-INSERT INTO `order` VALUES (13, 'ORD2025040794F8D6EA', 20, 4, 2, '2025-04-07', '2025-07-06', 1528.00, 4584.00, 30.56, 9198.56, 'UNPAID', NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, 0.00, 0, NULL, NULL, NULL, '2025-04-07 15:10:03', '2025-04-07 15:10:03', 0);
-INSERT INTO `order` VALUES (14, 'ORD20250407AC6897FB', 20, 4, 2, '2025-04-07', '2025-07-06', 1528.00, 4584.00, 30.56, 9198.56, 'PAID', '2025-04-07 15:11:05', 'WECHAT', 'TRX2025040715110536FE87F2-83B', NULL, NULL, NULL, NULL, NULL, NULL, NULL, 0.00, 0, NULL, NULL, NULL, '2025-04-07 15:10:47', '2025-04-07 15:10:47', 0);
+INSERT INTO `order` VALUES (11, 'ORD20250407F8A0568F', 20, 1, 2, '2025-04-07', '2025-07-06', 1528.00, 4584.00, 30.56, 9198.56, 'PAYMENT_CANCELLED', NULL, NULL, NULL, '用户取消支付', NULL, NULL, NULL, NULL, NULL, NULL, 0.00, 0, NULL, NULL, NULL, '2025-04-07 14:19:48', '2025-04-07 14:20:07', 0, 0);
+INSERT INTO `order` VALUES (12, 'ORD20250407D910C01E', 20, 1, 2, '2025-04-07', '2025-07-06', 1528.00, 4584.00, 30.56, 9198.56, 'TERMINATED', '2025-04-07 14:21:34', 'BANK', 'TRX202504071421347BCF4C71-013', NULL, '1', '2025-04-07 14:25:34', '2025-04-10', '2025-04-07', '不准', '2025-04-07 14:25:50', 1329.36, 1, '2025-04-07 14:26:07', 'ONLINE', '实际租期: 23/90 天, 剩余天数: 67 天', '2025-04-07 14:21:26', '2025-04-07 14:25:34', 0, 0);
+INSERT INTO `order` VALUES (13, 'ORD2025040794F8D6EA', 20, 4, 2, '2025-04-07', '2025-07-06', 1528.00, 4584.00, 30.56, 9198.56, 'UNPAID', NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, 0.00, 0, NULL, NULL, NULL, '2025-04-07 15:10:03', '2025-04-07 15:10:03', 0, 0);
+INSERT INTO `order` VALUES (14, 'ORD20250407AC6897FB', 20, 4, 2, '2025-04-07', '2025-07-06', 1528.00, 4584.00, 30.56, 9198.56, 'PAID', '2025-04-07 15:11:05', 'WECHAT', 'TRX2025040715110536FE87F2-83B', NULL, NULL, NULL, NULL, NULL, NULL, NULL, 0.00, 0, NULL, NULL, NULL, '2025-04-07 15:10:47', '2025-04-07 15:10:47', 0, 0);
 
 -- ----------------------------
 -- Table structure for region_city
@@ -462,6 +590,22 @@ INSERT INTO `region_province` VALUES (8, '怀柔区', '怀柔区7107', '2025-04-
 INSERT INTO `region_province` VALUES (9, '密云区', '密云区588', '2025-04-05 14:50:01', '2025-04-05 06:53:11', 1);
 INSERT INTO `region_province` VALUES (10, '山东省', '山东省9853', '2025-04-07 14:28:40', '2025-04-07 14:28:40', 0);
 
+-- ----------------------------
+-- Table structure for summary_state
+-- ----------------------------
+DROP TABLE IF EXISTS `summary_state`;
+CREATE TABLE `summary_state`  (
+  `name` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '汇总表名称',
+  `dirty` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否需要重建：0-否，1-是',
+  `version` bigint NOT NULL DEFAULT 0 COMMENT '标记版本号，每次标记需要重建时加1',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`name`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '汇总表状态表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of summary_state
+-- ----------------------------
+
 -- ----------------------------
 -- Table structure for user
 -- ----------------------------
@@ -535,7 +679,9 @@ CREATE TABLE `zf_message`  (
   INDEX `idx_user_id`(`user_id` ASC) USING BTREE,
   INDEX `idx_type`(`type` ASC) USING BTREE,
   INDEX `idx_read`(`is_read` ASC) USING BTREE,
-  INDEX `idx_reference_id`(`reference_id` ASC) USING BTREE
+  INDEX `idx_reference_id`(`reference_id` ASC) USING BTREE,
+  INDEX `idx_create_time_id`(`create_time` DESC, `id` DESC) USING BTREE,
+  INDEX `idx_global`(`is_global` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 18 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '消息表' ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
@@ -547,6 +693,22 @@ INSERT INTO `zf_message` VALUES (15, 3, '测试', '测试', 'SYSTEM', 0, NULL, '
 INSERT INTO `zf_message` VALUES (16, 4, '测试', '测试', 'SYSTEM', 0, NULL, '2025-04-09 05:19:16', '2025-04-09 05:19:16', 0);
 INSERT INTO `zf_message` VALUES (17, 0, '阿斯蒂芬', '阿斯蒂芬阿斯蒂芬', 'SYSTEM', 0, NULL, '2025-04-09 13:29:07', '2025-04-09 13:29:07', 1);
 
+-- ----------------------------
+-- Table structure for zf_message_counter
+-- ----------------------------
+DROP TABLE IF EXISTS `zf_message_counter`;
+CREATE TABLE `zf_message_counter`  (
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `unread_count` int NOT NULL DEFAULT 0 COMMENT '个人未读消息数',
+  `global_read_count` int NOT NULL DEFAULT 0 COMMENT '已读的全局消息数',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`user_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '用户消息计数表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of zf_message_counter
+-- ----------------------------
+
 -- ----------------------------
 -- Table structure for zf_message_read_status
 -- ----------------------------